@@ -0,0 +1,443 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List<Character>} represented as a gap buffer of {@code char}s, with
+ * implementations of primary methods, {@code retreat} secondary method, and
+ * unboxed versions of them, for text.
+ *
+ * <p>
+ * This is {@code List4} specialized to {@code char} entries: the left string
+ * is at the start of one {@code char} array and the right string at its end,
+ * with the gap between them at the position. Characters are never boxed,
+ * except by the kernel methods, which box and unbox their arguments and
+ * results. Besides those, this class offers {@code addRightFront(char)},
+ * {@code removeRightFrontChar()}, and {@code rightFrontChar()}, which allocate
+ * nothing once the array is long enough; {@code addRightFront(CharSequence)}
+ * and {@code removeRightFront(int)}, which insert or delete a run of
+ * characters at once; and {@code leftString()} and {@code rightString()},
+ * which copy the two strings out as {@code String}s.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code addRightFront} is O(1) amortized, that
+ * of {@code moveToStart} and {@code moveToFinish} is O(|this.left|) and
+ * O(|this.right|) (as fast array copies), and that of all other kernel
+ * methods is O(1).
+ * </p>
+ *
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.text|
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.text[0, $this.gapStart),
+ *         $this.text[$this.gapEnd, |$this.text|))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class CharList extends ListSecondary<Character> {
+
+    /**
+     * Length of the array of an empty list.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Characters of this.left, then the gap, then characters of this.right.
+     */
+    private char[] text;
+
+    /**
+     * Index of the first element of the gap, which is the length of
+     * this.left.
+     */
+    private int gapStart;
+
+    /**
+     * Index just past the last element of the gap, where this.right starts.
+     */
+    private int gapEnd;
+
+    /**
+     * Makes the gap at least {@code room} long, by moving the characters into
+     * a longer array if it is not.
+     *
+     * @param room
+     *            the length the gap must have
+     * @updates $this.text, $this.gapEnd
+     * @requires room >= 0
+     * @ensures $this.gapEnd - $this.gapStart >= room and this = #this
+     */
+    private void ensureRoom(int room) {
+        if (this.gapEnd - this.gapStart < room) {
+            int length = this.gapStart + this.text.length - this.gapEnd;
+            int rightLength = this.text.length - this.gapEnd;
+            char[] larger = new char[Math.max(2 * this.text.length,
+                    length + room)];
+            System.arraycopy(this.text, 0, larger, 0, this.gapStart);
+            System.arraycopy(this.text, this.gapEnd, larger,
+                    larger.length - rightLength, rightLength);
+            this.text = larger;
+            this.gapEnd = larger.length - rightLength;
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.gapStart <= $this.gapEnd <= |$this.text|
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.gapStart && this.gapStart <= this.gapEnd
+                && this.gapEnd <= this.text.length : ""
+                        + "Violation of: 0 <= $this.gapStart <= $this.gapEnd"
+                        + " <= |$this.text|";
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.text = new char[INITIAL_CAPACITY];
+        this.gapStart = 0;
+        this.gapEnd = INITIAL_CAPACITY;
+
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public CharList() {
+
+        this.createNewRep();
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final CharList newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<Character> source) {
+        assert source instanceof CharList : ""
+                + "Violation of: source is of dynamic type CharList";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        CharList localSource = (CharList) source;
+        this.text = localSource.text;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(Character x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.addRightFront(x.charValue());
+    }
+
+    @Override
+    public final Character removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return this.removeRightFrontChar();
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.text[this.gapStart] = this.text[this.gapEnd];
+        this.gapStart++;
+        this.gapEnd++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+
+        System.arraycopy(this.text, 0, this.text, this.gapEnd - this.gapStart,
+                this.gapStart);
+        this.gapEnd -= this.gapStart;
+        this.gapStart = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.gapStart;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return this.text.length - this.gapEnd;
+    }
+
+    @Override
+    public final Iterator<Character> iterator() {
+        assert this.conventionHolds();
+        return new CharListIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code CharList}.
+     */
+    private final class CharListIterator implements Iterator<Character> {
+
+        /**
+         * Index of the next character in the array, skipping the gap.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private CharListIterator() {
+            this.current = 0;
+            if (CharList.this.gapStart == 0) {
+                this.current = CharList.this.gapEnd;
+            }
+            assert CharList.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < CharList.this.text.length;
+        }
+
+        @Override
+        public Character next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            char x = CharList.this.text[this.current];
+            this.current++;
+            if (this.current == CharList.this.gapStart) {
+                this.current = CharList.this.gapEnd;
+            }
+            assert CharList.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+
+        int rightLength = this.text.length - this.gapEnd;
+        System.arraycopy(this.text, this.gapEnd, this.text, this.gapStart,
+                rightLength);
+        this.gapStart += rightLength;
+        this.gapEnd = this.text.length;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        this.gapStart--;
+        this.gapEnd--;
+        this.text[this.gapEnd] = this.text[this.gapStart];
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final Character rightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return this.text[this.gapEnd];
+    }
+
+    @Override
+    public final Character replaceRightFront(Character x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        char front = this.text[this.gapEnd];
+        this.text[this.gapEnd] = x;
+
+        assert this.conventionHolds();
+        return front;
+    }
+
+    /*
+     * Other methods (unboxed) ------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the beginning of {@code this.right}.
+     *
+     * @param x
+     *            the character to be added
+     * @updates this.right
+     * @ensures this.right = <x> * #this.right
+     */
+    public final void addRightFront(char x) {
+        this.ensureRoom(1);
+        this.gapEnd--;
+        this.text[this.gapEnd] = x;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes and returns the entry at the front of {@code this.right}.
+     *
+     * @return the front entry of {@code this.right}
+     * @updates this.right
+     * @requires this.right /= <>
+     * @ensures <pre>
+     * #this.right = <removeRightFrontChar> * this.right
+     * </pre>
+     */
+    public final char removeRightFrontChar() {
+        assert this.gapEnd < this.text.length : ""
+                + "Violation of: this.right /= <>";
+
+        char x = this.text[this.gapEnd];
+        this.gapEnd++;
+
+        assert this.conventionHolds();
+
+        return x;
+    }
+
+    /**
+     * Reports the front of {@code this.right}.
+     *
+     * @return the front entry of {@code this.right}
+     * @requires this.right /= <>
+     * @ensures <rightFrontChar> is prefix of this.right
+     */
+    public final char rightFrontChar() {
+        assert this.gapEnd < this.text.length : ""
+                + "Violation of: this.right /= <>";
+
+        return this.text[this.gapEnd];
+    }
+
+    /**
+     * Adds the characters of {@code s}, in order, to the beginning of
+     * {@code this.right}, with one array copy.
+     *
+     * @param s
+     *            the characters to be added
+     * @updates this.right
+     * @ensures this.right = s * #this.right
+     */
+    public final void addRightFront(CharSequence s) {
+        assert s != null : "Violation of: s is not null";
+
+        int length = s.length();
+        this.ensureRoom(length);
+        this.gapEnd -= length;
+        if (s instanceof String) {
+            ((String) s).getChars(0, length, this.text, this.gapEnd);
+        } else {
+            for (int i = 0; i < length; i++) {
+                this.text[this.gapEnd + i] = s.charAt(i);
+            }
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes the first {@code count} characters of {@code this.right}.
+     *
+     * @param count
+     *            the number of characters to be removed
+     * @updates this.right
+     * @requires 0 <= count <= |this.right|
+     * @ensures <pre>
+     * #this.right = [the first count entries of #this.right] * this.right
+     * </pre>
+     */
+    public final void removeRightFront(int count) {
+        assert 0 <= count : "Violation of: 0 <= count";
+        assert count <= this.text.length - this.gapEnd : ""
+                + "Violation of: count <= |this.right|";
+
+        this.gapEnd += count;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Reports {@code this.left} as a {@code String}.
+     *
+     * @return the characters of this.left
+     * @ensures leftString = this.left
+     */
+    public final String leftString() {
+        assert this.conventionHolds();
+        return new String(this.text, 0, this.gapStart);
+    }
+
+    /**
+     * Reports {@code this.right} as a {@code String}.
+     *
+     * @return the characters of this.right
+     * @ensures rightString = this.right
+     */
+    public final String rightString() {
+        assert this.conventionHolds();
+        return new String(this.text, this.gapEnd,
+                this.text.length - this.gapEnd);
+    }
+
+}
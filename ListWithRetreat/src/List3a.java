@@ -0,0 +1,627 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as an unrolled doubly linked list, done
+ * "bare-handed", with implementations of primary methods and {@code retreat}
+ * secondary method.
+ *
+ * <p>
+ * Where {@code List3} has a node for every entry, an unrolled list keeps up to
+ * {@value #NODE_CAPACITY} entries in an array in each node, so the space for
+ * links and object headers is shared by many entries, and moving the position
+ * or iterating mostly walks along an array. The position is the node and
+ * offset of the first entry of {@code this.right}. {@code addRightFront}
+ * shifts the entries after the position within their node, and splits the
+ * node in two halves when it is full; {@code removeRightFront} shifts them
+ * back, and merges the node with a neighbor when it falls below a quarter
+ * full and both fit in one node, so except for short runs of nodes that
+ * cannot be merged, nodes stay more than a quarter full.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code addRightFront} and
+ * {@code removeRightFront} is O({@value #NODE_CAPACITY}), that is, O(1)
+ * independent of the length of the list, and that of all other methods
+ * implemented in this class is O(1).
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @convention <pre>
+ * $this.leftLength >= 0  and
+ * $this.rightLength >= 0  and
+ * [$this.preStart points to the first node of a doubly linked list,
+ *  and $this.postFinish to its last node]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.preStart, n.previous.next = n]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.postFinish, n.next.previous = n]  and
+ * $this.preStart.count = 0  and  $this.postFinish.count = 0  and
+ * [for every other node n, 0 < n.count <= NODE_CAPACITY]  and
+ * [the total of n.count over all nodes n is
+ *  $this.leftLength + $this.rightLength]  and
+ * [for every node n, n.entries[0, n.count) are not null and
+ *  n.entries[n.count, NODE_CAPACITY) are null]  and
+ * [$this.rightNode is in the doubly linked list and is not $this.preStart]
+ *  and
+ * (0 <= $this.rightOffset < $this.rightNode.count  or
+ *  ($this.rightNode = $this.postFinish  and  $this.rightOffset = 0))  and
+ * [the total of n.count over the nodes n before $this.rightNode,
+ *  plus $this.rightOffset, is $this.leftLength]
+ * </pre>
+ * @correspondence <pre>
+ * this =
+ *  ([entries[0, count) of the nodes from $this.preStart through
+ *    $this.postFinish, in order, up to $this.rightNode.entries[
+ *    $this.rightOffset] exclusive],
+ *   [the rest of them])
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class List3a<T> extends ListSecondary<T> {
+
+    /**
+     * Node class for unrolled doubly linked list nodes.
+     */
+    private final class Node {
+
+        /**
+         * Entries in node, in entries[0, count); the rest are null.
+         */
+        private T[] entries;
+
+        /**
+         * Number of entries in node; 0 iff this is a "smart" Node.
+         */
+        private int count;
+
+        /**
+         * Next node in doubly linked list, or, if this is a trailing "smart"
+         * Node, irrelevant.
+         */
+        private Node next;
+
+        /**
+         * Previous node in doubly linked list, or, if this is a leading "smart"
+         * Node, irrelevant.
+         */
+        private Node previous;
+
+        /**
+         * No-argument constructor.
+         */
+        @SuppressWarnings("unchecked")
+        private Node() {
+            /*
+             * With "new T[...]" in place of "new Object[...]" it does not
+             * compile; as shown, it results in a warning about an unchecked
+             * cast, though it cannot fail.
+             */
+            this.entries = (T[]) (new Object[NODE_CAPACITY]);
+            this.count = 0;
+        }
+
+    }
+
+    /**
+     * Maximum number of entries in a node.
+     */
+    private static final int NODE_CAPACITY = 64;
+
+    /**
+     * Number of entries below which a node is merged with a neighbor, if they
+     * fit in one node.
+     */
+    private static final int MERGE_THRESHOLD = NODE_CAPACITY / 4;
+
+    /**
+     * "Smart node" before start node of doubly linked list.
+     */
+    private Node preStart;
+
+    /**
+     * "Smart node" after finish node of linked list.
+     */
+    private Node postFinish;
+
+    /**
+     * Node holding the first entry of this.right, or postFinish if this.right
+     * is empty.
+     */
+    private Node rightNode;
+
+    /**
+     * Offset of the first entry of this.right in rightNode.entries, or 0 if
+     * this.right is empty.
+     */
+    private int rightOffset;
+
+    /**
+     * Length of this.left.
+     */
+    private int leftLength;
+
+    /**
+     * Length of this.right.
+     */
+    private int rightLength;
+
+    /**
+     * Inserts a new node, with no entries, after {@code n}.
+     *
+     * @param n
+     *            the node to insert after
+     * @return the new node
+     * @requires n is in the doubly linked list and n /= $this.postFinish
+     * @ensures <pre>
+     * insertAfter.count = 0  and  n.next = insertAfter  and
+     * insertAfter.next = #n.next
+     * </pre>
+     */
+    private Node insertAfter(Node n) {
+        Node m = new Node();
+        m.previous = n;
+        m.next = n.next;
+        n.next.previous = m;
+        n.next = m;
+        return m;
+    }
+
+    /**
+     * Removes {@code n} from the doubly linked list.
+     *
+     * @param n
+     *            the node to remove
+     * @requires <pre>
+     * n is in the doubly linked list and n /= $this.preStart and
+     * n /= $this.postFinish
+     * </pre>
+     * @ensures n.previous.next = n.next and n.next.previous = n.previous
+     */
+    private void unlink(Node n) {
+        n.previous.next = n.next;
+        n.next.previous = n.previous;
+    }
+
+    /**
+     * Moves all the entries of {@code n.next} to the end of {@code n} and
+     * removes {@code n.next} from the list, keeping the position the same.
+     *
+     * @param n
+     *            the node to merge into
+     * @updates $this
+     * @requires <pre>
+     * n and n.next are not "smart" nodes  and
+     * n.count + n.next.count <= NODE_CAPACITY
+     * </pre>
+     * @ensures this = #this
+     */
+    private void mergeWithNext(Node n) {
+        Node m = n.next;
+        System.arraycopy(m.entries, 0, n.entries, n.count, m.count);
+        if (this.rightNode == m) {
+            this.rightNode = n;
+            this.rightOffset += n.count;
+        }
+        n.count += m.count;
+        this.unlink(m);
+    }
+
+    /**
+     * Merges {@code n}, which has just had an entry removed, with a neighbor
+     * if it is less than a quarter full and both fit in one node.
+     *
+     * @param n
+     *            the node
+     * @updates $this
+     * @requires n is not a "smart" node and n.count > 0
+     * @ensures this = #this
+     */
+    private void mergeIfSparse(Node n) {
+        if (n.count < MERGE_THRESHOLD) {
+            if (n.next != this.postFinish
+                    && n.count + n.next.count <= NODE_CAPACITY) {
+                this.mergeWithNext(n);
+            } else if (n.previous != this.preStart
+                    && n.previous.count + n.count <= NODE_CAPACITY) {
+                this.mergeWithNext(n.previous);
+            }
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.leftLength >= 0  and
+     * $this.rightLength >= 0  and
+     * [$this.preStart points to the first node of a doubly linked list,
+     *  and $this.postFinish to its last node]  and
+     * [for every node n in the doubly linked list of nodes, except the one
+     *  pointed to by $this.preStart, n.previous.next = n]  and
+     * [for every node n in the doubly linked list of nodes, except the one
+     *  pointed to by $this.postFinish, n.next.previous = n]  and
+     * $this.preStart.count = 0  and  $this.postFinish.count = 0  and
+     * [for every other node n, 0 < n.count <= NODE_CAPACITY]  and
+     * [the total of n.count over all nodes n is
+     *  $this.leftLength + $this.rightLength]  and
+     * [for every node n, n.entries[0, n.count) are not null and
+     *  n.entries[n.count, NODE_CAPACITY) are null]  and
+     * [$this.rightNode is in the doubly linked list and is not
+     *  $this.preStart]  and
+     * (0 <= $this.rightOffset < $this.rightNode.count  or
+     *  ($this.rightNode = $this.postFinish  and  $this.rightOffset = 0))  and
+     * [the total of n.count over the nodes n before $this.rightNode,
+     *  plus $this.rightOffset, is $this.leftLength]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.leftLength >= 0 : "Violation of: $this.leftLength >= 0";
+        assert this.rightLength >= 0 : "Violation of: $this.rightLength >= 0";
+        assert this.preStart.count == 0 : ""
+                + "Violation of: $this.preStart.count = 0";
+        assert this.postFinish.count == 0 : ""
+                + "Violation of: $this.postFinish.count = 0";
+
+        int total = 0;
+        int beforeRight = -1;
+        Node n = this.preStart;
+        while (n != this.postFinish) {
+            if (n == this.rightNode) {
+                beforeRight = total;
+            }
+            if (n != this.preStart) {
+                assert 0 < n.count && n.count <= NODE_CAPACITY : ""
+                        + "Violation of: [for every other node n,"
+                        + " 0 < n.count <= NODE_CAPACITY]";
+            }
+            for (int i = 0; i < NODE_CAPACITY; i++) {
+                assert (n.entries[i] != null) == (i < n.count) : ""
+                        + "Violation of: [n.entries[0, n.count) are not null"
+                        + " and n.entries[n.count, NODE_CAPACITY) are null]";
+            }
+            total += n.count;
+            /*
+             * Check for every node n in the doubly linked list of nodes, except
+             * the one pointed to by $this.postFinish, n.next.previous = n
+             */
+            assert (n.next != null) && (n.next.previous == n) : ""
+                    + "Violation of: [for every node n in the doubly linked"
+                    + " list of nodes, except the one pointed to by"
+                    + " $this.postFinish, n.next.previous = n]";
+            n = n.next;
+            /*
+             * Check for every node n in the doubly linked list of nodes, except
+             * the one pointed to by $this.preStart, n.previous.next = n
+             */
+            assert n.previous.next == n : ""
+                    + "Violation of: [for every node n in the doubly linked"
+                    + " list of nodes, except the one pointed to by"
+                    + " $this.preStart, n.previous.next = n]";
+        }
+        if (n == this.rightNode) {
+            beforeRight = total;
+        }
+        assert total == this.leftLength + this.rightLength : ""
+                + "Violation of: [the total of n.count over all nodes n is"
+                + " $this.leftLength + $this.rightLength]";
+        assert beforeRight >= 0 && this.rightNode != this.preStart : ""
+                + "Violation of: [$this.rightNode is in the doubly linked"
+                + " list and is not $this.preStart]";
+        assert (0 <= this.rightOffset
+                && this.rightOffset < this.rightNode.count)
+                || (this.rightNode == this.postFinish
+                        && this.rightOffset == 0) : ""
+                                + "Violation of: [$this.rightOffset is the"
+                                + " offset of an entry, or 0 at the end]";
+        assert beforeRight + this.rightOffset == this.leftLength : ""
+                + "Violation of: [the total of n.count over the nodes n"
+                + " before $this.rightNode, plus $this.rightOffset, is"
+                + " $this.leftLength]";
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.preStart = new Node();
+        this.postFinish = new Node();
+        this.preStart.next = this.postFinish;
+        this.postFinish.previous = this.preStart;
+
+        this.rightNode = this.postFinish;
+        this.rightOffset = 0;
+        this.leftLength = 0;
+        this.rightLength = 0;
+
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List3a() {
+
+        this.createNewRep();
+
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List3a<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List3a<?> : ""
+                + "Violation of: source is of dynamic type List3a<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List3a<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        List3a<T> localSource = (List3a<T>) source;
+        this.preStart = localSource.preStart;
+        this.postFinish = localSource.postFinish;
+        this.rightNode = localSource.rightNode;
+        this.rightOffset = localSource.rightOffset;
+        this.leftLength = localSource.leftLength;
+        this.rightLength = localSource.rightLength;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node n = this.rightNode;
+        int offset = this.rightOffset;
+        if (offset == 0 && n.previous != this.preStart
+                && n.previous.count < NODE_CAPACITY) {
+            /*
+             * The position is at the start of a node (or at the end of the
+             * list) and the previous node has room: append x to it, with no
+             * shifting; this is the usual case when building a list with
+             * addRightFront and advance.
+             */
+            n = n.previous;
+            offset = n.count;
+        } else if (n == this.postFinish) {
+            n = this.insertAfter(n.previous);
+            offset = 0;
+        } else if (n.count == NODE_CAPACITY) {
+            /*
+             * Split the full node into two halves, and insert into the one
+             * the position is in.
+             */
+            Node m = this.insertAfter(n);
+            int half = NODE_CAPACITY / 2;
+            System.arraycopy(n.entries, half, m.entries, 0, half);
+            Arrays.fill(n.entries, half, NODE_CAPACITY, null);
+            n.count = half;
+            m.count = half;
+            if (offset > half) {
+                n = m;
+                offset -= half;
+            }
+        }
+        System.arraycopy(n.entries, offset, n.entries, offset + 1,
+                n.count - offset);
+        n.entries[offset] = x;
+        n.count++;
+        this.rightNode = n;
+        this.rightOffset = offset;
+        this.rightLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        Node n = this.rightNode;
+        int offset = this.rightOffset;
+        T x = n.entries[offset];
+        n.count--;
+        System.arraycopy(n.entries, offset + 1, n.entries, offset,
+                n.count - offset);
+        n.entries[n.count] = null;
+        this.rightLength--;
+        if (n.count == 0) {
+            this.rightNode = n.next;
+            this.rightOffset = 0;
+            this.unlink(n);
+        } else {
+            if (offset == n.count) {
+                this.rightNode = n.next;
+                this.rightOffset = 0;
+            }
+            this.mergeIfSparse(n);
+        }
+
+        assert this.conventionHolds();
+
+        return x;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.rightOffset++;
+        if (this.rightOffset == this.rightNode.count) {
+            this.rightNode = this.rightNode.next;
+            this.rightOffset = 0;
+        }
+        this.leftLength++;
+        this.rightLength--;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+
+        this.rightNode = this.preStart.next;
+        this.rightOffset = 0;
+        this.rightLength += this.leftLength;
+        this.leftLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.leftLength;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return this.rightLength;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List3aIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List3a}.
+     */
+    private final class List3aIterator implements Iterator<T> {
+
+        /**
+         * Current node in the linked list.
+         */
+        private Node current;
+
+        /**
+         * Offset of the next entry in the current node.
+         */
+        private int offset;
+
+        /**
+         * No-argument constructor.
+         */
+        private List3aIterator() {
+            this.current = List3a.this.preStart.next;
+            this.offset = 0;
+            assert List3a.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != List3a.this.postFinish;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.entries[this.offset];
+            this.offset++;
+            if (this.offset == this.current.count) {
+                this.current = this.current.next;
+                this.offset = 0;
+            }
+            assert List3a.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+
+        this.rightNode = this.postFinish;
+        this.rightOffset = 0;
+        this.leftLength += this.rightLength;
+        this.rightLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        if (this.rightOffset == 0) {
+            this.rightNode = this.rightNode.previous;
+            this.rightOffset = this.rightNode.count;
+        }
+        this.rightOffset--;
+        this.leftLength--;
+        this.rightLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T rightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return this.rightNode.entries[this.rightOffset];
+    }
+
+    @Override
+    public final T replaceRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        T front = this.rightNode.entries[this.rightOffset];
+        this.rightNode.entries[this.rightOffset] = x;
+
+        assert this.conventionHolds();
+
+        return front;
+    }
+
+}
@@ -0,0 +1,374 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as a gap buffer: one array holding
+ * {@code this.left} at its start and {@code this.right} at its end, with the
+ * unused part of the array, the gap, between them at the position. Done
+ * "bare-handed", with implementations of primary methods and {@code retreat}
+ * secondary method.
+ *
+ * <p>
+ * Everything happens at the edges of the gap, so operations at the position
+ * touch one or two array elements: {@code addRightFront} writes just before
+ * the right string (doubling the array when the gap is empty),
+ * {@code removeRightFront} clears that element, and {@code advance} and
+ * {@code retreat} move one entry across the gap. {@code moveToStart} and
+ * {@code moveToFinish} move the whole left or right string across the gap
+ * with a single array copy. This suits editing, where nearly all operations
+ * are at or next to the position; a list that is built once and then walked
+ * is better served by {@code List3a}.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code addRightFront} is O(1) amortized, that
+ * of {@code moveToStart} and {@code moveToFinish} is O(|this.left|) and
+ * O(|this.right|) (as fast array copies), and that of all other methods
+ * implemented in this class is O(1).
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+ * [$this.entries[0, $this.gapStart) and
+ *  $this.entries[$this.gapEnd, |$this.entries|) are not null]  and
+ * [$this.entries[$this.gapStart, $this.gapEnd) are null]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.entries[0, $this.gapStart),
+ *         $this.entries[$this.gapEnd, |$this.entries|))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class List4<T> extends ListSecondary<T> {
+
+    /**
+     * Length of the array of an empty list.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Entries of this.left, then the gap, then entries of this.right.
+     */
+    private T[] entries;
+
+    /**
+     * Index of the first element of the gap, which is the length of
+     * this.left.
+     */
+    private int gapStart;
+
+    /**
+     * Index just past the last element of the gap, where this.right starts.
+     */
+    private int gapEnd;
+
+    /**
+     * Makes the gap nonempty, by moving the entries into an array twice as
+     * long if it is empty.
+     *
+     * @updates $this.entries, $this.gapEnd
+     * @ensures $this.gapStart < $this.gapEnd and this = #this
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureRoom() {
+        if (this.gapStart == this.gapEnd) {
+            int rightLength = this.entries.length - this.gapEnd;
+            /*
+             * With "new T[...]" in place of "new Object[...]" it does not
+             * compile; as shown, it results in a warning about an unchecked
+             * cast, though it cannot fail.
+             */
+            T[] larger = (T[]) (new Object[2 * this.entries.length]);
+            System.arraycopy(this.entries, 0, larger, 0, this.gapStart);
+            System.arraycopy(this.entries, this.gapEnd, larger,
+                    larger.length - rightLength, rightLength);
+            this.entries = larger;
+            this.gapEnd = larger.length - rightLength;
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+     * [$this.entries[0, $this.gapStart) and
+     *  $this.entries[$this.gapEnd, |$this.entries|) are not null]  and
+     * [$this.entries[$this.gapStart, $this.gapEnd) are null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.gapStart && this.gapStart <= this.gapEnd
+                && this.gapEnd <= this.entries.length : ""
+                        + "Violation of: 0 <= $this.gapStart <= $this.gapEnd"
+                        + " <= |$this.entries|";
+        for (int i = 0; i < this.entries.length; i++) {
+            boolean inGap = this.gapStart <= i && i < this.gapEnd;
+            assert (this.entries[i] == null) == inGap : ""
+                    + "Violation of: [the entries outside the gap are not"
+                    + " null, and those in it are null]";
+        }
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.gapStart = 0;
+        this.gapEnd = INITIAL_CAPACITY;
+
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List4() {
+
+        this.createNewRep();
+
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List4<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List4<?> : ""
+                + "Violation of: source is of dynamic type List4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        List4<T> localSource = (List4<T>) source;
+        this.entries = localSource.entries;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.ensureRoom();
+        this.gapEnd--;
+        this.entries[this.gapEnd] = x;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        T x = this.entries[this.gapEnd];
+        this.entries[this.gapEnd] = null;
+        this.gapEnd++;
+
+        assert this.conventionHolds();
+
+        return x;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        /*
+         * The gap may be empty, in which case gapStart = gapEnd, so clear
+         * before storing.
+         */
+        T x = this.entries[this.gapEnd];
+        this.entries[this.gapEnd] = null;
+        this.entries[this.gapStart] = x;
+        this.gapStart++;
+        this.gapEnd++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+
+        int gapLength = this.gapEnd - this.gapStart;
+        System.arraycopy(this.entries, 0, this.entries, gapLength,
+                this.gapStart);
+        /*
+         * Clear the part of the new gap that the left string occupied and did
+         * not overwrite.
+         */
+        Arrays.fill(this.entries, 0, Math.min(this.gapStart, gapLength), null);
+        this.gapStart = 0;
+        this.gapEnd = gapLength;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.gapStart;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return this.entries.length - this.gapEnd;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List4}.
+     */
+    private final class List4Iterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry in the array, skipping the gap.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private List4Iterator() {
+            this.current = 0;
+            if (List4.this.gapStart == 0) {
+                this.current = List4.this.gapEnd;
+            }
+            assert List4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < List4.this.entries.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = List4.this.entries[this.current];
+            this.current++;
+            if (this.current == List4.this.gapStart) {
+                this.current = List4.this.gapEnd;
+            }
+            assert List4.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+
+        int rightLength = this.entries.length - this.gapEnd;
+        int newGapStart = this.gapStart + rightLength;
+        System.arraycopy(this.entries, this.gapEnd, this.entries,
+                this.gapStart, rightLength);
+        /*
+         * Clear the part of the new gap that the right string occupied and
+         * did not overwrite.
+         */
+        Arrays.fill(this.entries, Math.max(this.gapEnd, newGapStart),
+                this.entries.length, null);
+        this.gapStart = newGapStart;
+        this.gapEnd = this.entries.length;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        this.gapStart--;
+        this.gapEnd--;
+        T x = this.entries[this.gapStart];
+        this.entries[this.gapStart] = null;
+        this.entries[this.gapEnd] = x;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T rightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return this.entries[this.gapEnd];
+    }
+
+    @Override
+    public final T replaceRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        T front = this.entries[this.gapEnd];
+        this.entries[this.gapEnd] = x;
+
+        assert this.conventionHolds();
+
+        return front;
+    }
+
+}
@@ -0,0 +1,718 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as a balanced binary tree whose in-order labels are
+ * the entries, done "bare-handed", with implementations of primary methods,
+ * {@code retreat} secondary method, and random positioning methods.
+ *
+ * <p>
+ * Every node records the height and size of its subtree, and the tree is kept
+ * AVL-balanced, so the entry at any index is found by comparing the index with
+ * subtree sizes on a path from the root, in O(log n) steps. The position is
+ * simply the length of {@code this.left}: {@code addRightFront} and
+ * {@code removeRightFront} insert and delete at that index, and
+ * {@code advance}, {@code retreat}, {@code moveToStart}, {@code moveToFinish},
+ * and {@code seek} only change the number. Unlike the linked implementations,
+ * then, moving the position to index k does not take k steps, and
+ * {@code elementAt} reads any entry without moving it at all.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code addRightFront},
+ * {@code removeRightFront}, {@code rightFront}, {@code replaceRightFront}, and
+ * {@code elementAt} is O(log n), where n = |this.left| + |this.right|, and
+ * that of all other methods implemented in this class is O(1) (amortized, for
+ * the iterator's methods).
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the heights of the two subtrees of every node in the tree rooted at n
+ *   differ by at most one]  and
+ *  [every node in the tree rooted at n records its own height and size]  and
+ *  [every node in the tree rooted at n has a label that is not null]
+ *
+ * ENTRIES(
+ *   n: node
+ *  ): string of T is
+ *  [the labels of the tree rooted at n, in order]
+ * </pre>
+ * @convention <pre>
+ * IS_AVL($this.root)  and
+ * 0 <= $this.leftLength <= |ENTRIES($this.root)|
+ * </pre>
+ * @correspondence <pre>
+ * this = (ENTRIES($this.root)[0, $this.leftLength),
+ *         ENTRIES($this.root)[$this.leftLength, |ENTRIES($this.root)|))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class List5<T> extends ListSecondary<T> {
+
+    /**
+     * Node class for the tree; the empty tree is null.
+     *
+     * @param <T>
+     *            type of node labels
+     */
+    private static final class Node<T> {
+
+        /**
+         * Label of this node.
+         */
+        private T data;
+
+        /**
+         * Left subtree.
+         */
+        private Node<T> left;
+
+        /**
+         * Right subtree.
+         */
+        private Node<T> right;
+
+        /**
+         * Height of the tree rooted at this node.
+         */
+        private int height;
+
+        /**
+         * Number of nodes in the tree rooted at this node.
+         */
+        private int size;
+
+        /**
+         * Constructor of a one-node tree.
+         *
+         * @param data
+         *            the label
+         */
+        private Node(T data) {
+            this.data = data;
+            this.left = null;
+            this.right = null;
+            this.height = 1;
+            this.size = 1;
+        }
+
+        /**
+         * Recomputes the height and size of this node from its subtrees.
+         */
+        private void update() {
+            this.height = 1 + Math.max(height(this.left), height(this.right));
+            this.size = 1 + size(this.left) + size(this.right);
+        }
+
+    }
+
+    /**
+     * Root of the tree.
+     */
+    private Node<T> root;
+
+    /**
+     * Length of this.left.
+     */
+    private int leftLength;
+
+    /**
+     * Returns a new array of {@code length} null node references.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param length
+     *            the length of the array
+     * @return the new array
+     * @ensures |newNodes| = length
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodes(int length) {
+        /*
+         * With "new Node<T>[...]" in place of "new Node<?>[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked cast,
+         * though it cannot fail.
+         */
+        return (Node<T>[]) new Node<?>[length];
+    }
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the height of the tree
+     */
+    private static <T> int height(Node<T> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the number of nodes in the tree
+     */
+    private static <T> int size(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} to the right.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @updates n
+     * @requires n.left is not null
+     * @ensures ENTRIES(rotateRight) = ENTRIES(#n)
+     */
+    private static <T> Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        l.right = n;
+        n.update();
+        l.update();
+        return l;
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} to the left.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree
+     * @return the new root
+     * @updates n
+     * @requires n.right is not null
+     * @ensures ENTRIES(rotateLeft) = ENTRIES(#n)
+     */
+    private static <T> Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        r.left = n;
+        n.update();
+        r.update();
+        return r;
+    }
+
+    /**
+     * Updates the height and size of {@code n}, rotating if needed so that
+     * the heights of its subtrees differ by at most one.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree
+     * @return the root of the balanced tree
+     * @updates n
+     * @requires <pre>
+     * IS_AVL(n.left)  and  IS_AVL(n.right)  and
+     * |height(n.left) - height(n.right)| <= 2
+     * </pre>
+     * @ensures IS_AVL(balance) and ENTRIES(balance) = ENTRIES(#n)
+     */
+    private static <T> Node<T> balance(Node<T> n) {
+        Node<T> result = n;
+        if (height(n.left) > height(n.right) + 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            result = rotateRight(n);
+        } else if (height(n.right) > height(n.left) + 1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            result = rotateLeft(n);
+        } else {
+            n.update();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node at index {@code k} of the in-order entries of the tree
+     * rooted at {@code t}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the tree
+     * @param k
+     *            the index
+     * @return the node at index k
+     * @requires 0 <= k < size(t)
+     * @ensures nodeAt.data = ENTRIES(t)[k]
+     */
+    private static <T> Node<T> nodeAt(Node<T> t, int k) {
+        Node<T> n = t;
+        int index = k;
+        int leftSize = size(n.left);
+        while (index != leftSize) {
+            if (index < leftSize) {
+                n = n.left;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+            leftSize = size(n.left);
+        }
+        return n;
+    }
+
+    /**
+     * Returns a tree with {@code x} inserted at index {@code k} of the
+     * in-order entries of {@code t}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @param k
+     *            the index
+     * @param x
+     *            the label to be inserted
+     * @return the root of the new tree
+     * @updates t
+     * @requires IS_AVL(t) and 0 <= k <= size(t)
+     * @ensures <pre>
+     * IS_AVL(insertAt)  and
+     * ENTRIES(insertAt) = ENTRIES(#t)[0, k) * <x> * ENTRIES(#t)[k, size(#t))
+     * </pre>
+     */
+    private static <T> Node<T> insertAt(Node<T> t, int k, T x) {
+        Node<T> result;
+        if (t == null) {
+            result = new Node<T>(x);
+        } else {
+            int leftSize = size(t.left);
+            if (k <= leftSize) {
+                t.left = insertAt(t.left, k, x);
+            } else {
+                t.right = insertAt(t.right, k - leftSize - 1, x);
+            }
+            result = balance(t);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the first in-order entry of {@code t} removed; the
+     * removed node is left in {@code removed[0]}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @param removed
+     *            array in whose first element the removed node is returned
+     * @return the root of the new tree
+     * @updates t, removed
+     * @requires IS_AVL(t) and t is not null and |removed| > 0
+     * @ensures <pre>
+     * IS_AVL(removeFirst)  and
+     * ENTRIES(#t) = <removed[0].data> * ENTRIES(removeFirst)
+     * </pre>
+     */
+    private static <T> Node<T> removeFirst(Node<T> t, Node<T>[] removed) {
+        Node<T> result;
+        if (t.left == null) {
+            removed[0] = t;
+            result = t.right;
+        } else {
+            t.left = removeFirst(t.left, removed);
+            result = balance(t);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the entry at index {@code k} of the in-order entries
+     * of {@code t} removed; the removed node is left in {@code removed[0]}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @param k
+     *            the index
+     * @param removed
+     *            array in whose first element the removed node is returned
+     * @return the root of the new tree
+     * @updates t, removed
+     * @requires IS_AVL(t) and 0 <= k < size(t) and |removed| > 0
+     * @ensures <pre>
+     * IS_AVL(removeAt)  and
+     * ENTRIES(#t) = ENTRIES(removeAt)[0, k) * <removed[0].data> *
+     *   ENTRIES(removeAt)[k, size(removeAt))
+     * </pre>
+     */
+    private static <T> Node<T> removeAt(Node<T> t, int k, Node<T>[] removed) {
+        Node<T> result;
+        int leftSize = size(t.left);
+        if (k < leftSize) {
+            t.left = removeAt(t.left, k, removed);
+            result = balance(t);
+        } else if (k > leftSize) {
+            t.right = removeAt(t.right, k - leftSize - 1, removed);
+            result = balance(t);
+        } else if (t.right == null) {
+            removed[0] = t;
+            result = t.left;
+        } else {
+            /*
+             * Replace t by the first node of its right subtree.
+             */
+            Node<T> target = t;
+            Node<T> rightRest = removeFirst(t.right, removed);
+            Node<T> successor = removed[0];
+            successor.left = target.left;
+            successor.right = rightRest;
+            removed[0] = target;
+            result = balance(successor);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the tree rooted at {@code n} satisfies IS_AVL, and returns
+     * its size.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree
+     * @return size(n)
+     * @ensures [reports a violated assertion unless IS_AVL(n)]
+     */
+    private static <T> int checkAvl(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            int leftSize = checkAvl(n.left);
+            int rightSize = checkAvl(n.right);
+            assert n.data != null : "Violation of: [every label is not null]";
+            assert Math.abs(height(n.left) - height(n.right)) <= 1 : ""
+                    + "Violation of: [the heights of the two subtrees of every"
+                    + " node differ by at most one]";
+            assert n.height == 1 + Math.max(height(n.left), height(n.right))
+                    && n.size == 1 + leftSize + rightSize : ""
+                            + "Violation of: [every node records its own"
+                            + " height and size]";
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * IS_AVL($this.root)  and
+     * 0 <= $this.leftLength <= |ENTRIES($this.root)|
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int size = checkAvl(this.root);
+        assert 0 <= this.leftLength && this.leftLength <= size : ""
+                + "Violation of: 0 <= $this.leftLength <="
+                + " |ENTRIES($this.root)|";
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+        this.leftLength = 0;
+
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List5() {
+
+        this.createNewRep();
+
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List5<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List5<?> : ""
+                + "Violation of: source is of dynamic type List5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List5<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        List5<T> localSource = (List5<T>) source;
+        this.root = localSource.root;
+        this.leftLength = localSource.leftLength;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.root = insertAt(this.root, this.leftLength, x);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        Node<T>[] removed = newNodes(1);
+        this.root = removeAt(this.root, this.leftLength, removed);
+
+        assert this.conventionHolds();
+
+        return removed[0].data;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.leftLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+
+        this.leftLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.leftLength;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return size(this.root) - this.leftLength;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List5}: an
+     * in-order traversal of the tree.
+     */
+    private final class List5Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top.
+         */
+        private final Deque<Node<T>> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private List5Iterator() {
+            this.pending = new ArrayDeque<Node<T>>();
+            this.pushLeftPath(List5.this.root);
+            assert List5.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its left descendants, down to the first node of
+         * its tree.
+         *
+         * @param n
+         *            the root of the tree
+         * @updates this.pending
+         */
+        private void pushLeftPath(Node<T> n) {
+            Node<T> p = n;
+            while (p != null) {
+                this.pending.push(p);
+                p = p.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.pending.pop();
+            this.pushLeftPath(n.right);
+            assert List5.this.conventionHolds();
+            return n.data;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+
+        this.leftLength = size(this.root);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        this.leftLength--;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T rightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return nodeAt(this.root, this.leftLength).data;
+    }
+
+    @Override
+    public final T replaceRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        Node<T> n = nodeAt(this.root, this.leftLength);
+        T front = n.data;
+        n.data = x;
+
+        assert this.conventionHolds();
+
+        return front;
+    }
+
+    /*
+     * Other methods (random positioning) -------------------------------------
+     */
+
+    /**
+     * Moves the position to index {@code k}, so that {@code this.left} has
+     * length {@code k}.
+     *
+     * @param k
+     *            the new length of this.left
+     * @updates this
+     * @requires 0 <= k <= |this.left| + |this.right|
+     * @ensures <pre>
+     * this.left * this.right = #this.left * #this.right  and
+     * |this.left| = k
+     * </pre>
+     */
+    public final void seek(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k <= size(this.root) : ""
+                + "Violation of: k <= |this.left| + |this.right|";
+
+        this.leftLength = k;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Reports the entry at index {@code k} of {@code this.left * this.right},
+     * without moving the position.
+     *
+     * @param k
+     *            the index
+     * @return the entry at index k
+     * @requires 0 <= k < |this.left| + |this.right|
+     * @ensures <elementAt> = (this.left * this.right)[k, k + 1)
+     */
+    public final T elementAt(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < size(this.root) : ""
+                + "Violation of: k < |this.left| + |this.right|";
+
+        return nodeAt(this.root, k).data;
+    }
+
+}
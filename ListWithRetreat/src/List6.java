@@ -0,0 +1,926 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as a rope: a persistent (immutable) balanced binary
+ * tree whose leaves hold the entries in chunks, done "bare-handed", with
+ * implementations of primary methods, {@code retreat} and {@code append}
+ * secondary methods, and methods for splitting and extracting sublists.
+ *
+ * <p>
+ * Each leaf holds an array of 1 to {@value #CHUNK_CAPACITY} entries, and each
+ * internal node just joins two subtrees, recording the height and size of the
+ * tree it roots; the entries are those of the leaves, from left to right, and
+ * the tree is kept AVL-balanced. Nodes are never changed once built: an update
+ * copies only the nodes on the path from the root to the place it changes,
+ * O(log n) of them plus one leaf, and shares the rest of the tree with the
+ * previous version. That makes bulk operations cheap: {@code append} joins two
+ * trees, {@code split} and {@code sublist} cut one along a path, all in
+ * O(log n) time and without copying any entries, and the pieces may go on
+ * sharing subtrees with each other and with the original, since none of them
+ * can change.
+ * </p>
+ *
+ * <p>
+ * As in {@code List5}, the position is the length of {@code this.left}, so
+ * {@code advance}, {@code retreat}, {@code moveToStart}, {@code moveToFinish},
+ * and {@code seek} only change a number. Execution-time performance of
+ * {@code addRightFront}, {@code removeRightFront}, {@code rightFront},
+ * {@code replaceRightFront}, {@code elementAt}, {@code append} (of another
+ * {@code List6}), {@code split}, and {@code sublist} is O(log n), where n is
+ * the number of entries involved, and that of all other methods implemented
+ * in this class is O(1) (amortized, for the iterator's methods).
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @mathdefinitions <pre>
+ * IS_ROPE(
+ *   n: node
+ *  ): boolean satisfies
+ *  [every leaf of the tree rooted at n has an array of between 1 and
+ *   CHUNK_CAPACITY entries, none of them null]  and
+ *  [every internal node of the tree rooted at n has two subtrees, whose
+ *   heights differ by at most one]  and
+ *  [every node in the tree rooted at n records its own height and size]
+ *
+ * ENTRIES(
+ *   n: node
+ *  ): string of T is
+ *  [the entries of the leaves of the tree rooted at n, from left to right]
+ * </pre>
+ * @convention <pre>
+ * ($this.root = null  or  IS_ROPE($this.root))  and
+ * 0 <= $this.leftLength <= |ENTRIES($this.root)|
+ * </pre>
+ * @correspondence <pre>
+ * this = (ENTRIES($this.root)[0, $this.leftLength),
+ *         ENTRIES($this.root)[$this.leftLength, |ENTRIES($this.root)|))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class List6<T> extends ListSecondary<T> {
+
+    /**
+     * Immutable node class for the rope; the empty rope is null.
+     *
+     * @param <T>
+     *            type of entries
+     */
+    private static final class Node<T> {
+
+        /**
+         * Entries of this leaf, or null if this is an internal node.
+         */
+        private final T[] entries;
+
+        /**
+         * Left subtree, or null if this is a leaf.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree, or null if this is a leaf.
+         */
+        private final Node<T> right;
+
+        /**
+         * Height of the tree rooted at this node; 1 for a leaf.
+         */
+        private final int height;
+
+        /**
+         * Number of entries in the tree rooted at this node.
+         */
+        private final int size;
+
+        /**
+         * Constructor of a leaf.
+         *
+         * @param entries
+         *            the entries, which must not be changed afterwards
+         */
+        private Node(T[] entries) {
+            this.entries = entries;
+            this.left = null;
+            this.right = null;
+            this.height = 1;
+            this.size = entries.length;
+        }
+
+        /**
+         * Constructor of an internal node.
+         *
+         * @param left
+         *            the left subtree
+         * @param right
+         *            the right subtree
+         */
+        private Node(Node<T> left, Node<T> right) {
+            this.entries = null;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(left.height, right.height);
+            this.size = left.size + right.size;
+        }
+
+    }
+
+    /**
+     * Maximum number of entries in a leaf.
+     */
+    private static final int CHUNK_CAPACITY = 64;
+
+    /**
+     * Root of the rope, or null if it is empty.
+     */
+    private Node<T> root;
+
+    /**
+     * Length of this.left.
+     */
+    private int leftLength;
+
+    /**
+     * Returns a new array of {@code length} null node references.
+     *
+     * @param <T>
+     *            type of entries
+     * @param length
+     *            the length of the array
+     * @return the new array
+     * @ensures |newNodes| = length
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodes(int length) {
+        /*
+         * With "new Node<T>[...]" in place of "new Node<?>[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked cast,
+         * though it cannot fail.
+         */
+        return (Node<T>[]) new Node<?>[length];
+    }
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of entries
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the height of the tree
+     */
+    private static <T> int height(Node<T> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of entries in the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of entries
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the number of entries in the tree
+     */
+    private static <T> int size(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Builds a new internal node with the given subtrees, rotating if needed
+     * so that their heights differ by at most one.
+     *
+     * @param <T>
+     *            type of entries
+     * @param left
+     *            the left subtree
+     * @param right
+     *            the right subtree
+     * @return the root of the balanced tree
+     * @requires <pre>
+     * IS_ROPE(left)  and  IS_ROPE(right)  and
+     * |height(left) - height(right)| <= 2
+     * </pre>
+     * @ensures <pre>
+     * IS_ROPE(balance)  and
+     * ENTRIES(balance) = ENTRIES(left) * ENTRIES(right)
+     * </pre>
+     */
+    private static <T> Node<T> balance(Node<T> left, Node<T> right) {
+        Node<T> result;
+        if (left.height > right.height + 1) {
+            if (left.left.height >= left.right.height) {
+                // Single right rotation.
+                result = new Node<T>(left.left,
+                        new Node<T>(left.right, right));
+            } else {
+                // Double (left-right) rotation.
+                Node<T> lr = left.right;
+                result = new Node<T>(new Node<T>(left.left, lr.left),
+                        new Node<T>(lr.right, right));
+            }
+        } else if (right.height > left.height + 1) {
+            if (right.right.height >= right.left.height) {
+                // Single left rotation.
+                result = new Node<T>(new Node<T>(left, right.left),
+                        right.right);
+            } else {
+                // Double (right-left) rotation.
+                Node<T> rl = right.left;
+                result = new Node<T>(new Node<T>(left, rl.left),
+                        new Node<T>(rl.right, right.right));
+            }
+        } else {
+            result = new Node<T>(left, right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a rope with the entries of {@code left} followed by those of
+     * {@code right}, sharing both.
+     *
+     * @param <T>
+     *            type of entries
+     * @param left
+     *            the first rope, or null
+     * @param right
+     *            the second rope, or null
+     * @return the root of the joined rope, or null if both are empty
+     * @requires <pre>
+     * (left = null  or  IS_ROPE(left))  and  (right = null  or  IS_ROPE(right))
+     * </pre>
+     * @ensures <pre>
+     * (join = null  or  IS_ROPE(join))  and
+     * ENTRIES(join) = ENTRIES(left) * ENTRIES(right)  and
+     * [join takes O(|height(left) - height(right)| + 1) time]
+     * </pre>
+     */
+    private static <T> Node<T> join(Node<T> left, Node<T> right) {
+        Node<T> result;
+        if (left == null) {
+            result = right;
+        } else if (right == null) {
+            result = left;
+        } else if (left.height > right.height + 1) {
+            result = balance(left.left, join(left.right, right));
+        } else if (right.height > left.height + 1) {
+            result = balance(join(left, right.left), right.right);
+        } else {
+            result = new Node<T>(left, right);
+        }
+        return result;
+    }
+
+    /**
+     * Splits the rope {@code t} after its first {@code k} entries: leaves a
+     * rope of those entries in {@code pieces[0]} and one of the rest in
+     * {@code pieces[1]}, both sharing the nodes of {@code t} off the path to
+     * index k.
+     *
+     * @param <T>
+     *            type of entries
+     * @param t
+     *            the rope to split, or null
+     * @param k
+     *            the number of entries in the first piece
+     * @param pieces
+     *            array in which the two pieces are returned
+     * @updates pieces
+     * @requires <pre>
+     * (t = null  or  IS_ROPE(t))  and  0 <= k <= size(t)  and  |pieces| >= 2
+     * </pre>
+     * @ensures <pre>
+     * ENTRIES(pieces[0]) = ENTRIES(t)[0, k)  and
+     * ENTRIES(pieces[1]) = ENTRIES(t)[k, size(t))  and
+     * [each of pieces[0] and pieces[1] is null or satisfies IS_ROPE]
+     * </pre>
+     */
+    private static <T> void split(Node<T> t, int k, Node<T>[] pieces) {
+        if (k == 0) {
+            pieces[0] = null;
+            pieces[1] = t;
+        } else if (k == size(t)) {
+            pieces[0] = t;
+            pieces[1] = null;
+        } else if (t.entries != null) {
+            pieces[0] = new Node<T>(Arrays.copyOfRange(t.entries, 0, k));
+            pieces[1] = new Node<T>(
+                    Arrays.copyOfRange(t.entries, k, t.entries.length));
+        } else if (k <= t.left.size) {
+            split(t.left, k, pieces);
+            pieces[1] = join(pieces[1], t.right);
+        } else {
+            split(t.right, k - t.left.size, pieces);
+            pieces[0] = join(t.left, pieces[0]);
+        }
+    }
+
+    /**
+     * Returns the entry at index {@code k} of the rope {@code t}.
+     *
+     * @param <T>
+     *            type of entries
+     * @param t
+     *            the rope
+     * @param k
+     *            the index
+     * @return the entry at index k
+     * @requires IS_ROPE(t) and 0 <= k < size(t)
+     * @ensures entryAt = ENTRIES(t)[k]
+     */
+    private static <T> T entryAt(Node<T> t, int k) {
+        Node<T> n = t;
+        int index = k;
+        while (n.entries == null) {
+            if (index < n.left.size) {
+                n = n.left;
+            } else {
+                index -= n.left.size;
+                n = n.right;
+            }
+        }
+        return n.entries[index];
+    }
+
+    /**
+     * Returns a rope with the entries of {@code t}, but {@code x} inserted at
+     * index {@code k}, or put in place of the entry there if
+     * {@code replace}; it shares every node of {@code t} that is not on the
+     * path to index k.
+     *
+     * @param <T>
+     *            type of entries
+     * @param t
+     *            the original rope
+     * @param k
+     *            the index
+     * @param x
+     *            the entry
+     * @param replace
+     *            whether x replaces the entry at index k
+     * @return the root of the new rope
+     * @requires <pre>
+     * IS_ROPE(t)  and
+     * (0 <= k <= size(t)  and  not replace  or  0 <= k < size(t))
+     * </pre>
+     * @ensures <pre>
+     * IS_ROPE(insertAt)  and
+     * if replace then
+     *   ENTRIES(insertAt) =
+     *     ENTRIES(t)[0, k) * <x> * ENTRIES(t)[k + 1, size(t))
+     * else
+     *   ENTRIES(insertAt) = ENTRIES(t)[0, k) * <x> * ENTRIES(t)[k, size(t))
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> insertAt(Node<T> t, int k, T x,
+            boolean replace) {
+        Node<T> result;
+        if (t.entries != null) {
+            T[] old = t.entries;
+            if (replace) {
+                T[] entries = old.clone();
+                entries[k] = x;
+                result = new Node<T>(entries);
+            } else {
+                /*
+                 * With "new T[...]" in place of "new Object[...]" it does not
+                 * compile; as shown, it results in a warning about an
+                 * unchecked cast, though it cannot fail.
+                 */
+                T[] entries = (T[]) (new Object[old.length + 1]);
+                System.arraycopy(old, 0, entries, 0, k);
+                entries[k] = x;
+                System.arraycopy(old, k, entries, k + 1, old.length - k);
+                if (entries.length <= CHUNK_CAPACITY) {
+                    result = new Node<T>(entries);
+                } else {
+                    int half = entries.length / 2;
+                    result = new Node<T>(
+                            new Node<T>(Arrays.copyOfRange(entries, 0, half)),
+                            new Node<T>(Arrays.copyOfRange(entries, half,
+                                    entries.length)));
+                }
+            }
+        } else if (k < t.left.size
+                || (k == t.left.size && !replace)) {
+            result = balance(insertAt(t.left, k, x, replace), t.right);
+        } else {
+            result = balance(t.left,
+                    insertAt(t.right, k - t.left.size, x, replace));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a rope with the entries of {@code t} except the one at index
+     * {@code k}, sharing every node of {@code t} that is not on the path to
+     * index k.
+     *
+     * @param <T>
+     *            type of entries
+     * @param t
+     *            the original rope
+     * @param k
+     *            the index
+     * @return the root of the new rope, or null if it is empty
+     * @requires IS_ROPE(t) and 0 <= k < size(t)
+     * @ensures <pre>
+     * (removeAt = null  or  IS_ROPE(removeAt))  and
+     * ENTRIES(removeAt) = ENTRIES(t)[0, k) * ENTRIES(t)[k + 1, size(t))
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> removeAt(Node<T> t, int k) {
+        Node<T> result;
+        if (t.entries != null) {
+            T[] old = t.entries;
+            result = null;
+            if (old.length > 1) {
+                /*
+                 * With "new T[...]" in place of "new Object[...]" it does not
+                 * compile; as shown, it results in a warning about an
+                 * unchecked cast, though it cannot fail.
+                 */
+                T[] entries = (T[]) (new Object[old.length - 1]);
+                System.arraycopy(old, 0, entries, 0, k);
+                System.arraycopy(old, k + 1, entries, k, old.length - k - 1);
+                result = new Node<T>(entries);
+            }
+        } else if (k < t.left.size) {
+            Node<T> left = removeAt(t.left, k);
+            if (left == null) {
+                result = t.right;
+            } else {
+                result = balance(left, t.right);
+            }
+        } else {
+            Node<T> right = removeAt(t.right, k - t.left.size);
+            if (right == null) {
+                result = t.left;
+            } else {
+                result = balance(t.left, right);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the tree rooted at {@code n} satisfies IS_ROPE.
+     *
+     * @param <T>
+     *            type of entries
+     * @param n
+     *            the root of the tree
+     * @ensures [reports a violated assertion unless IS_ROPE(n)]
+     */
+    private static <T> void checkRope(Node<T> n) {
+        if (n.entries != null) {
+            assert 1 <= n.entries.length
+                    && n.entries.length <= CHUNK_CAPACITY : ""
+                            + "Violation of: [every leaf has between 1 and"
+                            + " CHUNK_CAPACITY entries]";
+            for (T x : n.entries) {
+                assert x != null : "Violation of: [no entry is null]";
+            }
+            assert n.height == 1 && n.size == n.entries.length : ""
+                    + "Violation of: [every node records its own height"
+                    + " and size]";
+        } else {
+            assert n.left != null && n.right != null : ""
+                    + "Violation of: [every internal node has two subtrees]";
+            checkRope(n.left);
+            checkRope(n.right);
+            assert Math.abs(n.left.height - n.right.height) <= 1 : ""
+                    + "Violation of: [the heights of the two subtrees of"
+                    + " every internal node differ by at most one]";
+            assert n.height == 1 + Math.max(n.left.height, n.right.height)
+                    && n.size == n.left.size + n.right.size : ""
+                            + "Violation of: [every node records its own"
+                            + " height and size]";
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * ($this.root = null  or  IS_ROPE($this.root))  and
+     * 0 <= $this.leftLength <= |ENTRIES($this.root)|
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        if (this.root != null) {
+            checkRope(this.root);
+        }
+        assert 0 <= this.leftLength && this.leftLength <= size(this.root) : ""
+                + "Violation of: 0 <= $this.leftLength <="
+                + " |ENTRIES($this.root)|";
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+        this.leftLength = 0;
+
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List6() {
+
+        this.createNewRep();
+
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List6<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List6<?> : ""
+                + "Violation of: source is of dynamic type List6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List6<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        List6<T> localSource = (List6<T>) source;
+        this.root = localSource.root;
+        this.leftLength = localSource.leftLength;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        if (this.root == null) {
+            /*
+             * With "new T[...]" in place of "new Object[...]" it does not
+             * compile; as shown, it results in a warning about an unchecked
+             * cast, though it cannot fail.
+             */
+            T[] entries = (T[]) (new Object[] { x });
+            this.root = new Node<T>(entries);
+        } else {
+            this.root = insertAt(this.root, this.leftLength, x, false);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        T x = entryAt(this.root, this.leftLength);
+        this.root = removeAt(this.root, this.leftLength);
+
+        assert this.conventionHolds();
+
+        return x;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.leftLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+
+        this.leftLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.leftLength;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return size(this.root) - this.leftLength;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List6}: walks
+     * the leaves from left to right. Since nodes are never changed, it goes on
+     * seeing the version of the list it started with.
+     */
+    private final class List6Iterator implements Iterator<T> {
+
+        /**
+         * Right subtrees still to be visited, the next one on top.
+         */
+        private final Deque<Node<T>> pending;
+
+        /**
+         * Entries of the current leaf, or null if there are no more.
+         */
+        private T[] leaf;
+
+        /**
+         * Index of the next entry in the current leaf.
+         */
+        private int offset;
+
+        /**
+         * No-argument constructor.
+         */
+        private List6Iterator() {
+            this.pending = new ArrayDeque<Node<T>>();
+            this.leaf = null;
+            this.offset = 0;
+            if (List6.this.root != null) {
+                this.descend(List6.this.root);
+            }
+            assert List6.this.conventionHolds();
+        }
+
+        /**
+         * Moves to the first leaf of the tree rooted at {@code n}, pushing the
+         * right subtrees passed on the way.
+         *
+         * @param n
+         *            the root of the tree
+         * @updates this.pending, this.leaf, this.offset
+         * @requires n is not null
+         */
+        private void descend(Node<T> n) {
+            Node<T> p = n;
+            while (p.entries == null) {
+                this.pending.push(p.right);
+                p = p.left;
+            }
+            this.leaf = p.entries;
+            this.offset = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.leaf != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.leaf[this.offset];
+            this.offset++;
+            if (this.offset == this.leaf.length) {
+                if (this.pending.isEmpty()) {
+                    this.leaf = null;
+                } else {
+                    this.descend(this.pending.pop());
+                }
+            }
+            assert List6.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+
+        this.leftLength = size(this.root);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        this.leftLength--;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T rightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        return entryAt(this.root, this.leftLength);
+    }
+
+    @Override
+    public final T replaceRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        T front = entryAt(this.root, this.leftLength);
+        this.root = insertAt(this.root, this.leftLength, x, true);
+
+        assert this.conventionHolds();
+
+        return front;
+    }
+
+    /**
+     * Concatenates ("appends") {@code extension} to the end of {@code this};
+     * when {@code extension} is a {@code List6}, by joining the two trees in
+     * O(log n) time, without moving any entries.
+     *
+     * @param extension
+     *            the {@code List} to be appended to the end of {@code this}
+     * @updates this.right
+     * @clears extension
+     * @ensures <pre>
+     * this.left = #this.left  and
+     * this.right = #this.right * #extension.left * #extension.right
+     * </pre>
+     */
+    @Override
+    public final void append(List<T> extension) {
+        assert extension != null : "Violation of: extension is not null";
+        assert extension != this : "Violation of: extension is not this";
+
+        if (extension instanceof List6<?>) {
+            List6<T> localExtension = (List6<T>) extension;
+            this.root = join(this.root, localExtension.root);
+            localExtension.clear();
+        } else {
+            super.append(extension);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Other methods (random positioning, splitting, and sublists) ------------
+     */
+
+    /**
+     * Moves the position to index {@code k}, so that {@code this.left} has
+     * length {@code k}.
+     *
+     * @param k
+     *            the new length of this.left
+     * @updates this
+     * @requires 0 <= k <= |this.left| + |this.right|
+     * @ensures <pre>
+     * this.left * this.right = #this.left * #this.right  and
+     * |this.left| = k
+     * </pre>
+     */
+    public final void seek(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k <= size(this.root) : ""
+                + "Violation of: k <= |this.left| + |this.right|";
+
+        this.leftLength = k;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Reports the entry at index {@code k} of {@code this.left * this.right},
+     * without moving the position.
+     *
+     * @param k
+     *            the index
+     * @return the entry at index k
+     * @requires 0 <= k < |this.left| + |this.right|
+     * @ensures <elementAt> = (this.left * this.right)[k, k + 1)
+     */
+    public final T elementAt(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < size(this.root) : ""
+                + "Violation of: k < |this.left| + |this.right|";
+
+        return entryAt(this.root, k);
+    }
+
+    /**
+     * Splits {@code this} at the position: removes {@code this.right} and
+     * returns it as a new list, in O(log n) time, without moving any entries.
+     *
+     * @return the new list, holding #this.right
+     * @updates this.right
+     * @ensures this.right = <> and split = (<>, #this.right)
+     */
+    public final List6<T> split() {
+        Node<T>[] pieces = newNodes(2);
+        split(this.root, this.leftLength, pieces);
+        this.root = pieces[0];
+        List6<T> rest = this.newInstance();
+        rest.root = pieces[1];
+
+        assert this.conventionHolds();
+        assert rest.conventionHolds();
+
+        return rest;
+    }
+
+    /**
+     * Returns a new list holding the entries of {@code this} from index
+     * {@code from} up to index {@code to}, in O(log n) time, without copying
+     * them; {@code this} is not changed.
+     *
+     * @param from
+     *            the index of the first entry of the sublist
+     * @param to
+     *            the index just past the last entry of the sublist
+     * @return the new list
+     * @requires 0 <= from <= to <= |this.left| + |this.right|
+     * @ensures <pre>
+     * sublist = (<>, (this.left * this.right)[from, to))
+     * </pre>
+     */
+    public final List6<T> sublist(int from, int to) {
+        assert 0 <= from : "Violation of: 0 <= from";
+        assert from <= to : "Violation of: from <= to";
+        assert to <= size(this.root) : ""
+                + "Violation of: to <= |this.left| + |this.right|";
+
+        Node<T>[] pieces = newNodes(2);
+        split(this.root, to, pieces);
+        split(pieces[0], from, pieces);
+        List6<T> sublist = this.newInstance();
+        sublist.root = pieces[1];
+
+        assert this.conventionHolds();
+        assert sublist.conventionHolds();
+
+        return sublist;
+    }
+
+}
@@ -0,0 +1,352 @@
+import java.util.Random;
+
+import components.list.List;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Rough timing of {@code List} implementations: for n entries (10^6 by
+ * default), times building the list with {@code addRightFront} and
+ * {@code advance}, walking it from start to finish with {@code advance} and
+ * back with {@code retreat}, iterating over it, and emptying it from the start
+ * with {@code removeRightFront}, and estimates the heap space it takes once
+ * built; then times an editing workload on a list of n entries, of short
+ * pseudo-random moves of the position each followed by an insertion or a
+ * removal there; and then times reading the entries at pseudo-random indices
+ * of a list of n entries, moving the position to each index with
+ * {@code seek} for {@code List5} and {@code List6} and with
+ * {@code moveToStart} and {@code advance} for the others; and finally times
+ * assembling a list of n entries by appending fragments of
+ * {@value #FRAGMENT_LENGTH} entries to it with {@code append}.
+ *
+ * <p>
+ * Usage: {@code ListBenchmark [power of 10 [implementation]]}, where the
+ * implementation is one of {@code List3}, {@code List3a}, {@code List4},
+ * {@code List5}, and {@code List6};
+ * with none, all are timed, in that order. Time each in a run of its own for
+ * a fair comparison: in one run, calls on lists of several types through the
+ * same code are not inlined, so the implementations timed after the first are
+ * penalized. Run with assertion checking off; with it on, the representation
+ * convention is checked after every call, which takes longer than the calls
+ * themselves.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class ListBenchmark {
+
+    /**
+     * Default exponent of the number of entries.
+     */
+    private static final int DEFAULT_EXPONENT = 6;
+
+    /**
+     * Base of the number of entries.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Seed for the pseudo-random edits, so runs are comparable.
+     */
+    private static final long SEED = 1_618_033L;
+
+    /**
+     * Longest move of the position between two edits.
+     */
+    private static final int MAX_MOVE = 16;
+
+    /**
+     * Number of entries read at pseudo-random indices.
+     */
+    private static final int RANDOM_READS = 1000;
+
+    /**
+     * Number of entries in each fragment appended when assembling a list.
+     */
+    private static final int FRAGMENT_LENGTH = 1000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ListBenchmark() {
+    }
+
+    /**
+     * Returns an estimate of the heap space in use, after collecting garbage.
+     *
+     * @return the number of bytes in use
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Times {@code list} on {@code entries} and prints a line reporting the
+     * timings.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the implementation
+     * @param list
+     *            the list to be timed
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open and list = (<>, <>)
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static void timeList(SimpleWriter out, String label,
+            List<Integer> list, Integer[] entries) {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            list.addRightFront(x);
+            list.advance();
+        }
+        long built = System.nanoTime();
+        long bytes = usedMemory() - before;
+        long walkStart = System.nanoTime();
+        list.moveToStart();
+        while (list.rightLength() > 0) {
+            list.advance();
+        }
+        while (list.leftLength() > 0) {
+            list.retreat();
+        }
+        long walked = System.nanoTime();
+        long sum = 0;
+        for (Integer x : list) {
+            sum += x;
+        }
+        long iterated = System.nanoTime();
+        while (list.rightLength() > 0) {
+            sum -= list.removeRightFront();
+        }
+        long emptied = System.nanoTime();
+        out.println("  " + label + ": build "
+                + ((built - start) / NANOS_PER_MILLI) + " ms, walk "
+                + ((walked - walkStart) / NANOS_PER_MILLI) + " ms, iterate "
+                + ((iterated - walked) / NANOS_PER_MILLI) + " ms, empty "
+                + ((emptied - iterated) / NANOS_PER_MILLI) + " ms, "
+                + (bytes / entries.length) + " bytes/entry"
+                + (sum == 0 ? "" : "  WRONG"));
+    }
+
+    /**
+     * Times {@code entries.length} edits of {@code list}, which is first
+     * filled with {@code entries} and positioned in the middle, and prints a
+     * line reporting the timing.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the implementation
+     * @param list
+     *            the list to be timed
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open and list = (<>, <>)
+     * @ensures out.content = #out.content * [a line reporting the timing]
+     */
+    private static void timeEditing(SimpleWriter out, String label,
+            List<Integer> list, Integer[] entries) {
+        for (Integer x : entries) {
+            list.addRightFront(x);
+        }
+        for (int i = 0; i < entries.length / 2; i++) {
+            list.advance();
+        }
+        Random rnd = new Random(SEED);
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            int move = rnd.nextInt(2 * MAX_MOVE + 1) - MAX_MOVE;
+            for (int i = 0; i < move && list.rightLength() > 0; i++) {
+                list.advance();
+            }
+            for (int i = 0; i < -move && list.leftLength() > 0; i++) {
+                list.retreat();
+            }
+            if (rnd.nextBoolean() || list.rightLength() == 0) {
+                list.addRightFront(x);
+            } else {
+                list.removeRightFront();
+            }
+        }
+        long end = System.nanoTime();
+        out.println("  " + label + ": edit "
+                + ((end - start) / NANOS_PER_MILLI) + " ms, final length "
+                + (list.leftLength() + list.rightLength()));
+    }
+
+    /**
+     * Times reading {@code RANDOM_READS} entries at pseudo-random indices of
+     * {@code list}, which is first filled with {@code entries}, and prints a
+     * line reporting the timing.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the implementation
+     * @param list
+     *            the list to be timed
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open and list = (<>, <>) and |entries| > 0
+     * @ensures out.content = #out.content * [a line reporting the timing]
+     */
+    private static void timeRandomReads(SimpleWriter out, String label,
+            List<Integer> list, Integer[] entries) {
+        for (Integer x : entries) {
+            list.addRightFront(x);
+        }
+        Random rnd = new Random(SEED);
+        long sum = 0;
+        long expected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < RANDOM_READS; i++) {
+            int k = rnd.nextInt(entries.length);
+            if (list instanceof List5<?>) {
+                ((List5<Integer>) list).seek(k);
+            } else if (list instanceof List6<?>) {
+                ((List6<Integer>) list).seek(k);
+            } else {
+                list.moveToStart();
+                for (int j = 0; j < k; j++) {
+                    list.advance();
+                }
+            }
+            sum += list.rightFront();
+            expected += entries[entries.length - 1 - k];
+        }
+        long end = System.nanoTime();
+        out.println("  " + label + ": " + RANDOM_READS + " random reads "
+                + ((end - start) / NANOS_PER_MILLI) + " ms"
+                + (sum == expected ? "" : "  WRONG"));
+    }
+
+    /**
+     * Times assembling {@code list} by appending to it, in order, fragments of
+     * {@code FRAGMENT_LENGTH} of {@code entries}, each first built in a new
+     * list of the same implementation, and prints a line reporting the
+     * timing.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the implementation
+     * @param list
+     *            the list to be timed
+     * @param entries
+     *            the entries
+     * @updates out.content
+     * @requires out.is_open and list = (<>, <>)
+     * @ensures out.content = #out.content * [a line reporting the timing]
+     */
+    private static void timeAssembly(SimpleWriter out, String label,
+            List<Integer> list, Integer[] entries) {
+        long appending = 0;
+        for (int i = 0; i < entries.length; i += FRAGMENT_LENGTH) {
+            List<Integer> fragment = list.newInstance();
+            int end = Math.min(i + FRAGMENT_LENGTH, entries.length);
+            for (int j = end - 1; j >= i; j--) {
+                fragment.addRightFront(entries[j]);
+            }
+            long start = System.nanoTime();
+            list.append(fragment);
+            appending += System.nanoTime() - start;
+        }
+        boolean right = list.rightLength() == entries.length;
+        for (int i = 0; i < entries.length && right; i += FRAGMENT_LENGTH) {
+            right = list.rightFront().equals(entries[i]);
+            for (int j = 0; j < FRAGMENT_LENGTH && list.rightLength() > 0;
+                    j++) {
+                list.advance();
+            }
+        }
+        out.println("  " + label + ": assemble "
+                + (appending / NANOS_PER_MILLI) + " ms"
+                + (right ? "" : "  WRONG"));
+    }
+
+    /**
+     * Returns a new, empty list of the implementation named {@code name}.
+     *
+     * @param name
+     *            the name of the implementation
+     * @return the new list
+     * @requires name is "List3", "List3a", "List4", "List5", or "List6"
+     * @ensures newList = (<>, <>)
+     */
+    private static List<Integer> newList(String name) {
+        List<Integer> list;
+        if (name.equals("List3")) {
+            list = new List3<Integer>();
+        } else if (name.equals("List3a")) {
+            list = new List3a<Integer>();
+        } else if (name.equals("List4")) {
+            list = new List4<Integer>();
+        } else if (name.equals("List5")) {
+            list = new List5<Integer>();
+        } else if (name.equals("List6")) {
+            list = new List6<Integer>();
+        } else {
+            throw new IllegalArgumentException(
+                    "Unknown implementation: " + name);
+        }
+        return list;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the exponent of the
+     *            number of entries, and then the name of the implementation
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int exponent = DEFAULT_EXPONENT;
+        if (args.length > 0) {
+            exponent = Integer.parseInt(args[0]);
+        }
+        int n = 1;
+        for (int i = 0; i < exponent; i++) {
+            n *= BASE;
+        }
+        Integer[] entries = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = i;
+        }
+        String[] names = { "List3", "List3a", "List4", "List5",
+            "List6" };
+        if (args.length > 1) {
+            names = new String[] { args[1] };
+        }
+        out.println("n = " + n);
+        for (String name : names) {
+            timeList(out, name, newList(name), entries);
+        }
+        for (String name : names) {
+            timeEditing(out, name, newList(name), entries);
+        }
+        for (String name : names) {
+            timeRandomReads(out, name, newList(name), entries);
+        }
+        for (String name : names) {
+            timeAssembly(out, name, newList(name), entries);
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * JUnit test fixture for {@code CharList}'s constructor, kernel methods, and
+ * unboxed methods.
+ */
+public class CharListTest {
+
+    /**
+     * Number of characters for the tests that grow the array.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns a {@code CharList} with the given characters, with
+     * left string of length {@code leftLength}.
+     *
+     * @param leftLength
+     *            the length of the left string
+     * @param s
+     *            the characters for the list
+     * @return the constructed list
+     * @requires 0 <= leftLength <= |s|
+     * @ensures <pre>
+     * createFromArgsTest =
+     *   ([first leftLength characters of s], [remaining characters of s])
+     * </pre>
+     */
+    private CharList createFromArgsTest(int leftLength, String s) {
+        CharList list = new CharList();
+        list.addRightFront(s);
+        for (int i = 0; i < leftLength; i++) {
+            list.advance();
+        }
+        return list;
+    }
+
+    /**
+     * Creates and returns a {@code List<Character>} of the reference
+     * implementation type with the given characters, with left string of
+     * length {@code leftLength}.
+     *
+     * @param leftLength
+     *            the length of the left string
+     * @param s
+     *            the characters for the list
+     * @return the constructed list
+     * @requires 0 <= leftLength <= |s|
+     * @ensures <pre>
+     * createFromArgsRef =
+     *   ([first leftLength characters of s], [remaining characters of s])
+     * </pre>
+     */
+    private List<Character> createFromArgsRef(int leftLength, String s) {
+        List<Character> list = new List1L<Character>();
+        for (int i = 0; i < s.length(); i++) {
+            list.addRightFront(s.charAt(i));
+            list.advance();
+        }
+        list.moveToStart();
+        for (int i = 0; i < leftLength; i++) {
+            list.advance();
+        }
+        return list;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        CharList list = new CharList();
+
+        assertEquals(0, list.leftLength());
+        assertEquals(0, list.rightLength());
+        assertEquals("", list.leftString());
+        assertEquals("", list.rightString());
+    }
+
+    /**
+     * Routine: kernel methods agree with the reference implementation.
+     */
+    @Test
+    public final void testKernelMethods() {
+        CharList list1 = this.createFromArgsTest(2, "hello");
+        List<Character> list2 = this.createFromArgsRef(2, "hello");
+
+        list1.addRightFront('X');
+        list2.addRightFront('X');
+        assertEquals(list2.removeRightFront(), list1.removeRightFront());
+        list1.advance();
+        list2.advance();
+        list1.retreat();
+        list2.retreat();
+        list1.retreat();
+        list2.retreat();
+        assertEquals(list2, list1);
+        list1.moveToFinish();
+        list2.moveToFinish();
+        assertEquals(list2, list1);
+        list1.moveToStart();
+        list2.moveToStart();
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testUnboxedMethods() {
+        CharList list = this.createFromArgsTest(3, "abcdef");
+
+        list.addRightFront('x');
+        assertEquals('x', list.rightFrontChar());
+        assertEquals('x', list.removeRightFrontChar());
+        assertEquals('d', list.rightFrontChar());
+        assertEquals("abc", list.leftString());
+        assertEquals("def", list.rightString());
+    }
+
+    /**
+     * Routine: inserting and deleting runs, as an editor does.
+     */
+    @Test
+    public final void testEditRuns() {
+        CharList list = this.createFromArgsTest(6, "Hello world");
+
+        list.removeRightFront(5);
+        list.addRightFront("there, big wide world");
+        for (int i = 0; i < "there".length(); i++) {
+            list.advance();
+        }
+        list.removeRightFront(", big wide".length());
+
+        assertEquals("Hello there", list.leftString());
+        assertEquals(" world", list.rightString());
+    }
+
+    /**
+     * Challenging: inserting a run longer than the array can hold, in the
+     * middle.
+     */
+    @Test
+    public final void testAddRightFrontLongRun() {
+        CharList list = this.createFromArgsTest(1, "ab");
+        String run = "x".repeat(MANY);
+
+        list.addRightFront(new StringBuilder(run));
+
+        assertEquals("a", list.leftString());
+        assertEquals(run + "b", list.rightString());
+    }
+
+    /**
+     * Challenging: many single characters added in the middle, moving back
+     * and forth, checked against the reference implementation.
+     */
+    @Test
+    public final void testAddManyInMiddle() {
+        CharList list1 = new CharList();
+        List<Character> list2 = new List1L<Character>();
+        for (int i = 0; i < MANY; i++) {
+            char c = (char) ('a' + i % 26);
+            list1.addRightFront(c);
+            list2.addRightFront(c);
+            if (i % 3 == 0) {
+                list1.advance();
+                list2.advance();
+            } else if (i % 7 == 0 && list2.leftLength() > 0) {
+                list1.retreat();
+                list2.retreat();
+            }
+        }
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Routine: the iterator skips the gap.
+     */
+    @Test
+    public final void testIterator() {
+        CharList list = this.createFromArgsTest(2, "abcd");
+        StringBuilder seen = new StringBuilder();
+
+        Iterator<Character> it = list.iterator();
+        while (it.hasNext()) {
+            seen.append(it.next());
+        }
+
+        assertEquals("abcd", seen.toString());
+        assertEquals(2, list.leftLength());
+    }
+
+}
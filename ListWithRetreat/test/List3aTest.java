@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List3a}, plus tests with enough
+ * entries to split and merge its nodes.
+ */
+public class List3aTest extends ListTest {
+
+    /**
+     * Number of entries in the larger tests: several times the capacity of a
+     * node.
+     */
+    private static final int LARGE_SIZE = 500;
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List3a<String>();
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+    /**
+     * Challenging: adds at the front of the right string, without advancing,
+     * so that every node splits.
+     */
+    @Test
+    public final void testAddRightFrontManyWithoutAdvance() {
+        List<String> list1 = this.constructorTest();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+        }
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Challenging: adds in the middle, then removes every other entry,
+     * retreats back to the start, and removes the rest.
+     */
+    @Test
+    public final void testAddAndRemoveInMiddleMany() {
+        List<String> list1 = this.constructorTest();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+            if (i % 3 == 0) {
+                list1.advance();
+                list2.advance();
+            }
+        }
+        assertEquals(list2, list1);
+        list1.moveToStart();
+        list2.moveToStart();
+        while (list2.rightLength() > 1) {
+            assertEquals(list2.removeRightFront(), list1.removeRightFront());
+            list1.advance();
+            list2.advance();
+        }
+        assertEquals(list2, list1);
+        while (list2.leftLength() > 0) {
+            list1.retreat();
+            list2.retreat();
+            assertEquals(list2.removeRightFront(), list1.removeRightFront());
+        }
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Challenging: retreats from the finish to the start, across every node.
+     */
+    @Test
+    public final void testRetreatAcrossNodes() {
+        List<String> list1 = this.constructorTest();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+        }
+        list1.moveToFinish();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.retreat();
+            assertEquals("e" + i, list1.rightFront());
+        }
+        for (int i = LARGE_SIZE - 1; i >= 0; i--) {
+            list2.addRightFront("e" + i);
+            list2.advance();
+        }
+        list2.moveToStart();
+        assertEquals(list2, list1);
+    }
+
+}
@@ -0,0 +1,88 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List4}, plus tests with enough
+ * entries to grow its array.
+ */
+public class List4Test extends ListTest {
+
+    /**
+     * Number of entries in the larger tests: several times the initial length
+     * of the array.
+     */
+    private static final int LARGE_SIZE = 200;
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List4<String>();
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+    /**
+     * Challenging: adds in the middle, moving back and forth, so that the
+     * array grows with both strings nonempty.
+     */
+    @Test
+    public final void testAddInMiddleMany() {
+        List<String> list1 = this.constructorTest();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+            if (i % 2 == 0) {
+                list1.advance();
+                list2.advance();
+            } else if (i % 5 == 0) {
+                list1.retreat();
+                list2.retreat();
+            }
+        }
+        assertEquals(list2, list1);
+        list1.moveToStart();
+        list2.moveToStart();
+        assertEquals(list2, list1);
+        list1.moveToFinish();
+        list2.moveToFinish();
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Challenging: moves to the start and finish from the middle, with a gap
+     * longer than, and then shorter than, the string moved.
+     */
+    @Test
+    public final void testMoveAcrossGap() {
+        List<String> list1 = this.constructorTest();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+        }
+        for (int i = 0; i < LARGE_SIZE / 2; i++) {
+            list1.advance();
+            list2.advance();
+        }
+        for (int i = 0; i < LARGE_SIZE / 4; i++) {
+            assertEquals(list2.removeRightFront(), list1.removeRightFront());
+        }
+        list1.moveToStart();
+        list2.moveToStart();
+        assertEquals(list2, list1);
+        list1.moveToFinish();
+        list2.moveToFinish();
+        assertEquals(list2, list1);
+        list1.moveToStart();
+        list2.moveToStart();
+        assertEquals(list2, list1);
+    }
+
+}
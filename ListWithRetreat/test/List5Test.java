@@ -0,0 +1,119 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List5}, plus tests of its random
+ * positioning methods.
+ */
+public class List5Test extends ListTest {
+
+    /**
+     * Number of entries in the larger tests, enough for a tree of several
+     * levels.
+     */
+    private static final int LARGE_SIZE = 500;
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List5<String>();
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testSeek() {
+        List5<String> list1 = new List5<String>();
+        List<String> list2 = this.createFromArgsRef(3, "red", "orange",
+                "yellow", "green", "blue");
+        for (String x : new String[] { "blue", "green", "yellow", "orange",
+            "red" }) {
+            list1.addRightFront(x);
+        }
+
+        list1.seek(3);
+
+        assertEquals(list2, list1);
+        assertEquals("green", list1.rightFront());
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testSeekToFinish() {
+        List5<String> list1 = new List5<String>();
+        list1.addRightFront("b");
+        list1.addRightFront("a");
+        List<String> list2 = this.createFromArgsRef(2, "a", "b");
+
+        list1.seek(2);
+
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Routine: elementAt does not move the position.
+     */
+    @Test
+    public final void testElementAt() {
+        List5<String> list = new List5<String>();
+        for (String x : new String[] { "c", "b", "a" }) {
+            list.addRightFront(x);
+        }
+        list.advance();
+
+        assertEquals("a", list.elementAt(0));
+        assertEquals("b", list.elementAt(1));
+        assertEquals("c", list.elementAt(2));
+        assertEquals(1, list.leftLength());
+        assertEquals(2, list.rightLength());
+    }
+
+    /**
+     * Challenging: adds and removes in the middle, in an order that needs
+     * every kind of rotation, checked against the reference implementation
+     * and with elementAt at every index.
+     */
+    @Test
+    public final void testAddAndRemoveInMiddleMany() {
+        List5<String> list1 = new List5<String>();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            int k = (i * 7) % (list2.leftLength() + list2.rightLength() + 1);
+            list1.seek(k);
+            list2.moveToStart();
+            for (int j = 0; j < k; j++) {
+                list2.advance();
+            }
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+        }
+        assertEquals(list2, list1);
+        int index = 0;
+        for (String x : list2) {
+            assertEquals(x, list1.elementAt(index));
+            index++;
+        }
+        for (int i = 0; i < LARGE_SIZE / 2; i++) {
+            int k = (i * 13) % (list2.leftLength() + list2.rightLength());
+            list1.seek(k);
+            list2.moveToStart();
+            for (int j = 0; j < k; j++) {
+                list2.advance();
+            }
+            assertEquals(list2.removeRightFront(), list1.removeRightFront());
+        }
+        assertEquals(list2, list1);
+    }
+
+}
@@ -0,0 +1,225 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List6}, plus tests of its
+ * concatenation, splitting, and sublist methods.
+ */
+public class List6Test extends ListTest {
+
+    /**
+     * Number of entries in the larger tests, enough for a tree of many leaves.
+     */
+    private static final int LARGE_SIZE = 1000;
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List6<String>();
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+    /**
+     * Returns a new {@code List6} holding "prefix0", "prefix1", ... in order,
+     * with the position at the start.
+     *
+     * @param prefix
+     *            the prefix of the entries
+     * @param length
+     *            the number of entries
+     * @return the new list
+     */
+    private static List6<String> fragment(String prefix, int length) {
+        List6<String> list = new List6<String>();
+        for (int i = length - 1; i >= 0; i--) {
+            list.addRightFront(prefix + i);
+        }
+        return list;
+    }
+
+    /**
+     * Routine: append keeps the position and clears the extension.
+     */
+    @Test
+    public final void testAppend() {
+        List6<String> list1 = fragment("a", 3);
+        List6<String> extension = fragment("b", 2);
+        extension.advance();
+        List<String> list2 = this.createFromArgsRef(1, "a0", "a1", "a2", "b0",
+                "b1");
+        List<String> extensionExpected = this.constructorRef();
+        list1.advance();
+
+        list1.append(extension);
+
+        assertEquals(list2, list1);
+        assertEquals(extensionExpected, extension);
+    }
+
+    /**
+     * Challenging: assembles a list from fragments of very different lengths,
+     * joining trees of very different heights, and then edits it.
+     */
+    @Test
+    public final void testAppendMany() {
+        List6<String> list1 = new List6<String>();
+        List<String> list2 = this.constructorRef();
+        for (int i = 0; i < LARGE_SIZE / 10; i++) {
+            int length = (i * i) % 97;
+            List6<String> extension = fragment("f" + i + "-", length);
+            List<String> extension2 = this.constructorRef();
+            for (String x : extension) {
+                extension2.addRightFront(x);
+                extension2.advance();
+            }
+            extension2.moveToStart();
+            if (i % 2 == 0) {
+                list1.append(extension);
+                list2.append(extension2);
+            } else {
+                extension.append(list1);
+                list1.transferFrom(extension);
+                extension2.append(list2);
+                list2.transferFrom(extension2);
+            }
+        }
+        assertEquals(list2, list1);
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            list1.addRightFront("e" + i);
+            list2.addRightFront("e" + i);
+            list1.advance();
+            list2.advance();
+        }
+        assertEquals(list2, list1);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testSplit() {
+        List6<String> list1 = fragment("a", 5);
+        List<String> list2 = this.createFromArgsRef(2, "a0", "a1");
+        List<String> restExpected = this.createFromArgsRef(0, "a2", "a3",
+                "a4");
+        list1.advance();
+        list1.advance();
+
+        List6<String> rest = list1.split();
+
+        assertEquals(list2, list1);
+        assertEquals(restExpected, rest);
+    }
+
+    /**
+     * Boundary: splitting at the start and at the finish.
+     */
+    @Test
+    public final void testSplitAtEnds() {
+        List6<String> list1 = fragment("a", 2);
+        List<String> list2 = this.createFromArgsRef(0);
+        List<String> restExpected = this.createFromArgsRef(0, "a0", "a1");
+
+        List6<String> rest = list1.split();
+        List6<String> none = rest.newInstance();
+        rest.moveToFinish();
+        List6<String> nothing = rest.split();
+        rest.moveToStart();
+
+        assertEquals(list2, list1);
+        assertEquals(restExpected, rest);
+        assertEquals(none, nothing);
+    }
+
+    /**
+     * Challenging: splits a large list at every tenth index and appends the
+     * two pieces back together.
+     */
+    @Test
+    public final void testSplitAndAppendMany() {
+        List6<String> list1 = fragment("a", LARGE_SIZE);
+        List<String> list2 = this.constructorRef();
+        for (String x : list1) {
+            list2.addRightFront(x);
+            list2.advance();
+        }
+        list2.moveToStart();
+        for (int k = 0; k <= LARGE_SIZE; k += 10) {
+            list1.seek(k);
+            List6<String> rest = list1.split();
+            assertEquals(k, list1.leftLength() + list1.rightLength());
+            assertEquals(LARGE_SIZE - k, rest.rightLength());
+            list1.append(rest);
+            list1.moveToStart();
+            assertEquals(list2, list1);
+        }
+    }
+
+    /**
+     * Routine: sublist leaves the list unchanged.
+     */
+    @Test
+    public final void testSublist() {
+        List6<String> list1 = fragment("a", 5);
+        list1.advance();
+        List<String> list2 = this.createFromArgsRef(1, "a0", "a1", "a2", "a3",
+                "a4");
+        List<String> sublistExpected = this.createFromArgsRef(0, "a1", "a2",
+                "a3");
+
+        List6<String> sublist = list1.sublist(1, 4);
+
+        assertEquals(list2, list1);
+        assertEquals(sublistExpected, sublist);
+    }
+
+    /**
+     * Challenging: a sublist of a large list, and the list itself, can each
+     * be changed without changing the other, although they share nodes.
+     */
+    @Test
+    public final void testSublistIndependent() {
+        List6<String> list1 = fragment("a", LARGE_SIZE);
+        List6<String> sublist = list1.sublist(LARGE_SIZE / 4,
+                3 * LARGE_SIZE / 4);
+        List<String> sublistExpected = this.constructorRef();
+        for (int i = 3 * LARGE_SIZE / 4 - 1; i >= LARGE_SIZE / 4; i--) {
+            sublistExpected.addRightFront("a" + i);
+        }
+        List<String> list2 = this.constructorRef();
+        for (int i = LARGE_SIZE - 1; i >= 0; i--) {
+            list2.addRightFront("a" + i);
+        }
+
+        sublist.seek(LARGE_SIZE / 4);
+        sublist.replaceRightFront("x");
+        sublist.addRightFront("y");
+        sublist.moveToStart();
+        list1.seek(LARGE_SIZE / 2);
+        list1.removeRightFront();
+        list1.moveToStart();
+        sublistExpected.moveToStart();
+        for (int i = 0; i < LARGE_SIZE / 4; i++) {
+            sublistExpected.advance();
+        }
+        sublistExpected.replaceRightFront("x");
+        sublistExpected.addRightFront("y");
+        sublistExpected.moveToStart();
+        for (int i = 0; i < LARGE_SIZE / 2; i++) {
+            list2.advance();
+        }
+        list2.removeRightFront();
+        list2.moveToStart();
+
+        assertEquals(sublistExpected, sublist);
+        assertEquals(list2, list1);
+    }
+
+}
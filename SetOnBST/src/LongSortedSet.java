@@ -0,0 +1,739 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<Long>} represented as a B+-tree whose nodes hold their keys in
+ * {@code long[]}s, done "bare-handed", with implementations of primary methods
+ * and unboxed versions of them.
+ *
+ * <p>
+ * This is {@code Set5} specialized to {@code long} elements: every node keeps
+ * up to {@code NODE_CAPACITY} keys in one {@code long[]}, all elements live in
+ * the leaves, which are linked left to right, and the elements are never
+ * boxed and are compared with {@code <} rather than {@code compareTo}. As in
+ * {@code Set3a}, {@code removeAny} removes the smallest element and the
+ * iterator visits elements in increasing order. Besides the kernel methods
+ * (which box and unbox their arguments and results), this class offers
+ * {@code add(long)}, {@code remove(long)}, {@code contains(long)},
+ * {@code removeSmallest()}, and {@code contains(long[])}, which answers a whole
+ * sorted batch of queries in one left-to-right pass over the leaves.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} is O(log |this|), and of
+ * {@code size} is O(1).
+ * </p>
+ *
+ * @mathdefinitions <pre>
+ * IS_B_PLUS_TREE(
+ *   n: node,
+ *   capacity: integer
+ *  ): boolean satisfies
+ *  [the keys in every node of n are in strictly increasing order, and every
+ *   node has at most capacity keys]  and
+ *  [every node of n other than the root has at least (capacity - 1) / 2 keys]
+ *   and
+ *  [every internal node with k keys has k + 1 children, all keys in child i
+ *   are smaller than key i, and all keys in child i + 1 are not smaller
+ *   than key i]  and
+ *  [all leaves of n are at the same depth, and each leaf's next is the leaf
+ *   to its right (or null for the right-most leaf)]
+ * </pre>
+ * @convention <pre>
+ * IS_B_PLUS_TREE($this.root, NODE_CAPACITY)  and
+ * $this.firstLeaf = [the left-most leaf of $this.root]  and
+ * $this.size = [number of keys in the leaves of $this.root]
+ * </pre>
+ * @correspondence this = [keys in the leaves of $this.root]
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class LongSortedSet extends SetSecondary<Long> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Maximum number of keys per node.
+     */
+    private static final int NODE_CAPACITY = 64;
+
+    /**
+     * Minimum number of keys in a non-root node.
+     */
+    private static final int MIN_KEYS = (NODE_CAPACITY - 1) / 2;
+
+    /**
+     * Node class for B+-tree nodes; a node is a leaf iff {@code children} is
+     * null.
+     */
+    private static final class Node {
+
+        /**
+         * Keys in this node; only the first {@code count} are meaningful.
+         */
+        private final long[] keys;
+
+        /**
+         * Children of this internal node, or null if this is a leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * Number of keys in this node.
+         */
+        private int count;
+
+        /**
+         * Leaf to the right of this leaf, or, if this is an internal node,
+         * irrelevant.
+         */
+        private Node next;
+
+        /**
+         * Constructor.
+         *
+         * @param leaf
+         *            whether the new node is a leaf
+         */
+        private Node(boolean leaf) {
+            this.keys = new long[NODE_CAPACITY];
+            if (leaf) {
+                this.children = null;
+            } else {
+                this.children = new Node[NODE_CAPACITY + 1];
+            }
+            this.count = 0;
+        }
+
+        /**
+         * Reports whether this node is a leaf.
+         *
+         * @return true iff this node is a leaf
+         */
+        private boolean isLeaf() {
+            return this.children == null;
+        }
+
+    }
+
+    /**
+     * Root of the B+-tree.
+     */
+    private Node root;
+
+    /**
+     * Left-most leaf of the B+-tree.
+     */
+    private Node firstLeaf;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Returns the position of {@code x} in {@code keys[low, high)}, or, if
+     * {@code x} is not there, the position at which it would be inserted.
+     *
+     * @param keys
+     *            the sorted keys
+     * @param low
+     *            the start of the range to be searched
+     * @param high
+     *            the end of the range to be searched
+     * @param x
+     *            the key to be located
+     * @return the first position in [low, high) whose key is not less than x,
+     *         or high
+     * @requires 0 <= low <= high <= |keys| and [keys[low, high) is sorted]
+     * @ensures <pre>
+     * low <= lowerBound <= high  and
+     * [keys[low, lowerBound) < x <= keys[lowerBound, high)]
+     * </pre>
+     */
+    private static int lowerBound(long[] keys, int low, int high, long x) {
+        int lo = low;
+        int hi = high;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the number of keys in {@code keys[0, count)} that are not
+     * greater than {@code x}; this is the index of the child of an internal
+     * node to be searched for {@code x}.
+     *
+     * @param keys
+     *            the sorted keys
+     * @param count
+     *            the number of meaningful keys
+     * @param x
+     *            the key to be located
+     * @return the number of keys not greater than x
+     * @requires 0 <= count <= |keys| and [keys[0, count) is sorted]
+     * @ensures <pre>
+     * upperBound = |{i: integer where (0 <= i < count  and
+     *                                 keys[i] <= x)}|
+     * </pre>
+     */
+    private static int upperBound(long[] keys, int count, long x) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x < keys[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the leaf of the tree rooted at {@code root} in which {@code x}
+     * is or would be.
+     *
+     * @param root
+     *            the root of the tree
+     * @param x
+     *            the key to be located
+     * @return the leaf
+     */
+    private static Node leafFor(Node root, long x) {
+        Node n = root;
+        while (!n.isLeaf()) {
+            n = n.children[upperBound(n.keys, n.count, x)];
+        }
+        return n;
+    }
+
+    /**
+     * Splits the full child at index {@code i} of {@code parent} in two,
+     * inserting the new separator into {@code parent}.
+     *
+     * @param parent
+     *            the internal node whose child is split
+     * @param i
+     *            the index of the child to be split
+     * @updates parent
+     * @requires <pre>
+     * parent.count < NODE_CAPACITY  and  0 <= i <= parent.count  and
+     * parent.children[i].count = NODE_CAPACITY
+     * </pre>
+     * @ensures <pre>
+     * [parent.children[i] and parent.children[i + 1] together hold the keys of
+     *  #parent.children[i], and parent.keys[i] separates them]
+     * </pre>
+     */
+    private static void splitChild(Node parent, int i) {
+        Node left = parent.children[i];
+        Node right = new Node(left.isLeaf());
+        int half = left.count / 2;
+        long separator;
+        if (left.isLeaf()) {
+            /*
+             * Leaf split: the upper half moves right and a copy of its first
+             * key becomes the separator.
+             */
+            right.count = left.count - half;
+            System.arraycopy(left.keys, half, right.keys, 0, right.count);
+            separator = right.keys[0];
+            right.next = left.next;
+            left.next = right;
+        } else {
+            /*
+             * Internal split: the middle key moves up into the parent.
+             */
+            separator = left.keys[half];
+            right.count = left.count - half - 1;
+            System.arraycopy(left.keys, half + 1, right.keys, 0, right.count);
+            System.arraycopy(left.children, half + 1, right.children, 0,
+                    right.count + 1);
+            for (int j = half + 1; j <= left.count; j++) {
+                left.children[j] = null;
+            }
+        }
+        left.count = half;
+
+        System.arraycopy(parent.keys, i, parent.keys, i + 1,
+                parent.count - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2,
+                parent.count - i);
+        parent.keys[i] = separator;
+        parent.children[i + 1] = right;
+        parent.count++;
+    }
+
+    /**
+     * Makes sure the child at index {@code i} of {@code parent} has more than
+     * the minimum number of keys, by borrowing a key from a sibling or by
+     * merging with a sibling.
+     *
+     * @param parent
+     *            the internal node whose child is refilled
+     * @param i
+     *            the index of the child to be refilled
+     * @updates parent
+     * @requires <pre>
+     * 0 <= i <= parent.count  and
+     * parent.children[i].count = MIN_KEYS  and
+     * [parent is the root or has more than MIN_KEYS keys]
+     * </pre>
+     * @ensures <pre>
+     * [the child of parent now covering the keys of #parent.children[i] has
+     *  more than MIN_KEYS keys]  and
+     * [the tree below parent holds the same keys as before]
+     * </pre>
+     */
+    private static void refillChild(Node parent, int i) {
+        Node child = parent.children[i];
+        if (i > 0 && parent.children[i - 1].count > MIN_KEYS) {
+            /*
+             * Borrow the last key of the left sibling.
+             */
+            Node left = parent.children[i - 1];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+            if (child.isLeaf()) {
+                child.keys[0] = left.keys[left.count - 1];
+                parent.keys[i - 1] = child.keys[0];
+            } else {
+                System.arraycopy(child.children, 0, child.children, 1,
+                        child.count + 1);
+                child.keys[0] = parent.keys[i - 1];
+                child.children[0] = left.children[left.count];
+                parent.keys[i - 1] = left.keys[left.count - 1];
+                left.children[left.count] = null;
+            }
+            left.count--;
+            child.count++;
+        } else if (i < parent.count
+                && parent.children[i + 1].count > MIN_KEYS) {
+            /*
+             * Borrow the first key of the right sibling.
+             */
+            Node right = parent.children[i + 1];
+            if (child.isLeaf()) {
+                child.keys[child.count] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0,
+                        right.count - 1);
+                parent.keys[i] = right.keys[0];
+            } else {
+                child.keys[child.count] = parent.keys[i];
+                child.children[child.count + 1] = right.children[0];
+                parent.keys[i] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0,
+                        right.count - 1);
+                System.arraycopy(right.children, 1, right.children, 0,
+                        right.count);
+                right.children[right.count] = null;
+            }
+            right.count--;
+            child.count++;
+        } else {
+            /*
+             * Both siblings are minimal: merge with one of them.
+             */
+            if (i == parent.count) {
+                mergeChildren(parent, i - 1);
+            } else {
+                mergeChildren(parent, i);
+            }
+        }
+    }
+
+    /**
+     * Merges the children at indices {@code i} and {@code i + 1} of
+     * {@code parent} into the child at index {@code i}.
+     *
+     * @param parent
+     *            the internal node whose children are merged
+     * @param i
+     *            the index of the left child to be merged
+     * @updates parent
+     * @requires <pre>
+     * 0 <= i < parent.count  and
+     * [the merged child fits in NODE_CAPACITY keys]
+     * </pre>
+     * @ensures <pre>
+     * [parent.children[i] holds the keys of #parent.children[i] and
+     *  #parent.children[i + 1]]  and  parent.count = #parent.count - 1
+     * </pre>
+     */
+    private static void mergeChildren(Node parent, int i) {
+        Node left = parent.children[i];
+        Node right = parent.children[i + 1];
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.count,
+                    right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            left.keys[left.count] = parent.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1,
+                    right.count);
+            System.arraycopy(right.children, 0, left.children, left.count + 1,
+                    right.count + 1);
+            left.count += right.count + 1;
+        }
+        System.arraycopy(parent.keys, i + 1, parent.keys, i,
+                parent.count - i - 1);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1,
+                parent.count - i - 1);
+        parent.children[parent.count] = null;
+        parent.count--;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = new Node(true);
+        this.firstLeaf = this.root;
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public LongSortedSet() {
+
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<Long> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<Long> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof LongSortedSet : ""
+                + "Violation of: source is of dynamic type LongSortedSet";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        LongSortedSet localSource = (LongSortedSet) source;
+        this.root = localSource.root;
+        this.firstLeaf = localSource.firstLeaf;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Long x) {
+        assert x != null : "Violation of: x is not null";
+        this.add(x.longValue());
+    }
+
+    @Override
+    public final Long remove(Long x) {
+        assert x != null : "Violation of: x is not null";
+        return this.remove(x.longValue());
+    }
+
+    @Override
+    public final Long removeAny() {
+        return this.removeSmallest();
+    }
+
+    @Override
+    public final boolean contains(Long x) {
+        assert x != null : "Violation of: x is not null";
+        return this.contains(x.longValue());
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final PrimitiveIterator.OfLong iterator() {
+        return new LongSortedSetIterator();
+    }
+
+    /*
+     * Unboxed methods --------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to {@code this}.
+     *
+     * @param x
+     *            the element to be added
+     * @updates this
+     * @requires x is not in this
+     * @ensures this = #this union {x}
+     */
+    public final void add(long x) {
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.root.count == NODE_CAPACITY) {
+            // Full root: grow the tree by one level.
+            Node newRoot = new Node(false);
+            newRoot.children[0] = this.root;
+            this.root = newRoot;
+            splitChild(newRoot, 0);
+        }
+        /*
+         * Split full nodes on the way down, so there is always room in the
+         * parent for the separator of a split.
+         */
+        Node n = this.root;
+        while (!n.isLeaf()) {
+            int i = upperBound(n.keys, n.count, x);
+            if (n.children[i].count == NODE_CAPACITY) {
+                splitChild(n, i);
+                if (x >= n.keys[i]) {
+                    i++;
+                }
+            }
+            n = n.children[i];
+        }
+        int pos = lowerBound(n.keys, 0, n.count, x);
+        System.arraycopy(n.keys, pos, n.keys, pos + 1, n.count - pos);
+        n.keys[pos] = x;
+        n.count++;
+        this.size++;
+    }
+
+    /**
+     * Removes {@code x} from {@code this}, and returns it.
+     *
+     * @param x
+     *            the element to be removed
+     * @return the element removed
+     * @updates this
+     * @requires x is in this
+     * @ensures this = #this \ {x} and remove = x
+     */
+    public final long remove(long x) {
+        assert this.contains(x) : "Violation of: x is in this";
+
+        /*
+         * Refill minimal nodes on the way down, so removing a key from the
+         * leaf never leaves a node below the minimum.
+         */
+        Node n = this.root;
+        while (!n.isLeaf()) {
+            int i = upperBound(n.keys, n.count, x);
+            if (n.children[i].count <= MIN_KEYS) {
+                refillChild(n, i);
+                if (n == this.root && n.count == 0) {
+                    // Root emptied by a merge: shrink the tree by one level.
+                    this.root = n.children[0];
+                }
+                i = upperBound(n.keys, n.count, x);
+            }
+            n = n.children[i];
+        }
+        int pos = lowerBound(n.keys, 0, n.count, x);
+        System.arraycopy(n.keys, pos + 1, n.keys, pos, n.count - pos - 1);
+        n.count--;
+        this.size--;
+        return x;
+    }
+
+    /**
+     * Removes the smallest element from {@code this}, and returns it.
+     *
+     * @return the element removed
+     * @updates this
+     * @requires |this| > 0
+     * @ensures <pre>
+     * removeSmallest is in #this  and
+     * [removeSmallest is the smallest element in #this]  and
+     * this = #this \ {removeSmallest}
+     * </pre>
+     */
+    public final long removeSmallest() {
+        assert this.size > 0 : "Violation of: this /= empty_set";
+
+        return this.remove(this.firstLeaf.keys[0]);
+    }
+
+    /**
+     * Reports whether {@code x} is in {@code this}.
+     *
+     * @param x
+     *            the element to be checked
+     * @return true iff element is in {@code this}
+     * @ensures contains = (x is in this)
+     */
+    public final boolean contains(long x) {
+        Node leaf = leafFor(this.root, x);
+        int pos = lowerBound(leaf.keys, 0, leaf.count, x);
+        return pos < leaf.count && leaf.keys[pos] == x;
+    }
+
+    /**
+     * Reports, for each entry of {@code queries}, whether it is in
+     * {@code this}. Because the queries are sorted, they are answered together
+     * in one left-to-right pass over the leaves: each one is searched for only
+     * after the previous one, first by doubling steps within the current leaf
+     * and then by binary search within the last step; a query beyond the next
+     * leaf is located from the root instead.
+     *
+     * @param queries
+     *            the elements to be checked, in non-decreasing order
+     * @return an array whose entry i reports whether queries[i] is in this
+     * @requires [queries is in non-decreasing order]
+     * @ensures <pre>
+     * |contains| = |queries|  and
+     * for all i: integer where (0 <= i < |queries|)
+     *   (contains[i] = (queries[i] is in this))
+     * </pre>
+     */
+    public final boolean[] contains(long[] queries) {
+        assert queries != null : "Violation of: queries is not null";
+
+        boolean[] result = new boolean[queries.length];
+        Node leaf = this.firstLeaf;
+        int pos = 0;
+        for (int q = 0; q < queries.length && leaf != null; q++) {
+            long x = queries[q];
+            assert q == 0 || queries[q - 1] <= x : ""
+                    + "Violation of: queries is in non-decreasing order";
+            /*
+             * Move to the first leaf whose last key is not less than x: the
+             * next leaf, or one located from the root if x is past that too.
+             */
+            while (leaf != null
+                    && (leaf.count == 0 || leaf.keys[leaf.count - 1] < x)) {
+                Node next = leaf.next;
+                if (next != null && next.keys[next.count - 1] < x) {
+                    next = leafFor(this.root, x);
+                }
+                leaf = next;
+                pos = 0;
+            }
+            if (leaf != null) {
+                // Gallop forward to bracket x, then binary search it.
+                int step = 1;
+                int low = pos;
+                while (pos + step < leaf.count
+                        && leaf.keys[pos + step] < x) {
+                    low = pos + step;
+                    step *= 2;
+                }
+                int high = Math.min(pos + step + 1, leaf.count);
+                pos = lowerBound(leaf.keys, low, high, x);
+                result[q] = leaf.keys[pos] == x;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code LongSortedSet};
+     * visits elements in increasing order by walking the linked leaves, and
+     * offers {@code nextLong} to get them unboxed.
+     */
+    private final class LongSortedSetIterator
+            implements PrimitiveIterator.OfLong {
+
+        /**
+         * Leaf from which the next element will come, or null if there are
+         * no more.
+         */
+        private Node leaf;
+
+        /**
+         * Index in {@code leaf} of the next element.
+         */
+        private int index;
+
+        /**
+         * No-argument constructor.
+         */
+        private LongSortedSetIterator() {
+            this.leaf = LongSortedSet.this.firstLeaf;
+            this.index = 0;
+            this.skipExhaustedLeaves();
+        }
+
+        /**
+         * Moves past leaves that have no elements left to visit.
+         */
+        private void skipExhaustedLeaves() {
+            while (this.leaf != null && this.index >= this.leaf.count) {
+                this.leaf = this.leaf.next;
+                this.index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.leaf != null;
+        }
+
+        @Override
+        public long nextLong() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            long x = this.leaf.keys[this.index];
+            this.index++;
+            this.skipExhaustedLeaves();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
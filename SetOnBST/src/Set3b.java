@@ -0,0 +1,557 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a persistent (immutable) balanced binary search
+ * tree, done "bare-handed", with implementations of primary methods and a
+ * constant-time {@code snapshot} method.
+ *
+ * <p>
+ * Tree nodes are never changed once built. An update copies only the nodes on
+ * the path from the root to the place it changes, O(log |this|) of them, and
+ * shares the rest of the tree with the previous version; {@code this} then
+ * switches to the new root with a single compare-and-set. Any number of
+ * threads may therefore update and read {@code this} concurrently, and
+ * {@code snapshot} and {@code iterator} just hold on to the root they start
+ * with: they see a consistent version of the set no matter what other threads
+ * do afterwards, without copying it.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} is O(log |this|), and of
+ * {@code size} and {@code snapshot} is O(1). {@code clear},
+ * {@code transferFrom}, and {@code newInstance} are not thread-safe.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   n: node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with the
+ *   ordering reported by compareTo for T, including that it has no duplicate
+ *   labels]  and
+ *  [the heights of the two subtrees of every node in the tree rooted at n
+ *   differ by at most one]  and
+ *  [every node in the tree rooted at n records its own height and size]
+ * </pre>
+ * @convention <pre>
+ * $this.root is not null  and
+ * IS_AVL([node referenced by $this.root])
+ * </pre>
+ * @correspondence this = labels([node referenced by $this.root])
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Immutable node class for the persistent tree; the empty tree is null.
+     *
+     * @param <T>
+     *            type of node labels
+     */
+    private static final class Node<T> {
+
+        /**
+         * Label of this node.
+         */
+        private final T data;
+
+        /**
+         * Left subtree.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree.
+         */
+        private final Node<T> right;
+
+        /**
+         * Height of the tree rooted at this node.
+         */
+        private final int height;
+
+        /**
+         * Number of nodes in the tree rooted at this node.
+         */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param data
+         *            the label
+         * @param left
+         *            the left subtree
+         * @param right
+         *            the right subtree
+         */
+        private Node(T data, Node<T> left, Node<T> right) {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+
+    }
+
+    /**
+     * Root of the current version of the tree.
+     */
+    private AtomicReference<Node<T>> root;
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the height of the tree
+     */
+    private static <T> int height(Node<T> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param n
+     *            the root of the tree, or null for the empty tree
+     * @return the number of nodes in the tree
+     */
+    private static <T> int size(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Builds a new node with the given label and subtrees, rotating if needed
+     * so that the heights of its subtrees differ by at most one.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param data
+     *            the label
+     * @param left
+     *            the left subtree
+     * @param right
+     *            the right subtree
+     * @return the root of the balanced tree
+     * @requires <pre>
+     * IS_AVL(left)  and  IS_AVL(right)  and
+     * [labels(left) < data < labels(right)]  and
+     * |height(left) - height(right)| <= 2
+     * </pre>
+     * @ensures <pre>
+     * IS_AVL(balance)  and
+     * labels(balance) = labels(left) union {data} union labels(right)
+     * </pre>
+     */
+    private static <T> Node<T> balance(T data, Node<T> left, Node<T> right) {
+        Node<T> result;
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                // Single right rotation.
+                result = new Node<T>(left.data, left.left,
+                        new Node<T>(data, left.right, right));
+            } else {
+                // Double (left-right) rotation.
+                Node<T> lr = left.right;
+                result = new Node<T>(lr.data,
+                        new Node<T>(left.data, left.left, lr.left),
+                        new Node<T>(data, lr.right, right));
+            }
+        } else if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                // Single left rotation.
+                result = new Node<T>(right.data,
+                        new Node<T>(data, left, right.left), right.right);
+            } else {
+                // Double (right-left) rotation.
+                Node<T> rl = right.left;
+                result = new Node<T>(rl.data,
+                        new Node<T>(data, left, rl.left),
+                        new Node<T>(right.data, rl.right, right.right));
+            }
+        } else {
+            result = new Node<T>(data, left, right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the label in the tree rooted at {@code t} that is equal to
+     * {@code x}, or null if there is none.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the tree to be searched
+     * @param x
+     *            the label to be searched for
+     * @return the label equal to x, or null
+     * @requires IS_AVL(t)
+     * @ensures <pre>
+     * if x is in labels(t) then find = [the label in t equal to x]
+     * else find = null
+     * </pre>
+     */
+    private static <T extends Comparable<T>> T find(Node<T> t, T x) {
+        Node<T> n = t;
+        T found = null;
+        while (n != null && found == null) {
+            int cmp = x.compareTo(n.data);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                n = n.right;
+            } else {
+                found = n.data;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns a tree with the labels of {@code t} and {@code x}, sharing every
+     * node of {@code t} that is not on the path to {@code x}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @param x
+     *            the label to be inserted
+     * @return the root of the new tree
+     * @requires IS_AVL(t)
+     * @ensures IS_AVL(insert) and labels(insert) = labels(t) union {x}
+     */
+    private static <T extends Comparable<T>> Node<T> insert(Node<T> t, T x) {
+        Node<T> result;
+        if (t == null) {
+            result = new Node<T>(x, null, null);
+        } else {
+            int cmp = x.compareTo(t.data);
+            if (cmp < 0) {
+                result = balance(t.data, insert(t.left, x), t.right);
+            } else if (cmp > 0) {
+                result = balance(t.data, t.left, insert(t.right, x));
+            } else {
+                result = t;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest (left-most) label in {@code t}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the tree
+     * @return the smallest label in t
+     * @requires IS_AVL(t) and t is not null
+     * @ensures smallest = [the smallest label in t]
+     */
+    private static <T> T smallest(Node<T> t) {
+        Node<T> n = t;
+        while (n.left != null) {
+            n = n.left;
+        }
+        return n.data;
+    }
+
+    /**
+     * Returns a tree with the labels of {@code t} except the smallest one.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @return the root of the new tree
+     * @requires IS_AVL(t) and t is not null
+     * @ensures <pre>
+     * IS_AVL(removeSmallest)  and
+     * labels(removeSmallest) = labels(t) \ {[the smallest label in t]}
+     * </pre>
+     */
+    private static <T> Node<T> removeSmallest(Node<T> t) {
+        Node<T> result;
+        if (t.left == null) {
+            result = t.right;
+        } else {
+            result = balance(t.data, removeSmallest(t.left), t.right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the labels of {@code t} except {@code x}, sharing
+     * every node of {@code t} that is not on the path to {@code x}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the original tree
+     * @param x
+     *            the label to be removed
+     * @return the root of the new tree
+     * @requires IS_AVL(t)
+     * @ensures IS_AVL(delete) and labels(delete) = labels(t) \ {x}
+     */
+    private static <T extends Comparable<T>> Node<T> delete(Node<T> t, T x) {
+        Node<T> result = null;
+        if (t != null) {
+            int cmp = x.compareTo(t.data);
+            if (cmp < 0) {
+                result = balance(t.data, delete(t.left, x), t.right);
+            } else if (cmp > 0) {
+                result = balance(t.data, t.left, delete(t.right, x));
+            } else if (t.left == null) {
+                result = t.right;
+            } else if (t.right == null) {
+                result = t.left;
+            } else {
+                // Replace the root with the next largest label.
+                result = balance(smallest(t.right), t.left,
+                        removeSmallest(t.right));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = new AtomicReference<Node<T>>(null);
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?> : ""
+                + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        Node<T> oldRoot;
+        Node<T> newRoot;
+        do {
+            oldRoot = this.root.get();
+            newRoot = insert(oldRoot, x);
+        } while (!this.root.compareAndSet(oldRoot, newRoot));
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node<T> oldRoot;
+        Node<T> newRoot;
+        T removed;
+        do {
+            oldRoot = this.root.get();
+            removed = find(oldRoot, x);
+            newRoot = delete(oldRoot, x);
+        } while (!this.root.compareAndSet(oldRoot, newRoot));
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node<T> oldRoot;
+        Node<T> newRoot;
+        T removed;
+        do {
+            oldRoot = this.root.get();
+            removed = smallest(oldRoot);
+            newRoot = removeSmallest(oldRoot);
+        } while (!this.root.compareAndSet(oldRoot, newRoot));
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+        return find(this.root.get(), x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return size(this.root.get());
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3bIterator(this.root.get());
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns a new set with the current elements of {@code this}. The
+     * snapshot shares the tree of {@code this}, so it takes constant time, and
+     * later updates to either set do not affect the other.
+     *
+     * @return the snapshot
+     * @ensures snapshot = this
+     */
+    public final Set3b<T> snapshot() {
+        Set3b<T> snapshot = new Set3b<T>();
+        snapshot.root.set(this.root.get());
+        return snapshot;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}; visits
+     * the elements of the version of the tree current when it was created, in
+     * increasing order.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose label and right subtree are still to be visited, with
+         * the next one on top.
+         */
+        private final Deque<Node<T>> pending;
+
+        /**
+         * Constructor.
+         *
+         * @param start
+         *            the root of the tree to be iterated
+         */
+        private Set3bIterator(Node<T> start) {
+            this.pending = new ArrayDeque<Node<T>>();
+            this.pushLeftSpine(start);
+        }
+
+        /**
+         * Pushes {@code n} and its chain of left descendants.
+         *
+         * @param n
+         *            the root of the subtree to be visited next
+         */
+        private void pushLeftSpine(Node<T> n) {
+            Node<T> p = n;
+            while (p != null) {
+                this.pending.push(p);
+                p = p.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.pending.pop();
+            this.pushLeftSpine(n.right);
+            return n.data;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,365 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a splay tree (a binary search tree that moves
+ * each element it looks up to the root), done "bare-handed", with
+ * implementations of primary methods.
+ *
+ * <p>
+ * Elements are ordered as in {@code Set3a}, by {@code compareTo} for
+ * {@code T}, and {@code removeAny} likewise removes the smallest element.
+ * Every kernel method that searches for an element, including
+ * {@code contains}, splays the last node it reaches to the root, so elements
+ * that are looked up often stay near the top of the tree.
+ * </p>
+ *
+ * <p>
+ * Amortized execution-time performance of {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} is O(log |this|); looking up an
+ * element again right after it was accessed is O(1). Creating an iterator
+ * copies the elements, in O(|this|) time and space, so that calls to
+ * {@code contains} during the iteration, which splay, do not disturb it.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_BST(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [tree satisfies the binary search tree properties as described in the
+ *   slides with the ordering reported by compareTo for T, including that
+ *   it has no duplicate labels]
+ * </pre>
+ * @convention <pre>
+ * IS_BST([tree of nodes rooted at $this.root])  and
+ * $this.size = [number of nodes in the tree rooted at $this.root]
+ * </pre>
+ * @correspondence this = labels([tree of nodes rooted at $this.root])
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class Set3c<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for splay tree nodes.
+     */
+    private final class Node {
+
+        /**
+         * Data in node.
+         */
+        private T data;
+
+        /**
+         * Left subtree, or null if empty.
+         */
+        private Node left;
+
+        /**
+         * Right subtree, or null if empty.
+         */
+        private Node right;
+
+    }
+
+    /**
+     * Root of the splay tree, or null if {@code this} is empty.
+     */
+    private Node root;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Rearranges the tree rooted at {@code t} (top-down) so that its root is
+     * {@code x} if {@code x} is in the tree, and otherwise the last node
+     * reached while searching for {@code x}, and returns the new root.
+     *
+     * @param t
+     *            the root of the tree
+     * @param x
+     *            the label to be searched for
+     * @return the root of the rearranged tree
+     * @requires IS_BST(t) and t is not null
+     * @ensures <pre>
+     * IS_BST(splay)  and  labels(splay) = labels(#t)  and
+     * if x is in labels(#t) then splay.data = x
+     * else [splay.data is the predecessor or successor of x in labels(#t)]
+     * </pre>
+     */
+    private Node splay(Node t, T x) {
+        /*
+         * Nodes known to be smaller than x are hung off leftMax, larger ones
+         * off rightMin; header collects both trees until the final assembly.
+         */
+        Node header = new Node();
+        Node leftMax = header;
+        Node rightMin = header;
+        Node n = t;
+        boolean done = false;
+        while (!done) {
+            int cmp = x.compareTo(n.data);
+            if (cmp < 0 && n.left != null) {
+                if (x.compareTo(n.left.data) < 0) {
+                    // Zig-zig: rotate right.
+                    Node y = n.left;
+                    n.left = y.right;
+                    y.right = n;
+                    n = y;
+                }
+                if (n.left == null) {
+                    done = true;
+                } else {
+                    // Link right.
+                    rightMin.left = n;
+                    rightMin = n;
+                    n = n.left;
+                }
+            } else if (cmp > 0 && n.right != null) {
+                if (x.compareTo(n.right.data) > 0) {
+                    // Zag-zag: rotate left.
+                    Node y = n.right;
+                    n.right = y.left;
+                    y.left = n;
+                    n = y;
+                }
+                if (n.right == null) {
+                    done = true;
+                } else {
+                    // Link left.
+                    leftMax.right = n;
+                    leftMax = n;
+                    n = n.right;
+                }
+            } else {
+                done = true;
+            }
+        }
+        leftMax.right = n.left;
+        rightMin.left = n.right;
+        n.left = header.right;
+        n.right = header.left;
+        return n;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3c() {
+
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3c<?> : ""
+                + "Violation of: source is of dynamic type Set3c<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3c<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3c<T> localSource = (Set3c<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        Node newRoot = new Node();
+        newRoot.data = x;
+        if (this.root != null) {
+            /*
+             * After splaying, the root is next to x in the order, so x can
+             * become the new root with the old root as one of its children.
+             */
+            Node t = this.splay(this.root, x);
+            if (x.compareTo(t.data) < 0) {
+                newRoot.left = t.left;
+                newRoot.right = t;
+                t.left = null;
+            } else {
+                newRoot.right = t.right;
+                newRoot.left = t;
+                t.right = null;
+            }
+        }
+        this.root = newRoot;
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node t = this.splay(this.root, x);
+        T removed = t.data;
+        if (t.left == null) {
+            this.root = t.right;
+        } else {
+            /*
+             * x is larger than everything in the left subtree, so splaying
+             * for it there brings the largest label up with no right child.
+             */
+            Node newRoot = this.splay(t.left, x);
+            newRoot.right = t.right;
+            this.root = newRoot;
+        }
+        this.size--;
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node smallest = this.root;
+        while (smallest.left != null) {
+            smallest = smallest.left;
+        }
+        return this.remove(smallest.data);
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean contains = false;
+        if (this.root != null) {
+            this.root = this.splay(this.root, x);
+            contains = x.compareTo(this.root.data) == 0;
+        }
+        return contains;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3cIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3c}; visits
+     * the elements in increasing order, from a copy of them made when it is
+     * created. Since {@code contains} restructures the tree, an iterator that
+     * walked the live nodes would repeat or skip elements whenever
+     * {@code contains} is called during the iteration; with the copy, it does
+     * not matter.
+     */
+    private final class Set3cIterator implements Iterator<T> {
+
+        /**
+         * Elements still to be visited, in increasing order.
+         */
+        private final Deque<T> unseen;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set3cIterator() {
+            this.unseen = new ArrayDeque<T>(Set3c.this.size);
+            Deque<Node> pending = new ArrayDeque<Node>();
+            Node p = Set3c.this.root;
+            while (p != null || !pending.isEmpty()) {
+                while (p != null) {
+                    pending.push(p);
+                    p = p.left;
+                }
+                Node n = pending.pop();
+                this.unseen.addLast(n.data);
+                p = n.right;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.unseen.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            return this.unseen.removeFirst();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,660 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a B+-tree of wide nodes, done "bare-handed", with
+ * implementations of primary methods.
+ *
+ * <p>
+ * Every node keeps up to {@code nodeCapacity} keys in one array, so a search
+ * touches one array per level (and uses binary search within it) instead of
+ * one separately allocated node per comparison. All elements live in the
+ * leaves, which are linked left to right, so iteration is a walk over the
+ * leaf arrays.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} is O(log |this|).
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_B_PLUS_TREE(
+ *   n: node,
+ *   capacity: integer
+ *  ): boolean satisfies
+ *  [the keys in every node of n are in strictly increasing order according to
+ *   compareTo for T, and every node has at most capacity keys]  and
+ *  [every node of n other than the root has at least (capacity - 1) / 2 keys]
+ *   and
+ *  [every internal node with k keys has k + 1 children, all keys in child i
+ *   are smaller than key i, and all keys in child i + 1 are not smaller
+ *   than key i]  and
+ *  [all leaves of n are at the same depth, and each leaf's next is the leaf
+ *   to its right (or null for the right-most leaf)]
+ * </pre>
+ * @convention <pre>
+ * $this.nodeCapacity >= 3  and
+ * IS_B_PLUS_TREE($this.root, $this.nodeCapacity)  and
+ * $this.firstLeaf = [the left-most leaf of $this.root]  and
+ * $this.size = [number of keys in the leaves of $this.root]
+ * </pre>
+ * @correspondence this = [keys in the leaves of $this.root]
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class Set5<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default maximum number of keys per node.
+     */
+    private static final int DEFAULT_NODE_CAPACITY = 64;
+
+    /**
+     * Node class for B+-tree nodes; a node is a leaf iff {@code children} is
+     * null.
+     *
+     * @param <T>
+     *            type of keys
+     */
+    private static final class Node<T extends Comparable<T>> {
+
+        /**
+         * Keys in this node; only the first {@code count} are meaningful.
+         */
+        private T[] keys;
+
+        /**
+         * Children of this internal node, or null if this is a leaf.
+         */
+        private Node<T>[] children;
+
+        /**
+         * Number of keys in this node.
+         */
+        private int count;
+
+        /**
+         * Leaf to the right of this leaf, or, if this is an internal node,
+         * irrelevant.
+         */
+        private Node<T> next;
+
+        /**
+         * Constructor.
+         *
+         * @param leaf
+         *            whether the new node is a leaf
+         * @param capacity
+         *            the maximum number of keys in the new node
+         */
+        @SuppressWarnings("unchecked")
+        private Node(boolean leaf, int capacity) {
+            /*
+             * With "new T[...]" in place of "new Comparable<?>[...]" it does
+             * not compile; as shown, it results in a warning about an
+             * unchecked cast, though it cannot fail. (T[] erases to
+             * Comparable[], so "new Object[...]" would fail here.)
+             */
+            this.keys = (T[]) new Comparable<?>[capacity];
+            if (!leaf) {
+                this.children = (Node<T>[]) new Node<?>[capacity + 1];
+            }
+            this.count = 0;
+        }
+
+        /**
+         * Reports whether this node is a leaf.
+         *
+         * @return true iff this node is a leaf
+         */
+        private boolean isLeaf() {
+            return this.children == null;
+        }
+
+    }
+
+    /**
+     * Maximum number of keys per node.
+     */
+    private int nodeCapacity;
+
+    /**
+     * Root of the B+-tree.
+     */
+    private Node<T> root;
+
+    /**
+     * Left-most leaf of the B+-tree.
+     */
+    private Node<T> firstLeaf;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Returns the number of keys in {@code keys[0, count)} that are not
+     * greater than {@code x}; this is the index of the child of an internal
+     * node to be searched for {@code x}.
+     *
+     * @param <T>
+     *            type of keys
+     * @param keys
+     *            the sorted keys
+     * @param count
+     *            the number of meaningful keys
+     * @param x
+     *            the key to be located
+     * @return the number of keys not greater than x
+     * @requires 0 <= count <= |keys| and [keys[0, count) is sorted]
+     * @ensures <pre>
+     * upperBound = |{i: integer where (0 <= i < count  and
+     *                                 keys[i] <= x)}|
+     * </pre>
+     */
+    private static <T extends Comparable<T>> int upperBound(T[] keys,
+            int count, T x) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (x.compareTo(keys[mid]) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of {@code x} in {@code keys[0, count)}, or, if
+     * {@code x} is not there, the position at which it would be inserted.
+     *
+     * @param <T>
+     *            type of keys
+     * @param keys
+     *            the sorted keys
+     * @param count
+     *            the number of meaningful keys
+     * @param x
+     *            the key to be located
+     * @return the number of keys smaller than x
+     * @requires 0 <= count <= |keys| and [keys[0, count) is sorted]
+     * @ensures <pre>
+     * lowerBound = |{i: integer where (0 <= i < count  and
+     *                                 keys[i] < x)}|
+     * </pre>
+     */
+    private static <T extends Comparable<T>> int lowerBound(T[] keys,
+            int count, T x) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(x) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Minimum number of keys in a non-root node.
+     *
+     * @return the minimum number of keys
+     */
+    private int minKeys() {
+        return (this.nodeCapacity - 1) / 2;
+    }
+
+    /**
+     * Splits the full child at index {@code i} of {@code parent} in two,
+     * inserting the new separator into {@code parent}.
+     *
+     * @param parent
+     *            the internal node whose child is split
+     * @param i
+     *            the index of the child to be split
+     * @updates parent
+     * @requires <pre>
+     * parent.count < $this.nodeCapacity  and  0 <= i <= parent.count  and
+     * parent.children[i].count = $this.nodeCapacity
+     * </pre>
+     * @ensures <pre>
+     * [parent.children[i] and parent.children[i + 1] together hold the keys of
+     *  #parent.children[i], and parent.keys[i] separates them]
+     * </pre>
+     */
+    private void splitChild(Node<T> parent, int i) {
+        Node<T> left = parent.children[i];
+        Node<T> right = new Node<T>(left.isLeaf(), this.nodeCapacity);
+        int half = left.count / 2;
+        T separator;
+        if (left.isLeaf()) {
+            /*
+             * Leaf split: the upper half moves right and a copy of its first
+             * key becomes the separator.
+             */
+            right.count = left.count - half;
+            System.arraycopy(left.keys, half, right.keys, 0, right.count);
+            separator = right.keys[0];
+            right.next = left.next;
+            left.next = right;
+        } else {
+            /*
+             * Internal split: the middle key moves up into the parent.
+             */
+            separator = left.keys[half];
+            right.count = left.count - half - 1;
+            System.arraycopy(left.keys, half + 1, right.keys, 0, right.count);
+            System.arraycopy(left.children, half + 1, right.children, 0,
+                    right.count + 1);
+            for (int j = half + 1; j <= left.count; j++) {
+                left.children[j] = null;
+            }
+        }
+        for (int j = half; j < left.count; j++) {
+            left.keys[j] = null;
+        }
+        left.count = half;
+
+        System.arraycopy(parent.keys, i, parent.keys, i + 1,
+                parent.count - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2,
+                parent.count - i);
+        parent.keys[i] = separator;
+        parent.children[i + 1] = right;
+        parent.count++;
+    }
+
+    /**
+     * Makes sure the child at index {@code i} of {@code parent} has more than
+     * the minimum number of keys, by borrowing a key from a sibling or by
+     * merging with a sibling.
+     *
+     * @param parent
+     *            the internal node whose child is refilled
+     * @param i
+     *            the index of the child to be refilled
+     * @updates parent
+     * @requires <pre>
+     * 0 <= i <= parent.count  and
+     * parent.children[i].count = [minimum number of keys]  and
+     * [parent is the root or has more than the minimum number of keys]
+     * </pre>
+     * @ensures <pre>
+     * [the child of parent now covering the keys of #parent.children[i] has
+     *  more than the minimum number of keys]  and
+     * [the tree below parent holds the same keys as before]
+     * </pre>
+     */
+    private void refillChild(Node<T> parent, int i) {
+        Node<T> child = parent.children[i];
+        if (i > 0 && parent.children[i - 1].count > this.minKeys()) {
+            /*
+             * Borrow the last key of the left sibling.
+             */
+            Node<T> left = parent.children[i - 1];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+            if (child.isLeaf()) {
+                child.keys[0] = left.keys[left.count - 1];
+                parent.keys[i - 1] = child.keys[0];
+            } else {
+                System.arraycopy(child.children, 0, child.children, 1,
+                        child.count + 1);
+                child.keys[0] = parent.keys[i - 1];
+                child.children[0] = left.children[left.count];
+                parent.keys[i - 1] = left.keys[left.count - 1];
+                left.children[left.count] = null;
+            }
+            left.keys[left.count - 1] = null;
+            left.count--;
+            child.count++;
+        } else if (i < parent.count
+                && parent.children[i + 1].count > this.minKeys()) {
+            /*
+             * Borrow the first key of the right sibling.
+             */
+            Node<T> right = parent.children[i + 1];
+            if (child.isLeaf()) {
+                child.keys[child.count] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0,
+                        right.count - 1);
+                parent.keys[i] = right.keys[0];
+            } else {
+                child.keys[child.count] = parent.keys[i];
+                child.children[child.count + 1] = right.children[0];
+                parent.keys[i] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0,
+                        right.count - 1);
+                System.arraycopy(right.children, 1, right.children, 0,
+                        right.count);
+                right.children[right.count] = null;
+            }
+            right.keys[right.count - 1] = null;
+            right.count--;
+            child.count++;
+        } else {
+            /*
+             * Both siblings are minimal: merge with one of them.
+             */
+            if (i == parent.count) {
+                this.mergeChildren(parent, i - 1);
+            } else {
+                this.mergeChildren(parent, i);
+            }
+        }
+    }
+
+    /**
+     * Merges the children at indices {@code i} and {@code i + 1} of
+     * {@code parent} into the child at index {@code i}.
+     *
+     * @param parent
+     *            the internal node whose children are merged
+     * @param i
+     *            the index of the left child to be merged
+     * @updates parent
+     * @requires <pre>
+     * 0 <= i < parent.count  and
+     * [the merged child fits in $this.nodeCapacity keys]
+     * </pre>
+     * @ensures <pre>
+     * [parent.children[i] holds the keys of #parent.children[i] and
+     *  #parent.children[i + 1]]  and  parent.count = #parent.count - 1
+     * </pre>
+     */
+    private void mergeChildren(Node<T> parent, int i) {
+        Node<T> left = parent.children[i];
+        Node<T> right = parent.children[i + 1];
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.count,
+                    right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            left.keys[left.count] = parent.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1,
+                    right.count);
+            System.arraycopy(right.children, 0, left.children, left.count + 1,
+                    right.count + 1);
+            left.count += right.count + 1;
+        }
+        System.arraycopy(parent.keys, i + 1, parent.keys, i,
+                parent.count - i - 1);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1,
+                parent.count - i - 1);
+        parent.keys[parent.count - 1] = null;
+        parent.children[parent.count] = null;
+        parent.count--;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the maximum number of keys per node
+     * @requires capacity >= 3
+     * @ensures <pre>
+     * $this.nodeCapacity = capacity  and
+     * [$this.root is an empty leaf]  and
+     * $this.firstLeaf = $this.root  and
+     * $this.size = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+
+        this.nodeCapacity = capacity;
+        this.root = new Node<T>(true, this.nodeCapacity);
+        this.firstLeaf = this.root;
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set5() {
+
+        this.createNewRep(DEFAULT_NODE_CAPACITY);
+
+    }
+
+    /**
+     * Constructor resulting in nodes holding at most {@code nodeCapacity}
+     * keys.
+     *
+     * @param nodeCapacity
+     *            maximum number of keys per node
+     * @requires nodeCapacity >= 3
+     * @ensures this = {}
+     */
+    public Set5(int nodeCapacity) {
+        assert nodeCapacity >= 3 : "Violation of: nodeCapacity >= 3";
+
+        this.createNewRep(nodeCapacity);
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(int.class)
+                    .newInstance(this.nodeCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.nodeCapacity);
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set5<?> : ""
+                + "Violation of: source is of dynamic type Set5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set5<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set5<T> localSource = (Set5<T>) source;
+        this.nodeCapacity = localSource.nodeCapacity;
+        this.root = localSource.root;
+        this.firstLeaf = localSource.firstLeaf;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.nodeCapacity);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.root.count == this.nodeCapacity) {
+            // Full root: grow the tree by one level.
+            Node<T> newRoot = new Node<T>(false, this.nodeCapacity);
+            newRoot.children[0] = this.root;
+            this.root = newRoot;
+            this.splitChild(newRoot, 0);
+        }
+        /*
+         * Split full nodes on the way down, so there is always room in the
+         * parent for the separator of a split.
+         */
+        Node<T> n = this.root;
+        while (!n.isLeaf()) {
+            int i = upperBound(n.keys, n.count, x);
+            if (n.children[i].count == this.nodeCapacity) {
+                this.splitChild(n, i);
+                if (x.compareTo(n.keys[i]) >= 0) {
+                    i++;
+                }
+            }
+            n = n.children[i];
+        }
+        int pos = lowerBound(n.keys, n.count, x);
+        System.arraycopy(n.keys, pos, n.keys, pos + 1, n.count - pos);
+        n.keys[pos] = x;
+        n.count++;
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        /*
+         * Refill minimal nodes on the way down, so removing a key from the
+         * leaf never leaves a node below the minimum.
+         */
+        Node<T> n = this.root;
+        while (!n.isLeaf()) {
+            int i = upperBound(n.keys, n.count, x);
+            if (n.children[i].count <= this.minKeys()) {
+                this.refillChild(n, i);
+                if (n == this.root && n.count == 0) {
+                    // Root emptied by a merge: shrink the tree by one level.
+                    this.root = n.children[0];
+                }
+                i = upperBound(n.keys, n.count, x);
+            }
+            n = n.children[i];
+        }
+        int pos = lowerBound(n.keys, n.count, x);
+        T removed = n.keys[pos];
+        System.arraycopy(n.keys, pos + 1, n.keys, pos, n.count - pos - 1);
+        n.keys[n.count - 1] = null;
+        n.count--;
+        this.size--;
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+        return this.remove(this.firstLeaf.keys[0]);
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> n = this.root;
+        while (!n.isLeaf()) {
+            n = n.children[upperBound(n.keys, n.count, x)];
+        }
+        int pos = lowerBound(n.keys, n.count, x);
+        return pos < n.count && x.compareTo(n.keys[pos]) == 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set5}; visits
+     * elements in increasing order by walking the linked leaves.
+     */
+    private final class Set5Iterator implements Iterator<T> {
+
+        /**
+         * Leaf from which the next element will come.
+         */
+        private Node<T> leaf;
+
+        /**
+         * Index in {@code leaf} of the next element.
+         */
+        private int index;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set5Iterator() {
+            this.leaf = Set5.this.firstLeaf;
+            this.index = 0;
+            this.skipExhaustedLeaves();
+        }
+
+        /**
+         * Moves past leaves that have no elements left to visit.
+         */
+        private void skipExhaustedLeaves() {
+            while (this.leaf != null && this.index >= this.leaf.count) {
+                this.leaf = this.leaf.next;
+                this.index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.leaf != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.leaf.keys[this.index];
+            this.index++;
+            this.skipExhaustedLeaves();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
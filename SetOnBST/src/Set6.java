@@ -0,0 +1,549 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a lock-free skip list, done "bare-handed", with
+ * implementations of primary methods; the kernel methods may be called
+ * concurrently from any number of threads.
+ *
+ * <p>
+ * {@code add}, {@code remove}, and {@code removeAny} change the links of the
+ * skip list only with compare-and-set, and {@code contains} never retries, so
+ * no thread ever waits for another. An element is removed by first marking
+ * its links (which makes it logically absent) and then unlinking it; any
+ * thread that runs into a marked node helps unlink it. {@code removeAny}
+ * removes the smallest element. The iterator is weakly consistent: it visits
+ * elements in increasing order, never throws because of concurrent updates,
+ * and may or may not reflect updates made after it was created.
+ * </p>
+ *
+ * <p>
+ * Expected execution-time performance of {@code add}, {@code remove},
+ * {@code removeAny}, and {@code contains} is O(log |this|). {@code clear},
+ * {@code transferFrom}, and {@code newInstance} are not thread-safe and must
+ * not be called while other threads are using {@code this}. The kernel
+ * preconditions still apply under concurrency: for instance, two threads must
+ * not race to {@code remove} the same element.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * [$this.head and $this.tail are the sentinel nodes at the start and end of
+ *  every level of the skip list]  and
+ * [the unmarked nodes at each level are in strictly increasing order
+ *  according to compareTo for T]  and
+ * [the unmarked nodes at each level above level 0 are a subsequence of the
+ *  unmarked nodes at the level below]  and
+ * [a node is marked at level 0 iff it has been removed]  and
+ * [when no kernel method is running, $this.size is the number of unmarked
+ *  nodes at level 0]
+ * </pre>
+ * @correspondence <pre>
+ * this = [values of the unmarked nodes at level 0 of the skip list]
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class Set6<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of levels in the skip list; enough for 2^32 elements.
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Node class for skip list nodes.
+     *
+     * @param <T>
+     *            type of data
+     */
+    private static final class Node<T> {
+
+        /**
+         * Data in node, or, if this is a sentinel node, irrelevant.
+         */
+        private final T data;
+
+        /**
+         * Highest level at which this node is linked.
+         */
+        private final int topLevel;
+
+        /**
+         * Next node at each level up to {@code topLevel}, marked once this
+         * node has been removed at that level.
+         */
+        private final AtomicMarkableReference<Node<T>>[] next;
+
+        /**
+         * Constructor.
+         *
+         * @param data
+         *            the data in the new node
+         * @param topLevel
+         *            the highest level at which the new node is linked
+         */
+        @SuppressWarnings("unchecked")
+        private Node(T data, int topLevel) {
+            this.data = data;
+            this.topLevel = topLevel;
+            /*
+             * With "new AtomicMarkableReference<Node<T>>[...]" in place of
+             * "new AtomicMarkableReference<?>[...]" it does not compile; as
+             * shown, it results in a warning about an unchecked cast, though
+             * it cannot fail.
+             */
+            this.next = (AtomicMarkableReference<Node<T>>[])
+                    new AtomicMarkableReference<?>[topLevel + 1];
+            for (int i = 0; i <= topLevel; i++) {
+                this.next[i] = new AtomicMarkableReference<Node<T>>(null,
+                        false);
+            }
+        }
+
+    }
+
+    /**
+     * Sentinel node before the first node at every level.
+     */
+    private volatile Node<T> head;
+
+    /**
+     * Sentinel node after the last node at every level; its own links are
+     * null and never marked.
+     */
+    private volatile Node<T> tail;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private volatile AtomicInteger size;
+
+    /**
+     * Returns a random level for a new node: level i with probability
+     * 2^-(i+1), capped at {@code MAX_LEVEL - 1}.
+     *
+     * @return the level
+     * @ensures 0 <= randomLevel < MAX_LEVEL
+     */
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        int level = Integer.numberOfTrailingZeros(bits);
+        return Math.min(level, MAX_LEVEL - 1);
+    }
+
+    /**
+     * Returns a new array of {@code length} null node references.
+     *
+     * @param <T>
+     *            type of data
+     * @param length
+     *            the length of the array
+     * @return the new array
+     * @ensures |newNodes| = length
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodes(int length) {
+        /*
+         * With "new Node<T>[...]" in place of "new Node<?>[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked cast,
+         * though it cannot fail.
+         */
+        return (Node<T>[]) new Node<?>[length];
+    }
+
+    /**
+     * Reports whether node {@code n} comes before {@code x}, treating the
+     * tail sentinel as greater than every element.
+     *
+     * @param n
+     *            the node
+     * @param tail
+     *            the tail sentinel
+     * @param x
+     *            the element
+     * @return true iff n is not the tail and n.data < x
+     */
+    private boolean isBefore(Node<T> n, Node<T> tail, T x) {
+        return n != tail && n.data.compareTo(x) < 0;
+    }
+
+    /**
+     * Locates {@code x} at every level, unlinking any marked nodes on the way,
+     * and reports whether it is present.
+     *
+     * @param x
+     *            the element to be located
+     * @param preds
+     *            on return, the last node before x at each level
+     * @param succs
+     *            on return, the first node not before x at each level
+     * @return true iff x is in this
+     * @updates preds, succs
+     * @requires |preds| = MAX_LEVEL and |succs| = MAX_LEVEL
+     * @ensures <pre>
+     * for all i: integer where (0 <= i < MAX_LEVEL)
+     *   ([preds[i] is unmarked, before x, and linked to succs[i] at level i,
+     *     and succs[i] is not before x])  and
+     * find = (x is in this)
+     * </pre>
+     */
+    private boolean find(T x, Node<T>[] preds, Node<T>[] succs) {
+        Node<T> tail = this.tail;
+        boolean[] marked = { false };
+        retry: while (true) {
+            Node<T> pred = this.head;
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                Node<T> curr = pred.next[level].getReference();
+                while (true) {
+                    Node<T> succ = curr.next[level].get(marked);
+                    while (marked[0]) {
+                        // curr has been removed: help unlink it.
+                        if (!pred.next[level].compareAndSet(curr, succ, false,
+                                false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        succ = curr.next[level].get(marked);
+                    }
+                    if (this.isBefore(curr, tail, x)) {
+                        pred = curr;
+                        curr = succ;
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            Node<T> found = succs[0];
+            return found != tail && found.data.compareTo(x) == 0;
+        }
+    }
+
+    /**
+     * Marks {@code n} as removed at every level, and reports whether this
+     * call is the one that removed it (that is, marked it at level 0).
+     *
+     * @param n
+     *            the node to be removed
+     * @return true iff this call marked n at level 0
+     * @ensures [n is marked at every level]
+     */
+    private boolean markRemoved(Node<T> n) {
+        boolean[] marked = { false };
+        for (int level = n.topLevel; level > 0; level--) {
+            Node<T> succ = n.next[level].get(marked);
+            while (!marked[0]) {
+                n.next[level].attemptMark(succ, true);
+                succ = n.next[level].get(marked);
+            }
+        }
+        boolean removedByThisCall = false;
+        Node<T> succ = n.next[0].get(marked);
+        while (!marked[0] && !removedByThisCall) {
+            removedByThisCall = n.next[0].compareAndSet(succ, succ, false,
+                    true);
+            succ = n.next[0].get(marked);
+        }
+        return removedByThisCall;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        Node<T> newTail = new Node<T>(null, MAX_LEVEL - 1);
+        Node<T> newHead = new Node<T>(null, MAX_LEVEL - 1);
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            newHead.next[i].set(newTail, false);
+        }
+        this.tail = newTail;
+        this.head = newHead;
+        this.size = new AtomicInteger(0);
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set6() {
+
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set6<?> : ""
+                + "Violation of: source is of dynamic type Set6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set6<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set6<T> localSource = (Set6<T>) source;
+        this.head = localSource.head;
+        this.tail = localSource.tail;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        Node<T>[] preds = newNodes(MAX_LEVEL);
+        Node<T>[] succs = newNodes(MAX_LEVEL);
+        int topLevel = randomLevel();
+        boolean linked = false;
+        while (!linked && !this.find(x, preds, succs)) {
+            Node<T> newNode = new Node<T>(x, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                newNode.next[level].set(succs[level], false);
+            }
+            /*
+             * Linking at level 0 is what makes x present; the higher levels
+             * are only shortcuts and are linked afterwards.
+             */
+            if (preds[0].next[0].compareAndSet(succs[0], newNode, false,
+                    false)) {
+                linked = true;
+                this.size.incrementAndGet();
+                this.linkUpperLevels(newNode, preds, succs);
+            }
+        }
+    }
+
+    /**
+     * Links {@code n}, already linked at level 0, at its upper levels.
+     *
+     * @param n
+     *            the node to be linked
+     * @param preds
+     *            the last nodes before n.data at each level
+     * @param succs
+     *            the first nodes not before n.data at each level
+     * @updates preds, succs
+     * @requires [n is linked at level 0]
+     * @ensures [n is linked at every level up to n.topLevel, unless it has
+     *          been removed in the meantime]
+     */
+    private void linkUpperLevels(Node<T> n, Node<T>[] preds, Node<T>[] succs) {
+        boolean[] marked = { false };
+        boolean removed = false;
+        for (int level = 1; level <= n.topLevel && !removed; level++) {
+            boolean done = false;
+            while (!done && !removed) {
+                Node<T> succ = succs[level];
+                Node<T> current = n.next[level].get(marked);
+                if (marked[0]) {
+                    removed = true;
+                } else if (current != succ && !n.next[level]
+                        .compareAndSet(current, succ, false, false)) {
+                    // n was marked concurrently; leave it to the remover.
+                    removed = true;
+                } else if (preds[level].next[level].compareAndSet(succ, n,
+                        false, false)) {
+                    done = true;
+                } else {
+                    this.find(n.data, preds, succs);
+                    if (succs[0] != n) {
+                        removed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node<T>[] preds = newNodes(MAX_LEVEL);
+        Node<T>[] succs = newNodes(MAX_LEVEL);
+        T removed = null;
+        if (this.find(x, preds, succs)) {
+            Node<T> n = succs[0];
+            if (this.markRemoved(n)) {
+                removed = n.data;
+                this.size.decrementAndGet();
+                // Unlink n at every level.
+                this.find(x, preds, succs);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node<T>[] preds = newNodes(MAX_LEVEL);
+        Node<T>[] succs = newNodes(MAX_LEVEL);
+        Node<T> tail = this.tail;
+        boolean[] marked = { false };
+        T removed = null;
+        Node<T> n = this.head.next[0].getReference();
+        while (removed == null && n != tail) {
+            Node<T> succ = n.next[0].get(marked);
+            if (!marked[0] && this.markRemoved(n)) {
+                removed = n.data;
+                this.size.decrementAndGet();
+                this.find(removed, preds, succs);
+            } else {
+                n = succ;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> tail = this.tail;
+        boolean[] marked = { false };
+        Node<T> pred = this.head;
+        Node<T> curr = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            curr = pred.next[level].getReference();
+            while (true) {
+                Node<T> succ = curr.next[level].get(marked);
+                while (marked[0]) {
+                    // Skip removed nodes without unlinking them.
+                    curr = succ;
+                    succ = curr.next[level].get(marked);
+                }
+                if (this.isBefore(curr, tail, x)) {
+                    pred = curr;
+                    curr = succ;
+                } else {
+                    break;
+                }
+            }
+        }
+        return curr != tail && curr.data.compareTo(x) == 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set6}; walks
+     * level 0 of the skip list, skipping removed nodes.
+     */
+    private final class Set6Iterator implements Iterator<T> {
+
+        /**
+         * Tail sentinel of the skip list being iterated.
+         */
+        private final Node<T> tail;
+
+        /**
+         * Node from which the next element will come, or the tail.
+         */
+        private Node<T> current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set6Iterator() {
+            this.tail = Set6.this.tail;
+            this.current = Set6.this.head.next[0].getReference();
+            this.skipRemoved();
+        }
+
+        /**
+         * Moves past removed nodes.
+         */
+        private void skipRemoved() {
+            while (this.current != this.tail
+                    && this.current.next[0].isMarked()) {
+                this.current = this.current.next[0].getReference();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != this.tail;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.data;
+            this.current = this.current.next[0].getReference();
+            this.skipRemoved();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
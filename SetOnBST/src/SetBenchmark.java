@@ -0,0 +1,377 @@
+import java.util.Random;
+import java.util.TreeSet;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Rough timing comparison of {@code Set} implementations on sets of
+ * {@code Integer} keys: {@code Set3a}, {@code Set3b}, {@code Set3c},
+ * {@code Set5}, {@code Set6}, and, as a balanced binary tree for reference,
+ * {@code java.util.TreeSet}; followed by {@code contains} on Zipf-distributed
+ * (skewed) lookups for {@code Set3a} and {@code Set3c}, and the throughput of
+ * {@code Set6} under a mixed workload on increasing numbers of threads.
+ *
+ * <p>
+ * Usage: {@code SetBenchmark [number of keys]}. Run with assertion checking
+ * off; the kernel preconditions are checked by {@code contains}, which would
+ * otherwise be timed along with {@code add}.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class SetBenchmark {
+
+    /**
+     * Default number of keys.
+     */
+    private static final int DEFAULT_KEY_COUNT = 200_000;
+
+    /**
+     * Seed for the pseudo-random key sequence, so runs are comparable.
+     */
+    private static final long SEED = 2_718_281L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Largest number of threads for the concurrent workload.
+     */
+    private static final int MAX_THREADS = 32;
+
+    /**
+     * Number of {@code contains} calls per {@code add} or {@code remove} in
+     * the concurrent workload.
+     */
+    private static final int READS_PER_WRITE = 4;
+
+    /**
+     * Exponent of the Zipf distribution for skewed lookups; the k-th most
+     * popular key is looked up with probability proportional to 1 / k^s.
+     */
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetBenchmark() {
+    }
+
+    /**
+     * Returns {@code n} distinct keys in pseudo-random order.
+     *
+     * @param n
+     *            the number of keys
+     * @return the keys
+     * @requires n >= 0
+     * @ensures <pre>
+     * |randomKeys| = n  and  [entries of randomKeys are distinct]
+     * </pre>
+     */
+    private static Integer[] randomKeys(int n) {
+        Random rnd = new Random(SEED);
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Integer temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns {@code count} lookups drawn from {@code keys} with a Zipf
+     * distribution: {@code keys[0]} is the most popular key, {@code keys[1]}
+     * the next, and so on.
+     *
+     * @param keys
+     *            the keys, most popular first
+     * @param count
+     *            the number of lookups
+     * @return the lookups
+     * @requires |keys| > 0 and count >= 0
+     * @ensures <pre>
+     * |zipfLookups| = count  and  [entries of zipfLookups are in keys]
+     * </pre>
+     */
+    private static Integer[] zipfLookups(Integer[] keys, int count) {
+        double[] cumulative = new double[keys.length];
+        double total = 0.0;
+        for (int k = 0; k < keys.length; k++) {
+            total += 1.0 / Math.pow(k + 1, ZIPF_EXPONENT);
+            cumulative[k] = total;
+        }
+        Random rnd = new Random(SEED);
+        Integer[] lookups = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            double u = rnd.nextDouble() * total;
+            // Binary search for the first rank whose cumulative weight > u.
+            int low = 0;
+            int high = keys.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] <= u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            lookups[i] = keys[low];
+        }
+        return lookups;
+    }
+
+    /**
+     * Reports the time taken since {@code start} for {@code ops} operations.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the operation timed
+     * @param start
+     *            the value of {@code System.nanoTime()} at the start
+     * @param ops
+     *            the number of operations timed
+     * @updates out.content
+     * @requires out.is_open and ops > 0
+     * @ensures out.content = #out.content * [a line reporting the timing]
+     */
+    private static void report(SimpleWriter out, String label, long start,
+            int ops) {
+        long elapsed = System.nanoTime() - start;
+        out.println("  " + label + ": " + (elapsed / NANOS_PER_MILLI) + " ms ("
+                + (elapsed / ops) + " ns/op)");
+    }
+
+    /**
+     * Times {@code add}, {@code contains}, and iteration on {@code s}.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation
+     * @param s
+     *            the empty set to be timed
+     * @param keys
+     *            the keys to be added and looked up
+     * @updates out.content, s
+     * @requires out.is_open and s = {} and [entries of keys are distinct]
+     * @ensures <pre>
+     * out.content = #out.content * [lines reporting the timings]  and
+     * s = [entries of keys]
+     * </pre>
+     */
+    private static void timeSet(SimpleWriter out, String name,
+            Set<Integer> s, Integer[] keys) {
+        out.println(name);
+        long start = System.nanoTime();
+        for (Integer k : keys) {
+            s.add(k);
+        }
+        report(out, "add", start, keys.length);
+
+        start = System.nanoTime();
+        int found = 0;
+        for (Integer k : keys) {
+            if (s.contains(k)) {
+                found++;
+            }
+        }
+        report(out, "contains", start, keys.length);
+
+        start = System.nanoTime();
+        long sum = 0;
+        for (Integer k : s) {
+            sum += k;
+        }
+        report(out, "iterate", start, keys.length);
+        out.println("  (checks: " + found + ", " + sum + ")");
+    }
+
+    /**
+     * Times {@code contains} on {@code s} for the given lookups.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the implementation
+     * @param s
+     *            the set to be timed
+     * @param lookups
+     *            the keys to be looked up
+     * @updates out.content, s
+     * @requires out.is_open and |lookups| > 0
+     * @ensures <pre>
+     * out.content = #out.content * [a line reporting the timing]  and
+     * s = #s
+     * </pre>
+     */
+    private static void timeLookups(SimpleWriter out, String name,
+            Set<Integer> s, Integer[] lookups) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (Integer k : lookups) {
+            if (s.contains(k)) {
+                found++;
+            }
+        }
+        report(out, name + " contains", start, lookups.length);
+        out.println("  (check: " + found + ")");
+    }
+
+    /**
+     * Times {@code add}, {@code contains}, and iteration on a
+     * {@code java.util.TreeSet}.
+     *
+     * @param out
+     *            the output stream
+     * @param keys
+     *            the keys to be added and looked up
+     * @updates out.content
+     * @requires out.is_open and [entries of keys are distinct]
+     * @ensures out.content = #out.content * [lines reporting the timings]
+     */
+    private static void timeTreeSet(SimpleWriter out, Integer[] keys) {
+        TreeSet<Integer> s = new TreeSet<>();
+        out.println("java.util.TreeSet (red-black tree)");
+        long start = System.nanoTime();
+        for (Integer k : keys) {
+            s.add(k);
+        }
+        report(out, "add", start, keys.length);
+
+        start = System.nanoTime();
+        int found = 0;
+        for (Integer k : keys) {
+            if (s.contains(k)) {
+                found++;
+            }
+        }
+        report(out, "contains", start, keys.length);
+
+        start = System.nanoTime();
+        long sum = 0;
+        for (Integer k : s) {
+            sum += k;
+        }
+        report(out, "iterate", start, keys.length);
+        out.println("  (checks: " + found + ", " + sum + ")");
+    }
+
+    /**
+     * Times a mixed workload on a {@code Set6} shared by {@code threads}
+     * threads. Each thread repeatedly looks up {@code READS_PER_WRITE} keys and
+     * then adds or removes one of the keys it owns, so the kernel
+     * preconditions hold without any coordination between threads.
+     *
+     * @param out
+     *            the output stream
+     * @param keys
+     *            the keys to be used
+     * @param threads
+     *            the number of threads
+     * @updates out.content
+     * @requires out.is_open and threads > 0 and [entries of keys are distinct]
+     * @ensures out.content = #out.content * [a line reporting the throughput]
+     */
+    private static void timeConcurrent(SimpleWriter out, final Integer[] keys,
+            final int threads) {
+        final Set6<Integer> s = new Set6<>();
+        for (int i = 0; i < keys.length; i += 2) {
+            s.add(keys[i]);
+        }
+        final int opsPerThread = keys.length;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int read = id;
+                    int owned = id;
+                    for (int i = 0; i < opsPerThread; i++) {
+                        for (int r = 0; r < READS_PER_WRITE; r++) {
+                            read = (read + opsPerThread / 2 + 1) % keys.length;
+                            s.contains(keys[read]);
+                        }
+                        Integer k = keys[owned];
+                        if (s.contains(k)) {
+                            s.remove(k);
+                        } else {
+                            s.add(k);
+                        }
+                        owned += threads;
+                        if (owned >= keys.length) {
+                            owned = id;
+                        }
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread w : workers) {
+            w.start();
+        }
+        try {
+            for (Thread w : workers) {
+                w.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - start;
+        long ops = (long) threads * opsPerThread * (READS_PER_WRITE + 2);
+        out.println("  " + threads + " threads: "
+                + (ops / (elapsed / NANOS_PER_MILLI)) + " ops/ms");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the number of keys
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int n = DEFAULT_KEY_COUNT;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        Integer[] keys = randomKeys(n);
+        out.println("Timing " + n + " keys in random order");
+
+        Set<Integer> set3a = new Set3a<Integer>();
+        Set<Integer> set3c = new Set3c<Integer>();
+        timeSet(out, "Set3a (binary search tree)", set3a, keys);
+        timeSet(out, "Set3b (persistent AVL tree)", new Set3b<Integer>(),
+                keys);
+        timeSet(out, "Set3c (splay tree)", set3c, keys);
+        timeSet(out, "Set5 (B+-tree)", new Set5<Integer>(), keys);
+        timeSet(out, "Set6 (lock-free skip list)", new Set6<Integer>(), keys);
+        timeTreeSet(out, keys);
+
+        out.println("Zipf-distributed lookups (exponent " + ZIPF_EXPONENT
+                + ")");
+        Integer[] lookups = zipfLookups(keys, n);
+        timeLookups(out, "Set3a", set3a, lookups);
+        timeLookups(out, "Set3c", set3c, lookups);
+
+        out.println("Set6 mixed workload (" + READS_PER_WRITE
+                + " contains per add/remove)");
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            timeConcurrent(out, keys, threads);
+        }
+
+        out.close();
+    }
+
+}
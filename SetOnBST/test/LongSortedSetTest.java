@@ -0,0 +1,219 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code LongSortedSet}'s constructor, kernel methods,
+ * and unboxed methods.
+ */
+public class LongSortedSetTest {
+
+    /**
+     * Number of elements for the tests that fill several nodes.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns an {@code LongSortedSet} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgsTest = [entries in args]
+     */
+    private LongSortedSet createFromArgsTest(long... args) {
+        LongSortedSet set = new LongSortedSet();
+        for (long x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Creates and returns a {@code Set<Long>} of the reference
+     * implementation type with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgsRef = [entries in args]
+     */
+    private Set<Long> createFromArgsRef(long... args) {
+        Set<Long> set = new Set1L<Long>();
+        for (long x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        LongSortedSet set = new LongSortedSet();
+        Set<Long> setExpected = this.createFromArgsRef();
+        assertEquals(setExpected, set);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAddBoxedAndUnboxed() {
+        LongSortedSet set = this.createFromArgsTest(5, 3);
+        Set<Long> setExpected = this.createFromArgsRef(5, 3, 7, -1);
+
+        set.add(Long.valueOf(7));
+        set.add(-1L);
+
+        assertEquals(setExpected, set);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemove() {
+        LongSortedSet set = this.createFromArgsTest(5, 3, 7, 8, 1);
+        Set<Long> setExpected = this.createFromArgsRef(5, 3, 8, 1);
+
+        long removed = set.remove(7);
+
+        assertEquals(setExpected, set);
+        assertEquals(7, removed);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveAnyIsSmallest() {
+        LongSortedSet set = this.createFromArgsTest(5, 3, 7, 8, 1);
+        Set<Long> setExpected = this.createFromArgsRef(5, 3, 7, 8);
+
+        Long removed = set.removeAny();
+
+        assertEquals(setExpected, set);
+        assertEquals(Long.valueOf(1), removed);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testContains() {
+        LongSortedSet set = this.createFromArgsTest(5, 3, 7);
+
+        assertEquals(true, set.contains(3));
+        assertEquals(false, set.contains(4));
+        assertEquals(true, set.contains(Long.valueOf(7)));
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testContainsBatch() {
+        LongSortedSet set = this.createFromArgsTest(10, 20, 30, 40, 50, 60);
+        long[] queries = { -5, 10, 10, 25, 40, 41, 60, 99 };
+        boolean[] expected = { false, true, true, false, true, false, true,
+                false };
+
+        boolean[] found = set.contains(queries);
+
+        assertArrayEquals(expected, found);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIteratorInIncreasingOrder() {
+        LongSortedSet set = this.createFromArgsTest(5, 3, 7, 8, 1);
+        long[] expected = { 1, 3, 5, 7, 8 };
+
+        long[] seen = new long[set.size()];
+        PrimitiveIterator.OfLong it = set.iterator();
+        for (int i = 0; i < seen.length; i++) {
+            seen[i] = it.nextLong();
+        }
+
+        assertArrayEquals(expected, seen);
+        assertEquals(false, it.hasNext());
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyAddsThenRemoveSmallest() {
+        /*
+         * 7919 is prime, so i * 7919 mod MANY visits every value in [0, MANY)
+         * once, in scrambled order.
+         */
+        LongSortedSet set = new LongSortedSet();
+        for (int i = 0; i < MANY; i++) {
+            set.add((long) (i * 7919) % MANY);
+        }
+        Set<Long> setExpected = new Set1L<Long>();
+        for (int i = MANY / 2; i < MANY; i++) {
+            setExpected.add((long) i);
+        }
+
+        for (int i = 0; i < MANY / 2; i++) {
+            assertEquals(i, set.removeSmallest());
+        }
+
+        assertEquals(setExpected, set);
+    }
+
+    /**
+     * Challenging: enough elements, added in scrambled order, for a tree of
+     * several levels; then removes every third one, which merges and refills
+     * nodes, and checks every element, the iteration order, and a batch of
+     * queries that falls in and between the leaves.
+     */
+    @Test
+    public final void testManyAddsAndRemovesInScrambledOrder() {
+        final int n = 20 * MANY;
+        final int step = 7919;
+        LongSortedSet set = new LongSortedSet();
+        for (int i = 0; i < n; i++) {
+            set.add((long) ((i * step) % n) * 2);
+        }
+
+        for (int i = 0; i < n; i += 3) {
+            set.remove((long) i * 2);
+        }
+
+        long[] queries = new long[2 * n + 1];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = i - 1;
+        }
+        boolean[] found = set.contains(queries);
+        for (int i = 0; i < queries.length; i++) {
+            long x = queries[i];
+            boolean expected = x >= 0 && x % 2 == 0 && (x / 2) % 3 != 0;
+            assertEquals(expected, found[i]);
+            assertEquals(expected, set.contains(x));
+        }
+        PrimitiveIterator.OfLong it = set.iterator();
+        for (int i = 0; i < n; i++) {
+            if (i % 3 != 0) {
+                assertEquals((long) i * 2, it.nextLong());
+            }
+        }
+        assertEquals(false, it.hasNext());
+        assertEquals(n - (n + 2) / 3, set.size());
+    }
+
+}
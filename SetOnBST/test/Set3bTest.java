@@ -0,0 +1,63 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}.
+ */
+public class Set3bTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testSnapshotUnaffectedByLaterUpdates() {
+        Set3b<String> set = new Set3b<String>();
+        set.add("5");
+        set.add("3");
+        set.add("7");
+        Set<String> setExpected = new Set1L<String>();
+        setExpected.add("5");
+        setExpected.add("3");
+        setExpected.add("7");
+
+        Set3b<String> snapshot = set.snapshot();
+        set.remove("3");
+        set.add("9");
+
+        assertEquals(setExpected, snapshot);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testUpdatesToSnapshotLeaveOriginal() {
+        Set3b<String> set = new Set3b<String>();
+        set.add("5");
+        set.add("3");
+        Set<String> setExpected = new Set1L<String>();
+        setExpected.add("5");
+        setExpected.add("3");
+
+        Set3b<String> snapshot = set.snapshot();
+        snapshot.removeAny();
+        snapshot.add("1");
+
+        assertEquals(setExpected, set);
+    }
+
+}
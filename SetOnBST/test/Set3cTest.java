@@ -0,0 +1,71 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3c}, plus tests of calling
+ * {@code contains}, which splays, during an iteration.
+ */
+public class Set3cTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3c<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Routine: looking up another element at every step of an iteration does
+     * not make it repeat or skip elements.
+     */
+    @Test
+    public final void testContainsDuringIteration() {
+        final int n = 8;
+        Set<Integer> s = new Set3c<Integer>();
+        for (int i = 1; i <= n; i++) {
+            s.add(i);
+        }
+
+        int expected = 1;
+        for (Integer x : s) {
+            assertEquals(expected, x.intValue());
+            assertEquals(true, s.contains(n + 1 - x));
+            expected++;
+        }
+
+        assertEquals(n + 1, expected);
+        assertEquals(n, s.size());
+    }
+
+    /**
+     * Challenging: lookups of present and absent elements during an
+     * iteration over a larger set, which splay every part of the tree.
+     */
+    @Test
+    public final void testContainsDuringIterationMany() {
+        final int n = 500;
+        final int step = 37;
+        Set<Integer> s = new Set3c<Integer>();
+        for (int i = 0; i < n; i++) {
+            s.add((i * step) % n);
+        }
+
+        int expected = 0;
+        for (Integer x : s) {
+            assertEquals(expected, x.intValue());
+            assertEquals(true, s.contains((x * step) % n));
+            assertEquals(false, s.contains(n + x));
+            expected++;
+        }
+
+        assertEquals(n, expected);
+    }
+
+}
@@ -0,0 +1,25 @@
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set5} using non-default constructor
+ * and node capacity 3, so that even small sets split and merge nodes.
+ */
+public class Set5Test3 extends SetTest {
+
+    /**
+     * Node capacity to be used in tests.
+     */
+    private static final int TEST_NODE_CAPACITY = 3;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set5<String>(TEST_NODE_CAPACITY);
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+}
@@ -0,0 +1,207 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set6}, plus tests of calling its
+ * kernel methods from several threads.
+ */
+public class Set6Test extends SetTest {
+
+    /**
+     * Number of threads in the concurrent tests.
+     */
+    private static final int THREADS = 8;
+
+    /**
+     * Number of elements each thread adds or removes in the concurrent tests.
+     */
+    private static final int PER_THREAD = 2000;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set6<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Runs each of {@code tasks} in a thread of its own, all at once, waits
+     * for all of them to finish, and then rethrows the first exception or
+     * error any of them threw.
+     *
+     * @param tasks
+     *            the tasks to be run
+     */
+    private static void runConcurrently(Runnable... tasks) {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+        Thread[] threads = new Thread[tasks.length];
+        for (int t = 0; t < tasks.length; t++) {
+            threads[t] = new Thread(tasks[t]);
+            threads[t].setUncaughtExceptionHandler((thread, e) -> {
+                failures.add(e);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while joining", e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("A thread failed", failures.peek());
+        }
+    }
+
+    /**
+     * Returns a task that adds to {@code s} the elements of
+     * {@code [0, THREADS * PER_THREAD)} congruent to {@code first} modulo
+     * {@code THREADS}, in decreasing order.
+     *
+     * @param s
+     *            the set
+     * @param first
+     *            the smallest element to be added
+     * @return the task
+     */
+    private static Runnable adder(Set<Integer> s, int first) {
+        return () -> {
+            for (int i = PER_THREAD - 1; i >= 0; i--) {
+                s.add(i * THREADS + first);
+            }
+        };
+    }
+
+    /**
+     * Routine: threads adding disjoint elements all at once leave every
+     * element in the set, which iterates over them in increasing order.
+     */
+    @Test
+    public final void testAddConcurrently() {
+        Set<Integer> s = new Set6<Integer>();
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            tasks[t] = adder(s, t);
+        }
+
+        runConcurrently(tasks);
+
+        assertEquals(THREADS * PER_THREAD, s.size());
+        int expected = 0;
+        for (Integer x : s) {
+            assertEquals(expected, x.intValue());
+            expected++;
+        }
+        assertEquals(THREADS * PER_THREAD, expected);
+    }
+
+    /**
+     * Challenging: threads calling removeAny all at once never get the same
+     * element, and between them get every element.
+     */
+    @Test
+    public final void testRemoveAnyConcurrently() {
+        Set<Integer> s = new Set6<Integer>();
+        for (int i = 0; i < THREADS * PER_THREAD; i++) {
+            s.add(i);
+        }
+        Integer[][] removed = new Integer[THREADS][PER_THREAD];
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            Integer[] mine = removed[t];
+            tasks[t] = () -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    mine[i] = s.removeAny();
+                }
+            };
+        }
+
+        runConcurrently(tasks);
+
+        assertEquals(0, s.size());
+        boolean[] seen = new boolean[THREADS * PER_THREAD];
+        for (Integer[] mine : removed) {
+            for (Integer x : mine) {
+                assertFalse(seen[x]);
+                seen[x] = true;
+            }
+        }
+        assertFalse(s.iterator().hasNext());
+    }
+
+    /**
+     * Challenging: threads adding odd elements run at the same time as
+     * threads removing the even ones, and as threads checking with contains
+     * that the elements nobody touches stay in the set.
+     */
+    @Test
+    public final void testAddRemoveAndContainsConcurrently() {
+        final int n = THREADS * PER_THREAD;
+        final int untouched = 3 * n;
+        Set<Integer> s = new Set6<Integer>();
+        for (int i = 0; i < n; i += 2) {
+            s.add(i);
+        }
+        s.add(untouched);
+        Runnable[] tasks = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int first = t;
+            if (t % 3 == 0) {
+                tasks[t] = () -> {
+                    for (int i = 2 * first + 1; i < n; i += 2 * THREADS) {
+                        s.add(i);
+                    }
+                };
+            } else if (t % 3 == 1) {
+                tasks[t] = () -> {
+                    for (int i = 2 * first; i < n; i += 2 * THREADS) {
+                        s.remove(i);
+                    }
+                };
+            } else {
+                tasks[t] = () -> {
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        if (!s.contains(untouched)) {
+                            throw new AssertionError("Lost " + untouched);
+                        }
+                    }
+                };
+            }
+        }
+
+        runConcurrently(tasks);
+
+        Set<Integer> expected = new Set1L<Integer>();
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 2 * t; i < n; i += 2 * THREADS) {
+                if (t % 3 == 0) {
+                    expected.add(i);
+                    expected.add(i + 1);
+                } else if (t % 3 == 2) {
+                    expected.add(i);
+                }
+            }
+        }
+        expected.add(untouched);
+        assertEquals(expected.size(), s.size());
+        int previous = -1;
+        for (Integer x : s) {
+            assertFalse(x <= previous);
+            assertEquals(true, expected.contains(x));
+            previous = x;
+        }
+    }
+
+}
@@ -0,0 +1,498 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine<byte[]>} represented as an array that is sorted by MSD
+ * radix sort when the machine changes to extraction mode, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * When the order is {@link #UNSIGNED_LEXICOGRAPHIC} (the very object, since
+ * other comparators cannot be recognized), {@code changeToExtractionMode}
+ * sorts the entries by most-significant-digit radix sort: it distributes them
+ * into 257 buckets by their byte at the current position (one bucket for the
+ * entries that have no byte there, which come first) and then sorts each
+ * bucket by the next position. Small buckets are finished by insertion sort.
+ * For any other order, the entries are sorted by {@code Arrays.sort} with the
+ * order. {@code removeFirst} then just advances a cursor through the sorted
+ * array.
+ * </p>
+ *
+ * <p>
+ * Entries are kept by reference, so the client must not change an entry's
+ * bytes while it is in the machine.
+ * </p>
+ *
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on string of integer
+ *  ) : boolean is
+ *  for all x, y, z: string of integer
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.next <= i  and  i < $this.entryCount)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.next = 0
+ * else
+ *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+ *    computed by $this.machineOrder.compare method]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.next, $this.entryCount)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class ByteArraySortingMachine extends SortingMachineSecondary<byte[]> {
+
+    /**
+     * Lexicographic order of {@code byte[]}s with bytes compared as unsigned
+     * values (the order of UTF-8 encoded strings by code point); the order
+     * that is sorted by radix sort.
+     */
+    public static final Comparator<byte[]> UNSIGNED_LEXICOGRAPHIC = (x,
+            y) -> Arrays.compareUnsigned(x, y);
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Largest bucket that radix sort sorts by insertion sort instead of
+     * distributing further.
+     */
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * Number of distinct byte values.
+     */
+    private static final int RADIX = 256;
+
+    /**
+     * Order.
+     */
+    private Comparator<byte[]> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, sorted.
+     */
+    private byte[][] entries;
+
+    /**
+     * Number of entries in {@code entries} (including removed ones).
+     */
+    private int entryCount;
+
+    /**
+     * Index in {@code entries} of the next entry to remove, in extraction
+     * mode.
+     */
+    private int next;
+
+    /**
+     * Returns the bucket of {@code key} at position {@code d}: 0 if
+     * {@code key} is no longer than {@code d}, otherwise one more than the
+     * unsigned value of its byte there.
+     *
+     * @param key
+     *            the key
+     * @param d
+     *            the position
+     * @return the bucket
+     * @requires d >= 0
+     * @ensures 0 <= bucket <= RADIX
+     */
+    private static int bucket(byte[] key, int d) {
+        int b = 0;
+        if (d < key.length) {
+            b = Byte.toUnsignedInt(key[d]) + 1;
+        }
+        return b;
+    }
+
+    /**
+     * Sorts {@code array[lo, hi)} by insertion sort, knowing its entries agree
+     * on their first {@code d} bytes.
+     *
+     * @param array
+     *            the array
+     * @param lo
+     *            the start of the part to be sorted
+     * @param hi
+     *            the end of the part to be sorted
+     * @param d
+     *            the length of the common prefix
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and
+     * [the entries of array[lo, hi) have length at least d and agree on
+     *  their first d bytes]
+     * </pre>
+     * @ensures <pre>
+     * [array[lo, hi) is sorted]  and  perms(array, #array)  and
+     * [the other entries of array are the same as in #array]
+     * </pre>
+     */
+    private static void insertionSort(byte[][] array, int lo, int hi, int d) {
+        for (int i = lo + 1; i < hi; i++) {
+            byte[] x = array[i];
+            int j = i;
+            while (j > lo && Arrays.compareUnsigned(x, d, x.length,
+                    array[j - 1], d, array[j - 1].length) < 0) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = x;
+        }
+    }
+
+    /**
+     * Sorts {@code array[lo, hi)}, whose entries all agree on their first
+     * {@code d} bytes, by MSD radix sort, using {@code aux[lo, hi)} as
+     * scratch space.
+     *
+     * @param array
+     *            the array
+     * @param aux
+     *            the scratch array
+     * @param lo
+     *            the start of the part to be sorted
+     * @param hi
+     *            the end of the part to be sorted
+     * @param d
+     *            the length of the common prefix
+     * @updates array, aux
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array| = |aux|  and
+     * [the entries of array[lo, hi) have length at least d and agree on
+     *  their first d bytes]
+     * </pre>
+     * @ensures <pre>
+     * [array[lo, hi) is sorted]  and  perms(array, #array)  and
+     * [the other entries of array are the same as in #array]
+     * </pre>
+     */
+    private static void radixSort(byte[][] array, byte[][] aux, int lo,
+            int hi, int d) {
+        int depth = d;
+        boolean done = false;
+        while (!done && hi - lo > INSERTION_SORT_CUTOFF) {
+            /*
+             * start[b] is where bucket b begins; after distributing, start[b]
+             * is where bucket b + 1 begins.
+             */
+            int[] start = new int[RADIX + 2];
+            for (int i = lo; i < hi; i++) {
+                start[bucket(array[i], depth) + 1]++;
+            }
+            int only = bucket(array[lo], depth);
+            if (start[only + 1] == hi - lo) {
+                /*
+                 * All entries are in one bucket: if it is bucket 0 they are
+                 * all equal, otherwise go on to the next byte without moving
+                 * anything (and without recursing, so a long common prefix
+                 * does not use a deep stack).
+                 */
+                done = only == 0;
+                depth++;
+            } else {
+                start[0] = lo;
+                for (int b = 1; b < start.length; b++) {
+                    start[b] += start[b - 1];
+                }
+                for (int i = lo; i < hi; i++) {
+                    int b = bucket(array[i], depth);
+                    aux[start[b]] = array[i];
+                    start[b]++;
+                }
+                System.arraycopy(aux, lo, array, lo, hi - lo);
+                /*
+                 * Bucket 0 holds the entries that end at depth, which are all
+                 * equal; every other bucket is sorted by the next byte.
+                 */
+                for (int b = 1; b <= RADIX; b++) {
+                    radixSort(array, aux, start[b - 1], start[b], depth + 1);
+                }
+                done = true;
+            }
+        }
+        if (!done) {
+            insertionSort(array, lo, hi, depth);
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.next <= i  and  i < $this.entryCount)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.next = 0
+     * else
+     *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+     *    computed by $this.machineOrder.compare method]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.entryCount : ""
+                + "Violation of: $this.next <= $this.entryCount";
+        assert this.entryCount <= this.entries.length : ""
+                + "Violation of: $this.entryCount <= |$this.entries|";
+        for (int i = this.next; i < this.entryCount; i++) {
+            assert this.entries[i] != null : ""
+                    + "Violation of: all entries in $this.entries[$this.next,"
+                    + " $this.entryCount) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+        } else {
+            for (int i = this.next + 1; i < this.entryCount; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0 : ""
+                                + "Violation of: $this.entries[$this.next,"
+                                + " $this.entryCount) is sorted";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    private void createNewRep(Comparator<byte[]> order) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.entries = new byte[DEFAULT_CAPACITY][];
+        this.entryCount = 0;
+        this.next = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; the order is
+     * {@link #UNSIGNED_LEXICOGRAPHIC}.
+     */
+    public ByteArraySortingMachine() {
+        this.createNewRep(UNSIGNED_LEXICOGRAPHIC);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public ByteArraySortingMachine(Comparator<byte[]> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final SortingMachine<byte[]> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<byte[]> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ByteArraySortingMachine : ""
+                + "Violation of: source is of dynamic type"
+                + " ByteArraySortingMachine";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        ByteArraySortingMachine localSource = (ByteArraySortingMachine) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.entryCount = localSource.entryCount;
+        this.next = localSource.next;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(byte[] x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.entryCount == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length + 1);
+        }
+        this.entries[this.entryCount] = x;
+        this.entryCount++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.machineOrder == UNSIGNED_LEXICOGRAPHIC) {
+            byte[][] aux = new byte[this.entryCount][];
+            radixSort(this.entries, aux, 0, this.entryCount, 0);
+        } else {
+            Arrays.sort(this.entries, 0, this.entryCount, this.machineOrder);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final byte[] removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        byte[] removed = this.entries[this.next];
+        this.entries[this.next] = null;
+        this.next++;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<byte[]> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.entryCount - this.next;
+    }
+
+    @Override
+    public final Iterator<byte[]> iterator() {
+        return new ByteArraySortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code ByteArraySortingMachine}.
+     */
+    private final class ByteArraySortingMachineIterator
+            implements Iterator<byte[]> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private ByteArraySortingMachineIterator() {
+            this.arrayCurrentIndex = ByteArraySortingMachine.this.next;
+            assert ByteArraySortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < ByteArraySortingMachine.this.entryCount;
+            assert ByteArraySortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public byte[] next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            byte[][] entries = ByteArraySortingMachine.this.entries;
+            byte[] next = entries[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert ByteArraySortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
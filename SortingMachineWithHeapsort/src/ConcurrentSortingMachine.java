@@ -0,0 +1,877 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} to which several threads can add entries at the same
+ * time, represented as one array per adding thread in insertion mode and as a
+ * heap in extraction mode, with implementations of primary methods.
+ *
+ * <p>
+ * Each thread that calls {@code add} gets its own buffer, an array that
+ * doubles in length when it is full, the first time it adds; the buffer is
+ * found through a {@code ThreadLocal} and registered in a lock-free queue, so
+ * {@code add} takes no lock and threads adding at the same time do not write
+ * to the same memory. {@code changeToExtractionMode} copies the buffers into
+ * one array and turns it into a heap; from {@value #PARALLEL_THRESHOLD}
+ * entries up, both steps run on the threads of the common fork-join pool: the
+ * buffers are copied side by side, the subheaps rooted at one level of the
+ * tree are heapified at the same time (their entries are disjoint), and only
+ * the few levels above them are finished on the calling thread. Extraction is
+ * as in {@code SortingMachine5a}, on one thread.
+ * </p>
+ *
+ * <p>
+ * Only {@code add} may be called from several threads at the same time, and
+ * only with no other call in progress. Every {@code add} must happen-before
+ * whatever call comes next on any other thread (for instance, because that
+ * thread joined the adding threads, or waited for their tasks to finish), so
+ * that the buffers it reads are complete. Under the same rule, a thread may
+ * add again after {@code clear}.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ *
+ * BUFFER_ENTRIES (
+ *   q: finite set of Buffer
+ *  ) : finite multiset of T is
+ *  [the union over all b in q of multiset_entries(b.entries[0, b.count))]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * for all b in $this.buffers
+ *   (0 <= b.count <= |b.entries|  and
+ *    for all i: integer where (0 <= i  and  i < b.count)
+ *      ([entry at position i in b.entries is not null]))  and
+ * [$this.localBuffer gives each thread that has called add since
+ *  $this.buffers was created a distinct buffer in $this.buffers]  and
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if $this.insertionMode then
+ *   $this.heapSize = 0
+ * else
+ *   $this.buffers = {}  and
+ *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         BUFFER_ENTRIES($this.buffers) union
+ *         multiset_entries($this.heap[0, $this.heapSize)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class ConcurrentSortingMachine<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of entries from which {@code changeToExtractionMode} works in
+     * parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Default initial length of each thread's buffer.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Number of subheaps heapified in parallel per thread of the pool, so
+     * that a thread that finishes early can take over another's work.
+     */
+    private static final int SUBHEAPS_PER_THREAD = 4;
+
+    /**
+     * Smallest number of entries in a subheap heapified in parallel.
+     */
+    private static final int MIN_SUBHEAP_SIZE = 1 << 10;
+
+    /**
+     * Entries added by one thread.
+     *
+     * @param <T>
+     *            type of entries
+     */
+    private static final class Buffer<T> {
+
+        /**
+         * Entries, in the order they were added.
+         */
+        private T[] entries;
+
+        /**
+         * Number of entries.
+         */
+        private int count;
+
+        /**
+         * Constructor from initial length.
+         *
+         * @param capacity
+         *            initial length of the array of entries
+         * @requires capacity >= 0
+         */
+        @SuppressWarnings("unchecked")
+        private Buffer(int capacity) {
+            /*
+             * With "new T[...]" in place of "new Object[...]" it does not
+             * compile; as shown, it results in a warning about an unchecked
+             * cast, though it cannot fail.
+             */
+            this.entries = (T[]) (new Object[capacity]);
+            this.count = 0;
+        }
+
+        /**
+         * Appends {@code x} to the entries.
+         *
+         * @param x
+         *            the entry to be added
+         * @updates this
+         * @ensures this.entries[0, this.count) =
+         *          #this.entries[0, #this.count) * <x>
+         */
+        private void add(T x) {
+            if (this.count == this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries,
+                        2 * this.entries.length + 1);
+            }
+            this.entries[this.count] = x;
+            this.count++;
+        }
+
+    }
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Buffers of the threads that have added entries (in insertion mode).
+     */
+    private ConcurrentLinkedQueue<Buffer<T>> buffers;
+
+    /**
+     * The calling thread's buffer, created and registered in {@code buffers}
+     * on first use.
+     */
+    private ThreadLocal<Buffer<T>> localBuffer;
+
+    /**
+     * Entries as a heap (in extraction mode).
+     */
+    private T[] heap;
+
+    /**
+     * Heap size.
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of each thread's buffer, as requested when this was
+     * constructed.
+     */
+    private int bufferCapacity;
+
+    /**
+     * Given an array that represents a complete binary tree and an index
+     * referring to the root of a subtree that would be a heap except for its
+     * root, sifts the root down to turn that whole subtree into a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * [subtree rooted at {@code top} is a complete binary tree]  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries in array outside the subtree rooted at top are the same as
+     *  in #array]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+        assert isHeap(array, 2 * top + 1, last, order) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
+                + " [relation computed by order.compare method])";
+        assert isHeap(array, 2 * top + 2, last, order) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
+                + " [relation computed by order.compare method])";
+        /*
+         * Only the subtree rooted at top is checked, since other threads may
+         * be changing the rest of the array; impractical to check the last
+         * requires clause.
+         */
+
+        /*
+         * Bottom-up ("bounce") sift-down, as in SortingMachine5a: follow the
+         * path of smaller children to a leaf, climb back to the place where
+         * the root entry belongs, and shift the entries above it up one level.
+         */
+        T rootEntry = array[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            // Both children exist: continue with the smaller one.
+            if (order.compare(array[child + 1], array[child]) < 0) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            // Only a left child exists.
+            node = child;
+        }
+        while (node > top && order.compare(rootEntry, array[node]) < 0) {
+            node = (node - 1) / 2;
+        }
+        T carried = array[node];
+        array[node] = rootEntry;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T temp = array[node];
+            array[node] = carried;
+            carried = temp;
+        }
+
+    }
+
+    /**
+     * Heapifies the subtree of the given array rooted at {@code top}, through
+     * index {@code last}, bottom-up (Floyd's method): sifts down the root of
+     * every subtree of it, a level at a time from the deepest, so that each
+     * sift-down finds both subtrees already heaps. Only entries of that
+     * subtree are read or written, so disjoint subtrees can be heapified at
+     * the same time.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the subtree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            the total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries in array outside the subtree rooted at top are the same as
+     *  in #array]
+     * </pre>
+     */
+    private static <T> void heapifySubtree(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        /*
+         * At depth k below top, the subtree's nodes are the 2^k consecutive
+         * indices starting at (top + 1) * 2^k - 1. Find the deepest depth
+         * whose first node has a child, then work back up to top.
+         */
+        int depth = 0;
+        while ((((long) top + 1) << (depth + 1)) - 1 <= (last - 1) / 2) {
+            depth++;
+        }
+        for (int k = depth; k >= 0; k--) {
+            int first = ((top + 1) << k) - 1;
+            int end = Math.min(first + (1 << k) - 1, (last - 1) / 2);
+            for (int node = end; node >= first; node--) {
+                siftDown(array, node, last, order);
+            }
+        }
+    }
+
+    /**
+     * Heapifies the entries of the given array through index {@code last}:
+     * from {@value #PARALLEL_THRESHOLD} entries up, heapifies the subtrees
+     * rooted at one level on the common fork-join pool and then sifts down
+     * the nodes above that level; otherwise, heapifies the whole array on the
+     * calling thread.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            the total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, 0, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries in array after index last are the same as in #array]
+     * </pre>
+     */
+    private static <T> void heapify(T[] array, int last, Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert last < array.length : "Violation of: last < |array|";
+
+        if (last + 1 < PARALLEL_THRESHOLD) {
+            if (last >= 0) {
+                heapifySubtree(array, 0, last, order);
+            }
+        } else {
+            /*
+             * Pick the level with enough subheaps to keep every thread busy,
+             * but not so many that each is too small to be worth a task. The
+             * subheaps rooted there are the nodes from levelStart through
+             * 2 * levelStart (those that exist), and they share no entries.
+             */
+            int wanted = Math.min(
+                    SUBHEAPS_PER_THREAD
+                            * ForkJoinPool.getCommonPoolParallelism(),
+                    (last + 1) / MIN_SUBHEAP_SIZE);
+            int levelStart = 0;
+            while (levelStart + 1 < wanted) {
+                levelStart = 2 * levelStart + 1;
+            }
+            int levelEnd = Math.min(2 * levelStart, last);
+            IntStream.rangeClosed(levelStart, levelEnd).parallel()
+                    .forEach(top -> heapifySubtree(array, top, last, order));
+            for (int top = levelStart - 1; top >= 0; top--) {
+                siftDown(array, top, last, order);
+            }
+        }
+    }
+
+    /**
+     * Checks if the subtree of the given {@code array} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @return true if the subtree of the given {@code array} rooted at the
+     *         given {@code top} is a heap; false otherwise
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * [the entries of the subtree rooted at top are not null]
+     * </pre>
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    private static <T> boolean isHeap(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = (order.compare(array[top], array[left]) <= 0)
+                    && isHeap(array, left, last, order);
+            int right = left + 1;
+            if (isHeap && (right <= last)) {
+                isHeap = (order.compare(array[top], array[right]) <= 0)
+                        && isHeap(array, right, last, order);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * for all b in $this.buffers
+     *   (0 <= b.count <= |b.entries|  and
+     *    for all i: integer where (0 <= i  and  i < b.count)
+     *      ([entry at position i in b.entries is not null]))  and
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if $this.insertionMode then
+     *   $this.heapSize = 0
+     * else
+     *   $this.buffers = {}  and
+     *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        for (Buffer<T> b : this.buffers) {
+            assert 0 <= b.count : "Violation of: 0 <= b.count";
+            assert b.count <= b.entries.length : ""
+                    + "Violation of: b.count <= |b.entries|";
+            for (int i = 0; i < b.count; i++) {
+                assert b.entries[i] != null : ""
+                        + "Violation of: all entries in"
+                        + " b.entries[0, b.count) are not null";
+            }
+        }
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.heapSize == 0 : "Violation of: $this.heapSize = 0";
+        } else {
+            assert this.buffers.isEmpty() : ""
+                    + "Violation of: $this.buffers = {}";
+            assert isHeap(this.heap, 0, this.heapSize - 1,
+                    this.machineOrder) : ""
+                            + "Violation of: SUBTREE_IS_HEAP($this.heap, 0,"
+                            + " $this.heapSize - 1, [relation computed by"
+                            + " $this.machineOrder.compare method])";
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the buffers with an empty set, and gives every thread a new
+     * buffer the next time it adds.
+     *
+     * @updates $this.buffers, $this.localBuffer
+     * @ensures <pre>
+     * $this.buffers = {}  and
+     * [$this.localBuffer gives each thread that calls add a new buffer of
+     *  length $this.bufferCapacity, registered in $this.buffers]
+     * </pre>
+     */
+    private void createNewBuffers() {
+        /*
+         * The initializer captures the new queue and capacity rather than
+         * this, so the buffers stay with the queue if it is transferred.
+         */
+        ConcurrentLinkedQueue<Buffer<T>> queue = new ConcurrentLinkedQueue<>();
+        int capacity = this.bufferCapacity;
+        this.buffers = queue;
+        this.localBuffer = ThreadLocal.withInitial(() -> {
+            Buffer<T> b = new Buffer<T>(capacity);
+            queue.add(b);
+            return b;
+        });
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param capacity
+     *            initial length of each thread's buffer
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * capacity >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.buffers = {}  and
+     * |$this.heap| = 0  and  $this.heapSize = 0  and
+     * $this.bufferCapacity = capacity
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.bufferCapacity = capacity;
+        this.createNewBuffers();
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[0]);
+        this.heapSize = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public ConcurrentSortingMachine(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and the number of entries each thread is
+     * expected to add; room for that many entries is allocated in each
+     * thread's buffer when the thread first adds.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param expectedSizePerThread
+     *            number of entries each thread is expected to add
+     * @requires expectedSizePerThread >= 0
+     */
+    public ConcurrentSortingMachine(Comparator<T> order,
+            int expectedSizePerThread) {
+        assert expectedSizePerThread >= 0 : ""
+                + "Violation of: expectedSizePerThread >= 0";
+        this.createNewRep(order, expectedSizePerThread);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.bufferCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.bufferCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentSortingMachine<?> : ""
+                + "Violation of: source is of dynamic type"
+                + " ConcurrentSortingMachine<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentSortingMachine<?>, and the ? must be T or the call would
+         * not have compiled.
+         */
+        ConcurrentSortingMachine<T> localSource =
+                (ConcurrentSortingMachine<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.buffers = localSource.buffers;
+        this.localBuffer = localSource.localBuffer;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.bufferCapacity = localSource.bufferCapacity;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.bufferCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        /*
+         * Other threads may be adding, so neither isInInsertionMode nor
+         * conventionHolds can be used here: both read the other threads'
+         * buffers.
+         */
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+
+        this.localBuffer.get().add(x);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        /*
+         * Give each buffer its place in the heap array, then copy them there
+         * (side by side, if there are enough entries).
+         */
+        List<Buffer<T>> parts = new ArrayList<Buffer<T>>(this.buffers);
+        int[] offsets = new int[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) {
+            offsets[i + 1] = offsets[i] + parts.get(i).count;
+        }
+        int size = offsets[parts.size()];
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        T[] array = (T[]) (new Object[size]);
+        IntStream copies = IntStream.range(0, parts.size());
+        if (size >= PARALLEL_THRESHOLD) {
+            copies = copies.parallel();
+        }
+        copies.forEach(i -> {
+            System.arraycopy(parts.get(i).entries, 0, array, offsets[i],
+                    parts.get(i).count);
+            /*
+             * A thread that added keeps its buffer in its ThreadLocal map
+             * until the map notices the ThreadLocal is gone, so drop the
+             * entries now rather than hold a second copy of them.
+             */
+            parts.get(i).entries = (T[]) (new Object[0]);
+            parts.get(i).count = 0;
+        });
+
+        heapify(array, size - 1, this.machineOrder);
+        this.heap = array;
+        this.heapSize = size;
+        this.createNewBuffers();
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        /*
+         * First grab the top of the heap to return. Then move the last entry
+         * of the heap to the top and siftDown to fix heap, clearing its old
+         * slot so the array does not keep a reference to it.
+         */
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        int size = this.heapSize;
+        for (Buffer<T> b : this.buffers) {
+            size += b.count;
+        }
+        return size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new ConcurrentSortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code ConcurrentSortingMachine}.
+     */
+    private final class ConcurrentSortingMachineIterator
+            implements Iterator<T> {
+
+        /**
+         * The buffers not yet finished, followed by the heap.
+         */
+        private final Iterator<T[]> arrays;
+
+        /**
+         * The numbers of entries in the arrays, in the same order.
+         */
+        private final Iterator<Integer> counts;
+
+        /**
+         * Array being iterated over.
+         */
+        private T[] current;
+
+        /**
+         * Number of entries in {@code current}.
+         */
+        private int currentCount;
+
+        /**
+         * Index in {@code current} of the next entry.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private ConcurrentSortingMachineIterator() {
+            List<T[]> arrayList = new ArrayList<>();
+            List<Integer> countList = new ArrayList<>();
+            for (Buffer<T> b : ConcurrentSortingMachine.this.buffers) {
+                arrayList.add(b.entries);
+                countList.add(b.count);
+            }
+            arrayList.add(ConcurrentSortingMachine.this.heap);
+            countList.add(ConcurrentSortingMachine.this.heapSize);
+            this.arrays = arrayList.iterator();
+            this.counts = countList.iterator();
+            this.current = this.arrays.next();
+            this.currentCount = this.counts.next();
+            this.currentIndex = 0;
+            assert ConcurrentSortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.currentIndex == this.currentCount
+                    && this.arrays.hasNext()) {
+                this.current = this.arrays.next();
+                this.currentCount = this.counts.next();
+                this.currentIndex = 0;
+            }
+            boolean hasNext = this.currentIndex < this.currentCount;
+            assert ConcurrentSortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = this.current[this.currentIndex];
+            this.currentIndex++;
+            assert ConcurrentSortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
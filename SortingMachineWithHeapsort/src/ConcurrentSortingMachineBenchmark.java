@@ -0,0 +1,192 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Rough timing of {@code ConcurrentSortingMachine} against
+ * {@code SortingMachine5a} with every {@code add} synchronized on the
+ * machine: for 1, 2, 4, 8, and 16 producer threads that together add n
+ * entries (10^6 by default), each adding its own share, times the adds (from
+ * starting the producers until all have finished) and then
+ * {@code changeToExtractionMode}, and checks that a full drain is sorted.
+ * How far the times drop with more producers depends on the number of cores;
+ * the parallel part of {@code changeToExtractionMode} can be limited by
+ * rerunning with
+ * {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=N}.
+ *
+ * <p>
+ * Usage: {@code ConcurrentSortingMachineBenchmark [power of 10]}. Run with
+ * assertion checking off; with it on, the representation convention is
+ * checked after every call, which takes longer than the calls themselves.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class ConcurrentSortingMachineBenchmark {
+
+    /**
+     * Default exponent of the number of entries.
+     */
+    private static final int DEFAULT_EXPONENT = 6;
+
+    /**
+     * Base of the number of entries.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Seed for the pseudo-random entries, so runs are comparable.
+     */
+    private static final long SEED = 1_618_033L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Numbers of producer threads timed.
+     */
+    private static final int[] PRODUCERS = { 1, 2, 4, 8, 16 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ConcurrentSortingMachineBenchmark() {
+    }
+
+    /**
+     * Adds {@code entries} to {@code m} from {@code producers} threads, thread
+     * {@code t} adding the t-th contiguous share, with each {@code add}
+     * synchronized on m if {@code synchronize}, and waits for them to finish.
+     *
+     * @param m
+     *            the machine
+     * @param entries
+     *            the entries to be added
+     * @param producers
+     *            number of threads
+     * @param synchronize
+     *            whether each add is synchronized on m
+     * @updates m
+     * @requires m.insertion_mode and producers > 0
+     * @ensures m.contents = #m.contents union [entries of entries]
+     */
+    private static void fill(SortingMachine<Integer> m, int[] entries,
+            int producers, boolean synchronize) {
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            int from = (int) ((long) entries.length * t / producers);
+            int to = (int) ((long) entries.length * (t + 1) / producers);
+            threads[t] = new Thread(() -> {
+                for (int i = from; i < to; i++) {
+                    if (synchronize) {
+                        synchronized (m) {
+                            m.add(entries[i]);
+                        }
+                    } else {
+                        m.add(entries[i]);
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while joining", e);
+            }
+        }
+    }
+
+    /**
+     * Times filling {@code m} from {@code producers} threads and
+     * {@code changeToExtractionMode}, and checks that a drain of {@code m} is
+     * sorted.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the case, printed with the timings
+     * @param m
+     *            the machine to be timed, in insertion mode
+     * @param entries
+     *            the entries to be sorted
+     * @param producers
+     *            number of threads
+     * @param synchronize
+     *            whether each add is synchronized on m
+     * @updates out.content
+     * @requires <pre>
+     * out.is_open and m.insertion_mode and m.contents = {} and producers > 0
+     * </pre>
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static void timeMachine(SimpleWriter out, String label,
+            SortingMachine<Integer> m, int[] entries, int producers,
+            boolean synchronize) {
+        long start = System.nanoTime();
+        fill(m, entries, producers, synchronize);
+        long filled = System.nanoTime();
+        m.changeToExtractionMode();
+        long built = System.nanoTime();
+        boolean sorted = m.size() == entries.length;
+        Integer previous = null;
+        while (m.size() > 0) {
+            Integer x = m.removeFirst();
+            if (previous != null && previous > x) {
+                sorted = false;
+            }
+            previous = x;
+        }
+        out.println("    " + label + ": add " + ((filled - start)
+                / NANOS_PER_MILLI) + " ms, changeToExtractionMode "
+                + ((built - filled) / NANOS_PER_MILLI) + " ms"
+                + (sorted ? "" : "  NOT SORTED"));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the exponent of the
+     *            number of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int exponent = DEFAULT_EXPONENT;
+        if (args.length > 0) {
+            exponent = Integer.parseInt(args[0]);
+        }
+        int n = 1;
+        for (int i = 0; i < exponent; i++) {
+            n *= BASE;
+        }
+        Random rnd = new Random(SEED);
+        int[] entries = new int[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = rnd.nextInt();
+        }
+        Comparator<Integer> order = Comparator.naturalOrder();
+        out.println("n = " + n + ", "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        for (int p : PRODUCERS) {
+            out.println("  " + p + " producers");
+            timeMachine(out, "SortingMachine5a, synchronized add",
+                    new SortingMachine5a<Integer>(order, n), entries, p,
+                    true);
+            timeMachine(out, "ConcurrentSortingMachine",
+                    new ConcurrentSortingMachine<Integer>(order, n / p + 1),
+                    entries, p, false);
+        }
+        out.close();
+    }
+
+}
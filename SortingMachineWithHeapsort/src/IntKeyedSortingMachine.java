@@ -0,0 +1,555 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} ordered by {@code int} keys derived from its entries,
+ * represented as a heap of entries each stored next to its key, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * This is {@code KeyedSortingMachine} specialized to {@code int} keys in
+ * natural or reversed order, chosen when the machine is constructed: the keys
+ * are cached in an {@code int[]}, so they are never boxed, and are compared
+ * with {@code <}. As in {@code IntSortingMachine}, for reversed order each key
+ * {@code k} is stored as {@code ~k}, so the heap code is the same for both
+ * orders. The keys of entries must not change while the entries are in the
+ * machine.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * SUBTREE_IS_HEAP (
+ *   a: string of integer,
+ *   start: integer,
+ *   stop: integer
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to <=]
+ *
+ * STORED_KEY (
+ *   k: integer,
+ *   reversed: boolean
+ *  ) : integer is
+ *  if reversed then ~k else k
+ * </pre>
+ * @convention <pre>
+ * 0 <= $this.heapSize <= |$this.heap| = |$this.keys|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null]  and
+ *    [entry at position i in $this.keys is STORED_KEY of the result of
+ *     $this.keyExtractor.applyAsInt with entry at position i in $this.heap,
+ *     and $this.reversed])  and
+ * if not $this.insertionMode then
+ *   SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1)
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[0, $this.heapSize)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class IntKeyedSortingMachine<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the arrays of entries and keys.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Key extractor.
+     */
+    private ToIntFunction<? super T> keyExtractor;
+
+    /**
+     * Whether the order of keys is reversed.
+     */
+    private boolean reversed;
+
+    /**
+     * Order on entries, comparing their keys; reported by {@code order} but
+     * not used for sorting.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, a heap.
+     */
+    private T[] heap;
+
+    /**
+     * Stored keys of the entries at the same positions in {@code heap}.
+     */
+    private int[] keys;
+
+    /**
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of the arrays of entries and keys, as requested when this
+     * was constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Given the index of the root of a subtree of {@code $this.keys} that
+     * would be a heap except for its root, sifts the root down, moving entries
+     * of {@code $this.heap} along with their keys, to turn that whole subtree
+     * into a heap.
+     *
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @updates $this.heap, $this.keys
+     * @requires <pre>
+     * 0 <= top  and  last < |$this.keys|  and
+     * SUBTREE_IS_HEAP($this.keys, 2 * top + 1, last)  and
+     * SUBTREE_IS_HEAP($this.keys, 2 * top + 2, last)
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP($this.keys, top, last)  and
+     * [$this.heap and $this.keys are permuted the same way, only within the
+     *  subtree rooted at top]
+     * </pre>
+     */
+    private void siftDown(int top, int last) {
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < this.keys.length : "Violation of: last < |$this.keys|";
+        assert isHeap(this.keys, 2 * top + 1, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP($this.keys, 2 * top + 1,"
+                + " last)";
+        assert isHeap(this.keys, 2 * top + 2, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP($this.keys, 2 * top + 2,"
+                + " last)";
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a, on the keys,
+         * with every move of a key repeated on the entries.
+         */
+        T[] entries = this.heap;
+        int[] k = this.keys;
+        T rootEntry = entries[top];
+        int rootKey = k[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            if (k[child + 1] < k[child]) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            node = child;
+        }
+        while (node > top && rootKey < k[node]) {
+            node = (node - 1) / 2;
+        }
+        T carriedEntry = entries[node];
+        int carriedKey = k[node];
+        entries[node] = rootEntry;
+        k[node] = rootKey;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T tempEntry = entries[node];
+            int tempKey = k[node];
+            entries[node] = carriedEntry;
+            k[node] = carriedKey;
+            carriedEntry = tempEntry;
+            carriedKey = tempKey;
+        }
+    }
+
+    /**
+     * Checks if the subtree of the given {@code array} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @return true if the subtree of the given {@code array} rooted at the
+     *         given {@code top} is a heap; false otherwise
+     * @requires 0 <= top and last < |array|
+     * @ensures isHeap = SUBTREE_IS_HEAP(array, top, last)
+     */
+    private static boolean isHeap(int[] array, int top, int last) {
+        assert array != null : "Violation of: array is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = array[top] <= array[left] && isHeap(array, left, last);
+            int right = left + 1;
+            if (isHeap && right <= last) {
+                isHeap = array[top] <= array[right]
+                        && isHeap(array, right, last);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.heapSize <= |$this.heap| = |$this.keys|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if not $this.insertionMode then
+     *   SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1)
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        assert this.heap.length == this.keys.length : ""
+                + "Violation of: |$this.heap| = |$this.keys|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        /*
+         * Not checking that the cached keys are those of the entries, since
+         * computing keys is what this class is meant to avoid.
+         */
+        if (!this.insertionMode) {
+            assert isHeap(this.keys, 0, this.heapSize - 1) : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1)";
+        }
+        return true;
+    }
+
+    /**
+     * Returns the order on entries that compares their keys.
+     *
+     * @param <T>
+     *            type of entries
+     * @param extractor
+     *            key extractor
+     * @param rev
+     *            whether the order of keys is reversed
+     * @return the order on entries
+     */
+    private static <T> Comparator<T> entryOrder(
+            ToIntFunction<? super T> extractor, boolean rev) {
+        Comparator<T> order = Comparator.comparingInt(extractor);
+        if (rev) {
+            order = order.reversed();
+        }
+        return order;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param extractor
+     *            key extractor
+     * @param rev
+     *            whether the order of keys is reversed
+     * @param order
+     *            the order on entries that compares their keys
+     * @param capacity
+     *            initial length of the arrays of entries and keys
+     * @requires <pre>
+     * order = [order on entries comparing keys computed by extractor, reversed
+     *          if rev]  and
+     * capacity >= 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(ToIntFunction<? super T> extractor, boolean rev,
+            Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.keyExtractor = extractor;
+        this.reversed = rev;
+        this.machineOrder = order;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[capacity]);
+        this.keys = new int[capacity];
+        this.heapSize = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from key extractor; keys are in natural order.
+     *
+     * @param keyExtractor
+     *            function computing the key of an entry
+     */
+    public IntKeyedSortingMachine(ToIntFunction<? super T> keyExtractor) {
+        this.createNewRep(keyExtractor, false,
+                entryOrder(keyExtractor, false), DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from key extractor and direction of order of keys.
+     *
+     * @param keyExtractor
+     *            function computing the key of an entry
+     * @param reversed
+     *            whether the order of keys is the reverse of the natural order
+     */
+    public IntKeyedSortingMachine(ToIntFunction<? super T> keyExtractor,
+            boolean reversed) {
+        this.createNewRep(keyExtractor, reversed,
+                entryOrder(keyExtractor, reversed), DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from key extractor, direction of order of keys, and the
+     * number of entries expected to be added; room for that many entries and
+     * keys is allocated up front.
+     *
+     * @param keyExtractor
+     *            function computing the key of an entry
+     * @param reversed
+     *            whether the order of keys is the reverse of the natural order
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public IntKeyedSortingMachine(ToIntFunction<? super T> keyExtractor,
+            boolean reversed, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(keyExtractor, reversed,
+                entryOrder(keyExtractor, reversed), expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(ToIntFunction.class, boolean.class,
+                            int.class)
+                    .newInstance(this.keyExtractor, this.reversed,
+                            this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.keyExtractor, this.reversed, this.machineOrder,
+                this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof IntKeyedSortingMachine<?> : ""
+                + "Violation of: source is of dynamic type"
+                + " IntKeyedSortingMachine<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * IntKeyedSortingMachine<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        IntKeyedSortingMachine<T> localSource =
+                (IntKeyedSortingMachine<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.keyExtractor = localSource.keyExtractor;
+        this.reversed = localSource.reversed;
+        this.machineOrder = localSource.machineOrder;
+        this.heap = localSource.heap;
+        this.keys = localSource.keys;
+        this.heapSize = localSource.heapSize;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.keyExtractor,
+                localSource.reversed, localSource.machineOrder,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize == this.heap.length) {
+            int length = 2 * this.heap.length + 1;
+            this.heap = Arrays.copyOf(this.heap, length);
+            this.keys = Arrays.copyOf(this.keys, length);
+        }
+        int key = this.keyExtractor.applyAsInt(x);
+        if (this.reversed) {
+            key = ~key;
+        }
+        this.heap[this.heapSize] = x;
+        this.keys[this.heapSize] = key;
+        this.heapSize++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+            this.siftDown(top, this.heapSize - 1);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            this.keys[0] = this.keys[this.heapSize];
+            this.siftDown(0, this.heapSize - 1);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new IntKeyedSortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code IntKeyedSortingMachine}.
+     */
+    private final class IntKeyedSortingMachineIterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private IntKeyedSortingMachineIterator() {
+            this.arrayCurrentIndex = 0;
+            assert IntKeyedSortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < IntKeyedSortingMachine.this.heapSize;
+            assert IntKeyedSortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T[] entries = IntKeyedSortingMachine.this.heap;
+            T next = entries[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert IntKeyedSortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
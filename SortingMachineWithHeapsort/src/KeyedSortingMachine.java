@@ -0,0 +1,545 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} ordered by keys derived from its entries, represented
+ * as a heap of entries each stored next to its key, with implementations of
+ * primary methods.
+ *
+ * <p>
+ * The order is given as a key extractor and an order on keys: one entry comes
+ * before another when its key comes before the other's key. Each entry's key
+ * is computed once, when the entry is added, and kept in an array parallel to
+ * the array of entries; the heap code compares only the cached keys and moves
+ * entries and keys together. So with a key extractor that does real work (for
+ * instance, looking up a count in a {@code Map}), a full drain computes n keys
+ * rather than the O(n log n) a comparator that derives the keys would. The
+ * keys of entries must not change while the entries are in the machine.
+ * Otherwise this is {@code SortingMachine5a}.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @param <K>
+ *            type of keys
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on K
+ *  ) : boolean is
+ *  for all x, y, z: K
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of K,
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on K
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.keyOrder.compare method]  and
+ * 0 <= $this.heapSize <= |$this.heap| = |$this.keys|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null]  and
+ *    [entry at position i in $this.keys is the result of
+ *     $this.keyExtractor.apply with entry at position i in $this.heap])  and
+ * if not $this.insertionMode then
+ *   SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1,
+ *     [relation computed by $this.keyOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[0, $this.heapSize)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class KeyedSortingMachine<T, K> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the arrays of entries and keys.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Key extractor.
+     */
+    private Function<? super T, ? extends K> keyExtractor;
+
+    /**
+     * Order on keys.
+     */
+    private Comparator<? super K> keyOrder;
+
+    /**
+     * Order on entries, comparing their keys; reported by {@code order} but
+     * not used for sorting.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, a heap.
+     */
+    private T[] heap;
+
+    /**
+     * Keys of the entries at the same positions in {@code heap}.
+     */
+    private K[] keys;
+
+    /**
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of the arrays of entries and keys, as requested when this
+     * was constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Given the index of the root of a subtree of {@code $this.keys} that
+     * would be a heap except for its root, sifts the root down, moving entries
+     * of {@code $this.heap} along with their keys, to turn that whole subtree
+     * into a heap.
+     *
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @updates $this.heap, $this.keys
+     * @requires <pre>
+     * 0 <= top  and  last < |$this.keys|  and
+     * SUBTREE_IS_HEAP($this.keys, 2 * top + 1, last,
+     *     [relation computed by $this.keyOrder.compare method])  and
+     * SUBTREE_IS_HEAP($this.keys, 2 * top + 2, last,
+     *     [relation computed by $this.keyOrder.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP($this.keys, top, last,
+     *     [relation computed by $this.keyOrder.compare method])  and
+     * [$this.heap and $this.keys are permuted the same way, only within the
+     *  subtree rooted at top]
+     * </pre>
+     */
+    private void siftDown(int top, int last) {
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < this.keys.length : "Violation of: last < |$this.keys|";
+        assert this.isHeap(2 * top + 1, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP($this.keys, 2 * top + 1,"
+                + " last, [relation computed by $this.keyOrder.compare"
+                + " method])";
+        assert this.isHeap(2 * top + 2, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP($this.keys, 2 * top + 2,"
+                + " last, [relation computed by $this.keyOrder.compare"
+                + " method])";
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a, on the keys,
+         * with every move of a key repeated on the entries.
+         */
+        T[] entries = this.heap;
+        K[] k = this.keys;
+        Comparator<? super K> order = this.keyOrder;
+        T rootEntry = entries[top];
+        K rootKey = k[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            if (order.compare(k[child + 1], k[child]) < 0) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            node = child;
+        }
+        while (node > top && order.compare(rootKey, k[node]) < 0) {
+            node = (node - 1) / 2;
+        }
+        T carriedEntry = entries[node];
+        K carriedKey = k[node];
+        entries[node] = rootEntry;
+        k[node] = rootKey;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T tempEntry = entries[node];
+            K tempKey = k[node];
+            entries[node] = carriedEntry;
+            k[node] = carriedKey;
+            carriedEntry = tempEntry;
+            carriedKey = tempKey;
+        }
+    }
+
+    /**
+     * Checks if the subtree of {@code $this.keys} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @return true if the subtree of {@code $this.keys} rooted at the given
+     *         {@code top} is a heap; false otherwise
+     * @requires 0 <= top and last < |$this.keys|
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP($this.keys, top, last,
+     *     [relation computed by $this.keyOrder.compare method])
+     * </pre>
+     */
+    private boolean isHeap(int top, int last) {
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < this.keys.length : "Violation of: last < |$this.keys|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = this.keyOrder.compare(this.keys[top],
+                    this.keys[left]) <= 0 && this.isHeap(left, last);
+            int right = left + 1;
+            if (isHeap && right <= last) {
+                isHeap = this.keyOrder.compare(this.keys[top],
+                        this.keys[right]) <= 0 && this.isHeap(right, last);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.heapSize <= |$this.heap| = |$this.keys|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if not $this.insertionMode then
+     *   SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1,
+     *     [relation computed by $this.keyOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        assert this.heap.length == this.keys.length : ""
+                + "Violation of: |$this.heap| = |$this.keys|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        /*
+         * Not checking that the cached keys are those of the entries, since
+         * computing keys is what this class is meant to avoid.
+         */
+        if (!this.insertionMode) {
+            assert this.isHeap(0, this.heapSize - 1) : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " SUBTREE_IS_HEAP($this.keys, 0, $this.heapSize - 1,"
+                    + " [relation computed by $this.keyOrder.compare"
+                    + " method])";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param extractor
+     *            key extractor
+     * @param kOrder
+     *            total preorder on keys
+     * @param order
+     *            the order on entries that compares their keys
+     * @param capacity
+     *            initial length of the arrays of entries and keys
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by kOrder.compare method]  and
+     * order = [order on entries comparing keys computed by extractor with
+     *          kOrder]  and
+     * capacity >= 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Function<? super T, ? extends K> extractor,
+            Comparator<? super K> kOrder, Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.keyExtractor = extractor;
+        this.keyOrder = kOrder;
+        this.machineOrder = order;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[capacity]);
+        this.keys = (K[]) (new Object[capacity]);
+        this.heapSize = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from key extractor and order on keys.
+     *
+     * @param keyExtractor
+     *            function computing the key of an entry
+     * @param keyOrder
+     *            total preorder on keys
+     */
+    public KeyedSortingMachine(Function<? super T, ? extends K> keyExtractor,
+            Comparator<? super K> keyOrder) {
+        this.createNewRep(keyExtractor, keyOrder,
+                Comparator.comparing(keyExtractor, keyOrder), DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from key extractor, order on keys, and the number of entries
+     * expected to be added; room for that many entries and keys is allocated
+     * up front.
+     *
+     * @param keyExtractor
+     *            function computing the key of an entry
+     * @param keyOrder
+     *            total preorder on keys
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public KeyedSortingMachine(Function<? super T, ? extends K> keyExtractor,
+            Comparator<? super K> keyOrder, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(keyExtractor, keyOrder,
+                Comparator.comparing(keyExtractor, keyOrder), expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(Function.class, Comparator.class,
+                            int.class)
+                    .newInstance(this.keyExtractor, this.keyOrder,
+                            this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.keyExtractor, this.keyOrder, this.machineOrder,
+                this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof KeyedSortingMachine<?, ?> : ""
+                + "Violation of: source is of dynamic type"
+                + " KeyedSortingMachine<?, ?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * KeyedSortingMachine<?, ?>, and the first ? must be T or the call
+         * would not have compiled. The second ? need not be K, but the keys
+         * come along with the key extractor and key order that go with them,
+         * so this is consistent after the transfer all the same.
+         */
+        KeyedSortingMachine<T, K> localSource =
+                (KeyedSortingMachine<T, K>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.keyExtractor = localSource.keyExtractor;
+        this.keyOrder = localSource.keyOrder;
+        this.machineOrder = localSource.machineOrder;
+        this.heap = localSource.heap;
+        this.keys = localSource.keys;
+        this.heapSize = localSource.heapSize;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.keyExtractor,
+                localSource.keyOrder, localSource.machineOrder,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize == this.heap.length) {
+            int length = 2 * this.heap.length + 1;
+            this.heap = Arrays.copyOf(this.heap, length);
+            this.keys = Arrays.copyOf(this.keys, length);
+        }
+        this.heap[this.heapSize] = x;
+        this.keys[this.heapSize] = this.keyExtractor.apply(x);
+        this.heapSize++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+            this.siftDown(top, this.heapSize - 1);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        /*
+         * As in SortingMachine5a, with the key of each entry moved along with
+         * it and the vacated slots cleared.
+         */
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        K lastKey = this.keys[this.heapSize];
+        this.heap[this.heapSize] = null;
+        this.keys[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            this.keys[0] = lastKey;
+            this.siftDown(0, this.heapSize - 1);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new KeyedSortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code KeyedSortingMachine}.
+     */
+    private final class KeyedSortingMachineIterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private KeyedSortingMachineIterator() {
+            this.arrayCurrentIndex = 0;
+            assert KeyedSortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < KeyedSortingMachine.this.heapSize;
+            assert KeyedSortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = KeyedSortingMachine.this.heap[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert KeyedSortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
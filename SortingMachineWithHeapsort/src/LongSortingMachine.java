@@ -0,0 +1,495 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine<Long>} represented as an array of {@code long}s
+ * (using an embedding of heap sort), with implementations of primary methods
+ * and unboxed versions of them.
+ *
+ * <p>
+ * This is {@code SortingMachine5a} specialized to {@code long} entries in
+ * natural or reversed order, chosen when the machine is constructed. Entries
+ * are never boxed and are compared with {@code <} rather than through a
+ * {@code Comparator}; for reversed order each entry {@code x} is stored as
+ * {@code ~x}, which reverses the order of all {@code long}s, so the heap code
+ * is the same for both orders. Besides the kernel methods (which box and
+ * unbox their arguments and results), this class offers {@code add(long)} and
+ * {@code removeFirstLong()}, which allocate nothing once the array has grown
+ * to hold all the entries; {@code clear} keeps the array, so a machine that
+ * is cleared and refilled does not allocate either.
+ * </p>
+ *
+ * @mathdefinitions <pre>
+ * SUBTREE_IS_HEAP (
+ *   a: string of integer,
+ *   start: integer,
+ *   stop: integer
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to <=]
+ *
+ * KEY (
+ *   x: integer,
+ *   reversed: boolean
+ *  ) : integer is
+ *  if reversed then ~x else x
+ * </pre>
+ * @convention <pre>
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * if not $this.insertionMode then
+ *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1)
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode,
+ *         [natural order if not $this.reversed, else reversed order],
+ *         [multiset of KEY(k, $this.reversed) for the entries k of
+ *          $this.heap[0, $this.heapSize)])
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class LongSortingMachine extends SortingMachineSecondary<Long> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Whether the order is reversed.
+     */
+    private boolean reversed;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Keys of the entries: in insertion mode, in the order they were added;
+     * in extraction mode, a heap.
+     */
+    private long[] heap;
+
+    /**
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Given an array that represents a complete binary tree and an index
+     * referring to the root of a subtree that would be a heap except for its
+     * root, sifts the root down to turn that whole subtree into a heap.
+     *
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @updates array
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 1, last)  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 2, last)
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, top, last)  and  perms(array, #array)  and
+     * [the entries of array outside the subtree are the same as in #array]
+     * </pre>
+     */
+    private static void siftDown(long[] array, int top, int last) {
+        assert array != null : "Violation of: array is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+        assert isHeap(array, 2 * top + 1, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last)";
+        assert isHeap(array, 2 * top + 2, last) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last)";
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a.
+         */
+        long rootEntry = array[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            if (array[child + 1] < array[child]) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            node = child;
+        }
+        while (node > top && rootEntry < array[node]) {
+            node = (node - 1) / 2;
+        }
+        long carried = array[node];
+        array[node] = rootEntry;
+        while (node > top) {
+            node = (node - 1) / 2;
+            long temp = array[node];
+            array[node] = carried;
+            carried = temp;
+        }
+    }
+
+    /**
+     * Checks if the subtree of the given {@code array} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @return true if the subtree of the given {@code array} rooted at the
+     *         given {@code top} is a heap; false otherwise
+     * @requires 0 <= top and last < |array|
+     * @ensures isHeap = SUBTREE_IS_HEAP(array, top, last)
+     */
+    private static boolean isHeap(long[] array, int top, int last) {
+        assert array != null : "Violation of: array is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = array[top] <= array[left] && isHeap(array, left, last);
+            int right = left + 1;
+            if (isHeap && right <= last) {
+                isHeap = array[top] <= array[right]
+                        && isHeap(array, right, last);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * if not $this.insertionMode then
+     *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1)
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        if (!this.insertionMode) {
+            assert isHeap(this.heap, 0, this.heapSize - 1) : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1)";
+        }
+        return true;
+    }
+
+    /**
+     * Returns the key stored for entry {@code x}, which is also the entry
+     * stored as key {@code x}.
+     *
+     * @param x
+     *            the entry or key
+     * @return the key or entry
+     * @ensures key = KEY(x, $this.reversed)
+     */
+    private long key(long x) {
+        long key = x;
+        if (this.reversed) {
+            key = ~x;
+        }
+        return key;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param rev
+     *            whether the order is reversed
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires capacity >= 0
+     */
+    private void createNewRep(boolean rev, int capacity) {
+
+        this.insertionMode = true;
+        this.reversed = rev;
+        this.heap = new long[capacity];
+        this.heapSize = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; the order is the natural order of
+     * {@code long}s.
+     */
+    public LongSortingMachine() {
+        this.createNewRep(false, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from direction of order.
+     *
+     * @param reversed
+     *            whether the order is the reverse of the natural order
+     */
+    public LongSortingMachine(boolean reversed) {
+        this.createNewRep(reversed, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from direction of order and the number of entries expected
+     * to be added; room for that many entries is allocated up front.
+     *
+     * @param reversed
+     *            whether the order is the reverse of the natural order
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public LongSortingMachine(boolean reversed, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(reversed, expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final SortingMachine<Long> newInstance() {
+        try {
+            return this.getClass().getConstructor(boolean.class, int.class)
+                    .newInstance(this.reversed, this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        // Keep the array, so refilling the machine does not allocate.
+        this.insertionMode = true;
+        this.heapSize = 0;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<Long> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof LongSortingMachine : ""
+                + "Violation of: source is of dynamic type LongSortingMachine";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        LongSortingMachine localSource = (LongSortingMachine) source;
+        this.insertionMode = localSource.insertionMode;
+        this.reversed = localSource.reversed;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.reversed,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Long x) {
+        assert x != null : "Violation of: x is not null";
+        this.add(x.longValue());
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+            siftDown(this.heap, top, this.heapSize - 1);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final Long removeFirst() {
+        return this.removeFirstLong();
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<Long> order() {
+        assert this.conventionHolds();
+        Comparator<Long> order = Comparator.naturalOrder();
+        if (this.reversed) {
+            order = Comparator.reverseOrder();
+        }
+        return order;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    @Override
+    public final PrimitiveIterator.OfLong iterator() {
+        return new LongSortingMachineIterator();
+    }
+
+    /*
+     * Unboxed methods --------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this}.
+     *
+     * @param x
+     *            the element to be added
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures this.contents = #this.contents union {x}
+     */
+    public final void add(long x) {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length + 1);
+        }
+        this.heap[this.heapSize] = this.key(x);
+        this.heapSize++;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes and returns some "first" ("smallest") entry from the contents
+     * of {@code this}.
+     *
+     * @return the entry removed
+     * @updates this.contents
+     * @requires not this.insertion_mode and this.contents /= {}
+     * @ensures <pre>
+     * removeFirstLong is in #this.contents  and
+     * this.contents = #this.contents \ {removeFirstLong}  and
+     * for all x: integer where (x is in this.contents)
+     *   ([relation computed by this.order().compare method](
+     *     removeFirstLong, x))
+     * </pre>
+     */
+    public final long removeFirstLong() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        long removed = this.heap[0];
+        this.heapSize--;
+        if (this.heapSize > 0) {
+            this.heap[0] = this.heap[this.heapSize];
+            siftDown(this.heap, 0, this.heapSize - 1);
+        }
+
+        assert this.conventionHolds();
+        return this.key(removed);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code LongSortingMachine}, which offers {@code nextLong} to get entries
+     * unboxed.
+     */
+    private final class LongSortingMachineIterator
+            implements PrimitiveIterator.OfLong {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private LongSortingMachineIterator() {
+            this.arrayCurrentIndex = 0;
+            assert LongSortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.arrayCurrentIndex < LongSortingMachine.this.heapSize;
+        }
+
+        @Override
+        public long nextLong() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            long next = LongSortingMachine.this
+                    .key(LongSortingMachine.this.heap[this.arrayCurrentIndex]);
+            this.arrayCurrentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
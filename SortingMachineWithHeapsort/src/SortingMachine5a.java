@@ -1,15 +1,34 @@
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import components.queue.Queue;
-import components.queue.Queue1L;
 import components.sortingmachine.SortingMachine;
 import components.sortingmachine.SortingMachineSecondary;
 
 /**
- * {@code SortingMachine} represented as a {@code Queue} and an array (using an
- * embedding of heap sort), with implementations of primary methods.
+ * {@code SortingMachine} represented as an array (using an embedding of heap
+ * sort), with implementations of primary methods.
+ *
+ * <p>
+ * In insertion mode the entries are appended to the array, which doubles in
+ * length when it is full; {@code changeToExtractionMode} then turns that same
+ * array into a heap in place. A caller that knows roughly how many entries it
+ * will add can pass that number to the constructor so the array never has to
+ * grow.
+ * </p>
+ *
+ * <p>
+ * Besides the kernel methods, {@code removeFirst(T[], int, int)} removes the
+ * next entries into an array of the caller's, and {@code sortedStream} drains
+ * the machine through a {@code Stream}. Both run the heap code in a loop and
+ * check the representation convention (when assertion checking is on) once
+ * per call rather than once per entry.
+ * </p>
  *
  * @param <T>
  *            type of {@code SortingMachine} entries
@@ -42,22 +61,17 @@ import components.sortingmachine.SortingMachineSecondary;
  * </pre>
  * @convention <pre>
  * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
- * if $this.insertionMode then
- *   $this.heapSize = 0
- * else
- *   $this.entries = <>  and
- *   for all i: integer
- *       where (0 <= i  and  i < |$this.heap|)
- *     ([entry at position i in $this.heap is not null])  and
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if not $this.insertionMode then
  *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
- *     [relation computed by $this.machineOrder.compare method])  and
- *   0 <= $this.heapSize <= |$this.heap|
+ *     [relation computed by $this.machineOrder.compare method])
  * </pre>
  * @correspondence <pre>
- * if $this.insertionMode then
- *   this = (true, $this.machineOrder, multiset_entries($this.entries))
- * else
- *   this = (false, $this.machineOrder, multiset_entries($this.heap[0, $this.heapSize)))
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[0, $this.heapSize)))
  * </pre>
  *
  * @author Aaron Lucas and Steven Masilonis
@@ -69,6 +83,11 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * Private members --------------------------------------------------------
      */
 
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
     /**
      * Order.
      */
@@ -80,49 +99,21 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     private boolean insertionMode;
 
     /**
-     * Entries.
-     */
-    private Queue<T> entries;
-
-    /**
-     * Heap.
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, a heap.
      */
     private T[] heap;
 
     /**
-     * Heap size.
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
      */
     private int heapSize;
 
     /**
-     * Exchanges entries at indices {@code i} and {@code j} of {@code array}.
-     *
-     * @param <T>
-     *            type of array entries
-     * @param array
-     *            the array whose entries are to be exchanged
-     * @param i
-     *            one index
-     * @param j
-     *            the other index
-     * @updates array
-     * @requires 0 <= i < |array| and 0 <= j < |array|
-     * @ensures array = [#array with entries at indices i and j exchanged]
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
      */
-    private static <T> void exchangeEntries(T[] array, int i, int j) {
-        assert array != null : "Violation of: array is not null";
-        assert 0 <= i : "Violation of: 0 <= i";
-        assert i < array.length : "Violation of: i < |array|";
-        assert 0 <= j : "Violation of: 0 <= j";
-        assert j < array.length : "Violation of: j < |array|";
-
-        if (i != j) {
-            T temp = array[i];
-            array[i] = array[j];
-            array[j] = temp;
-        }
-
-    }
+    private int initialCapacity;
 
     /**
      * Given an array that represents a complete binary tree and an index
@@ -143,7 +134,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @requires <pre>
      * 0 <= top  and  last < |array|  and
      * for all i: integer
-     *     where (0 <= i  and  i < |array|)
+     *     where (0 <= i  and  i <= last)
      *   ([entry at position i in array is not null])  and
      * [subtree rooted at {@code top} is a complete binary tree]  and
      * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
@@ -167,9 +158,9 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         assert order != null : "Violation of: order is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length : "Violation of: last < |array|";
-        for (int i = 0; i < array.length; i++) {
+        for (int i = 0; i <= last; i++) {
             assert array[i] != null : ""
-                    + "Violation of: all entries in array are not null";
+                    + "Violation of: all entries in array[0, last] are not null";
         }
         assert isHeap(array, 2 * top + 1, last, order) : ""
                 + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
@@ -183,128 +174,87 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
          * representation for a complete binary tree.
          */
 
-        if (2 * top + 2 <= last) {
-            // Both subtrees exist.
-            if (order.compare(array[2 * top + 1], array[2 * top + 2]) < 1) {
-                // Left subtree root < right subtree root
-                if (order.compare(array[2 * top + 1], array[top]) < 0) {
-                    exchangeEntries(array, top, 2 * top + 1);
-                    siftDown(array, 2 * top + 1, last, order);
-                }
-
-            } else {
-                // Right subtree root < left subtree root
-                if (order.compare(array[2 * top + 2], array[top]) < 0) {
-                    exchangeEntries(array, top, 2 * top + 2);
-                    siftDown(array, 2 * top + 2, last, order);
-                }
-
-            }
-        } else if (2 * top + 1 <= last) {
-            // Only left subtree exists.
-            if (order.compare(array[2 * top + 1], array[top]) < 0) {
-                exchangeEntries(array, top, 2 * top + 1);
-                siftDown(array, 2 * top + 1, last, order);
+        /*
+         * Bottom-up ("bounce") sift-down: first follow the path of smaller
+         * children all the way to a leaf, which costs one comparison per level,
+         * then climb back up that path to the place where the root entry
+         * belongs, which is usually near the bottom and so costs only a few
+         * comparisons; finally shift the entries above that place up one level
+         * and drop the root entry in.
+         */
+        T rootEntry = array[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            // Both children exist: continue with the smaller one.
+            if (order.compare(array[child + 1], array[child]) < 0) {
+                child++;
             }
-
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            // Only a left child exists.
+            node = child;
+        }
+        while (node > top && order.compare(rootEntry, array[node]) < 0) {
+            node = (node - 1) / 2;
+        }
+        T carried = array[node];
+        array[node] = rootEntry;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T temp = array[node];
+            array[node] = carried;
+            carried = temp;
         }
 
     }
 
     /**
-     * Heapifies the subtree of the given array rooted at the given {@code top}.
+     * Heapifies the entries of the given array through index {@code last}
+     * bottom-up (Floyd's method): sifts down the root of every subtree, from
+     * the last internal node back to the root, so that each sift-down finds
+     * both subtrees already heaps.
      *
      * @param <T>
      *            type of array entries
      * @param array
      *            the complete binary tree
-     * @param top
-     *            the index of the root of the "subtree" to heapify
+     * @param last
+     *            the index of the last entry in the heap
      * @param order
      *            the total preorder for sorting
      * @updates array
      * @requires <pre>
-     * 0 <= top  and
+     * last < |array|  and
      * for all i: integer
-     *     where (0 <= i  and  i < |array|)
+     *     where (0 <= i  and  i <= last)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
-     * SUBTREE_IS_HEAP(array, top, |array| - 1,
+     * SUBTREE_IS_HEAP(array, 0, last,
      *     [relation computed by order.compare method])  and
-     * perms(array, #array)
+     * perms(array, #array)  and
+     * [the entries in array after index last are the same as in #array]
      * </pre>
      */
-    private static <T> void heapify(T[] array, int top, Comparator<T> order) {
+    private static <T> void heapify(T[] array, int last, Comparator<T> order) {
         assert array != null : "Violation of: array is not null";
         assert order != null : "Violation of: order is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
-        for (int i = 0; i < array.length; i++) {
+        assert last < array.length : "Violation of: last < |array|";
+        for (int i = 0; i <= last; i++) {
             assert array[i] != null : ""
-                    + "Violation of: all entries in array are not null";
-        }
-        /*
-         * Impractical to check last requires clause; no need to check the other
-         * requires clause, because it must be true when using the array
-         * representation for a complete binary tree.
-         */
-
-        // Heapifying left subtree.
-        if (array.length > 2 * top + 1) {
-            heapify(array, 2 * top + 1, order);
-        }
-
-        // Heapifying right subtree.
-        if (array.length > 2 * top + 2) {
-            heapify(array, 2 * top + 2, order);
+                    + "Violation of: all entries in array[0, last] are not null";
         }
-
-        siftDown(array, top, array.length - 1, order);
-    }
-
-    /**
-     * Constructs and returns an array representing a heap with the entries from
-     * the given {@code Queue}.
-     *
-     * @param <T>
-     *            type of {@code Queue} and array entries
-     * @param q
-     *            the {@code Queue} with the entries for the heap
-     * @param order
-     *            the total preorder for sorting
-     * @return the array representation of a heap
-     * @clears q
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * @ensures <pre>
-     * SUBTREE_IS_HEAP(buildHeap, 0, |buildHeap| - 1)  and
-     * perms(buildHeap, #q)  and
-     * for all i: integer
-     *     where (0 <= i  and  i < |buildHeap|)
-     *   ([entry at position i in buildHeap is not null])  and
-     * </pre>
-     */
-    @SuppressWarnings("unchecked")
-    private static <T> T[] buildHeap(Queue<T> q, Comparator<T> order) {
-        assert q != null : "Violation of: q is not null";
-        assert order != null : "Violation of: order is not null";
         /*
-         * Impractical to check the requires clause.
+         * Impractical to check last requires clause.
          */
-        /*
-         * With "new T[...]" in place of "new Object[...]" it does not compile;
-         * as shown, it results in a warning about an unchecked cast, though it
-         * cannot fail.
-         */
-        T[] heap = (T[]) (new Object[q.length()]);
 
-        for (int i = 0; i < heap.length; i++) {
-            heap[i] = q.dequeue();
+        for (int top = (last + 1) / 2 - 1; top >= 0; top--) {
+            siftDown(array, top, last, order);
         }
-        heapify(heap, 0, order);
-
-        return heap;
     }
 
     /**
@@ -326,7 +276,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @requires <pre>
      * 0 <= top  and  last < |array|  and
      * for all i: integer
-     *     where (0 <= i  and  i < |array|)
+     *     where (0 <= i  and  i <= last)
      *   ([entry at position i in array is not null])  and
      * [subtree rooted at {@code top} is a complete binary tree]
      * </pre>
@@ -340,9 +290,9 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         assert array != null : "Violation of: array is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length : "Violation of: last < |array|";
-        for (int i = 0; i < array.length; i++) {
+        for (int i = 0; i <= last; i++) {
             assert array[i] != null : ""
-                    + "Violation of: all entries in array are not null";
+                    + "Violation of: all entries in array[0, last] are not null";
         }
         /*
          * No need to check the other requires clause, because it must be true
@@ -362,6 +312,40 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         return isHeap;
     }
 
+    /**
+     * Removes the top of the heap and returns it, without checking the
+     * convention; the common part of {@code removeFirst} and the batch
+     * methods.
+     *
+     * @return the entry removed
+     * @updates $this.heap, $this.heapSize
+     * @requires not $this.insertionMode and $this.heapSize > 0
+     * @ensures <pre>
+     * [removeTop is the entry at the root of #$this.heap]  and
+     * $this.heapSize = #$this.heapSize - 1  and
+     * SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+     *   [relation computed by $this.machineOrder.compare method])  and
+     * [$this.heap[0, $this.heapSize) holds the other entries of
+     *  #$this.heap[0, #$this.heapSize)]
+     * </pre>
+     */
+    private T removeTop() {
+        /*
+         * First grab the top of the heap to return. Then move the last entry
+         * of the heap to the top and siftDown to fix heap, clearing its old
+         * slot so the array does not keep a reference to it.
+         */
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
+        }
+        return removed;
+    }
+
     /**
      * Checks that the part of the convention repeated below holds for the
      * current representation.
@@ -369,35 +353,25 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @return true if the convention holds (or if assertion checking is off);
      *         otherwise reports a violated assertion
      * @convention <pre>
-     * if $this.insertionMode then
-     *   $this.heapSize = 0
-     * else
-     *   $this.entries = <>  and
-     *   for all i: integer
-     *       where (0 <= i  and  i < |$this.heap|)
-     *     ([entry at position i in $this.heap is not null])  and
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if not $this.insertionMode then
      *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
-     *     [relation computed by $this.machineOrder.compare method])  and
-     *   0 <= $this.heapSize <= |$this.heap|
+     *     [relation computed by $this.machineOrder.compare method])
      * </pre>
      */
     private boolean conventionHolds() {
-        if (this.insertionMode) {
-            assert this.heapSize == 0 : ""
-                    + "Violation of: if $this.insertionMode then $this.heapSize = 0";
-        } else {
-            assert this.entries.length() == 0 : ""
-                    + "Violation of: if not $this.insertionMode then $this.entries = <>";
-            assert 0 <= this.heapSize : ""
-                    + "Violation of: if not $this.insertionMode then 0 <= $this.heapSize";
-            assert this.heapSize <= this.heap.length : ""
-                    + "Violation of: if not $this.insertionMode then"
-                    + " $this.heapSize <= |$this.heap|";
-            for (int i = 0; i < this.heap.length; i++) {
-                assert this.heap[i] != null : ""
-                        + "Violation of: if not $this.insertionMode then"
-                        + " all entries in $this.heap are not null";
-            }
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        if (!this.insertionMode) {
             assert isHeap(this.heap, 0, this.heapSize - 1,
                     this.machineOrder) : ""
                             + "Violation of: if not $this.insertionMode then"
@@ -413,20 +387,33 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *
      * @param order
      *            total preorder for sorting
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method]
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * capacity >= 0
+     * </pre>
      * @ensures <pre>
      * $this.insertionMode = true  and
      * $this.machineOrder = order  and
-     * $this.entries = <>  and
-     * $this.heapSize = 0
+     * |$this.heap| = capacity  and
+     * $this.heapSize = 0  and
+     * $this.initialCapacity = capacity
      * </pre>
      */
-    private void createNewRep(Comparator<T> order) {
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int capacity) {
 
         this.insertionMode = true;
         this.machineOrder = order;
-        this.entries = new Queue1L<>();
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[capacity]);
         this.heapSize = 0;
+        this.initialCapacity = capacity;
 
     }
 
@@ -441,7 +428,23 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            total preorder for sorting
      */
     public SortingMachine5a(Comparator<T> order) {
-        this.createNewRep(order);
+        this.createNewRep(order, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and the number of entries expected to be added;
+     * room for that many entries is allocated up front.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public SortingMachine5a(Comparator<T> order, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(order, expectedSize);
         assert this.conventionHolds();
     }
 
@@ -453,8 +456,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     @Override
     public final SortingMachine<T> newInstance() {
         try {
-            return this.getClass().getConstructor(Comparator.class)
-                    .newInstance(this.machineOrder);
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.initialCapacity);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -463,7 +466,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
     @Override
     public final void clear() {
-        this.createNewRep(this.machineOrder);
+        this.createNewRep(this.machineOrder, this.initialCapacity);
         assert this.conventionHolds();
     }
 
@@ -482,10 +485,11 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         SortingMachine5a<T> localSource = (SortingMachine5a<T>) source;
         this.insertionMode = localSource.insertionMode;
         this.machineOrder = localSource.machineOrder;
-        this.entries = localSource.entries;
         this.heap = localSource.heap;
         this.heapSize = localSource.heapSize;
-        localSource.createNewRep(localSource.machineOrder);
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.initialCapacity);
         assert this.conventionHolds();
         assert localSource.conventionHolds();
     }
@@ -499,7 +503,11 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        this.entries.enqueue(x);
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length + 1);
+        }
+        this.heap[this.heapSize] = x;
+        this.heapSize++;
 
         assert this.conventionHolds();
     }
@@ -508,8 +516,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     public final void changeToExtractionMode() {
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        this.heapSize = this.entries.length();
-        this.heap = buildHeap(this.entries, this.machineOrder);
+        heapify(this.heap, this.heapSize - 1, this.machineOrder);
         this.insertionMode = false;
 
         assert this.conventionHolds();
@@ -521,15 +528,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                 .isInInsertionMode() : "Violation of: not this.insertion_mode";
         assert this.size() > 0 : "Violation of: this.contents /= {}";
 
-        /*
-         * First grab the top of the heap to return. Then move top to the end of
-         * array and siftDown last value of array to fix heap. Decrease heapSize
-         * so removed value is not a part of heap.
-         */
-        T removed = this.heap[0];
-        exchangeEntries(this.heap, 0, this.heapSize - 1);
-        this.heapSize--;
-        siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
+        T removed = this.removeTop();
 
         assert this.conventionHolds();
         return removed;
@@ -549,22 +548,148 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
     @Override
     public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
 
-        int size = 0;
-        if (this.insertionMode) {
-            size = this.entries.length();
-        } else {
-            size = this.heapSize;
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine5aIterator();
+    }
+
+    /*
+     * Batch methods ----------------------------------------------------------
+     */
+
+    /**
+     * Removes the first {@code count} entries of {@code this} (or all of them,
+     * if there are fewer) and puts them, in order, into
+     * {@code destination[offset, offset + count)}; returns how many were
+     * removed.
+     *
+     * @param destination
+     *            the array to put the entries into
+     * @param offset
+     *            the index in destination of the first entry removed
+     * @param count
+     *            the largest number of entries to remove
+     * @return the number of entries removed
+     * @updates this.contents, destination
+     * @requires <pre>
+     * not this.insertion_mode  and  0 <= offset  and  0 <= count  and
+     * offset + count <= |destination|
+     * </pre>
+     * @ensures <pre>
+     * removeFirst = min(count, |#this.contents|)  and
+     * [destination[offset, offset + removeFirst) holds the first removeFirst
+     *  entries of #this.contents in the order of this.order(), and these are
+     *  the entries removed]  and
+     * [the other entries of destination are the same as in #destination]
+     * </pre>
+     */
+    public final int removeFirst(T[] destination, int offset, int count) {
+        assert destination != null : "Violation of: destination is not null";
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert 0 <= offset : "Violation of: 0 <= offset";
+        assert 0 <= count : "Violation of: 0 <= count";
+        assert offset + count <= destination.length : ""
+                + "Violation of: offset + count <= |destination|";
+
+        int removed = Math.min(count, this.heapSize);
+        for (int i = offset; i < offset + removed; i++) {
+            destination[i] = this.removeTop();
         }
+
         assert this.conventionHolds();
+        return removed;
+    }
 
-        return size;
+    /**
+     * Returns a sequential {@code Stream} that removes the entries of
+     * {@code this} in order as it is consumed. An operation that consumes
+     * entries one at a time (like {@code limit} or {@code findFirst}) removes
+     * only the entries it consumes, leaving the rest in {@code this}; one that
+     * consumes them all (like {@code forEach} or {@code collect}) removes them
+     * in chunks with {@code removeFirst(T[], int, int)}. The machine must not
+     * be used while the stream is being consumed.
+     *
+     * @return the stream of entries
+     * @requires not this.insertion_mode
+     * @ensures <pre>
+     * [sortedStream yields the entries of this.contents in the order of
+     *  this.order(), removing each from this.contents as it is yielded]
+     * </pre>
+     */
+    public final Stream<T> sortedStream() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
 
+        return StreamSupport.stream(new SortingMachine5aSpliterator(), false);
     }
 
-    @Override
-    public final Iterator<T> iterator() {
-        return new SortingMachine5aIterator();
+    /**
+     * Implementation of {@code Spliterator} interface for
+     * {@code SortingMachine5a}, which removes the entries it yields.
+     */
+    private final class SortingMachine5aSpliterator
+            implements Spliterator<T> {
+
+        /**
+         * Number of entries {@code forEachRemaining} removes at a time.
+         */
+        private static final int CHUNK_SIZE = 1024;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            assert action != null : "Violation of: action is not null";
+            boolean advanced = SortingMachine5a.this.heapSize > 0;
+            if (advanced) {
+                T next = SortingMachine5a.this.removeTop();
+                assert SortingMachine5a.this.conventionHolds();
+                action.accept(next);
+            }
+            return advanced;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            assert action != null : "Violation of: action is not null";
+            int length = Math.min(CHUNK_SIZE,
+                    SortingMachine5a.this.heapSize);
+            /*
+             * With "new T[...]" in place of "new Object[...]" it does not
+             * compile; as shown, it results in a warning about an unchecked
+             * cast, though it cannot fail.
+             */
+            T[] chunk = (T[]) (new Object[length]);
+            int count = SortingMachine5a.this.removeFirst(chunk, 0, length);
+            while (count > 0) {
+                for (int i = 0; i < count; i++) {
+                    action.accept(chunk[i]);
+                    chunk[i] = null;
+                }
+                count = SortingMachine5a.this.removeFirst(chunk, 0, length);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // The entries come out one at a time, so there is nothing to split.
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return SortingMachine5a.this.heapSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
     }
 
     /**
@@ -574,12 +699,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     private final class SortingMachine5aIterator implements Iterator<T> {
 
         /**
-         * Representation iterator when in insertion mode.
-         */
-        private Iterator<T> queueIterator;
-
-        /**
-         * Representation iterator count when in extraction mode.
+         * Representation iterator count.
          */
         private int arrayCurrentIndex;
 
@@ -587,22 +707,14 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
          * No-argument constructor.
          */
         private SortingMachine5aIterator() {
-            if (SortingMachine5a.this.insertionMode) {
-                this.queueIterator = SortingMachine5a.this.entries.iterator();
-            } else {
-                this.arrayCurrentIndex = 0;
-            }
+            this.arrayCurrentIndex = 0;
             assert SortingMachine5a.this.conventionHolds();
         }
 
         @Override
         public boolean hasNext() {
-            boolean hasNext;
-            if (SortingMachine5a.this.insertionMode) {
-                hasNext = this.queueIterator.hasNext();
-            } else {
-                hasNext = this.arrayCurrentIndex < SortingMachine5a.this.heapSize;
-            }
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine5a.this.heapSize;
             assert SortingMachine5a.this.conventionHolds();
             return hasNext;
         }
@@ -618,13 +730,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                  */
                 throw new NoSuchElementException();
             }
-            T next;
-            if (SortingMachine5a.this.insertionMode) {
-                next = this.queueIterator.next();
-            } else {
-                next = SortingMachine5a.this.heap[this.arrayCurrentIndex];
-                this.arrayCurrentIndex++;
-            }
+            T next = SortingMachine5a.this.heap[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
             assert SortingMachine5a.this.conventionHolds();
             return next;
         }
@@ -0,0 +1,637 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array (using an embedding of heap
+ * sort on a d-ary heap), with implementations of primary methods.
+ *
+ * <p>
+ * This is {@code SortingMachine5a} with each node of the heap having up to
+ * {@code d} children instead of two, where the arity {@code d} is chosen when
+ * the machine is constructed. The children of the entry at index {@code i}
+ * are at indices {@code d * i + 1} through {@code d * i + d}, which are next
+ * to each other in the array, so choosing the smallest child reads one or two
+ * cache lines, and the heap has only log_d of the levels of a binary heap. A
+ * sift-down therefore makes fewer moves and touches fewer cache lines, at the
+ * price of {@code d - 1} comparisons per level instead of one.
+ * </p>
+ *
+ * <p>
+ * The default arity is {@value #DEFAULT_ARITY}. With
+ * {@code SortingMachineBenchmark} on 10^7 {@code Integer} entries and a cheap
+ * comparator, arity 4 drained about a quarter faster than arity 2 and
+ * heapified twice as fast; arity 8 was no faster than 4 but made half again as
+ * many comparisons, and with an expensive comparator it was the slowest of
+ * the three, while 4 stayed within a few percent of 2.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   d: integer,
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete d-ary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ *
+ * SUBTREE_ARRAY_ENTRIES (
+ *   a: string of T,
+ *   d: integer,
+ *   start: integer,
+ *   stop: integer
+ *  ) : finite multiset of T is
+ *  [the multiset of entries in a that belong to the subtree of a
+ *   (when a is interpreted as a complete d-ary tree) rooted at
+ *   index start and only through entry stop]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * $this.arity >= 2  and
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if not $this.insertionMode then
+ *   SUBTREE_IS_HEAP($this.heap, $this.arity, 0, $this.heapSize - 1,
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[0, $this.heapSize)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine5b<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Arity used by the constructor that does not take one.
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Maximum number of children of each node of the heap.
+     */
+    private int arity;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, a d-ary heap.
+     */
+    private T[] heap;
+
+    /**
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Given an array that represents a complete d-ary tree and an index
+     * referring to the root of a subtree that would be a heap except for its
+     * root, sifts the root down to turn that whole subtree into a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete d-ary tree
+     * @param d
+     *            the arity of the tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * d >= 2  and  0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * for all c: integer
+     *     where (d * top + 1 <= c  and  c <= d * top + d)
+     *   (SUBTREE_IS_HEAP(array, d, c, last,
+     *     [relation computed by order.compare method]))  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, d, top, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * SUBTREE_ARRAY_ENTRIES(array, d, top, last) =
+     *  SUBTREE_ARRAY_ENTRIES(#array, d, top, last)  and
+     * [the other entries in array are the same as in #array]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int d, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert d >= 2 : "Violation of: d >= 2";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+        for (int i = 0; i <= last; i++) {
+            assert array[i] != null : ""
+                    + "Violation of: all entries in array[0, last] are not null";
+        }
+        for (int c = d * top + 1; c <= d * top + d; c++) {
+            assert isHeap(array, d, c, last, order) : ""
+                    + "Violation of: SUBTREE_IS_HEAP(array, d, c, last,"
+                    + " [relation computed by order.compare method])"
+                    + " for every child c of top";
+        }
+        /*
+         * Impractical to check last requires clause.
+         */
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a: follow the
+         * path of smallest children all the way to a leaf, then climb back up
+         * to the place where the root entry belongs and shift the entries
+         * above it up one level.
+         */
+        T rootEntry = array[top];
+        int node = top;
+        int first = d * node + 1;
+        while (first <= last) {
+            int end = Math.min(first + d - 1, last);
+            int smallest = first;
+            for (int c = first + 1; c <= end; c++) {
+                if (order.compare(array[c], array[smallest]) < 0) {
+                    smallest = c;
+                }
+            }
+            node = smallest;
+            first = d * node + 1;
+        }
+        while (node > top && order.compare(rootEntry, array[node]) < 0) {
+            node = (node - 1) / d;
+        }
+        T carried = array[node];
+        array[node] = rootEntry;
+        while (node > top) {
+            node = (node - 1) / d;
+            T temp = array[node];
+            array[node] = carried;
+            carried = temp;
+        }
+
+    }
+
+    /**
+     * Heapifies the entries of the given array through index {@code last}
+     * bottom-up (Floyd's method), treating it as a complete d-ary tree.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete d-ary tree
+     * @param d
+     *            the arity of the tree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            the total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * d >= 2  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, d, 0, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries in array after index last are the same as in #array]
+     * </pre>
+     */
+    private static <T> void heapify(T[] array, int d, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert d >= 2 : "Violation of: d >= 2";
+        assert last < array.length : "Violation of: last < |array|";
+        for (int i = 0; i <= last; i++) {
+            assert array[i] != null : ""
+                    + "Violation of: all entries in array[0, last] are not null";
+        }
+        /*
+         * Impractical to check last requires clause.
+         */
+
+        if (last > 0) {
+            for (int top = (last - 1) / d; top >= 0; top--) {
+                siftDown(array, d, top, last, order);
+            }
+        }
+    }
+
+    /**
+     * Checks if the subtree of the given {@code array} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete d-ary tree
+     * @param d
+     *            the arity of the tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @return true if the subtree of the given {@code array} rooted at the
+     *         given {@code top} is a heap; false otherwise
+     * @requires <pre>
+     * d >= 2  and  0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])
+     * </pre>
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(array, d, top, last,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    private static <T> boolean isHeap(T[] array, int d, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert d >= 2 : "Violation of: d >= 2";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+        for (int i = 0; i <= last; i++) {
+            assert array[i] != null : ""
+                    + "Violation of: all entries in array[0, last] are not null";
+        }
+        /*
+         * Every entry of the subtree other than its root must not come before
+         * its parent; the entries of the subtree at each level are contiguous,
+         * so walk them level by level.
+         */
+        boolean isHeap = true;
+        long levelStart = top;
+        long levelEnd = top;
+        while (isHeap && d * levelStart + 1 <= last) {
+            long childStart = d * levelStart + 1;
+            long childEnd = Math.min(d * levelEnd + d, last);
+            for (long c = childStart; isHeap && c <= childEnd; c++) {
+                int parent = (int) ((c - 1) / d);
+                isHeap = order.compare(array[parent], array[(int) c]) <= 0;
+            }
+            levelStart = childStart;
+            levelEnd = childEnd;
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.arity >= 2  and
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if not $this.insertionMode then
+     *   SUBTREE_IS_HEAP($this.heap, $this.arity, 0, $this.heapSize - 1,
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.arity >= 2 : "Violation of: $this.arity >= 2";
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        if (!this.insertionMode) {
+            assert isHeap(this.heap, this.arity, 0, this.heapSize - 1,
+                    this.machineOrder) : ""
+                            + "Violation of: if not $this.insertionMode then"
+                            + " SUBTREE_IS_HEAP($this.heap, $this.arity, 0,"
+                            + " $this.heapSize - 1, [relation computed by"
+                            + " $this.machineOrder.compare method])";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param d
+     *            the arity of the heap
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * d >= 2  and  capacity >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.arity = d  and
+     * |$this.heap| = capacity  and
+     * $this.heapSize = 0  and
+     * $this.initialCapacity = capacity
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int d, int capacity) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.arity = d;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[capacity]);
+        this.heapSize = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order, using the default arity.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine5b(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_ARITY, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and arity.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param arity
+     *            maximum number of children of each node of the heap
+     * @requires arity >= 2
+     */
+    public SortingMachine5b(Comparator<T> order, int arity) {
+        assert arity >= 2 : "Violation of: arity >= 2";
+        this.createNewRep(order, arity, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order, arity, and the number of entries expected to be
+     * added; room for that many entries is allocated up front.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param arity
+     *            maximum number of children of each node of the heap
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires arity >= 2 and expectedSize >= 0
+     */
+    public SortingMachine5b(Comparator<T> order, int arity, int expectedSize) {
+        assert arity >= 2 : "Violation of: arity >= 2";
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(order, arity, expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(Comparator.class, int.class, int.class)
+                    .newInstance(this.machineOrder, this.arity,
+                            this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.arity, this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine5b<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine5b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine5b<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine5b<T> localSource = (SortingMachine5b<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.arity = localSource.arity;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.machineOrder, localSource.arity,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length + 1);
+        }
+        this.heap[this.heapSize] = x;
+        this.heapSize++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        heapify(this.heap, this.arity, this.heapSize - 1, this.machineOrder);
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        /*
+         * First grab the top of the heap to return. Then move the last entry
+         * of the heap to the top and siftDown to fix heap, clearing its old
+         * slot so the array does not keep a reference to it.
+         */
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            siftDown(this.heap, this.arity, 0, this.heapSize - 1,
+                    this.machineOrder);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine5bIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine5b}.
+     */
+    private final class SortingMachine5bIterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine5bIterator() {
+            this.arrayCurrentIndex = 0;
+            assert SortingMachine5b.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine5b.this.heapSize;
+            assert SortingMachine5b.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine5b.this.heap[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert SortingMachine5b.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,549 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that keeps only its first K entries in order (the
+ * "top K"), represented as an array holding a heap of at most K entries, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * The bound K is given to the constructor. Unlike other implementations of
+ * {@code SortingMachine}, {@code add} does not always add its argument to the
+ * contents: once K entries are held, an entry is kept only if it comes before
+ * the last of them in {@code order()}, which it then replaces. So the contents
+ * are always the first min(K, n) of the n entries added so far (ties among
+ * equal entries at the boundary are broken in favor of those added first),
+ * {@code size} reports min(K, n), and extraction returns those entries in
+ * {@code order()} order.
+ * </p>
+ *
+ * <p>
+ * Until K entries have been added they are just appended to the array; then
+ * the array is made into a heap with the order inverted, so its root is the
+ * last entry kept and each later {@code add} either drops its argument after
+ * one comparison or replaces the root and sifts it down. Adding n entries
+ * therefore costs O(n log K) time and O(K) memory, however large n is.
+ * {@code changeToExtractionMode} sorts the at most K entries, and
+ * {@code removeFirst} takes them in turn from the front.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * [$this.invertedOrder.compare method computes the relation computed by
+ *  $this.machineOrder.compare method, inverted]  and
+ * $this.limit >= 0  and
+ * 0 <= $this.next <= $this.heapSize <= $this.limit  and
+ * $this.heapSize <= |$this.heap|  and
+ * for all i: integer
+ *     where ($this.next <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if $this.insertionMode then
+ *   $this.next = 0  and
+ *   if $this.heapSize = $this.limit then
+ *     SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+ *       [relation computed by $this.machineOrder.compare method, inverted])
+ * else
+ *   [$this.heap[$this.next, $this.heapSize) is sorted by the relation
+ *    computed by $this.machineOrder.compare method]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[$this.next, $this.heapSize)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine5c<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest initial length of the array of entries; it grows from there
+     * until it reaches the bound K.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Order inverted, for the heap kept in insertion mode.
+     */
+    private Comparator<T> invertedOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Largest number of entries kept (K).
+     */
+    private int limit;
+
+    /**
+     * Entries: in insertion mode, in the order they were added until there
+     * are {@code limit} of them and a heap with the order inverted after that;
+     * in extraction mode, sorted.
+     */
+    private T[] heap;
+
+    /**
+     * Number of entries in {@code heap} (including removed ones).
+     */
+    private int heapSize;
+
+    /**
+     * Index in {@code heap} of the next entry to remove, in extraction mode.
+     */
+    private int next;
+
+    /**
+     * Given an array that represents a complete binary tree and an index
+     * referring to the root of a subtree that would be a heap except for its
+     * root, sifts the root down to turn that whole subtree into a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for the heap
+     * @updates array
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries of array outside the subtree are the same as in #array]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+        assert isHeap(array, 2 * top + 1, last, order) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
+                + " [relation computed by order.compare method])";
+        assert isHeap(array, 2 * top + 2, last, order) : ""
+                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
+                + " [relation computed by order.compare method])";
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a.
+         */
+        T rootEntry = array[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            if (order.compare(array[child + 1], array[child]) < 0) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            node = child;
+        }
+        while (node > top && order.compare(rootEntry, array[node]) < 0) {
+            node = (node - 1) / 2;
+        }
+        T carried = array[node];
+        array[node] = rootEntry;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T temp = array[node];
+            array[node] = carried;
+            carried = temp;
+        }
+
+    }
+
+    /**
+     * Checks if the subtree of the given {@code array} rooted at the given
+     * {@code top} is a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for the heap
+     * @return true if the subtree of the given {@code array} rooted at the
+     *         given {@code top} is a heap; false otherwise
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * for all i: integer
+     *     where (0 <= i  and  i <= last)
+     *   ([entry at position i in array is not null])
+     * </pre>
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    private static <T> boolean isHeap(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = (order.compare(array[top], array[left]) <= 0)
+                    && isHeap(array, left, last, order);
+            int right = left + 1;
+            if (isHeap && (right <= last)) {
+                isHeap = (order.compare(array[top], array[right]) <= 0)
+                        && isHeap(array, right, last, order);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.limit >= 0  and
+     * 0 <= $this.next <= $this.heapSize <= $this.limit  and
+     * $this.heapSize <= |$this.heap|  and
+     * for all i: integer
+     *     where ($this.next <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if $this.insertionMode then
+     *   $this.next = 0  and
+     *   if $this.heapSize = $this.limit then
+     *     SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+     *       [relation computed by $this.machineOrder.compare method, inverted])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.limit >= 0 : "Violation of: $this.limit >= 0";
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.heapSize : ""
+                + "Violation of: $this.next <= $this.heapSize";
+        assert this.heapSize <= this.limit : ""
+                + "Violation of: $this.heapSize <= $this.limit";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        for (int i = this.next; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[$this.next, $this.heapSize) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+            assert this.heapSize < this.limit
+                    || isHeap(this.heap, 0, this.heapSize - 1,
+                            this.invertedOrder) : ""
+                                    + "Violation of: if $this.heapSize ="
+                                    + " $this.limit then SUBTREE_IS_HEAP("
+                                    + "$this.heap, 0, $this.heapSize - 1,"
+                                    + " [inverted order])";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param k
+     *            largest number of entries kept
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * k >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.invertedOrder = [order inverted]  and
+     * $this.limit = k  and
+     * $this.heapSize = 0  and  $this.next = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int k) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.invertedOrder = order.reversed();
+        this.limit = k;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[Math.min(k, INITIAL_CAPACITY)]);
+        this.heapSize = 0;
+        this.next = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and the number of entries to keep.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param k
+     *            largest number of entries kept
+     * @requires k >= 0
+     */
+    public SortingMachine5c(Comparator<T> order, int k) {
+        assert k >= 0 : "Violation of: k >= 0";
+        this.createNewRep(order, k);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.limit);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.limit);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine5c<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine5c<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine5c<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine5c<T> localSource = (SortingMachine5c<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.invertedOrder = localSource.invertedOrder;
+        this.limit = localSource.limit;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.next = localSource.next;
+        localSource.createNewRep(localSource.machineOrder, localSource.limit);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this} if it is among the first
+     * K entries added so far.
+     *
+     * @param x
+     *            the entry to be added
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures <pre>
+     * this.contents = [the first min(K, |#this.contents| + 1) entries of
+     *   #this.contents union {x}, keeping #this.contents on ties]
+     * </pre>
+     */
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize < this.limit) {
+            if (this.heapSize == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap,
+                        (int) Math.min(2L * this.heap.length, this.limit));
+            }
+            this.heap[this.heapSize] = x;
+            this.heapSize++;
+            if (this.heapSize == this.limit) {
+                // Now full: make it a heap with the last entry kept on top.
+                for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+                    siftDown(this.heap, top, this.heapSize - 1,
+                            this.invertedOrder);
+                }
+            }
+        } else if (this.limit > 0
+                && this.machineOrder.compare(x, this.heap[0]) < 0) {
+            this.heap[0] = x;
+            siftDown(this.heap, 0, this.heapSize - 1, this.invertedOrder);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        Arrays.sort(this.heap, 0, this.heapSize, this.machineOrder);
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T removed = this.heap[this.next];
+        this.heap[this.next] = null;
+        this.next++;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize - this.next;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine5cIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine5c}.
+     */
+    private final class SortingMachine5cIterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine5cIterator() {
+            this.arrayCurrentIndex = SortingMachine5c.this.next;
+            assert SortingMachine5c.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine5c.this.heapSize;
+            assert SortingMachine5c.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine5c.this.heap[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert SortingMachine5c.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,552 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array (using an embedding of heap
+ * sort) whose entries come out in a stable order, with implementations of
+ * primary methods.
+ *
+ * <p>
+ * Entries that compare equal in the order come out in the order in which
+ * they were added, so the result does not depend on how the heap happens to
+ * be arranged. This is done without wrapping the entries:
+ * {@code changeToExtractionMode} numbers the entries 0, 1, 2, ... in the
+ * order they were added, keeps the numbers in an {@code int} array parallel
+ * to the array of entries, and the heap code breaks ties in the order by
+ * comparing the numbers, moving each number along with its entry. So
+ * {@code add} is as in {@code SortingMachine5a}, and extraction costs one
+ * {@code int} comparison per tie and one {@code int} move per entry move more.
+ * Otherwise this is {@code SortingMachine5a}.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * STABLE (
+ *   r: binary relation on T
+ *  ) : binary relation on (T, integer) is
+ *  [the relation s such that s((x, i), (y, j)) iff
+ *   r(x, y)  and  (not r(y, x)  or  i <= j)]
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of (T, integer),
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on (T, integer)
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if $this.insertionMode then
+ *   |$this.sequence| = 0
+ * else
+ *   $this.heapSize <= |$this.sequence|  and
+ *   [the entries of $this.sequence[0, $this.heapSize) are distinct]  and
+ *   SUBTREE_IS_HEAP([string of pairs ($this.heap[i], $this.sequence[i])
+ *                    for 0 <= i < $this.heapSize], 0, $this.heapSize - 1,
+ *     STABLE([relation computed by $this.machineOrder.compare method]))
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.heap[0, $this.heapSize)))  and
+ * [in extraction mode, $this.sequence[i] is the number of entries added
+ *  before $this.heap[i] was]
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine5d<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, a heap.
+     */
+    private T[] heap;
+
+    /**
+     * Sequence numbers of the entries at the same positions in {@code heap}
+     * (in extraction mode).
+     */
+    private int[] sequence;
+
+    /**
+     * Number of entries (in insertion mode) or heap size (in extraction mode).
+     */
+    private int heapSize;
+
+    /**
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Compares entry {@code x} with sequence number {@code i} to entry
+     * {@code y} with sequence number {@code j}, by {@code $this.machineOrder}
+     * and then by sequence number.
+     *
+     * @param x
+     *            one entry
+     * @param i
+     *            its sequence number
+     * @param y
+     *            the other entry
+     * @param j
+     *            its sequence number
+     * @return a negative integer, zero, or a positive integer as (x, i) comes
+     *         before, is the same as, or comes after (y, j)
+     */
+    private int compare(T x, int i, T y, int j) {
+        int c = this.machineOrder.compare(x, y);
+        if (c == 0) {
+            c = Integer.compare(i, j);
+        }
+        return c;
+    }
+
+    /**
+     * Given the index of the root of a subtree of the heap that would be a
+     * heap except for its root, sifts the root down, moving sequence numbers
+     * along with their entries, to turn that whole subtree into a heap.
+     *
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @updates $this.heap, $this.sequence
+     * @requires <pre>
+     * 0 <= top  and  last < |$this.sequence|  and
+     * [the subtrees rooted at 2 * top + 1 and 2 * top + 2, through last, are
+     *  heaps according to STABLE([relation computed by
+     *  $this.machineOrder.compare method])]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top, through last, is a heap according to
+     *  STABLE([relation computed by $this.machineOrder.compare method])]  and
+     * [$this.heap and $this.sequence are permuted the same way, only within
+     *  the subtree rooted at top]
+     * </pre>
+     */
+    private void siftDown(int top, int last) {
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < this.sequence.length : ""
+                + "Violation of: last < |$this.sequence|";
+        assert this.isHeap(2 * top + 1, last) : ""
+                + "Violation of: [the subtree rooted at 2 * top + 1 is a heap]";
+        assert this.isHeap(2 * top + 2, last) : ""
+                + "Violation of: [the subtree rooted at 2 * top + 2 is a heap]";
+
+        /*
+         * Bottom-up ("bounce") sift-down as in SortingMachine5a, comparing
+         * (entry, sequence number) pairs and moving both halves together.
+         */
+        T[] entries = this.heap;
+        int[] seq = this.sequence;
+        T rootEntry = entries[top];
+        int rootSeq = seq[top];
+        int node = top;
+        int child = 2 * node + 1;
+        while (child < last) {
+            if (this.compare(entries[child + 1], seq[child + 1],
+                    entries[child], seq[child]) < 0) {
+                child++;
+            }
+            node = child;
+            child = 2 * node + 1;
+        }
+        if (child == last) {
+            node = child;
+        }
+        while (node > top && this.compare(rootEntry, rootSeq, entries[node],
+                seq[node]) < 0) {
+            node = (node - 1) / 2;
+        }
+        T carriedEntry = entries[node];
+        int carriedSeq = seq[node];
+        entries[node] = rootEntry;
+        seq[node] = rootSeq;
+        while (node > top) {
+            node = (node - 1) / 2;
+            T tempEntry = entries[node];
+            int tempSeq = seq[node];
+            entries[node] = carriedEntry;
+            seq[node] = carriedSeq;
+            carriedEntry = tempEntry;
+            carriedSeq = tempSeq;
+        }
+    }
+
+    /**
+     * Checks if the subtree of the heap rooted at the given {@code top} is a
+     * heap according to the order with ties broken by sequence number.
+     *
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @return true if the subtree rooted at the given {@code top} is a heap;
+     *         false otherwise
+     * @requires 0 <= top and last < |$this.sequence|
+     * @ensures <pre>
+     * isHeap = [the subtree rooted at top, through last, is a heap according
+     *  to STABLE([relation computed by $this.machineOrder.compare method])]
+     * </pre>
+     */
+    private boolean isHeap(int top, int last) {
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < this.sequence.length : ""
+                + "Violation of: last < |$this.sequence|";
+
+        int left = 2 * top + 1;
+        boolean isHeap = true;
+        if (left <= last) {
+            isHeap = this.compare(this.heap[top], this.sequence[top],
+                    this.heap[left], this.sequence[left]) <= 0
+                    && this.isHeap(left, last);
+            int right = left + 1;
+            if (isHeap && right <= last) {
+                isHeap = this.compare(this.heap[top], this.sequence[top],
+                        this.heap[right], this.sequence[right]) <= 0
+                        && this.isHeap(right, last);
+            }
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if $this.insertionMode then
+     *   |$this.sequence| = 0
+     * else
+     *   $this.heapSize <= |$this.sequence|  and
+     *   SUBTREE_IS_HEAP([string of pairs ($this.heap[i], $this.sequence[i])
+     *                    for 0 <= i < $this.heapSize], 0, $this.heapSize - 1,
+     *     STABLE([relation computed by $this.machineOrder.compare method]))
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: all entries in"
+                    + " $this.heap[0, $this.heapSize) are not null";
+        }
+        /*
+         * Not checking that the sequence numbers are distinct, which would
+         * take more than linear time or space.
+         */
+        if (this.insertionMode) {
+            assert this.sequence.length == 0 : ""
+                    + "Violation of: |$this.sequence| = 0";
+        } else {
+            assert this.heapSize <= this.sequence.length : ""
+                    + "Violation of: $this.heapSize <= |$this.sequence|";
+            assert this.isHeap(0, this.heapSize - 1) : ""
+                    + "Violation of: if not $this.insertionMode then"
+                    + " [$this.heap and $this.sequence form a heap]";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * capacity >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * |$this.heap| = capacity  and  |$this.sequence| = 0  and
+     * $this.heapSize = 0  and
+     * $this.initialCapacity = capacity
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heap = (T[]) (new Object[capacity]);
+        this.sequence = new int[0];
+        this.heapSize = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine5d(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and the number of entries expected to be added;
+     * room for that many entries is allocated up front.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public SortingMachine5d(Comparator<T> order, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(order, expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine5d<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine5d<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine5d<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine5d<T> localSource = (SortingMachine5d<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.heap = localSource.heap;
+        this.sequence = localSource.sequence;
+        this.heapSize = localSource.heapSize;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length + 1);
+        }
+        this.heap[this.heapSize] = x;
+        this.heapSize++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        /*
+         * The entries are still in the order they were added, so each one's
+         * sequence number is its index.
+         */
+        this.sequence = new int[this.heapSize];
+        for (int i = 0; i < this.heapSize; i++) {
+            this.sequence[i] = i;
+        }
+        for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+            this.siftDown(top, this.heapSize - 1);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        /*
+         * As in SortingMachine5a, with the sequence number of each entry
+         * moved along with it.
+         */
+        T removed = this.heap[0];
+        this.heapSize--;
+        T last = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            this.heap[0] = last;
+            this.sequence[0] = this.sequence[this.heapSize];
+            this.siftDown(0, this.heapSize - 1);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine5dIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine5d}.
+     */
+    private final class SortingMachine5dIterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine5dIterator() {
+            this.arrayCurrentIndex = 0;
+            assert SortingMachine5d.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine5d.this.heapSize;
+            assert SortingMachine5d.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine5d.this.heap[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert SortingMachine5d.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,1163 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that sorts externally: entries that do not fit in a
+ * memory budget are written to disk in sorted runs, which are merged when
+ * they are removed.
+ *
+ * <p>
+ * In insertion mode, entries are collected in an in-memory buffer until the
+ * bytes they take when serialized reach the byte budget given to the
+ * constructor; the buffer is then sorted and written to a temporary run file
+ * through the {@code Serializer} given to the constructor. Runs are merged in
+ * levels: runs written from the buffer are at level 0, and whenever
+ * {@value #MAX_FAN_IN} runs have piled up at a level they are merged into one
+ * run at the next level, so each entry is rewritten only once per level.
+ * {@code changeToExtractionMode} writes out what is left in the buffer,
+ * merges the shortest runs in passes of at most {@value #MAX_FAN_IN} until no
+ * more than that are left, and starts a k-way merge of those;
+ * {@code removeFirst} then reads each run through a buffer of
+ * {@value #READ_BUFFER_BYTES} bytes, refilled with positional reads, so memory
+ * use depends on the budget and the number of runs but not on the number of
+ * entries. If nothing was ever
+ * written to disk, the buffer is just sorted in place and no files are used.
+ * </p>
+ *
+ * <p>
+ * Run files are created in the directory given to the constructor (the
+ * default temporary-file directory by default) and deleted once they have
+ * been read, or when the machine is cleared or transferred into. The run file
+ * of a machine that is abandoned before then is deleted once the garbage
+ * collector finds its run unreachable, through a {@code Cleaner}. Failures
+ * reading or writing them are reported with {@code UncheckedIOException}.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * RUN_ENTRIES (
+ *   r: Run
+ *  ) : finite multiset of T is
+ *  [the multiset of r.head (if r.remaining > 0) and of the entries in the
+ *   file of r from r.position on]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * $this.byteBudget > 0  and
+ * 0 <= $this.next <= $this.bufferCount <= |$this.buffer|  and
+ * [entries of $this.buffer[$this.next, $this.bufferCount) are not null]  and
+ * [every run holds its entries in the order computed by
+ *  $this.machineOrder.compare method]  and
+ * if $this.insertionMode then
+ *   $this.next = 0  and  $this.merge = null  and
+ *   $this.bufferBytes < $this.byteBudget  and
+ *   [for each level, fewer than MAX_FAN_IN runs of $this.runs have that
+ *    level]  and
+ *   $this.size = $this.bufferCount + [sum of r.remaining over $this.runs]
+ * else if $this.merge = null then
+ *   $this.runs = <>  and
+ *   [$this.buffer[$this.next, $this.bufferCount) is sorted by
+ *    $this.machineOrder.compare method]  and
+ *   $this.size = $this.bufferCount - $this.next
+ * else
+ *   $this.bufferCount = 0  and  |$this.runs| <= MAX_FAN_IN  and
+ *   [$this.merge holds exactly the runs of $this.runs with
+ *    r.remaining > 0]  and
+ *   $this.size = [sum of r.remaining over $this.runs]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.buffer[$this.next, $this.bufferCount))  union
+ *         [union of RUN_ENTRIES(r) over r in $this.runs])
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine6<T> extends SortingMachineSecondary<T> {
+
+    /**
+     * Converts entries to and from bytes so they can be written to run files.
+     *
+     * @param <T>
+     *            type of the entries
+     */
+    public interface Serializer<T> {
+
+        /**
+         * Reports the number of bytes {@code write} will put for {@code x}.
+         *
+         * @param x
+         *            the entry
+         * @return the number of bytes in the serialized form of x
+         * @ensures byteCount >= 0
+         */
+        int byteCount(T x);
+
+        /**
+         * Writes {@code x} into {@code buffer} at its position.
+         *
+         * @param x
+         *            the entry
+         * @param buffer
+         *            the buffer to be written to
+         * @updates buffer
+         * @requires buffer.remaining >= byteCount(x)
+         * @ensures <pre>
+         * [buffer has byteCount(x) bytes more, holding the serialized form of
+         *  x, and its position has moved past them]
+         * </pre>
+         */
+        void write(T x, ByteBuffer buffer);
+
+        /**
+         * Reads an entry from the next {@code byteCount} bytes of
+         * {@code buffer}.
+         *
+         * @param buffer
+         *            the buffer to be read from
+         * @param byteCount
+         *            the number of bytes in the serialized form of the entry
+         * @return the entry
+         * @updates buffer
+         * @requires <pre>
+         * buffer.remaining >= byteCount  and
+         * [the next byteCount bytes of buffer were put there by write]
+         * </pre>
+         * @ensures [read is equal to the entry that was written]
+         */
+        T read(ByteBuffer buffer, int byteCount);
+
+    }
+
+    /**
+     * {@code Serializer} for {@code String}s, as UTF-8.
+     */
+    public static final class StringSerializer implements Serializer<String> {
+
+        @Override
+        public int byteCount(String x) {
+            int count = 0;
+            int i = 0;
+            while (i < x.length()) {
+                char c = x.charAt(i);
+                if (c < 0x80) {
+                    count++;
+                } else if (c < 0x800) {
+                    count += 2;
+                } else if (Character.isHighSurrogate(c)
+                        && i + 1 < x.length()
+                        && Character.isLowSurrogate(x.charAt(i + 1))) {
+                    count += 4;
+                    i++;
+                } else {
+                    // Lone surrogates are encoded as '?', one byte.
+                    count += Character.isSurrogate(c) ? 1 : 3;
+                }
+                i++;
+            }
+            return count;
+        }
+
+        @Override
+        public void write(String x, ByteBuffer buffer) {
+            buffer.put(x.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buffer, int byteCount) {
+            byte[] bytes = new byte[byteCount];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest number of runs merged at once; reaching it at a level merges
+     * the runs there into one.
+     */
+    private static final int MAX_FAN_IN = 64;
+
+    /**
+     * Length of the buffer through which a run file is read (unless a single
+     * entry is longer).
+     */
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Length of the buffer through which run files are written.
+     */
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Number of bytes before each entry in a run file, holding its length.
+     */
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    /**
+     * Initial length of the in-memory buffer.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Deleter of the files of runs that become unreachable before they are
+     * used up.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Cleaning action that deletes a run file; it must not refer to the run,
+     * or the run would never become unreachable.
+     */
+    private static final class FileDeleter implements Runnable {
+
+        /**
+         * File to be deleted.
+         */
+        private final Path file;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the file to be deleted
+         */
+        private FileDeleter(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Sorted run of entries in a file, each entry stored as its length
+     * followed by its serialized form, read through a buffer. The file is
+     * only open while the buffer is being refilled, and is never mapped, so
+     * it can be deleted as soon as the run is used up.
+     */
+    private final class Run {
+
+        /**
+         * File holding the entries.
+         */
+        private final Path file;
+
+        /**
+         * Length of the file in bytes.
+         */
+        private final long length;
+
+        /**
+         * Number of merges the entries went through to reach this run: 0 for
+         * a run written from the in-memory buffer.
+         */
+        private final int level;
+
+        /**
+         * Number of entries not yet removed, including {@code head}.
+         */
+        private long remaining;
+
+        /**
+         * Position in the file of the first entry after {@code head}.
+         */
+        private long position;
+
+        /**
+         * Buffer holding a part of the file, or null if none has been read.
+         */
+        private ByteBuffer window;
+
+        /**
+         * Position in the file of the start of {@code window}.
+         */
+        private long windowStart;
+
+        /**
+         * Smallest entry not yet removed, if {@code remaining > 0}.
+         */
+        private T head;
+
+        /**
+         * Registration of the file with {@code CLEANER}, or null if this run
+         * is a copy, which does not own the file.
+         */
+        private final Cleaner.Cleanable cleanable;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the file holding the entries
+         * @param length
+         *            the length of the file in bytes
+         * @param count
+         *            the number of entries in the file
+         * @param level
+         *            the number of merges the entries went through
+         * @param owner
+         *            whether this run owns the file, and so deletes it
+         */
+        private Run(Path file, long length, long count, int level,
+                boolean owner) {
+            this.file = file;
+            this.length = length;
+            this.level = level;
+            this.remaining = count;
+            this.position = 0;
+            this.window = null;
+            this.windowStart = 0;
+            this.head = null;
+            if (owner) {
+                this.cleanable = CLEANER.register(this,
+                        new FileDeleter(file));
+            } else {
+                this.cleanable = null;
+            }
+        }
+
+        /**
+         * Reads, if needed, the part of the file covering {@code count} bytes
+         * from {@code this.position} into the window, and positions the
+         * window there.
+         *
+         * @param count
+         *            the number of bytes needed
+         * @return the window
+         */
+        private ByteBuffer fill(int count) {
+            if (this.window == null || this.position < this.windowStart
+                    || this.position + count > this.windowStart
+                            + this.window.limit()) {
+                int size = (int) Math.max(count, Math.min(READ_BUFFER_BYTES,
+                        this.length - this.position));
+                if (this.window == null || this.window.capacity() < size) {
+                    this.window = ByteBuffer.allocate(size);
+                }
+                this.window.clear();
+                this.window.limit(size);
+                try (FileChannel channel = FileChannel.open(this.file,
+                        StandardOpenOption.READ)) {
+                    while (this.window.hasRemaining()) {
+                        if (channel.read(this.window, this.position
+                                + this.window.position()) < 0) {
+                            throw new EOFException("Run file " + this.file
+                                    + " is shorter than written");
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                this.windowStart = this.position;
+            }
+            this.window.position((int) (this.position - this.windowStart));
+            return this.window;
+        }
+
+        /**
+         * Reads the next entry of the file into {@code head}.
+         *
+         * @requires [the file has an entry at this.position]
+         */
+        private void readHead() {
+            int count = this.fill(LENGTH_BYTES).getInt();
+            this.position += LENGTH_BYTES;
+            this.head = SortingMachine6.this.serializer.read(this.fill(count),
+                    count);
+            this.position += count;
+        }
+
+        /**
+         * Starts reading the run: reads its first entry into {@code head}.
+         *
+         * @requires this.remaining > 0 and this.position = 0
+         */
+        private void open() {
+            this.readHead();
+        }
+
+        /**
+         * Removes {@code head} and reads the next entry into it, if there is
+         * one; otherwise releases the buffer and deletes the file.
+         *
+         * @requires this.remaining > 0
+         */
+        private void advance() {
+            this.remaining--;
+            if (this.remaining > 0) {
+                this.readHead();
+            } else {
+                this.head = null;
+                this.window = null;
+                this.delete();
+            }
+        }
+
+        /**
+         * Deletes the file, if this run owns it; this is done at most once.
+         */
+        private void delete() {
+            if (this.cleanable != null) {
+                this.cleanable.clean();
+            }
+        }
+
+    }
+
+    /**
+     * Writer of a new run file.
+     */
+    private final class RunWriter {
+
+        /**
+         * File being written.
+         */
+        private final Path file;
+
+        /**
+         * Channel to the file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Bytes not yet written to the channel.
+         */
+        private final ByteBuffer pending;
+
+        /**
+         * Number of bytes written so far, including those still pending.
+         */
+        private long length;
+
+        /**
+         * Number of entries written so far.
+         */
+        private long count;
+
+        /**
+         * Constructor; creates a new temporary file.
+         */
+        private RunWriter() {
+            try {
+                this.file = Files.createTempFile(SortingMachine6.this.directory,
+                        "run", ".sm6");
+                this.channel = FileChannel.open(this.file,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.pending = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+            this.length = 0;
+            this.count = 0;
+        }
+
+        /**
+         * Writes the bytes in {@code buffer}, from its start to its position,
+         * to the channel and empties it.
+         *
+         * @param buffer
+         *            the bytes to be written
+         */
+        private void drain(ByteBuffer buffer) {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Appends {@code x} to the file.
+         *
+         * @param x
+         *            the entry to be written
+         */
+        private void write(T x) {
+            Serializer<T> s = SortingMachine6.this.serializer;
+            int bytes = s.byteCount(x);
+            int total = LENGTH_BYTES + bytes;
+            if (this.pending.remaining() < total) {
+                this.drain(this.pending);
+            }
+            ByteBuffer target = this.pending;
+            if (target.remaining() < total) {
+                // Larger than the whole buffer: write it on its own.
+                target = ByteBuffer.allocate(total);
+            }
+            target.putInt(bytes);
+            int start = target.position();
+            s.write(x, target);
+            assert target.position() - start == bytes : ""
+                    + "Violation of: serializer wrote byteCount(x) bytes";
+            if (target != this.pending) {
+                this.drain(target);
+            }
+            this.length += total;
+            this.count++;
+        }
+
+        /**
+         * Finishes the file and returns it as a run.
+         *
+         * @param level
+         *            the number of merges the entries went through
+         * @return the run of the entries written
+         */
+        private Run finish(int level) {
+            this.drain(this.pending);
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Run(this.file, this.length, this.count, level,
+                    true);
+        }
+
+    }
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Converter of entries to and from bytes.
+     */
+    private Serializer<T> serializer;
+
+    /**
+     * Number of serialized bytes the in-memory buffer may hold before it is
+     * written out as a run.
+     */
+    private int byteBudget;
+
+    /**
+     * Directory in which run files are created.
+     */
+    private Path directory;
+
+    /**
+     * In-memory buffer of entries.
+     */
+    private T[] buffer;
+
+    /**
+     * Number of entries in {@code buffer} (including removed ones).
+     */
+    private int bufferCount;
+
+    /**
+     * Index in {@code buffer} of the next entry to remove, in extraction mode
+     * when nothing was written to disk.
+     */
+    private int next;
+
+    /**
+     * Number of bytes the entries in {@code buffer} take when serialized,
+     * each with its length.
+     */
+    private long bufferBytes;
+
+    /**
+     * Runs written to disk.
+     */
+    private List<Run> runs;
+
+    /**
+     * Runs still being merged, ordered by their heads, or null if no merge
+     * has been started.
+     */
+    private PriorityQueue<Run> merge;
+
+    /**
+     * Number of entries in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Returns a queue of the given runs, each opened, ordered by their heads.
+     *
+     * @param sources
+     *            the runs
+     * @return the queue
+     * @requires [every run in sources is unopened and has remaining > 0]
+     */
+    private PriorityQueue<Run> openAll(List<Run> sources) {
+        Comparator<T> order = this.machineOrder;
+        PriorityQueue<Run> queue = new PriorityQueue<Run>(
+                Math.max(1, sources.size()),
+                (a, b) -> order.compare(a.head, b.head));
+        for (Run r : sources) {
+            r.open();
+            queue.add(r);
+        }
+        return queue;
+    }
+
+    /**
+     * Removes the smallest head from {@code queue} and advances its run.
+     *
+     * @param queue
+     *            the runs being merged
+     * @return the entry removed
+     * @updates queue
+     * @requires queue /= {}
+     */
+    private T removeSmallest(PriorityQueue<Run> queue) {
+        Run r = queue.poll();
+        T smallest = r.head;
+        r.advance();
+        if (r.remaining > 0) {
+            queue.add(r);
+        }
+        return smallest;
+    }
+
+    /**
+     * Merges {@code sources} into a new run, one level above the highest of
+     * them; their files are deleted as they are used up.
+     *
+     * @param sources
+     *            the runs to be merged
+     * @return the merged run
+     * @requires <pre>
+     * sources /= <>  and
+     * [every run in sources is unopened and has remaining > 0]
+     * </pre>
+     */
+    private Run mergeRuns(List<Run> sources) {
+        int level = 0;
+        for (Run r : sources) {
+            level = Math.max(level, r.level);
+        }
+        PriorityQueue<Run> queue = this.openAll(sources);
+        RunWriter merged = new RunWriter();
+        while (!queue.isEmpty()) {
+            merged.write(this.removeSmallest(queue));
+        }
+        return merged.finish(level + 1);
+    }
+
+    /**
+     * Returns the runs of {@code $this.runs} at {@code level}.
+     *
+     * @param level
+     *            the level
+     * @return the runs at that level
+     */
+    private List<Run> runsAt(int level) {
+        List<Run> atLevel = new ArrayList<Run>();
+        for (Run r : this.runs) {
+            if (r.level == level) {
+                atLevel.add(r);
+            }
+        }
+        return atLevel;
+    }
+
+    /**
+     * Sorts the in-memory buffer, writes it out as a new run at level 0, and
+     * empties it; then, as long as some level has {@value #MAX_FAN_IN} runs,
+     * merges them into one run at the next level. Each entry is thus
+     * rewritten once per level, and there are about log base
+     * {@value #MAX_FAN_IN} of the number of spills levels.
+     *
+     * @updates $this.buffer, $this.bufferCount, $this.bufferBytes, $this.runs
+     * @requires $this.bufferCount > 0
+     */
+    private void spill() {
+        Arrays.sort(this.buffer, 0, this.bufferCount, this.machineOrder);
+        RunWriter writer = new RunWriter();
+        for (int i = 0; i < this.bufferCount; i++) {
+            writer.write(this.buffer[i]);
+            this.buffer[i] = null;
+        }
+        this.runs.add(writer.finish(0));
+        this.bufferCount = 0;
+        this.bufferBytes = 0;
+
+        int level = 0;
+        List<Run> full = this.runsAt(level);
+        while (full.size() == MAX_FAN_IN) {
+            this.runs.removeAll(full);
+            this.runs.add(this.mergeRuns(full));
+            level++;
+            full = this.runsAt(level);
+        }
+    }
+
+    /**
+     * Merges the shortest runs until at most {@value #MAX_FAN_IN} are left,
+     * so the final merge reads from at most that many files at once. The
+     * first pass merges just enough runs that every later one merges
+     * {@value #MAX_FAN_IN}, which rewrites as few entries as possible.
+     *
+     * @updates $this.runs
+     * @requires [every run in $this.runs is unopened and has remaining > 0]
+     * @ensures <pre>
+     * |$this.runs| <= MAX_FAN_IN  and
+     * [union of RUN_ENTRIES(r) over r in $this.runs] =
+     *  [union of RUN_ENTRIES(r) over r in #$this.runs]
+     * </pre>
+     */
+    private void reduceRuns() {
+        while (this.runs.size() > MAX_FAN_IN) {
+            this.runs.sort((a, b) -> Long.compare(a.remaining, b.remaining));
+            int count = (this.runs.size() - 2) % (MAX_FAN_IN - 1) + 2;
+            List<Run> shortest = this.runs.subList(0, count);
+            Run merged = this.mergeRuns(shortest);
+            shortest.clear();
+            this.runs.add(merged);
+        }
+    }
+
+    /**
+     * Deletes all run files.
+     */
+    private void deleteRuns() {
+        for (Run r : this.runs) {
+            r.delete();
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.byteBudget > 0  and
+     * 0 <= $this.next <= $this.bufferCount <= |$this.buffer|  and
+     * [entries of $this.buffer[$this.next, $this.bufferCount) are not null]  and
+     * [$this.size is as described above for each mode]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.byteBudget > 0 : "Violation of: $this.byteBudget > 0";
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.bufferCount : ""
+                + "Violation of: $this.next <= $this.bufferCount";
+        assert this.bufferCount <= this.buffer.length : ""
+                + "Violation of: $this.bufferCount <= |$this.buffer|";
+        for (int i = this.next; i < this.bufferCount; i++) {
+            assert this.buffer[i] != null : ""
+                    + "Violation of: entries of $this.buffer[$this.next,"
+                    + " $this.bufferCount) are not null";
+        }
+        long onDisk = 0;
+        for (Run r : this.runs) {
+            onDisk += r.remaining;
+        }
+        assert this.size == this.bufferCount - this.next + onDisk : ""
+                + "Violation of: $this.size = [number of entries in the"
+                + " buffer and the runs]";
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+            assert this.merge == null : "Violation of: $this.merge = null";
+            assert this.bufferBytes < this.byteBudget : ""
+                    + "Violation of: $this.bufferBytes < $this.byteBudget";
+            int top = 0;
+            for (Run r : this.runs) {
+                top = Math.max(top, r.level);
+            }
+            int[] perLevel = new int[top + 1];
+            for (Run r : this.runs) {
+                perLevel[r.level]++;
+                assert perLevel[r.level] < MAX_FAN_IN : ""
+                        + "Violation of: [for each level, fewer than"
+                        + " MAX_FAN_IN runs of $this.runs have that level]";
+            }
+        } else if (this.merge != null) {
+            assert this.bufferCount == 0 : ""
+                    + "Violation of: $this.bufferCount = 0";
+            assert this.runs.size() <= MAX_FAN_IN : ""
+                    + "Violation of: |$this.runs| <= MAX_FAN_IN";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param s
+     *            converter of entries to and from bytes
+     * @param budget
+     *            number of serialized bytes to keep in memory
+     * @param dir
+     *            directory for run files
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, Serializer<T> s,
+            int budget, Path dir) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.serializer = s;
+        this.byteBudget = budget;
+        this.directory = dir;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.buffer = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.bufferCount = 0;
+        this.next = 0;
+        this.bufferBytes = 0;
+        this.runs = new ArrayList<Run>();
+        this.merge = null;
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order, serializer, and byte budget; run files go in the
+     * default temporary-file directory.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            converter of entries to and from bytes
+     * @param byteBudget
+     *            number of serialized bytes to keep in memory before writing a
+     *            run to disk
+     * @requires byteBudget > 0
+     */
+    public SortingMachine6(Comparator<T> order, Serializer<T> serializer,
+            int byteBudget) {
+        this(order, serializer, byteBudget,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Constructor from order, serializer, byte budget, and directory for run
+     * files.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            converter of entries to and from bytes
+     * @param byteBudget
+     *            number of serialized bytes to keep in memory before writing a
+     *            run to disk
+     * @param directory
+     *            directory in which run files are created
+     * @requires byteBudget > 0 and [directory is a writable directory]
+     */
+    public SortingMachine6(Comparator<T> order, Serializer<T> serializer,
+            int byteBudget, Path directory) {
+        assert serializer != null : "Violation of: serializer is not null";
+        assert byteBudget > 0 : "Violation of: byteBudget > 0";
+        assert directory != null : "Violation of: directory is not null";
+        this.createNewRep(order, serializer, byteBudget, directory);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(Comparator.class, Serializer.class,
+                            int.class, Path.class)
+                    .newInstance(this.machineOrder, this.serializer,
+                            this.byteBudget, this.directory);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.deleteRuns();
+        this.createNewRep(this.machineOrder, this.serializer, this.byteBudget,
+                this.directory);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine6<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine6<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine6<T> localSource = (SortingMachine6<T>) source;
+        this.deleteRuns();
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.serializer = localSource.serializer;
+        this.byteBudget = localSource.byteBudget;
+        this.directory = localSource.directory;
+        this.buffer = localSource.buffer;
+        this.bufferCount = localSource.bufferCount;
+        this.next = localSource.next;
+        this.bufferBytes = localSource.bufferBytes;
+        this.runs = localSource.runs;
+        this.merge = localSource.merge;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.serializer, localSource.byteBudget,
+                localSource.directory);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.bufferCount == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+        }
+        this.buffer[this.bufferCount] = x;
+        this.bufferCount++;
+        this.bufferBytes += LENGTH_BYTES + this.serializer.byteCount(x);
+        this.size++;
+        if (this.bufferBytes >= this.byteBudget) {
+            this.spill();
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.runs.isEmpty()) {
+            Arrays.sort(this.buffer, 0, this.bufferCount, this.machineOrder);
+        } else {
+            if (this.bufferCount > 0) {
+                this.spill();
+            }
+            this.buffer = Arrays.copyOf(this.buffer, 0);
+            this.reduceRuns();
+            this.merge = this.openAll(this.runs);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T removed;
+        if (this.merge == null) {
+            removed = this.buffer[this.next];
+            this.buffer[this.next] = null;
+            this.next++;
+        } else {
+            removed = this.removeSmallest(this.merge);
+        }
+        this.size--;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine6}; visits the entries in the buffer and then, run
+     * by run, the entries on disk, reading each run through its own buffer.
+     */
+    private final class SortingMachine6Iterator implements Iterator<T> {
+
+        /**
+         * Index in {@code buffer} of the next entry to visit there.
+         */
+        private int bufferIndex;
+
+        /**
+         * Index in {@code runs} of the next run to start visiting.
+         */
+        private int runIndex;
+
+        /**
+         * Copy of the run being visited, or null if none is.
+         */
+        private Run current;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine6Iterator() {
+            this.bufferIndex = SortingMachine6.this.next;
+            this.runIndex = 0;
+            this.current = null;
+            this.findNext();
+            assert SortingMachine6.this.conventionHolds();
+        }
+
+        /**
+         * Moves on to the next run that has entries left, if the buffer and
+         * the run being visited are used up.
+         */
+        private void findNext() {
+            List<Run> all = SortingMachine6.this.runs;
+            while (this.bufferIndex == SortingMachine6.this.bufferCount
+                    && (this.current == null || this.current.remaining == 0)
+                    && this.runIndex < all.size()) {
+                Run r = all.get(this.runIndex);
+                this.runIndex++;
+                if (r.remaining > 0) {
+                    /*
+                     * Read a copy from where r stands, so r itself is not
+                     * disturbed and its file is not deleted at the end.
+                     */
+                    this.current = SortingMachine6.this.new Run(r.file,
+                            r.length, r.remaining, r.level, false);
+                    if (r.head == null) {
+                        this.current.open();
+                    } else {
+                        this.current.head = r.head;
+                        this.current.position = r.position;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.bufferIndex
+                    < SortingMachine6.this.bufferCount
+                    || (this.current != null && this.current.remaining > 0);
+            assert SortingMachine6.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next;
+            if (this.bufferIndex < SortingMachine6.this.bufferCount) {
+                next = SortingMachine6.this.buffer[this.bufferIndex];
+                this.bufferIndex++;
+            } else {
+                next = this.current.head;
+                this.current.remaining--;
+                if (this.current.remaining > 0) {
+                    this.current.readHead();
+                }
+            }
+            this.findNext();
+            assert SortingMachine6.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
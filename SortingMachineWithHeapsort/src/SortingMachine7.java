@@ -0,0 +1,384 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array that is sorted, in parallel
+ * when it is large, when the machine changes to extraction mode, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * In insertion mode the entries are appended to the array, which doubles in
+ * length when it is full. {@code changeToExtractionMode} sorts the array with
+ * {@code Arrays.parallelSort}, a merge sort that splits the array among the
+ * threads of the common fork-join pool, so a caller that drains the whole
+ * machine gets the work spread over all cores and each thread sorting a
+ * contiguous piece of the array. Below {@value #PARALLEL_THRESHOLD} entries
+ * the array is sorted on the calling thread instead, where starting parallel
+ * tasks would cost more than it saves. {@code removeFirst} then just advances
+ * a cursor through the sorted array. Both sorts are stable.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.next <= i  and  i < $this.entryCount)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.next = 0
+ * else
+ *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+ *    computed by $this.machineOrder.compare method]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.next, $this.entryCount)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine7<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of entries from which the array is sorted in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, sorted.
+     */
+    private T[] entries;
+
+    /**
+     * Number of entries in {@code entries} (including removed ones).
+     */
+    private int entryCount;
+
+    /**
+     * Index in {@code entries} of the next entry to remove, in extraction
+     * mode.
+     */
+    private int next;
+
+    /**
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.next <= i  and  i < $this.entryCount)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.next = 0
+     * else
+     *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+     *    computed by $this.machineOrder.compare method]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.entryCount : ""
+                + "Violation of: $this.next <= $this.entryCount";
+        assert this.entryCount <= this.entries.length : ""
+                + "Violation of: $this.entryCount <= |$this.entries|";
+        for (int i = this.next; i < this.entryCount; i++) {
+            assert this.entries[i] != null : ""
+                    + "Violation of: all entries in $this.entries[$this.next,"
+                    + " $this.entryCount) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+        } else {
+            for (int i = this.next + 1; i < this.entryCount; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0 : ""
+                                + "Violation of: $this.entries[$this.next,"
+                                + " $this.entryCount) is sorted";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * capacity >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * |$this.entries| = capacity  and
+     * $this.entryCount = 0  and  $this.next = 0  and
+     * $this.initialCapacity = capacity
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[capacity]);
+        this.entryCount = 0;
+        this.next = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine7(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and the number of entries expected to be added;
+     * room for that many entries is allocated up front.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public SortingMachine7(Comparator<T> order, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(order, expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine7<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine7<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine7<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine7<T> localSource = (SortingMachine7<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.entryCount = localSource.entryCount;
+        this.next = localSource.next;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.entryCount == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length + 1);
+        }
+        this.entries[this.entryCount] = x;
+        this.entryCount++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.entryCount < PARALLEL_THRESHOLD) {
+            Arrays.sort(this.entries, 0, this.entryCount, this.machineOrder);
+        } else {
+            Arrays.parallelSort(this.entries, 0, this.entryCount,
+                    this.machineOrder);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T removed = this.entries[this.next];
+        this.entries[this.next] = null;
+        this.next++;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.entryCount - this.next;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine7Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine7}.
+     */
+    private final class SortingMachine7Iterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine7Iterator() {
+            this.arrayCurrentIndex = SortingMachine7.this.next;
+            assert SortingMachine7.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine7.this.entryCount;
+            assert SortingMachine7.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine7.this.entries[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert SortingMachine7.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
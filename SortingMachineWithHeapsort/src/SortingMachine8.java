@@ -0,0 +1,639 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a pairing heap, done "bare-handed",
+ * with implementations of primary methods and of operations for using it as
+ * a mergeable priority queue.
+ *
+ * <p>
+ * A pairing heap is a tree, ordered so no entry comes before its parent,
+ * whose nodes may have any number of children. {@code add} makes the new
+ * entry a one-node tree and links it with the root, and {@code removeFirst}
+ * takes the root and pairs up its children, left to right, and then links the
+ * pairs from right to left into one tree. Unlike other implementations of
+ * {@code SortingMachine}, {@code add} may be called in extraction mode as well
+ * as in insertion mode, so entries can keep arriving while others are being
+ * removed; {@code changeToExtractionMode} does no work.
+ * </p>
+ *
+ * <p>
+ * Besides the kernel methods, {@code meld} moves all the entries of another
+ * {@code SortingMachine8} into this one by linking the two roots, and
+ * {@code addWithHandle} returns a {@code Handle} through which
+ * {@code decreaseKey} can later replace that entry with one that does not
+ * come after it, as a scheduler does when a task's priority is raised.
+ * </p>
+ *
+ * <p>
+ * Execution-time performance of {@code add}, {@code meld}, and
+ * {@code changeToExtractionMode} is O(1), and amortized performance of
+ * {@code removeFirst} is O(log |this.contents|), as is that of
+ * {@code decreaseKey} (which is known to be o(log |this.contents|)).
+ * {@code clear} and {@code transferFrom} take time proportional to the number
+ * of entries they drop, since they mark each one's handle as no longer in
+ * the machine.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_HEAP_ORDERED (
+ *   n: Handle,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [for every node m of the tree rooted at n, other than n, r(parent of
+ *   m.data, m.data), where the children of a node are the node's child and
+ *   the chain of siblings from it]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * if $this.root /= null then
+ *   ($this.root.prev = null  and  $this.root.sibling = null  and
+ *    IS_HEAP_ORDERED($this.root,
+ *      [relation computed by $this.machineOrder.compare method])  and
+ *    [for every node m of the tree, m.prev is m's parent if m is its parent's
+ *     child and is m's previous sibling otherwise]  and
+ *    [every node of the tree has inHeap = true])  and
+ * $this.size = [number of nodes in the tree rooted at $this.root]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         [multiset of data in the nodes of the tree rooted at $this.root])
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine8<T> extends SortingMachineSecondary<T> {
+
+    /**
+     * Node of the pairing heap, returned by {@code addWithHandle} so that its
+     * entry can later be given to {@code decreaseKey}.
+     *
+     * @param <T>
+     *            type of the entry
+     */
+    public static final class Handle<T> {
+
+        /**
+         * Entry in node.
+         */
+        private T data;
+
+        /**
+         * Leftmost child, or null if none.
+         */
+        private Handle<T> child;
+
+        /**
+         * Next sibling to the right, or null if none.
+         */
+        private Handle<T> sibling;
+
+        /**
+         * Parent if this is its leftmost child, otherwise previous sibling;
+         * null for the root.
+         */
+        private Handle<T> prev;
+
+        /**
+         * Whether the entry is still in the machine.
+         */
+        private boolean inHeap;
+
+        /**
+         * Constructor.
+         *
+         * @param x
+         *            the entry
+         */
+        private Handle(T x) {
+            this.data = x;
+            this.child = null;
+            this.sibling = null;
+            this.prev = null;
+            this.inHeap = true;
+        }
+
+        /**
+         * Reports the entry this handle refers to.
+         *
+         * @return the entry
+         */
+        public T entry() {
+            return this.data;
+        }
+
+        /**
+         * Reports whether the entry this handle refers to has not yet been
+         * removed.
+         *
+         * @return true iff the entry is still in the machine it was added to
+         *         (or that machine was melded or transferred into), and was
+         *         not dropped from it by clear or transferFrom
+         */
+        public boolean isInMachine() {
+            return this.inHeap;
+        }
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Root of the pairing heap, or null if it is empty.
+     */
+    private Handle<T> root;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Links two trees into one, making the root whose entry comes later the
+     * leftmost child of the other (of {@code a} if they are equal).
+     *
+     * @param a
+     *            the root of one tree
+     * @param b
+     *            the root of the other tree
+     * @return the root of the linked tree
+     * @requires <pre>
+     * a /= null  and  b /= null  and
+     * a.prev = null  and  a.sibling = null  and
+     * b.prev = null  and  b.sibling = null
+     * </pre>
+     */
+    private Handle<T> link(Handle<T> a, Handle<T> b) {
+        Handle<T> top = a;
+        Handle<T> under = b;
+        if (this.machineOrder.compare(b.data, a.data) < 0) {
+            top = b;
+            under = a;
+        }
+        under.sibling = top.child;
+        if (top.child != null) {
+            top.child.prev = under;
+        }
+        under.prev = top;
+        top.child = under;
+        return top;
+    }
+
+    /**
+     * Links the trees in the chain of siblings starting at {@code first} into
+     * one tree, by the two-pass pairing method, and returns its root.
+     *
+     * @param first
+     *            the first of the siblings, or null
+     * @return the root of the linked tree, or null if first = null
+     */
+    private Handle<T> combineSiblings(Handle<T> first) {
+        /*
+         * First pass, left to right: link the siblings in pairs, pushing each
+         * result on a stack threaded through the sibling links.
+         */
+        Handle<T> pairs = null;
+        Handle<T> a = first;
+        while (a != null) {
+            Handle<T> b = a.sibling;
+            Handle<T> rest = null;
+            a.sibling = null;
+            a.prev = null;
+            Handle<T> linked = a;
+            if (b != null) {
+                rest = b.sibling;
+                b.sibling = null;
+                b.prev = null;
+                linked = this.link(a, b);
+            }
+            linked.sibling = pairs;
+            pairs = linked;
+            a = rest;
+        }
+        /*
+         * Second pass, right to left: link each pair into the result so far,
+         * which starts as the last pair (the top of the stack).
+         */
+        Handle<T> result = pairs;
+        if (pairs != null) {
+            Handle<T> p = pairs.sibling;
+            result.sibling = null;
+            while (p != null) {
+                Handle<T> nextPair = p.sibling;
+                p.sibling = null;
+                result = this.link(result, p);
+                p = nextPair;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * if $this.root /= null then
+     *   ($this.root.prev = null  and  $this.root.sibling = null  and
+     *    IS_HEAP_ORDERED($this.root,
+     *      [relation computed by $this.machineOrder.compare method])  and
+     *    [the prev links are as described above]  and
+     *    [every node of the tree has inHeap = true])  and
+     * $this.size = [number of nodes in the tree rooted at $this.root]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int count = 0;
+        if (this.root != null) {
+            assert this.root.prev == null : "Violation of: root.prev = null";
+            assert this.root.sibling == null : ""
+                    + "Violation of: root.sibling = null";
+            Deque<Handle<T>> pending = new ArrayDeque<Handle<T>>();
+            pending.push(this.root);
+            while (!pending.isEmpty()) {
+                Handle<T> n = pending.pop();
+                count++;
+                assert n.inHeap : "Violation of: every node has inHeap = true";
+                Handle<T> expectedPrev = n;
+                for (Handle<T> c = n.child; c != null; c = c.sibling) {
+                    assert c.prev == expectedPrev : ""
+                            + "Violation of: [the prev links are as described]";
+                    assert this.machineOrder.compare(n.data, c.data) <= 0 : ""
+                            + "Violation of: IS_HEAP_ORDERED($this.root,"
+                            + " [relation computed by $this.machineOrder"
+                            + ".compare method])";
+                    pending.push(c);
+                    expectedPrev = c;
+                }
+            }
+        }
+        assert this.size == count : ""
+                + "Violation of: $this.size = [number of nodes in the tree]";
+        return true;
+    }
+
+    /**
+     * Marks every node of the tree rooted at {@code $this.root} as no longer
+     * in the machine and unlinks it, so that handles to the entries being
+     * dropped report {@code isInMachine} as false and do not keep the rest of
+     * the tree reachable.
+     */
+    private void releaseNodes() {
+        if (this.root != null) {
+            Deque<Handle<T>> pending = new ArrayDeque<Handle<T>>();
+            pending.push(this.root);
+            while (!pending.isEmpty()) {
+                Handle<T> n = pending.pop();
+                for (Handle<T> c = n.child; c != null; c = c.sibling) {
+                    pending.push(c);
+                }
+                n.inHeap = false;
+                n.child = null;
+                n.sibling = null;
+                n.prev = null;
+            }
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    private void createNewRep(Comparator<T> order) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.root = null;
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine8(Comparator<T> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.releaseNodes();
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine8<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine8<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine8<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine8<T> localSource = (SortingMachine8<T>) source;
+        this.releaseNodes();
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this}; unlike other
+     * implementations, this may be done in extraction mode as well.
+     *
+     * @param x
+     *            the element to be added
+     * @updates this.contents
+     * @ensures this.contents = #this.contents union {x}
+     */
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.addWithHandle(x);
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        Handle<T> first = this.root;
+        this.root = this.combineSiblings(first.child);
+        first.child = null;
+        first.inHeap = false;
+        this.size--;
+
+        assert this.conventionHolds();
+        return first.data;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine8Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this} and returns a handle to
+     * it, for use with {@code decreaseKey}. This may be done in either mode.
+     *
+     * @param x
+     *            the element to be added
+     * @return the handle to x
+     * @updates this.contents
+     * @ensures <pre>
+     * this.contents = #this.contents union {x}  and
+     * addWithHandle.entry = x  and  addWithHandle.isInMachine
+     * </pre>
+     */
+    public final Handle<T> addWithHandle(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Handle<T> n = new Handle<T>(x);
+        if (this.root == null) {
+            this.root = n;
+        } else {
+            this.root = this.link(this.root, n);
+        }
+        this.size++;
+
+        assert this.conventionHolds();
+        return n;
+    }
+
+    /**
+     * Replaces the entry that {@code h} refers to with {@code x}, which must
+     * not come after it.
+     *
+     * @param h
+     *            the handle to the entry to be replaced
+     * @param x
+     *            the new entry
+     * @updates this.contents
+     * @requires <pre>
+     * h.isInMachine  and  [h was returned by addWithHandle of this, or of a
+     *   machine melded into this]  and
+     * [relation computed by this.order().compare method](x, h.entry)
+     * </pre>
+     * @ensures <pre>
+     * this.contents = (#this.contents \ {#h.entry}) union {x}  and
+     * h.entry = x
+     * </pre>
+     */
+    public final void decreaseKey(Handle<T> h, T x) {
+        assert h != null : "Violation of: h is not null";
+        assert x != null : "Violation of: x is not null";
+        assert h.inHeap : "Violation of: h.isInMachine";
+        assert this.machineOrder.compare(x, h.data) <= 0 : ""
+                + "Violation of: [x does not come after h.entry]";
+
+        h.data = x;
+        if (h != this.root) {
+            // Cut h's subtree out and link it back in at the root.
+            if (h.prev.child == h) {
+                h.prev.child = h.sibling;
+            } else {
+                h.prev.sibling = h.sibling;
+            }
+            if (h.sibling != null) {
+                h.sibling.prev = h.prev;
+            }
+            h.prev = null;
+            h.sibling = null;
+            this.root = this.link(this.root, h);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Moves all the entries of {@code other} into {@code this}, leaving
+     * {@code other} empty; handles to entries of {@code other} then refer to
+     * entries of {@code this}.
+     *
+     * @param other
+     *            the machine whose entries are moved
+     * @updates this.contents
+     * @clears other
+     * @requires <pre>
+     * other /= this  and
+     * [other.order() computes the same relation as this.order()]
+     * </pre>
+     * @ensures this.contents = #this.contents union #other.contents
+     */
+    public final void meld(SortingMachine8<T> other) {
+        assert other != null : "Violation of: other is not null";
+        assert other != this : "Violation of: other is not this";
+
+        if (other.root != null) {
+            if (this.root == null) {
+                this.root = other.root;
+            } else {
+                this.root = this.link(this.root, other.root);
+            }
+            this.size += other.size;
+        }
+        other.createNewRep(other.machineOrder);
+
+        assert this.conventionHolds();
+        assert other.conventionHolds();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine8}; visits the entries in preorder of the tree.
+     */
+    private final class SortingMachine8Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose subtrees (and later siblings) are still to be visited,
+         * with the next one on top.
+         */
+        private final Deque<Handle<T>> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine8Iterator() {
+            this.pending = new ArrayDeque<Handle<T>>();
+            if (SortingMachine8.this.root != null) {
+                this.pending.push(SortingMachine8.this.root);
+            }
+            assert SortingMachine8.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Handle<T> n = this.pending.pop();
+            if (n.sibling != null) {
+                this.pending.push(n.sibling);
+            }
+            if (n.child != null) {
+                this.pending.push(n.child);
+            }
+            return n.data;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
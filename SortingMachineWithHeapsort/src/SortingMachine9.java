@@ -0,0 +1,692 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array that is sorted lazily, by
+ * incremental quicksort, as entries are removed, with implementations of
+ * primary methods.
+ *
+ * <p>
+ * In insertion mode the entries are appended to the array, which doubles in
+ * length when it is full, and {@code changeToExtractionMode} does no work.
+ * {@code removeFirst} keeps a stack of pivots, each already in its final
+ * place, with the one nearest the front of the array on top; when the entries
+ * in front of the top pivot are not yet sorted, it partitions them around a
+ * new pivot (the median of three picked at random) and pushes that pivot,
+ * again and again, until at most {@value #INSERTION_SORT_CUTOFF} remain in
+ * front of it; it sorts those by insertion sort and pops the pivot, after
+ * which they and the pivot can be removed without further work. Each
+ * partition only touches entries ahead of the ones already removed, so a
+ * caller that removes only the first k of n entries spends expected
+ * O(n + k log k) time in all rather than the O(n) of building a heap plus
+ * O(k log n) for the removals, and the first entry comes out after about 2n
+ * comparisons; removing all the entries costs the same as quicksort.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_FENCE (
+ *   a: string of T,
+ *   lo: integer,
+ *   p: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all i, j: integer
+ *      where (lo <= i < p  and  p < j < |a|)
+ *    (r(a[i], a[p])  and  r(a[p], a[j]))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 <= $this.next <= $this.sortedEnd <= $this.entryCount  and
+ * $this.entryCount <= |$this.entries|  and
+ * 0 <= $this.pivotCount <= |$this.pivots|  and
+ * for all i: integer
+ *     where ($this.next <= i  and  i < $this.entryCount)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.next = 0  and  $this.sortedEnd = 0  and  $this.pivotCount = 0
+ * else
+ *   [$this.entries[$this.next, $this.sortedEnd) is sorted by the relation
+ *    computed by $this.machineOrder.compare method, and each of its entries
+ *    comes no later than each entry of
+ *    $this.entries[$this.sortedEnd, $this.entryCount)]  and
+ *   [$this.pivots[0, $this.pivotCount) is strictly decreasing, and its
+ *    entries are at least $this.sortedEnd]  and
+ *   if $this.pivotCount = 0 then
+ *     $this.sortedEnd = $this.entryCount
+ *   else
+ *     $this.pivots[0] = $this.entryCount  and
+ *     for all k: integer where (1 <= k < $this.pivotCount)
+ *       IS_FENCE($this.entries[0, $this.entryCount), $this.next,
+ *         $this.pivots[k],
+ *         [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.next, $this.entryCount)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class SortingMachine9<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Default initial length of the pivot stack, enough for the expected
+     * depth of partitioning of any array that fits in memory.
+     */
+    private static final int DEFAULT_PIVOT_CAPACITY = 64;
+
+    /**
+     * Number of entries in front of a pivot at or below which they are sorted
+     * by insertion sort rather than partitioned.
+     */
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, partly sorted.
+     */
+    private T[] entries;
+
+    /**
+     * Number of entries in {@code entries} (including removed ones).
+     */
+    private int entryCount;
+
+    /**
+     * Index in {@code entries} of the next entry to remove, in extraction
+     * mode.
+     */
+    private int next;
+
+    /**
+     * End of the sorted run of entries starting at {@code next}, in
+     * extraction mode.
+     */
+    private int sortedEnd;
+
+    /**
+     * Stack of indices of entries in their final places, with the bottom
+     * entry being {@code entryCount} (as if there were a pivot after the last
+     * entry) and the top entry being the nearest to {@code next}.
+     */
+    private int[] pivots;
+
+    /**
+     * Number of indices on the pivot stack.
+     */
+    private int pivotCount;
+
+    /**
+     * Initial length of the array of entries, as requested when this was
+     * constructed.
+     */
+    private int initialCapacity;
+
+    /**
+     * Exchanges entries {@code i} and {@code j} of {@code array}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param i
+     *            one index
+     * @param j
+     *            the other index
+     */
+    private static <T> void exchange(T[] array, int i, int j) {
+        T temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    /**
+     * Partitions {@code array[lo, hi]} around the median of three of its
+     * entries picked at random, and returns the index where that pivot ends
+     * up.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the first index of the part to be partitioned
+     * @param hi
+     *            the last index of the part to be partitioned
+     * @param order
+     *            total preorder for sorting
+     * @return the index of the pivot
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo < hi < |array|  and
+     * [the entries of array[lo, hi] are not null]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * lo <= partition <= hi  and
+     * [every entry of array[lo, partition) comes no later than
+     *  array[partition], which comes no later than every entry of
+     *  array(partition, hi]]  and
+     * perms(array, #array)  and
+     * [the other entries of array are the same as in #array]
+     * </pre>
+     */
+    private static <T> int partition(T[] array, int lo, int hi,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= lo : "Violation of: 0 <= lo";
+        assert lo < hi : "Violation of: lo < hi";
+        assert hi < array.length : "Violation of: hi < |array|";
+
+        /*
+         * Random picks make the expected cost the same for every input, so
+         * no order of adds can force the quadratic worst case.
+         */
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int a = rnd.nextInt(lo, hi + 1);
+        int b = rnd.nextInt(lo, hi + 1);
+        int c = rnd.nextInt(lo, hi + 1);
+        if (order.compare(array[a], array[b]) > 0) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        // Now array[a] <= array[b]; the median is b, a, or c.
+        if (order.compare(array[b], array[c]) > 0) {
+            if (order.compare(array[a], array[c]) > 0) {
+                b = a;
+            } else {
+                b = c;
+            }
+        }
+        exchange(array, lo, b);
+
+        /*
+         * Scan from both ends, stopping at entries equal to the pivot, so
+         * runs of equal entries are split evenly rather than all falling on
+         * one side.
+         */
+        T pivot = array[lo];
+        int i = lo;
+        int j = hi + 1;
+        boolean crossed = false;
+        while (!crossed) {
+            i++;
+            while (i < hi && order.compare(array[i], pivot) < 0) {
+                i++;
+            }
+            j--;
+            while (j > lo && order.compare(pivot, array[j]) < 0) {
+                j--;
+            }
+            if (i >= j) {
+                crossed = true;
+            } else {
+                exchange(array, i, j);
+            }
+        }
+        exchange(array, lo, j);
+        return j;
+    }
+
+    /**
+     * Sorts {@code array[lo, hi)} by insertion sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the start of the part to be sorted
+     * @param hi
+     *            the end of the part to be sorted
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and
+     * [the entries of array[lo, hi) are not null]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [array[lo, hi) is sorted by the relation computed by order.compare
+     *  method]  and  perms(array, #array)  and
+     * [the other entries of array are the same as in #array]
+     * </pre>
+     */
+    private static <T> void insertionSort(T[] array, int lo, int hi,
+            Comparator<T> order) {
+        for (int i = lo + 1; i < hi; i++) {
+            T x = array[i];
+            int j = i;
+            while (j > lo && order.compare(x, array[j - 1]) < 0) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = x;
+        }
+    }
+
+    /**
+     * Pushes {@code p} onto the pivot stack.
+     *
+     * @param p
+     *            the index of the pivot
+     * @updates $this.pivots, $this.pivotCount
+     * @ensures <pre>
+     * $this.pivots[0, $this.pivotCount) =
+     *   #$this.pivots[0, #$this.pivotCount) * <p>
+     * </pre>
+     */
+    private void pushPivot(int p) {
+        if (this.pivotCount == this.pivots.length) {
+            this.pivots = Arrays.copyOf(this.pivots, 2 * this.pivots.length);
+        }
+        this.pivots[this.pivotCount] = p;
+        this.pivotCount++;
+    }
+
+    /**
+     * Sorts the entries from {@code next} up to the top pivot, partitioning
+     * them first if there are many, and extends the sorted run past them and
+     * that pivot.
+     *
+     * @updates $this.entries, $this.sortedEnd, $this.pivots, $this.pivotCount
+     * @requires <pre>
+     * not $this.insertionMode  and  $this.next = $this.sortedEnd  and
+     * $this.pivotCount > 0
+     * </pre>
+     * @ensures <pre>
+     * $this.sortedEnd > $this.next  and
+     * [the convention holds]
+     * </pre>
+     */
+    private void extendSortedRun() {
+        int bound = this.pivots[this.pivotCount - 1];
+        while (bound - this.next > INSERTION_SORT_CUTOFF) {
+            bound = partition(this.entries, this.next, bound - 1,
+                    this.machineOrder);
+            this.pushPivot(bound);
+        }
+        insertionSort(this.entries, this.next, bound, this.machineOrder);
+        this.pivotCount--;
+        /*
+         * The pivot at bound is in its final place too, unless it is the
+         * bottom of the stack, which stands for the end of the array.
+         */
+        this.sortedEnd = Math.min(bound + 1, this.entryCount);
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.next <= $this.sortedEnd <= $this.entryCount  and
+     * $this.entryCount <= |$this.entries|  and
+     * 0 <= $this.pivotCount <= |$this.pivots|  and
+     * for all i: integer
+     *     where ($this.next <= i  and  i < $this.entryCount)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.next = 0  and  $this.sortedEnd = 0  and  $this.pivotCount = 0
+     * else
+     *   [$this.entries[$this.next, $this.sortedEnd) is sorted by the relation
+     *    computed by $this.machineOrder.compare method, and each of its entries
+     *    comes no later than each entry of
+     *    $this.entries[$this.sortedEnd, $this.entryCount)]  and
+     *   [$this.pivots[0, $this.pivotCount) is strictly decreasing, and its
+     *    entries are at least $this.sortedEnd]  and
+     *   if $this.pivotCount = 0 then
+     *     $this.sortedEnd = $this.entryCount
+     *   else
+     *     $this.pivots[0] = $this.entryCount  and
+     *     for all k: integer where (1 <= k < $this.pivotCount)
+     *       IS_FENCE($this.entries[0, $this.entryCount), $this.next,
+     *         $this.pivots[k],
+     *         [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.sortedEnd : ""
+                + "Violation of: $this.next <= $this.sortedEnd";
+        assert this.sortedEnd <= this.entryCount : ""
+                + "Violation of: $this.sortedEnd <= $this.entryCount";
+        assert this.entryCount <= this.entries.length : ""
+                + "Violation of: $this.entryCount <= |$this.entries|";
+        assert 0 <= this.pivotCount : "Violation of: 0 <= $this.pivotCount";
+        assert this.pivotCount <= this.pivots.length : ""
+                + "Violation of: $this.pivotCount <= |$this.pivots|";
+        for (int i = this.next; i < this.entryCount; i++) {
+            assert this.entries[i] != null : ""
+                    + "Violation of: all entries in $this.entries[$this.next,"
+                    + " $this.entryCount) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+            assert this.sortedEnd == 0 : "Violation of: $this.sortedEnd = 0";
+            assert this.pivotCount == 0 : ""
+                    + "Violation of: $this.pivotCount = 0";
+        } else {
+            Comparator<T> order = this.machineOrder;
+            for (int i = this.next + 1; i < this.sortedEnd; i++) {
+                assert order.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0 : ""
+                                + "Violation of: $this.entries[$this.next,"
+                                + " $this.sortedEnd) is sorted";
+            }
+            if (this.sortedEnd > this.next) {
+                T lastSorted = this.entries[this.sortedEnd - 1];
+                for (int i = this.sortedEnd; i < this.entryCount; i++) {
+                    assert order.compare(lastSorted, this.entries[i]) <= 0 : ""
+                            + "Violation of: the sorted run comes no later"
+                            + " than the rest";
+                }
+            }
+            if (this.pivotCount == 0) {
+                assert this.sortedEnd == this.entryCount : ""
+                        + "Violation of: $this.sortedEnd = $this.entryCount";
+            } else {
+                assert this.pivots[0] == this.entryCount : ""
+                        + "Violation of: $this.pivots[0] = $this.entryCount";
+            }
+            for (int k = 1; k < this.pivotCount; k++) {
+                int p = this.pivots[k];
+                assert this.sortedEnd <= p && p < this.pivots[k - 1] : ""
+                        + "Violation of: $this.pivots is strictly decreasing"
+                        + " and at least $this.sortedEnd";
+                for (int i = this.next; i < this.entryCount; i++) {
+                    int c = order.compare(this.entries[i], this.entries[p]);
+                    assert (i < p && c <= 0) || i == p || (i > p && c >= 0) : ""
+                            + "Violation of: IS_FENCE($this.entries,"
+                            + " $this.next, $this.pivots[k], [relation"
+                            + " computed by $this.machineOrder.compare"
+                            + " method])";
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param capacity
+     *            initial length of the array of entries
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method]  and
+     * capacity >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * |$this.entries| = capacity  and
+     * $this.entryCount = 0  and  $this.next = 0  and  $this.sortedEnd = 0  and
+     * $this.pivotCount = 0  and
+     * $this.initialCapacity = capacity
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int capacity) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[capacity]);
+        this.entryCount = 0;
+        this.next = 0;
+        this.sortedEnd = 0;
+        this.pivots = new int[DEFAULT_PIVOT_CAPACITY];
+        this.pivotCount = 0;
+        this.initialCapacity = capacity;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine9(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and the number of entries expected to be added;
+     * room for that many entries is allocated up front.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param expectedSize
+     *            number of entries expected to be added
+     * @requires expectedSize >= 0
+     */
+    public SortingMachine9(Comparator<T> order, int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: expectedSize >= 0";
+        this.createNewRep(order, expectedSize);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.initialCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.initialCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine9<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine9<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine9<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine9<T> localSource = (SortingMachine9<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.entryCount = localSource.entryCount;
+        this.next = localSource.next;
+        this.sortedEnd = localSource.sortedEnd;
+        this.pivots = localSource.pivots;
+        this.pivotCount = localSource.pivotCount;
+        this.initialCapacity = localSource.initialCapacity;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.initialCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.entryCount == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length + 1);
+        }
+        this.entries[this.entryCount] = x;
+        this.entryCount++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.pushPivot(this.entryCount);
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        if (this.next == this.sortedEnd) {
+            this.extendSortedRun();
+        }
+        T removed = this.entries[this.next];
+        this.entries[this.next] = null;
+        this.next++;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.entryCount - this.next;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine9Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine9}.
+     */
+    private final class SortingMachine9Iterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine9Iterator() {
+            this.arrayCurrentIndex = SortingMachine9.this.next;
+            assert SortingMachine9.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < SortingMachine9.this.entryCount;
+            assert SortingMachine9.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine9.this.entries[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert SortingMachine9.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
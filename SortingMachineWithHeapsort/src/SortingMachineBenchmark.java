@@ -0,0 +1,305 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Rough timing of {@code SortingMachine5a}, of its stable variant
+ * {@code SortingMachine5d}, and of {@code SortingMachine5b} with arities 2,
+ * 4, and 8: for sizes from 10^3 up to a maximum (10^7 by default), times
+ * the calls to {@code add}, {@code changeToExtractionMode}, and
+ * {@code removeFirst} until the machine is empty, with a cheap comparator and
+ * with an expensive one, and reports how many comparisons each phase made.
+ * For {@code SortingMachine5b} it also reports the height of the heap, which
+ * bounds the entries moved per {@code removeFirst}. {@code SortingMachine7} is
+ * timed too; it sorts on the common fork-join pool, so its scaling with core
+ * count can be seen by rerunning with
+ * {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=N}. With the
+ * expensive comparator, {@code KeyedSortingMachine} and
+ * {@code LongKeyedSortingMachine} are timed with the derived key as their key,
+ * to show what computing each key once saves. For the drain it also reports
+ * the time to the first entry, which is where {@code SortingMachine9}, which
+ * sorts only as entries are removed, differs most from the heaps.
+ *
+ * <p>
+ * Usage: {@code SortingMachineBenchmark [largest power of 10]}. Run with
+ * assertion checking off; with it on, the representation convention is
+ * checked after every call, which takes longer than the calls themselves.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class SortingMachineBenchmark {
+
+    /**
+     * Default exponent of the largest size timed.
+     */
+    private static final int DEFAULT_MAX_EXPONENT = 7;
+
+    /**
+     * Exponent of the smallest size timed.
+     */
+    private static final int MIN_EXPONENT = 3;
+
+    /**
+     * Base of the sizes timed.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Seed for the pseudo-random entries, so runs are comparable.
+     */
+    private static final long SEED = 1_618_033L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Number of times the expensive comparator recomputes each key.
+     */
+    private static final int EXPENSIVE_ROUNDS = 16;
+
+    /**
+     * Arities of {@code SortingMachine5b} timed.
+     */
+    private static final int[] ARITIES = { 2, 4, 8 };
+
+    /**
+     * Comparator that counts how many times it is called.
+     */
+    private static final class CountingOrder implements Comparator<Integer> {
+
+        /**
+         * Number of calls to {@code compare} so far; a {@code LongAdder}
+         * because {@code SortingMachine7} compares on several threads.
+         */
+        private final LongAdder count;
+
+        /**
+         * Whether each comparison should also do extra work, standing in for
+         * a comparator that computes derived keys.
+         */
+        private final boolean expensive;
+
+        /**
+         * Constructor.
+         *
+         * @param expensive
+         *            whether each comparison does extra work
+         */
+        private CountingOrder(boolean expensive) {
+            this.expensive = expensive;
+            this.count = new LongAdder();
+        }
+
+        /**
+         * Returns a key derived from {@code x} by some busy work.
+         *
+         * @param x
+         *            the entry
+         * @return the derived key, which orders entries as x does
+         */
+        private static long derivedKey(int x) {
+            long h = x;
+            for (int i = 0; i < EXPENSIVE_ROUNDS; i++) {
+                h = h * 31 + (h >>> 7);
+            }
+            // Keep the order of x so results stay checkable.
+            return ((long) x << 32) | (h & 0xFFFF_FFFFL);
+        }
+
+        /**
+         * Returns the derived key of {@code x}, counting the computation as
+         * a call to {@code compare}; the key extractor for
+         * {@code KeyedSortingMachine}.
+         *
+         * @param x
+         *            the entry
+         * @return the derived key
+         */
+        private long countedKey(Integer x) {
+            this.count.increment();
+            return derivedKey(x);
+        }
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            this.count.increment();
+            int result;
+            if (this.expensive) {
+                result = Long.compare(derivedKey(a), derivedKey(b));
+            } else {
+                result = Integer.compare(a, b);
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachineBenchmark() {
+    }
+
+    /**
+     * Returns the number of levels below the root of a complete d-ary tree
+     * with {@code n} nodes, which bounds the number of entries a sift-down
+     * moves and, once the heap is much larger than the cache, roughly the
+     * number of cache lines it misses.
+     *
+     * @param n
+     *            the number of nodes
+     * @param d
+     *            the arity
+     * @return the height of the tree
+     * @requires n > 0 and d >= 2
+     * @ensures heapHeight = [height of a complete d-ary tree with n nodes]
+     */
+    private static int heapHeight(int n, int d) {
+        int height = 0;
+        long last = n - 1;
+        while (last > 0) {
+            last = (last - 1) / d;
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Times filling {@code m}, {@code changeToExtractionMode}, and a full
+     * drain of {@code m}.
+     *
+     * @param out
+     *            the output stream
+     * @param m
+     *            the machine to be timed, in insertion mode
+     * @param order
+     *            the counting comparator used by m
+     * @param entries
+     *            the entries to be sorted
+     * @updates out.content
+     * @requires out.is_open and m.insertion_mode and m.contents = {}
+     * @ensures out.content = #out.content * [lines reporting the timings]
+     */
+    private static void timeMachine(SimpleWriter out,
+            SortingMachine<Integer> m, CountingOrder order, int[] entries) {
+        order.count.reset();
+        long start = System.nanoTime();
+        for (int x : entries) {
+            m.add(x);
+        }
+        long filled = System.nanoTime();
+        long addComparisons = order.count.sum();
+        m.changeToExtractionMode();
+        long built = System.nanoTime();
+        long buildComparisons = order.count.sum() - addComparisons;
+        Integer previous = null;
+        boolean sorted = true;
+        long first = built;
+        while (m.size() > 0) {
+            Integer x = m.removeFirst();
+            if (previous != null && previous > x) {
+                sorted = false;
+            } else if (previous == null) {
+                first = System.nanoTime();
+            }
+            previous = x;
+        }
+        long drained = System.nanoTime();
+        long drainComparisons = order.count.sum() - addComparisons
+                - buildComparisons;
+        long n = entries.length;
+        out.println("    add: " + ((filled - start) / NANOS_PER_MILLI)
+                + " ms, " + ((double) addComparisons / n)
+                + " comparisons/entry");
+        out.println("    changeToExtractionMode: "
+                + ((built - filled) / NANOS_PER_MILLI) + " ms, "
+                + ((double) buildComparisons / n) + " comparisons/entry");
+        out.println("    drain: " + ((drained - built) / NANOS_PER_MILLI)
+                + " ms (first entry after " + ((first - built)
+                        / NANOS_PER_MILLI) + " ms), "
+                + ((double) drainComparisons / n) + " comparisons/entry"
+                + (sorted ? "" : "  NOT SORTED"));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the exponent of the
+     *            largest size
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int maxExponent = DEFAULT_MAX_EXPONENT;
+        if (args.length > 0) {
+            maxExponent = Integer.parseInt(args[0]);
+        }
+        Random rnd = new Random(SEED);
+        int n = 1;
+        for (int i = 0; i < MIN_EXPONENT; i++) {
+            n *= BASE;
+        }
+        for (int e = MIN_EXPONENT; e <= maxExponent; e++) {
+            int[] entries = new int[n];
+            for (int i = 0; i < n; i++) {
+                entries[i] = rnd.nextInt();
+            }
+            out.println("n = " + n);
+            for (boolean expensive : new boolean[] { false, true }) {
+                CountingOrder order = new CountingOrder(expensive);
+                out.println("  " + (expensive ? "expensive" : "cheap")
+                        + " comparator, SortingMachine5a");
+                timeMachine(out, new SortingMachine5a<Integer>(order), order,
+                        entries);
+                out.println("  " + (expensive ? "expensive" : "cheap")
+                        + " comparator, SortingMachine5a sized for n");
+                timeMachine(out, new SortingMachine5a<Integer>(order, n),
+                        order, entries);
+                out.println("  " + (expensive ? "expensive" : "cheap")
+                        + " comparator, SortingMachine5d sized for n");
+                timeMachine(out, new SortingMachine5d<Integer>(order, n),
+                        order, entries);
+                out.println("  " + (expensive ? "expensive" : "cheap")
+                        + " comparator, SortingMachine7 sized for n");
+                timeMachine(out, new SortingMachine7<Integer>(order, n),
+                        order, entries);
+                out.println("  " + (expensive ? "expensive" : "cheap")
+                        + " comparator, SortingMachine9 sized for n");
+                timeMachine(out, new SortingMachine9<Integer>(order, n),
+                        order, entries);
+                if (expensive) {
+                    out.println("  expensive key, KeyedSortingMachine sized"
+                            + " for n (counts are of key computations)");
+                    timeMachine(out,
+                            new KeyedSortingMachine<Integer, Long>(
+                                    order::countedKey,
+                                    Comparator.naturalOrder(), n),
+                            order, entries);
+                    out.println("  expensive key, LongKeyedSortingMachine"
+                            + " sized for n (counts are of key computations)");
+                    timeMachine(out, new LongKeyedSortingMachine<Integer>(
+                            order::countedKey, false, n), order, entries);
+                }
+                for (int d : ARITIES) {
+                    out.println("  " + (expensive ? "expensive" : "cheap")
+                            + " comparator, SortingMachine5b arity " + d
+                            + " sized for n, height " + heapHeight(n, d));
+                    timeMachine(out,
+                            new SortingMachine5b<Integer>(order, d, n), order,
+                            entries);
+                }
+            }
+            n *= BASE;
+        }
+        out.close();
+    }
+
+}
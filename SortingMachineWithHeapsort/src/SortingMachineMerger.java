@@ -0,0 +1,340 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Merge of several {@code SortingMachine}s in extraction mode with the same
+ * order into one sorted stream of their entries, using a tournament ("loser")
+ * tree.
+ *
+ * <p>
+ * The merger holds the first entry of each machine (its head) and a complete
+ * binary tree over the machines in which each internal node records the
+ * machine that lost the match played there, while the overall winner, whose
+ * head comes first, is recorded separately. {@code removeFirst} returns the
+ * winner's head, replaces it with that machine's next entry, and replays only
+ * the matches on the path from that machine to the root, so each entry costs
+ * at most ceiling(log2 N) comparisons for N machines, and no comparisons are
+ * spent on machines that did not change. Ties go to the machine that comes
+ * first in the list, so entries that compare equal come out in machine order.
+ * </p>
+ *
+ * <p>
+ * The merger takes over the machines: {@code removeFirst} removes entries
+ * from them, and the client must not use them until the merger is empty.
+ * {@code fillInParallel} builds a merger from an array of entries by adding
+ * the entries to the machines on several threads, one machine per thread.
+ * </p>
+ *
+ * @param <T>
+ *            type of entries
+ * @convention <pre>
+ * |$this.heads| = |$this.machines|  and
+ * |$this.machines| > 0  and  |$this.losers| = |$this.machines|  and
+ * for all i: integer where (0 <= i < |$this.machines|)
+ *   (if $this.heads[i] = null then $this.machines[i].contents = {}  and
+ *    [$this.heads[i] comes no later than any entry of
+ *     $this.machines[i].contents in $this.machineOrder])  and
+ * [$this.losers[1, |$this.machines|) is the loser tree of the heads, and
+ *  $this.losers[0] is the index of the winner]  and
+ * $this.size = [number of non-null heads] +
+ *   [sum of |$this.machines[i].contents|]
+ * </pre>
+ * @correspondence <pre>
+ * this = [sorted string of the non-null heads and the contents of all the
+ *         machines]
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class SortingMachineMerger<T> implements Iterator<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * The machines being merged.
+     */
+    private final List<? extends SortingMachine<T>> machines;
+
+    /**
+     * Order shared by the machines.
+     */
+    private final Comparator<T> machineOrder;
+
+    /**
+     * Heads of the machines, or null for exhausted ones.
+     */
+    private final T[] heads;
+
+    /**
+     * Loser tree: entry 0 is the index of the winning machine, and entry
+     * {@code node} (for 1 <= node < number of machines) is the index of the
+     * machine that lost at internal node {@code node}, whose children are
+     * {@code 2 * node} and {@code 2 * node + 1}; machine {@code i} is leaf
+     * {@code i + n}, where n is the number of machines.
+     */
+    private final int[] losers;
+
+    /**
+     * Number of entries left.
+     */
+    private int size;
+
+    /**
+     * Reports whether the head of machine {@code a} comes before the head of
+     * machine {@code b}; an exhausted machine comes after every other, and
+     * ties go to the lower index.
+     *
+     * @param a
+     *            index of one machine
+     * @param b
+     *            index of the other machine
+     * @return true iff a's head wins against b's head
+     */
+    private boolean beats(int a, int b) {
+        T headA = this.heads[a];
+        T headB = this.heads[b];
+        boolean aWins;
+        if (headA == null || headB == null) {
+            aWins = headB == null && (headA != null || a < b);
+        } else {
+            int c = this.machineOrder.compare(headA, headB);
+            aWins = c < 0 || (c == 0 && a < b);
+        }
+        return aWins;
+    }
+
+    /**
+     * Plays the whole tournament, filling in {@code losers}.
+     *
+     * @updates this.losers
+     * @ensures [this.losers is the loser tree of this.heads]
+     */
+    private void build() {
+        int n = this.heads.length;
+        int[] winners = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            winners[n + i] = i;
+        }
+        for (int node = n - 1; node >= 1; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (this.beats(left, right)) {
+                winners[node] = left;
+                this.losers[node] = right;
+            } else {
+                winners[node] = right;
+                this.losers[node] = left;
+            }
+        }
+        this.losers[0] = winners[1];
+    }
+
+    /**
+     * Replays the matches on the path from machine {@code i}'s leaf to the
+     * root, after machine {@code i}'s head has changed.
+     *
+     * @param i
+     *            index of the machine whose head changed
+     * @updates this.losers
+     * @requires <pre>
+     * [this.losers is the loser tree of this.heads except for the matches on
+     *  the path from machine i's leaf]
+     * </pre>
+     * @ensures [this.losers is the loser tree of this.heads]
+     */
+    private void replay(int i) {
+        int winner = i;
+        int node = (i + this.heads.length) / 2;
+        while (node >= 1) {
+            if (this.beats(this.losers[node], winner)) {
+                int temp = this.losers[node];
+                this.losers[node] = winner;
+                winner = temp;
+            }
+            node /= 2;
+        }
+        this.losers[0] = winner;
+    }
+
+    /**
+     * Removes the first entry of {@code m} and returns it, or returns null if
+     * {@code m} is empty.
+     *
+     * @param m
+     *            the machine
+     * @return the first entry of m, or null
+     * @updates m
+     * @requires not m.insertion_mode
+     */
+    private T nextHead(SortingMachine<T> m) {
+        T head = null;
+        if (m.size() > 0) {
+            head = m.removeFirst();
+        }
+        return head;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from the machines to be merged.
+     *
+     * @param machines
+     *            the machines
+     * @requires <pre>
+     * |machines| > 0  and
+     * for all m in machines (not m.insertion_mode)  and
+     * [all machines have the same order]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public SortingMachineMerger(List<? extends SortingMachine<T>> machines) {
+        assert machines != null : "Violation of: machines is not null";
+        assert machines.size() > 0 : "Violation of: |machines| > 0";
+        this.machines = machines;
+        this.machineOrder = machines.get(0).order();
+        int n = machines.size();
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.heads = (T[]) (new Object[n]);
+        this.losers = new int[n];
+        this.size = 0;
+        for (int i = 0; i < n; i++) {
+            SortingMachine<T> m = machines.get(i);
+            assert !m.isInInsertionMode() : ""
+                    + "Violation of: not m.insertion_mode";
+            assert m.order() == this.machineOrder : ""
+                    + "Violation of: [all machines have the same order]";
+            this.size += m.size();
+            this.heads[i] = this.nextHead(m);
+        }
+        this.build();
+    }
+
+    /**
+     * Adds the entries of {@code entries} to {@code machines}, splitting them
+     * into one contiguous part per machine and filling each machine on its own
+     * thread (on the common fork-join pool), changes the machines to
+     * extraction mode the same way, and returns a merger of them.
+     *
+     * @param <T>
+     *            type of entries
+     * @param machines
+     *            the machines to be filled
+     * @param entries
+     *            the entries
+     * @return the merger of the filled machines
+     * @updates machines
+     * @requires <pre>
+     * |machines| > 0  and
+     * for all m in machines (m.insertion_mode)  and
+     * [all machines have the same order]  and
+     * [no entry of entries is null]  and
+     * [the machines can be used on any one thread]
+     * </pre>
+     * @ensures <pre>
+     * [the union of the machines' contents is the union of their old contents
+     *  and the entries of entries]  and
+     * fillInParallel = [a merger of machines]
+     * </pre>
+     */
+    public static <T> SortingMachineMerger<T> fillInParallel(
+            List<? extends SortingMachine<T>> machines, T[] entries) {
+        assert machines != null : "Violation of: machines is not null";
+        assert entries != null : "Violation of: entries is not null";
+        assert machines.size() > 0 : "Violation of: |machines| > 0";
+
+        int n = machines.size();
+        /*
+         * Each machine is touched by exactly one task, and forEach returns
+         * only after all tasks are done, so the machines are safely handed
+         * back to this thread.
+         */
+        IntStream.range(0, n).parallel().forEach(s -> {
+            SortingMachine<T> m = machines.get(s);
+            int from = (int) ((long) entries.length * s / n);
+            int to = (int) ((long) entries.length * (s + 1) / n);
+            for (int i = from; i < to; i++) {
+                m.add(entries[i]);
+            }
+            m.changeToExtractionMode();
+        });
+        return new SortingMachineMerger<T>(machines);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the order shared by the machines.
+     *
+     * @return the order
+     */
+    public Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    /**
+     * Reports the number of entries left.
+     *
+     * @return the number of entries left
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes and returns the first entry left.
+     *
+     * @return the first entry
+     * @updates this
+     * @requires |this| > 0
+     * @ensures #this = <removeFirst> * this
+     */
+    public T removeFirst() {
+        assert this.size > 0 : "Violation of: |this| > 0";
+
+        int winner = this.losers[0];
+        T removed = this.heads[winner];
+        this.heads[winner] = this.nextHead(this.machines.get(winner));
+        this.replay(winner);
+        this.size--;
+
+        return removed;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.size > 0;
+    }
+
+    @Override
+    public T next() {
+        assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+        if (!this.hasNext()) {
+            /*
+             * Exception is supposed to be thrown in this case, but with
+             * assertion-checking enabled it cannot happen because of assert
+             * above.
+             */
+            throw new NoSuchElementException();
+        }
+        return this.removeFirst();
+    }
+
+}
@@ -0,0 +1,528 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine<String>} represented as an array that is sorted by
+ * multikey quicksort when the machine changes to extraction mode, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * When the order is {@code Comparator.naturalOrder()} or
+ * {@code String.CASE_INSENSITIVE_ORDER} (the very objects, since other
+ * comparators cannot be recognized), {@code changeToExtractionMode} sorts the
+ * entries by multikey quicksort (three-way radix quicksort): it partitions
+ * them into those whose character at the current position is less than,
+ * equal to, or greater than that of a pivot, and moves to the next position
+ * only within the middle part. Each character is looked at about once per
+ * level of partitioning instead of once per {@code compareTo} call, and
+ * strings with long common prefixes, like identifiers, do not have those
+ * prefixes compared over and over. For any other order, the entries are
+ * sorted by {@code Arrays.sort} with the order. {@code removeFirst} then just
+ * advances a cursor through the sorted array.
+ * </p>
+ *
+ * <p>
+ * {@code String.CASE_INSENSITIVE_ORDER} folds characters one at a time but
+ * folds surrogate pairs as whole code points; if any entry has a surrogate,
+ * the case-insensitive order is sorted by {@code Arrays.sort} instead.
+ * </p>
+ *
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on string of character
+ *  ) : boolean is
+ *  for all x, y, z: string of character
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.next <= i  and  i < $this.entryCount)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.next = 0
+ * else
+ *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+ *    computed by $this.machineOrder.compare method]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.next, $this.entryCount)))
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class StringSortingMachine extends SortingMachineSecondary<String> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial length of the array of entries.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Largest part of the array that multikey quicksort sorts by insertion
+     * sort instead of partitioning further.
+     */
+    private static final int INSERTION_SORT_CUTOFF = 12;
+
+    /**
+     * Order.
+     */
+    private Comparator<String> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion mode, in the order they were added; in extraction
+     * mode, sorted.
+     */
+    private String[] entries;
+
+    /**
+     * Number of entries in {@code entries} (including removed ones).
+     */
+    private int entryCount;
+
+    /**
+     * Index in {@code entries} of the next entry to remove, in extraction
+     * mode.
+     */
+    private int next;
+
+    /**
+     * Returns the character of {@code s} at position {@code d}, folded if
+     * {@code fold}, or -1 if {@code s} is no longer than {@code d}.
+     *
+     * @param s
+     *            the string
+     * @param d
+     *            the position
+     * @param fold
+     *            whether to fold case as {@code String.CASE_INSENSITIVE_ORDER}
+     *            does
+     * @return the (folded) character, or -1
+     * @requires d >= 0
+     */
+    private static int charAt(String s, int d, boolean fold) {
+        int c = -1;
+        if (d < s.length()) {
+            c = s.charAt(d);
+            if (fold) {
+                c = Character.toLowerCase(Character.toUpperCase((char) c));
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Reports whether {@code a} comes before {@code b}, knowing they agree on
+     * their first {@code d} characters.
+     *
+     * @param a
+     *            the first string
+     * @param b
+     *            the second string
+     * @param d
+     *            the length of their known common prefix
+     * @param fold
+     *            whether to fold case
+     * @return true iff a comes strictly before b
+     */
+    private static boolean less(String a, String b, int d, boolean fold) {
+        int i = d;
+        int ca = charAt(a, i, fold);
+        int cb = charAt(b, i, fold);
+        while (ca == cb && ca >= 0) {
+            i++;
+            ca = charAt(a, i, fold);
+            cb = charAt(b, i, fold);
+        }
+        return ca < cb;
+    }
+
+    /**
+     * Exchanges entries {@code i} and {@code j} of {@code array}.
+     *
+     * @param array
+     *            the array
+     * @param i
+     *            one index
+     * @param j
+     *            the other index
+     */
+    private static void exchange(String[] array, int i, int j) {
+        String temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    /**
+     * Sorts {@code array[lo, hi)}, whose entries all agree on their first
+     * {@code d} (folded) characters, by multikey quicksort.
+     *
+     * @param array
+     *            the array
+     * @param lo
+     *            the start of the part to be sorted
+     * @param hi
+     *            the end of the part to be sorted
+     * @param d
+     *            the length of the common prefix
+     * @param fold
+     *            whether to fold case
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and  d >= 0  and
+     * [the entries of array[lo, hi) agree on their first d characters]
+     * </pre>
+     * @ensures <pre>
+     * [array[lo, hi) is sorted]  and  perms(array, #array)  and
+     * [the other entries of array are the same as in #array]
+     * </pre>
+     */
+    private static void multikeySort(String[] array, int lo, int hi, int d,
+            boolean fold) {
+        int low = lo;
+        int high = hi;
+        int depth = d;
+        boolean done = false;
+        while (!done && high - low > INSERTION_SORT_CUTOFF) {
+            // Median of three characters as the pivot.
+            int mid = (low + high) >>> 1;
+            int a = charAt(array[low], depth, fold);
+            int b = charAt(array[mid], depth, fold);
+            int c = charAt(array[high - 1], depth, fold);
+            int v = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            /*
+             * Three-way partition: [low, lt) < v, [lt, i) = v, (gt, high) > v.
+             */
+            int lt = low;
+            int gt = high - 1;
+            int i = low;
+            while (i <= gt) {
+                int t = charAt(array[i], depth, fold);
+                if (t < v) {
+                    exchange(array, lt, i);
+                    lt++;
+                    i++;
+                } else if (t > v) {
+                    exchange(array, i, gt);
+                    gt--;
+                } else {
+                    i++;
+                }
+            }
+            multikeySort(array, low, lt, depth, fold);
+            multikeySort(array, gt + 1, high, depth, fold);
+            if (v < 0) {
+                // The middle part holds strings that are all equal.
+                done = true;
+            } else {
+                low = lt;
+                high = gt + 1;
+                depth++;
+            }
+        }
+        if (!done) {
+            for (int i = low + 1; i < high; i++) {
+                String x = array[i];
+                int j = i;
+                while (j > low && less(x, array[j - 1], depth, fold)) {
+                    array[j] = array[j - 1];
+                    j--;
+                }
+                array[j] = x;
+            }
+        }
+    }
+
+    /**
+     * Reports whether some entry of {@code array[0, count)} has a surrogate
+     * character.
+     *
+     * @param array
+     *            the array
+     * @param count
+     *            the number of entries to check
+     * @return true iff some entry has a surrogate
+     */
+    private static boolean hasSurrogate(String[] array, int count) {
+        boolean found = false;
+        for (int i = 0; i < count && !found; i++) {
+            String s = array[i];
+            for (int j = 0; j < s.length() && !found; j++) {
+                found = Character.isSurrogate(s.charAt(j));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.next <= $this.entryCount <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.next <= i  and  i < $this.entryCount)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.next = 0
+     * else
+     *   [$this.entries[$this.next, $this.entryCount) is sorted by the relation
+     *    computed by $this.machineOrder.compare method]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.next : "Violation of: 0 <= $this.next";
+        assert this.next <= this.entryCount : ""
+                + "Violation of: $this.next <= $this.entryCount";
+        assert this.entryCount <= this.entries.length : ""
+                + "Violation of: $this.entryCount <= |$this.entries|";
+        for (int i = this.next; i < this.entryCount; i++) {
+            assert this.entries[i] != null : ""
+                    + "Violation of: all entries in $this.entries[$this.next,"
+                    + " $this.entryCount) are not null";
+        }
+        if (this.insertionMode) {
+            assert this.next == 0 : "Violation of: $this.next = 0";
+        } else {
+            for (int i = this.next + 1; i < this.entryCount; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0 : ""
+                                + "Violation of: $this.entries[$this.next,"
+                                + " $this.entryCount) is sorted";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    private void createNewRep(Comparator<String> order) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.entries = new String[DEFAULT_CAPACITY];
+        this.entryCount = 0;
+        this.next = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; the order is the natural order of
+     * {@code String}s.
+     */
+    public StringSortingMachine() {
+        this.createNewRep(Comparator.naturalOrder());
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public StringSortingMachine(Comparator<String> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final SortingMachine<String> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<String> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof StringSortingMachine : ""
+                + "Violation of: source is of dynamic type"
+                + " StringSortingMachine";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        StringSortingMachine localSource = (StringSortingMachine) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.entryCount = localSource.entryCount;
+        this.next = localSource.next;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.entryCount == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length + 1);
+        }
+        this.entries[this.entryCount] = x;
+        this.entryCount++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        Comparator<String> natural = Comparator.naturalOrder();
+        if (this.machineOrder == natural) {
+            multikeySort(this.entries, 0, this.entryCount, 0, false);
+        } else if (this.machineOrder == String.CASE_INSENSITIVE_ORDER
+                && !hasSurrogate(this.entries, this.entryCount)) {
+            multikeySort(this.entries, 0, this.entryCount, 0, true);
+        } else {
+            Arrays.sort(this.entries, 0, this.entryCount, this.machineOrder);
+        }
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final String removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        String removed = this.entries[this.next];
+        this.entries[this.next] = null;
+        this.next++;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<String> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.entryCount - this.next;
+    }
+
+    @Override
+    public final Iterator<String> iterator() {
+        return new StringSortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code StringSortingMachine}.
+     */
+    private final class StringSortingMachineIterator
+            implements Iterator<String> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int arrayCurrentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private StringSortingMachineIterator() {
+            this.arrayCurrentIndex = StringSortingMachine.this.next;
+            assert StringSortingMachine.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.arrayCurrentIndex
+                    < StringSortingMachine.this.entryCount;
+            assert StringSortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public String next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            String[] entries = StringSortingMachine.this.entries;
+            String next = entries[this.arrayCurrentIndex];
+            this.arrayCurrentIndex++;
+            assert StringSortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Rough timing of {@code StringSortingMachine} and
+ * {@code ByteArraySortingMachine} against {@code SortingMachine5a}: for sizes
+ * from 10^4 up to a maximum (10^6 by default), builds a corpus of qualified
+ * identifiers (like {@code org.example.module7.CustomerRecord.getValue3}),
+ * which share long prefixes, and times {@code changeToExtractionMode}
+ * followed by {@code removeFirst} until the machine is empty, in natural
+ * order, in case-insensitive order, in an order that
+ * {@code StringSortingMachine} does not recognize (so it falls back to
+ * comparison sorting), and on the UTF-8 encodings of the identifiers.
+ *
+ * <p>
+ * Usage: {@code StringSortingMachineBenchmark [largest power of 10]}. Run with
+ * assertion checking off; with it on, the representation convention is
+ * checked after every call, which takes longer than the calls themselves.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class StringSortingMachineBenchmark {
+
+    /**
+     * Default exponent of the largest size timed.
+     */
+    private static final int DEFAULT_MAX_EXPONENT = 6;
+
+    /**
+     * Exponent of the smallest size timed.
+     */
+    private static final int MIN_EXPONENT = 4;
+
+    /**
+     * Base of the sizes timed.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Seed for the pseudo-random identifiers, so runs are comparable.
+     */
+    private static final long SEED = 1_618_033L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Number of distinct modules in the identifier corpus.
+     */
+    private static final int MODULES = 20;
+
+    /**
+     * Largest number suffixed to a member name.
+     */
+    private static final int MEMBER_SUFFIXES = 100;
+
+    /**
+     * Words that identifiers are made of.
+     */
+    private static final String[] WORDS = { "Customer", "Order", "Record",
+        "Value", "Buffer", "Manager", "Factory", "Index", "Node", "Tree",
+        "Handler", "Event", "Stream", "Key", "Map", "List" };
+
+    /**
+     * Member name prefixes.
+     */
+    private static final String[] VERBS = { "get", "set", "is", "to", "add",
+        "remove" };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private StringSortingMachineBenchmark() {
+    }
+
+    /**
+     * Returns a pseudo-random qualified identifier.
+     *
+     * @param rnd
+     *            the source of pseudo-random numbers
+     * @return the identifier
+     */
+    private static String identifier(Random rnd) {
+        return "org.example.module" + rnd.nextInt(MODULES) + "."
+                + WORDS[rnd.nextInt(WORDS.length)]
+                + WORDS[rnd.nextInt(WORDS.length)] + "."
+                + VERBS[rnd.nextInt(VERBS.length)]
+                + WORDS[rnd.nextInt(WORDS.length)]
+                + rnd.nextInt(MEMBER_SUFFIXES);
+    }
+
+    /**
+     * Times {@code changeToExtractionMode} and a full drain of {@code m}.
+     *
+     * @param <T>
+     *            type of entries
+     * @param out
+     *            the output stream
+     * @param label
+     *            the description of the machine
+     * @param m
+     *            the machine to be timed, in insertion mode
+     * @param entries
+     *            the entries to be sorted
+     * @updates out.content
+     * @requires out.is_open and m.insertion_mode and m.contents = {}
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static <T> void timeMachine(SimpleWriter out, String label,
+            SortingMachine<T> m, T[] entries) {
+        for (T x : entries) {
+            m.add(x);
+        }
+        long start = System.nanoTime();
+        m.changeToExtractionMode();
+        long built = System.nanoTime();
+        T previous = null;
+        boolean sorted = true;
+        while (m.size() > 0) {
+            T x = m.removeFirst();
+            if (previous != null && m.order().compare(previous, x) > 0) {
+                sorted = false;
+            }
+            previous = x;
+        }
+        long drained = System.nanoTime();
+        out.println("  " + label + ": changeToExtractionMode "
+                + ((built - start) / NANOS_PER_MILLI) + " ms, drain "
+                + ((drained - built) / NANOS_PER_MILLI) + " ms"
+                + (sorted ? "" : "  NOT SORTED"));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the exponent of the
+     *            largest size
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int maxExponent = DEFAULT_MAX_EXPONENT;
+        if (args.length > 0) {
+            maxExponent = Integer.parseInt(args[0]);
+        }
+        Comparator<String> natural = Comparator.naturalOrder();
+        Comparator<String> caseInsensitive = String.CASE_INSENSITIVE_ORDER;
+        Comparator<String> unrecognized = (s1, s2) -> s1.compareTo(s2);
+        Comparator<byte[]> unsigned = ByteArraySortingMachine
+                .UNSIGNED_LEXICOGRAPHIC;
+        Random rnd = new Random(SEED);
+        int n = 1;
+        for (int i = 0; i < MIN_EXPONENT; i++) {
+            n *= BASE;
+        }
+        for (int e = MIN_EXPONENT; e <= maxExponent; e++) {
+            String[] entries = new String[n];
+            byte[][] encoded = new byte[n][];
+            for (int i = 0; i < n; i++) {
+                entries[i] = identifier(rnd);
+                encoded[i] = entries[i].getBytes(StandardCharsets.UTF_8);
+            }
+            out.println("n = " + n);
+            timeMachine(out, "natural, SortingMachine5a",
+                    new SortingMachine5a<String>(natural, n), entries);
+            timeMachine(out, "natural, StringSortingMachine",
+                    new StringSortingMachine(natural), entries);
+            timeMachine(out, "case-insensitive, SortingMachine5a",
+                    new SortingMachine5a<String>(caseInsensitive, n), entries);
+            timeMachine(out, "case-insensitive, StringSortingMachine",
+                    new StringSortingMachine(caseInsensitive), entries);
+            timeMachine(out, "unrecognized, StringSortingMachine",
+                    new StringSortingMachine(unrecognized), entries);
+            timeMachine(out, "UTF-8, SortingMachine5a",
+                    new SortingMachine5a<byte[]>(unsigned, n), encoded);
+            timeMachine(out, "UTF-8, ByteArraySortingMachine",
+                    new ByteArraySortingMachine(), encoded);
+            n *= BASE;
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Rough timing of {@code TimingWheelSortingMachine} as a timer queue against
+ * heaps: {@code SortingMachine8} (a pairing heap, the one
+ * {@code SortingMachine} besides the wheel that allows {@code add} in
+ * extraction mode) and {@code java.util.PriorityQueue} (a binary heap). Each
+ * is filled with n timers (10^6 by default) with pseudo-random deadlines,
+ * then goes through n steps of churn, each removing the first timer and
+ * adding one due a pseudo-random delay after it, so n timers stay pending
+ * throughout, and is then drained; the wheel is drained with
+ * {@code advanceTo} in steps of one period, the heaps with
+ * {@code removeFirst}. Then half of the wheel's timers, chosen at random, are
+ * cancelled through their handles, which the heaps cannot do in less than
+ * linear time. Each phase is timed, and the sum of the deadlines removed is
+ * printed so that all can be checked to agree.
+ *
+ * <p>
+ * Usage: {@code TimingWheelBenchmark [power of 10]}. Run with assertion
+ * checking off; with it on, the representation convention is checked after
+ * every call, which takes longer than the calls themselves.
+ * </p>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public final class TimingWheelBenchmark {
+
+    /**
+     * Default exponent of the number of timers.
+     */
+    private static final int DEFAULT_EXPONENT = 6;
+
+    /**
+     * Base of the number of timers.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Seed for the pseudo-random deadlines, so runs are comparable.
+     */
+    private static final long SEED = 1_618_033L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Longest delay of a timer, in ticks.
+     */
+    private static final int PERIOD = 1 << 20;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private TimingWheelBenchmark() {
+    }
+
+    /**
+     * Returns the deadlines of the n timers added first followed by the
+     * delays of the n timers added during churn.
+     *
+     * @param n
+     *            number of timers
+     * @return the deadlines and delays
+     * @ensures <pre>
+     * |deadlinesAndDelays| = 2 * n  and
+     * [every entry of deadlinesAndDelays is in [1, PERIOD]]
+     * </pre>
+     */
+    private static long[] deadlinesAndDelays(int n) {
+        Random rnd = new Random(SEED);
+        long[] values = new long[2 * n];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + rnd.nextInt(PERIOD);
+        }
+        return values;
+    }
+
+    /**
+     * Prints a line reporting the timings of one queue.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the queue
+     * @param times
+     *            the times at which the fill, the churn, and the drain
+     *            started, and at which the drain ended
+     * @param sum
+     *            the sum of the deadlines removed
+     * @updates out.content
+     * @requires out.is_open and |times| = 4
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static void report(SimpleWriter out, String label, long[] times,
+            long sum) {
+        out.println("  " + label + ": fill "
+                + ((times[1] - times[0]) / NANOS_PER_MILLI) + " ms, churn "
+                + ((times[2] - times[1]) / NANOS_PER_MILLI) + " ms, drain "
+                + ((times[3] - times[2]) / NANOS_PER_MILLI) + " ms (sum "
+                + sum + ")");
+    }
+
+    /**
+     * Times the timing wheel, and then cancelling half its timers.
+     *
+     * @param out
+     *            the output stream
+     * @param values
+     *            the deadlines and delays
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [lines reporting the timings]
+     */
+    private static void timeWheel(SimpleWriter out, long[] values) {
+        int n = values.length / 2;
+        long[] times = new long[4];
+        times[0] = System.nanoTime();
+        TimingWheelSortingMachine<Long> m = new TimingWheelSortingMachine<>(
+                Long::longValue);
+        for (int i = 0; i < n; i++) {
+            m.add(values[i]);
+        }
+        m.changeToExtractionMode();
+        times[1] = System.nanoTime();
+        long sum = 0;
+        for (int i = n; i < values.length; i++) {
+            long first = m.removeFirst();
+            sum += first;
+            m.add(first + values[i]);
+        }
+        times[2] = System.nanoTime();
+        long[] drained = new long[1];
+        long time = 0;
+        while (m.size() > 0) {
+            time += PERIOD;
+            m.advanceTo(time, x -> drained[0] += x);
+        }
+        times[3] = System.nanoTime();
+        report(out, "TimingWheelSortingMachine", times, sum + drained[0]);
+
+        List<TimingWheelSortingMachine.Handle<Long>> handles =
+                new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            handles.add(m.addWithHandle(time + values[i]));
+        }
+        Collections.shuffle(handles, new Random(SEED));
+        long start = System.nanoTime();
+        for (int i = 0; i < n / 2; i++) {
+            m.cancel(handles.get(i));
+        }
+        long end = System.nanoTime();
+        out.println("  TimingWheelSortingMachine: cancel " + (n / 2)
+                + " timers " + ((end - start) / NANOS_PER_MILLI) + " ms");
+    }
+
+    /**
+     * Times {@code SortingMachine8}.
+     *
+     * @param out
+     *            the output stream
+     * @param values
+     *            the deadlines and delays
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static void timePairingHeap(SimpleWriter out, long[] values) {
+        int n = values.length / 2;
+        long[] times = new long[4];
+        times[0] = System.nanoTime();
+        Comparator<Long> order = Comparator.naturalOrder();
+        SortingMachine8<Long> m = new SortingMachine8<>(order);
+        for (int i = 0; i < n; i++) {
+            m.add(values[i]);
+        }
+        m.changeToExtractionMode();
+        times[1] = System.nanoTime();
+        long sum = 0;
+        for (int i = n; i < values.length; i++) {
+            long first = m.removeFirst();
+            sum += first;
+            m.add(first + values[i]);
+        }
+        times[2] = System.nanoTime();
+        while (m.size() > 0) {
+            sum += m.removeFirst();
+        }
+        times[3] = System.nanoTime();
+        report(out, "SortingMachine8", times, sum);
+    }
+
+    /**
+     * Times {@code java.util.PriorityQueue}.
+     *
+     * @param out
+     *            the output stream
+     * @param values
+     *            the deadlines and delays
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [a line reporting the timings]
+     */
+    private static void timeBinaryHeap(SimpleWriter out, long[] values) {
+        int n = values.length / 2;
+        long[] times = new long[4];
+        times[0] = System.nanoTime();
+        PriorityQueue<Long> q = new PriorityQueue<>(n);
+        for (int i = 0; i < n; i++) {
+            q.add(values[i]);
+        }
+        times[1] = System.nanoTime();
+        long sum = 0;
+        for (int i = n; i < values.length; i++) {
+            long first = q.remove();
+            sum += first;
+            q.add(first + values[i]);
+        }
+        times[2] = System.nanoTime();
+        while (!q.isEmpty()) {
+            sum += q.remove();
+        }
+        times[3] = System.nanoTime();
+        report(out, "java.util.PriorityQueue", times, sum);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optionally, the exponent of the
+     *            number of timers
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        int exponent = DEFAULT_EXPONENT;
+        if (args.length > 0) {
+            exponent = Integer.parseInt(args[0]);
+        }
+        int n = 1;
+        for (int i = 0; i < exponent; i++) {
+            n *= BASE;
+        }
+        long[] values = deadlinesAndDelays(n);
+        out.println(n + " pending timers, delays up to " + PERIOD + " ticks");
+        timeWheel(out, values);
+        timePairingHeap(out, values);
+        timeBinaryHeap(out, values);
+        out.close();
+    }
+
+}
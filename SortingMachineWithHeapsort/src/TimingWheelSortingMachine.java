@@ -0,0 +1,907 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} ordered by {@code long} keys derived from its
+ * entries, such as deadlines, represented as a hierarchical timing wheel, with
+ * implementations of primary methods and of operations for using it as a
+ * timer queue.
+ *
+ * <p>
+ * The wheel keeps a cursor, a time no later than any key in it, and has
+ * {@value #LEVELS} levels of {@value #SLOTS} slots each; level {@code l}
+ * looks at bits {@code 6l} through {@code 6l + 5} of a key. An entry is kept
+ * at the lowest level whose bits, and all those above them, hold every way in
+ * which its key differs from the cursor, in the slot given by its key's bits
+ * at that level, so every entry of level 0 slot {@code s} has the same key,
+ * and every entry of a lower level comes before every entry of a higher one.
+ * Each slot is a doubly linked list in the order the entries were added, and
+ * each level has a bit set of its nonempty slots. {@code add} computes the
+ * level and slot with a few bit operations and appends to the list;
+ * {@code removeFirst} takes the first entry of the lowest nonempty slot of
+ * level 0, and when level 0 is empty it first moves the cursor to the start
+ * of the lowest nonempty slot of the lowest nonempty level and spreads that
+ * slot's entries over the levels below ("cascading"). An entry is cascaded at
+ * most once per level, so both are O(1) amortized (at most {@value #LEVELS}
+ * moves per entry), whatever the number of entries. Entries with equal keys
+ * come out in the order they were added.
+ * </p>
+ *
+ * <p>
+ * The price is that the wheel is a monotone queue: {@code removeFirst} moves
+ * the cursor to the key it removes, and an entry whose key comes before the
+ * cursor cannot be added, as with timers, whose deadlines are never in the
+ * past. As in {@code SortingMachine8}, {@code add} may be called in
+ * extraction mode as well, {@code changeToExtractionMode} does no work, and
+ * {@code addWithHandle} returns a {@code Handle} through which the entry can
+ * later be removed with {@code cancel}, in O(1) time. {@code advanceTo}
+ * removes all the entries due by a given time, in order, and moves the cursor
+ * to that time, as the clock of a timer queue moves. Each entry's key is
+ * computed once, when the entry is added, and must not change while the entry
+ * is in the machine.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * TIME (
+ *   k: integer
+ *  ) : integer is
+ *  [k with its sign bit flipped, read as an unsigned 64-bit integer, so that
+ *   TIME preserves the order of keys]
+ *
+ * PLACE (
+ *   k: integer,
+ *   cursor: integer
+ *  ) : integer is
+ *  [SLOTS * l + [bits 6l through 6l + 5 of TIME(k)], where l is 0 if
+ *   TIME(k) = TIME(cursor) and otherwise the highest bit in which they differ,
+ *   divided by 6]
+ * </pre>
+ * @convention <pre>
+ * for every slot s
+ *   ([$this.heads[s], ..., $this.tails[s] is a doubly linked list through the
+ *     next and prev fields of the handles, empty iff $this.heads[s] = null]
+ *    and
+ *    [bit s mod SLOTS of $this.occupied[s / SLOTS] is set iff
+ *     $this.heads[s] /= null]  and
+ *    for every handle h in the list
+ *      (h.slot = s  and  h.data /= null  and
+ *       TIME($this.cursor) <= TIME(h.key)  and
+ *       PLACE(h.key, $this.cursor) = s))  and
+ * $this.size = [total number of handles in the lists]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         [multiset of data in the handles in the lists])
+ * </pre>
+ *
+ * @author Aaron Lucas and Steven Masilonis
+ *
+ */
+public class TimingWheelSortingMachine<T> extends SortingMachineSecondary<T> {
+
+    /**
+     * Place of an entry, returned by {@code addWithHandle} so that the entry
+     * can later be given to {@code cancel}.
+     *
+     * @param <T>
+     *            type of the entry
+     */
+    public static final class Handle<T> {
+
+        /**
+         * Entry.
+         */
+        private final T data;
+
+        /**
+         * Key of the entry, computed when it was added.
+         */
+        private final long key;
+
+        /**
+         * Previous handle in the slot's list, or null if this is the first.
+         */
+        private Handle<T> prev;
+
+        /**
+         * Next handle in the slot's list, or null if this is the last.
+         */
+        private Handle<T> next;
+
+        /**
+         * Index of the slot whose list this is in, or -1 if the entry has been
+         * removed.
+         */
+        private int slot;
+
+        /**
+         * Constructor.
+         *
+         * @param x
+         *            the entry
+         * @param key
+         *            the key of the entry
+         */
+        private Handle(T x, long key) {
+            this.data = x;
+            this.key = key;
+            this.prev = null;
+            this.next = null;
+            this.slot = -1;
+        }
+
+        /**
+         * Reports the entry this handle refers to.
+         *
+         * @return the entry
+         */
+        public T entry() {
+            return this.data;
+        }
+
+        /**
+         * Reports the key of the entry this handle refers to.
+         *
+         * @return the key
+         */
+        public long key() {
+            return this.key;
+        }
+
+        /**
+         * Reports whether the entry this handle refers to has not yet been
+         * removed or cancelled.
+         *
+         * @return true iff the entry is still in the machine it was added to
+         */
+        public boolean isInMachine() {
+            return this.slot >= 0;
+        }
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of bits of a key looked at by each level.
+     */
+    private static final int BITS_PER_LEVEL = 6;
+
+    /**
+     * Number of slots per level.
+     */
+    public static final int SLOTS = 1 << BITS_PER_LEVEL;
+
+    /**
+     * Number of levels, enough to cover all 64 bits of a key.
+     */
+    public static final int LEVELS = (Long.SIZE + BITS_PER_LEVEL - 1)
+            / BITS_PER_LEVEL;
+
+    /**
+     * Key extractor.
+     */
+    private ToLongFunction<? super T> keyExtractor;
+
+    /**
+     * Order on entries, comparing their keys; reported by {@code order} but
+     * not used for sorting.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * First handle of each slot's list, or null if it is empty; slot
+     * {@code SLOTS * l + d} is slot {@code d} of level {@code l}.
+     */
+    private Handle<T>[] heads;
+
+    /**
+     * Last handle of each slot's list, or null if it is empty.
+     */
+    private Handle<T>[] tails;
+
+    /**
+     * For each level, the set of its nonempty slots, as bits.
+     */
+    private long[] occupied;
+
+    /**
+     * Cursor: a key no later than the key of any entry, as TIME of it.
+     */
+    private long cursor;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Returns a new array of {@code length} null handles.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param length
+     *            the length of the array
+     * @return the array
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Handle<T>[] newHandles(int length) {
+        /*
+         * With "new Handle<T>[...]" in place of "new Handle<?>[...]" it does
+         * not compile; as shown, it results in a warning about an unchecked
+         * cast, though it cannot fail.
+         */
+        return (Handle<T>[]) new Handle<?>[length];
+    }
+
+    /**
+     * Returns TIME of {@code key}: the key with its sign bit flipped, so that
+     * comparing the results as unsigned numbers orders them as the keys.
+     *
+     * @param key
+     *            the key
+     * @return TIME(key)
+     */
+    private static long time(long key) {
+        return key ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the slot in which an entry whose key has the given TIME belongs,
+     * for the current cursor.
+     *
+     * @param t
+     *            TIME of the key
+     * @return the slot
+     * @requires TIME($this.cursor) <= t (as unsigned numbers)
+     * @ensures place = PLACE(key, $this.cursor), where t = TIME(key)
+     */
+    private int place(long t) {
+        long differences = t ^ this.cursor;
+        int level = 0;
+        if (differences != 0) {
+            level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(differences))
+                    / BITS_PER_LEVEL;
+        }
+        int digit = (int) (t >>> (BITS_PER_LEVEL * level)) & (SLOTS - 1);
+        return SLOTS * level + digit;
+    }
+
+    /**
+     * Appends {@code h} to the list of the slot it belongs in.
+     *
+     * @param h
+     *            the handle
+     * @updates $this.heads, $this.tails, $this.occupied, h
+     * @requires <pre>
+     * h.slot = -1  and  TIME($this.cursor) <= TIME(h.key)
+     * </pre>
+     * @ensures <pre>
+     * h.slot = PLACE(h.key, $this.cursor)  and
+     * [h is the last handle of that slot's list]
+     * </pre>
+     */
+    private void link(Handle<T> h) {
+        int s = this.place(time(h.key));
+        h.slot = s;
+        h.next = null;
+        h.prev = this.tails[s];
+        if (this.tails[s] == null) {
+            this.heads[s] = h;
+            this.occupied[s / SLOTS] |= 1L << (s % SLOTS);
+        } else {
+            this.tails[s].next = h;
+        }
+        this.tails[s] = h;
+    }
+
+    /**
+     * Removes {@code h} from the list of its slot.
+     *
+     * @param h
+     *            the handle
+     * @updates $this.heads, $this.tails, $this.occupied, h
+     * @requires h.slot >= 0 and [h is in the list of slot h.slot]
+     * @ensures <pre>
+     * h.slot = -1  and  [h is not in any list]  and
+     * [the order of the other handles in the list is unchanged]
+     * </pre>
+     */
+    private void unlink(Handle<T> h) {
+        int s = h.slot;
+        if (h.prev == null) {
+            this.heads[s] = h.next;
+        } else {
+            h.prev.next = h.next;
+        }
+        if (h.next == null) {
+            this.tails[s] = h.prev;
+        } else {
+            h.next.prev = h.prev;
+        }
+        if (this.heads[s] == null) {
+            this.occupied[s / SLOTS] &= ~(1L << (s % SLOTS));
+        }
+        h.prev = null;
+        h.next = null;
+        h.slot = -1;
+    }
+
+    /**
+     * Empties the list of slot {@code s} and links each of its handles again,
+     * in list order, into the slot it belongs in for the current cursor; so
+     * entries with equal keys stay in the order they were added.
+     *
+     * @param s
+     *            the slot
+     * @updates $this.heads, $this.tails, $this.occupied
+     * @requires <pre>
+     * [for every handle h in the list of slot s,
+     *  TIME($this.cursor) <= TIME(h.key)]
+     * </pre>
+     * @ensures <pre>
+     * [every handle h of #$this.heads[s], ..., #$this.tails[s] is at the end
+     *  of the list of slot PLACE(h.key, $this.cursor), in the same order]
+     * </pre>
+     */
+    private void relink(int s) {
+        Handle<T> h = this.heads[s];
+        this.heads[s] = null;
+        this.tails[s] = null;
+        this.occupied[s / SLOTS] &= ~(1L << (s % SLOTS));
+        while (h != null) {
+            Handle<T> following = h.next;
+            h.slot = -1;
+            this.link(h);
+            h = following;
+        }
+    }
+
+    /**
+     * Marks every handle in the lists as removed and unlinks it, so that
+     * handles to entries being dropped report {@code isInMachine} as false.
+     */
+    private void releaseHandles() {
+        for (int s = 0; s < this.heads.length; s++) {
+            Handle<T> h = this.heads[s];
+            while (h != null) {
+                Handle<T> following = h.next;
+                h.prev = null;
+                h.next = null;
+                h.slot = -1;
+                h = following;
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest nonempty slot of the lowest nonempty level, which
+     * holds the first entry.
+     *
+     * @return the slot
+     * @requires $this.size > 0
+     */
+    private int lowestSlot() {
+        int level = 0;
+        while (this.occupied[level] == 0) {
+            level++;
+        }
+        return SLOTS * level + Long.numberOfTrailingZeros(this.occupied[level]);
+    }
+
+    /**
+     * Returns TIME of the earliest key that belongs in slot {@code s} for the
+     * current cursor: the cursor with its bits above the level of {@code s}
+     * kept, the level's bits set to the digit of {@code s}, and those below
+     * cleared. For a slot of level 0, that is the key of its entries.
+     *
+     * @param s
+     *            the slot
+     * @return the TIME of the start of slot s
+     */
+    private long slotStart(int s) {
+        int shift = BITS_PER_LEVEL * (s / SLOTS);
+        long above = 0;
+        if (shift + BITS_PER_LEVEL < Long.SIZE) {
+            above = this.cursor & (-1L << (shift + BITS_PER_LEVEL));
+        }
+        return above | ((long) (s % SLOTS) << shift);
+    }
+
+    /**
+     * Moves the cursor to the start of slot {@code s} and spreads the slot's
+     * entries over the levels below.
+     *
+     * @param s
+     *            the slot
+     * @updates $this.heads, $this.tails, $this.occupied, $this.cursor
+     * @requires <pre>
+     * s = [the lowest nonempty slot of the lowest nonempty level]  and
+     * s >= SLOTS
+     * </pre>
+     * @ensures <pre>
+     * TIME(#$this.cursor) <= TIME($this.cursor) <= [TIME of every key]
+     * </pre>
+     */
+    private void cascade(int s) {
+        this.cursor = this.slotStart(s);
+        /*
+         * Every entry of slot s now differs from the cursor only below the
+         * level, so each moves down.
+         */
+        this.relink(s);
+    }
+
+    /**
+     * Cascades until level 0 holds the first entry, and returns its handle.
+     *
+     * @return the handle of the first entry
+     * @updates $this.heads, $this.tails, $this.occupied, $this.cursor
+     * @requires $this.size > 0
+     * @ensures <pre>
+     * [first is the first handle of the lowest nonempty slot of level 0, and
+     *  its entry comes first, and before any other entry with the same key
+     *  that was added later]  and
+     * TIME(#$this.cursor) <= TIME($this.cursor) <= TIME(first.key)
+     * </pre>
+     */
+    private Handle<T> first() {
+        while (this.occupied[0] == 0) {
+            this.cascade(this.lowestSlot());
+        }
+        return this.heads[this.lowestSlot()];
+    }
+
+    /**
+     * Removes the first entry and returns its handle; the cursor moves to its
+     * key.
+     *
+     * @return the handle of the removed entry
+     * @updates $this
+     * @requires $this.size > 0
+     * @ensures <pre>
+     * [removeFirstHandle is the handle of the first entry of #$this, added
+     *  first among those with its key]  and
+     * removeFirstHandle.slot = -1  and
+     * TIME($this.cursor) = TIME(removeFirstHandle.key)
+     * </pre>
+     */
+    private Handle<T> removeFirstHandle() {
+        Handle<T> h = this.first();
+        this.unlink(h);
+        this.cursor = time(h.key);
+        this.size--;
+        return h;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * for every slot s
+     *   ([$this.heads[s], ..., $this.tails[s] is a doubly linked list through
+     *     the next and prev fields of the handles, empty iff
+     *     $this.heads[s] = null]  and
+     *    [bit s mod SLOTS of $this.occupied[s / SLOTS] is set iff
+     *     $this.heads[s] /= null]  and
+     *    for every handle h in the list
+     *      (h.slot = s  and  h.data /= null  and
+     *       TIME($this.cursor) <= TIME(h.key)  and
+     *       PLACE(h.key, $this.cursor) = s))  and
+     * $this.size = [total number of handles in the lists]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int count = 0;
+        for (int s = 0; s < this.heads.length; s++) {
+            boolean bit = (this.occupied[s / SLOTS] & (1L << (s % SLOTS))) != 0;
+            assert bit == (this.heads[s] != null) : ""
+                    + "Violation of: [bit s of $this.occupied is set iff"
+                    + " $this.heads[s] /= null]";
+            Handle<T> previous = null;
+            Handle<T> h = this.heads[s];
+            while (h != null) {
+                assert h.prev == previous : ""
+                        + "Violation of: [the list is doubly linked]";
+                assert h.slot == s : "Violation of: h.slot = s";
+                assert h.data != null : "Violation of: h.data /= null";
+                assert Long.compareUnsigned(this.cursor, time(h.key)) <= 0 : ""
+                        + "Violation of: TIME($this.cursor) <= TIME(h.key)";
+                assert this.place(time(h.key)) == s : ""
+                        + "Violation of: PLACE(h.key, $this.cursor) = s";
+                count++;
+                previous = h;
+                h = h.next;
+            }
+            assert this.tails[s] == previous : ""
+                    + "Violation of: [$this.tails[s] is the last handle]";
+        }
+        assert this.size == count : ""
+                + "Violation of: $this.size = [number of handles]";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param extractor
+     *            key extractor
+     * @param order
+     *            the order on entries that compares their keys
+     * @requires order = [order on entries comparing keys computed by extractor]
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.keyExtractor = extractor  and  $this.machineOrder = order  and
+     * [all slots are empty]  and  $this.cursor = TIME(Long.MIN_VALUE)  and
+     * $this.size = 0
+     * </pre>
+     */
+    private void createNewRep(ToLongFunction<? super T> extractor,
+            Comparator<T> order) {
+
+        this.insertionMode = true;
+        this.keyExtractor = extractor;
+        this.machineOrder = order;
+        this.heads = newHandles(LEVELS * SLOTS);
+        this.tails = newHandles(LEVELS * SLOTS);
+        this.occupied = new long[LEVELS];
+        this.cursor = time(Long.MIN_VALUE);
+        this.size = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from key extractor; entries come out in increasing order of
+     * their keys.
+     *
+     * @param keyExtractor
+     *            function computing the key (for instance, the deadline) of an
+     *            entry
+     */
+    public TimingWheelSortingMachine(ToLongFunction<? super T> keyExtractor) {
+        this.createNewRep(keyExtractor, Comparator.comparingLong(keyExtractor));
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(ToLongFunction.class)
+                    .newInstance(this.keyExtractor);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.releaseHandles();
+        this.createNewRep(this.keyExtractor, this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof TimingWheelSortingMachine<?> : ""
+                + "Violation of: source is of dynamic type"
+                + " TimingWheelSortingMachine<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * TimingWheelSortingMachine<?>, and the ? must be T or the call would
+         * not have compiled.
+         */
+        TimingWheelSortingMachine<T> localSource =
+                (TimingWheelSortingMachine<T>) source;
+        this.releaseHandles();
+        this.insertionMode = localSource.insertionMode;
+        this.keyExtractor = localSource.keyExtractor;
+        this.machineOrder = localSource.machineOrder;
+        this.heads = localSource.heads;
+        this.tails = localSource.tails;
+        this.occupied = localSource.occupied;
+        this.cursor = localSource.cursor;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.keyExtractor,
+                localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this}; unlike most
+     * implementations, this may be done in extraction mode as well.
+     *
+     * @param x
+     *            the element to be added
+     * @updates this.contents
+     * @requires <pre>
+     * [the key of x is not before the key of the last entry removed from
+     *  this, if any, nor before the time of the last call to advanceTo]
+     * </pre>
+     * @ensures this.contents = #this.contents union {x}
+     */
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.addWithHandle(x);
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        Handle<T> h = this.removeFirstHandle();
+
+        assert this.conventionHolds();
+        return h.data;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new TimingWheelSortingMachineIterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the contents of {@code this} and returns a handle to
+     * it, for use with {@code cancel}. This may be done in either mode.
+     *
+     * @param x
+     *            the element to be added
+     * @return the handle to x
+     * @updates this.contents
+     * @requires <pre>
+     * [the key of x is not before the key of the last entry removed from
+     *  this, if any, nor before the time of the last call to advanceTo]
+     * </pre>
+     * @ensures <pre>
+     * this.contents = #this.contents union {x}  and
+     * addWithHandle.entry = x  and  addWithHandle.isInMachine
+     * </pre>
+     */
+    public final Handle<T> addWithHandle(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Handle<T> h = new Handle<T>(x, this.keyExtractor.applyAsLong(x));
+        assert Long.compareUnsigned(this.cursor, time(h.key)) <= 0 : ""
+                + "Violation of: [the key of x is not before the key of the"
+                + " last entry removed or the time of the last advanceTo]";
+        this.link(h);
+        this.size++;
+
+        assert this.conventionHolds();
+        return h;
+    }
+
+    /**
+     * Removes the entry that {@code h} refers to.
+     *
+     * @param h
+     *            the handle to the entry to be removed
+     * @updates this.contents
+     * @requires <pre>
+     * h.isInMachine  and  [h was returned by addWithHandle of this]
+     * </pre>
+     * @ensures <pre>
+     * this.contents = #this.contents \ {h.entry}  and  not h.isInMachine
+     * </pre>
+     */
+    public final void cancel(Handle<T> h) {
+        assert h != null : "Violation of: h is not null";
+        assert h.isInMachine() : "Violation of: h.isInMachine";
+        assert this.heads[h.slot] != null : ""
+                + "Violation of: [h was returned by addWithHandle of this]";
+
+        this.unlink(h);
+        this.size--;
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Removes, in order, every entry of {@code this} whose key is at most
+     * {@code time}, passing each to {@code expired.accept} as soon as it is
+     * removed, and returns how many there were. {@code expired} may add
+     * entries whose keys are not before the key of the entry it was passed
+     * (for instance, to reschedule a periodic timer), and those are removed
+     * too if their keys are at most {@code time}.
+     *
+     * @param time
+     *            the time up to which entries are removed
+     * @param expired
+     *            the action to be taken with each entry removed
+     * @return the number of entries removed
+     * @updates this.contents
+     * @requires not this.insertion_mode
+     * @ensures <pre>
+     * [expired.accept has been called with each entry with key at most time,
+     *  in order, and those entries have been removed]  and
+     * advanceTo = [the number of such entries]  and
+     * [entries with keys before time can no longer be added]
+     * </pre>
+     */
+    public final int advanceTo(long time, Consumer<? super T> expired) {
+        assert expired != null : "Violation of: expired is not null";
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+
+        long t = time(time);
+        int count = 0;
+        /*
+         * Go one cascade at a time, and only while the first slot starts by
+         * time, so the cursor is never moved past it.
+         */
+        while (this.size > 0 && Long.compareUnsigned(
+                this.slotStart(this.lowestSlot()), t) <= 0) {
+            int s = this.lowestSlot();
+            if (s >= SLOTS) {
+                this.cascade(s);
+            } else {
+                Handle<T> h = this.removeFirstHandle();
+                assert this.conventionHolds();
+                expired.accept(h.data);
+                count++;
+            }
+        }
+        if (Long.compareUnsigned(this.cursor, t) < 0) {
+            /*
+             * Every key left is after time, so it agrees with both the old
+             * cursor and time above the highest level in which they differ,
+             * and at that level is not before time. Only the entries of the
+             * slot of time at that level share its digit there, and they move
+             * down; every other entry keeps its place.
+             */
+            int s = this.place(t);
+            this.cursor = t;
+            this.relink(s);
+        }
+
+        assert this.conventionHolds();
+        return count;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code TimingWheelSortingMachine}; visits the entries slot by slot.
+     */
+    private final class TimingWheelSortingMachineIterator
+            implements Iterator<T> {
+
+        /**
+         * Index of the slot of the next handle.
+         */
+        private int slot;
+
+        /**
+         * Next handle to visit, or null if there is none.
+         */
+        private Handle<T> current;
+
+        /**
+         * No-argument constructor.
+         */
+        private TimingWheelSortingMachineIterator() {
+            this.slot = -1;
+            this.current = null;
+            this.advanceSlot();
+            assert TimingWheelSortingMachine.this.conventionHolds();
+        }
+
+        /**
+         * Moves to the first handle of the next nonempty slot, if any.
+         *
+         * @updates this.slot, this.current
+         */
+        private void advanceSlot() {
+            Handle<T>[] heads = TimingWheelSortingMachine.this.heads;
+            this.current = null;
+            while (this.current == null && this.slot + 1 < heads.length) {
+                this.slot++;
+                this.current = heads[this.slot];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.current != null;
+            assert TimingWheelSortingMachine.this.conventionHolds();
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = this.current.data;
+            this.current = this.current.next;
+            if (this.current == null) {
+                this.advanceSlot();
+            }
+            assert TimingWheelSortingMachine.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * JUnit test fixture for {@code ByteArraySortingMachine}'s constructors and
+ * kernel methods.
+ */
+public class ByteArraySortingMachineTest {
+
+    /**
+     * Number of entries for the tests that distribute more than once.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns a {@code ByteArraySortingMachine} with the given
+     * order, entries, and mode.
+     *
+     * @param order
+     *            the order
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgs = (insertionMode, order, [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<byte[]> createFromArgs(Comparator<byte[]> order,
+            boolean insertionMode, byte[]... args) {
+        SortingMachine<byte[]> m = new ByteArraySortingMachine(order);
+        for (byte[] x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Returns the {@code i}th of a family of keys with long common prefixes,
+     * repeats, and bytes above 127.
+     *
+     * @param i
+     *            the index
+     * @return the key
+     */
+    private static byte[] key(int i) {
+        int n = (i * 7919) % (MANY / 4);
+        byte[] key = new byte[4 + n % 5];
+        key[0] = (byte) 0xC3;
+        key[1] = (byte) (n % 3);
+        for (int j = 2; j < key.length; j++) {
+            key[j] = (byte) (n * (j + 31));
+        }
+        return key;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        SortingMachine<byte[]> m = new ByteArraySortingMachine();
+
+        assertEquals(ByteArraySortingMachine.UNSIGNED_LEXICOGRAPHIC,
+                m.order());
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAdd() {
+        SortingMachine<byte[]> m = this.createFromArgs(
+                ByteArraySortingMachine.UNSIGNED_LEXICOGRAPHIC, true,
+                new byte[] { 1 });
+
+        m.add(new byte[] { 2 });
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(2, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstUnsignedPrefixesAndEmpty() {
+        SortingMachine<byte[]> m = this.createFromArgs(
+                ByteArraySortingMachine.UNSIGNED_LEXICOGRAPHIC, false,
+                new byte[] { -1 }, new byte[] { 1, 2 }, new byte[] {},
+                new byte[] { 1 }, new byte[] { 127 }, new byte[] { 1, 2 });
+
+        assertArrayEquals(new byte[] {}, m.removeFirst());
+        assertArrayEquals(new byte[] { 1 }, m.removeFirst());
+        assertArrayEquals(new byte[] { 1, 2 }, m.removeFirst());
+        assertArrayEquals(new byte[] { 1, 2 }, m.removeFirst());
+        assertArrayEquals(new byte[] { 127 }, m.removeFirst());
+        assertArrayEquals(new byte[] { -1 }, m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstOtherOrder() {
+        Comparator<byte[]> signed = Arrays::compare;
+        SortingMachine<byte[]> m = this.createFromArgs(signed, false,
+                new byte[] { 1 }, new byte[] { -1 }, new byte[] { 0 });
+
+        assertArrayEquals(new byte[] { -1 }, m.removeFirst());
+        assertArrayEquals(new byte[] { 0 }, m.removeFirst());
+        assertArrayEquals(new byte[] { 1 }, m.removeFirst());
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyKeysInOrder() {
+        SortingMachine<byte[]> m = new ByteArraySortingMachine();
+        byte[][] expected = new byte[MANY][];
+        for (int i = 0; i < MANY; i++) {
+            m.add(key(i));
+            expected[i] = key(i);
+        }
+        Arrays.sort(expected, Arrays::compareUnsigned);
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < MANY; i++) {
+            assertArrayEquals(expected[i], m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testTransferFrom() {
+        SortingMachine<byte[]> m = new ByteArraySortingMachine();
+        SortingMachine<byte[]> source = this.createFromArgs(
+                ByteArraySortingMachine.UNSIGNED_LEXICOGRAPHIC, false,
+                new byte[] { 5 }, new byte[] { 4 });
+
+        m.transferFrom(source);
+
+        assertEquals(false, m.isInInsertionMode());
+        assertEquals(2, m.size());
+        assertEquals(true, source.isInInsertionMode());
+        assertEquals(0, source.size());
+        assertArrayEquals(new byte[] { 4 }, m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIterator() {
+        SortingMachine<byte[]> m = this.createFromArgs(
+                ByteArraySortingMachine.UNSIGNED_LEXICOGRAPHIC, true,
+                new byte[] { 3, 4 }, new byte[] { 5 });
+        int sum = 0;
+        for (byte[] x : m) {
+            for (byte b : x) {
+                sum += b;
+            }
+        }
+
+        assertEquals(12, sum);
+    }
+
+}
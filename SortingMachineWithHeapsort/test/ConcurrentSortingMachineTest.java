@@ -0,0 +1,136 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentSortingMachine}, plus
+ * tests of adding from several threads.
+ */
+public final class ConcurrentSortingMachineTest extends SortingMachineTest {
+
+    /**
+     * Order to be used in the tests of adding from several threads.
+     */
+    private static final Comparator<Integer> NATURAL = Comparator
+            .naturalOrder();
+
+    /**
+     * Number of adding threads.
+     */
+    private static final int PRODUCERS = 4;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new ConcurrentSortingMachine<String>(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Adds {@code 0} through {@code PRODUCERS * perThread - 1} to {@code m},
+     * thread {@code t} of {@code PRODUCERS} adding those congruent to t modulo
+     * PRODUCERS, in decreasing order, and waits for all the threads to
+     * finish.
+     *
+     * @param m
+     *            the machine
+     * @param perThread
+     *            number of entries each thread adds
+     * @updates m
+     * @requires m.insertion_mode
+     * @ensures <pre>
+     * m.contents = #m.contents union {0, 1, ..., PRODUCERS * perThread - 1}
+     * </pre>
+     */
+    private static void addConcurrently(SortingMachine<Integer> m,
+            int perThread) {
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int t = 0; t < PRODUCERS; t++) {
+            int first = t;
+            producers[t] = new Thread(() -> {
+                for (int i = perThread - 1; i >= 0; i--) {
+                    m.add(i * PRODUCERS + first);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread p : producers) {
+            try {
+                p.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while joining", e);
+            }
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testAddConcurrentlySmall() {
+        final int perThread = 25;
+        SortingMachine<Integer> m = new ConcurrentSortingMachine<Integer>(
+                NATURAL);
+
+        addConcurrently(m, perThread);
+
+        assertEquals(PRODUCERS * perThread, m.size());
+        m.changeToExtractionMode();
+        for (int i = 0; i < PRODUCERS * perThread; i++) {
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Challenging: enough entries that changeToExtractionMode works in
+     * parallel.
+     */
+    @Test
+    public void testAddConcurrentlyLarge() {
+        final int perThread = ConcurrentSortingMachine.PARALLEL_THRESHOLD
+                / PRODUCERS + 1;
+        SortingMachine<Integer> m = new ConcurrentSortingMachine<Integer>(
+                NATURAL, 1);
+
+        addConcurrently(m, perThread);
+
+        assertEquals(PRODUCERS * perThread, m.size());
+        m.changeToExtractionMode();
+        for (int i = 0; i < PRODUCERS * perThread; i++) {
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine: after clear, the same threads add to new buffers.
+     */
+    @Test
+    public void testAddConcurrentlyAfterClear() {
+        final int perThread = 10;
+        SortingMachine<Integer> m = new ConcurrentSortingMachine<Integer>(
+                NATURAL);
+        m.add(-1);
+
+        m.clear();
+        addConcurrently(m, perThread);
+        addConcurrently(m, perThread);
+
+        assertEquals(2 * PRODUCERS * perThread, m.size());
+        m.changeToExtractionMode();
+        for (int i = 0; i < PRODUCERS * perThread; i++) {
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * JUnit test fixture for {@code DoubleKeyedSortingMachine}'s constructors and
+ * kernel methods, with {@code String} entries keyed by the numbers they
+ * spell.
+ */
+public class DoubleKeyedSortingMachineTest {
+
+    /**
+     * Creates and returns a {@code DoubleKeyedSortingMachine} with the given
+     * entries in extraction mode, keyed by the numbers they spell.
+     *
+     * @param reversed
+     *            whether the order of keys is reversed
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (false, [order by value or reversed],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsTest(boolean reversed,
+            String... args) {
+        SortingMachine<String> m = new DoubleKeyedSortingMachine<String>(
+                Double::parseDouble, reversed);
+        for (String x : args) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        SortingMachine<String> m = this.createFromArgsTest(false, "2.5",
+                "-0.0", "-Infinity", "0.0", "-3e10", "1e-300", "NaN");
+
+        assertEquals("-Infinity", m.removeFirst());
+        assertEquals("-3e10", m.removeFirst());
+        assertEquals("-0.0", m.removeFirst());
+        assertEquals("0.0", m.removeFirst());
+        assertEquals("1e-300", m.removeFirst());
+        assertEquals("2.5", m.removeFirst());
+        assertEquals("NaN", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        SortingMachine<String> m = this.createFromArgsTest(true, "2.5", "-1",
+                "Infinity", "0.5");
+
+        assertEquals("Infinity", m.removeFirst());
+        assertEquals("2.5", m.removeFirst());
+        assertEquals("0.5", m.removeFirst());
+        assertEquals("-1", m.removeFirst());
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testClearThenReuse() {
+        SortingMachine<String> m = this.createFromArgsTest(false, "1", "2");
+
+        m.clear();
+        m.add("7");
+        m.add("-7");
+        m.changeToExtractionMode();
+
+        assertEquals(2, m.size());
+        assertEquals("-7", m.removeFirst());
+    }
+
+}
@@ -0,0 +1,202 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code DoubleSortingMachine}'s constructors, kernel
+ * methods, and unboxed methods.
+ */
+public class DoubleSortingMachineTest {
+
+    /**
+     * Number of entries for the tests that grow the array.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns an {@code DoubleSortingMachine} with the given entries
+     * and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private DoubleSortingMachine createFromArgsTest(boolean reversed,
+            boolean insertionMode, double... args) {
+        DoubleSortingMachine m = new DoubleSortingMachine(reversed);
+        for (double x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine<Double>} of the reference
+     * implementation type with the given entries and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsRef = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<Double> createFromArgsRef(boolean reversed,
+            boolean insertionMode, double... args) {
+        Comparator<Double> order = Comparator.naturalOrder();
+        if (reversed) {
+            order = Comparator.reverseOrder();
+        }
+        SortingMachine<Double> m = new SortingMachine1L<Double>(order);
+        for (double x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        DoubleSortingMachine m = new DoubleSortingMachine();
+        SortingMachine<Double> mExpected = this.createFromArgsRef(false,
+                true);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAddBoxedAndUnboxed() {
+        DoubleSortingMachine m = this.createFromArgsTest(false, true, 5, 3);
+        SortingMachine<Double> mExpected = this.createFromArgsRef(false,
+                true, 5, 3, 7, -1);
+
+        m.add(Double.valueOf(7));
+        m.add(-1.0);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testChangeToExtractionMode() {
+        DoubleSortingMachine m = this.createFromArgsTest(false, true, 5, 3, 5);
+        SortingMachine<Double> mExpected = this.createFromArgsRef(false,
+                false, 5, 3, 5);
+
+        m.changeToExtractionMode();
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        DoubleSortingMachine m = this.createFromArgsTest(false, false, 4.5,
+                Double.NaN, 0.0, Double.NEGATIVE_INFINITY, -0.0, -9.25);
+
+        assertEquals(Double.NEGATIVE_INFINITY, m.removeFirstDouble(), 0.0);
+        assertEquals(Double.valueOf(-9.25), m.removeFirst());
+        assertEquals(Double.valueOf(-0.0), m.removeFirst());
+        assertEquals(Double.valueOf(0.0), m.removeFirst());
+        assertEquals(4.5, m.removeFirstDouble(), 0.0);
+        assertEquals(Double.valueOf(Double.NaN), m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        DoubleSortingMachine m = this.createFromArgsTest(true, false, 4.5,
+                Double.NaN, 0.0, Double.NEGATIVE_INFINITY, -0.0, -9.25);
+        SortingMachine<Double> mExpected = this.createFromArgsRef(true,
+                false, -0.0, -9.25, Double.NEGATIVE_INFINITY);
+
+        assertEquals(Double.valueOf(Double.NaN), m.removeFirst());
+        assertEquals(4.5, m.removeFirstDouble(), 0.0);
+        assertEquals(Double.valueOf(0.0), m.removeFirst());
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyEntriesInOrder() {
+        DoubleSortingMachine m = new DoubleSortingMachine();
+        for (int i = 0; i < MANY; i++) {
+            m.add((double) (i * 7919 % MANY));
+        }
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, m.removeFirstDouble(), 0.0);
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testClearThenReuse() {
+        DoubleSortingMachine m = this.createFromArgsTest(false, false, 2, 1);
+        SortingMachine<Double> mExpected = this.createFromArgsRef(false,
+                true, 8);
+
+        m.clear();
+        m.add(8.0);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIteratorUnboxed() {
+        DoubleSortingMachine m = this.createFromArgsTest(true, true, 3, -2);
+        double sum = 0;
+        PrimitiveIterator.OfDouble it = m.iterator();
+        while (it.hasNext()) {
+            sum += it.nextDouble();
+        }
+
+        assertEquals(1.0, sum, 0.0);
+    }
+
+}
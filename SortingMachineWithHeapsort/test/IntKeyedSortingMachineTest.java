@@ -0,0 +1,174 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code IntKeyedSortingMachine}'s constructors and
+ * kernel methods, with {@code String} entries keyed by their lengths. The
+ * reference machines are given the order of the machine being tested, since
+ * machines are equal only if their orders are the same object.
+ */
+public class IntKeyedSortingMachineTest {
+
+    /**
+     * Number of entries for the tests that grow the arrays.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns an {@code IntKeyedSortingMachine} with the given
+     * entries and mode, keyed by length.
+     *
+     * @param reversed
+     *            whether the order of keys is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (insertionMode, [order by length or reversed],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsTest(boolean reversed,
+            boolean insertionMode, String... args) {
+        SortingMachine<String> m = new IntKeyedSortingMachine<String>(
+                String::length, reversed);
+        for (String x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine<String>} of the reference
+     * implementation type with the given order, entries, and mode.
+     *
+     * @param order
+     *            the order, taken from the machine being tested
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsRef = (insertionMode, order,
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsRef(Comparator<String> order,
+            boolean insertionMode, String... args) {
+        SortingMachine<String> m = new SortingMachine1L<String>(order);
+        for (String x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        SortingMachine<String> m = new IntKeyedSortingMachine<String>(
+                String::length);
+        SortingMachine<String> mExpected = this.createFromArgsRef(m.order(),
+                true);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testChangeToExtractionMode() {
+        SortingMachine<String> m = this.createFromArgsTest(false, true, "ccc",
+                "a", "bb");
+        SortingMachine<String> mExpected = this.createFromArgsRef(m.order(),
+                false, "ccc", "a", "bb");
+
+        m.changeToExtractionMode();
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        SortingMachine<String> m = this.createFromArgsTest(false, false, "ccc",
+                "", "a", "bbbb");
+
+        assertEquals("", m.removeFirst());
+        assertEquals("a", m.removeFirst());
+        assertEquals("ccc", m.removeFirst());
+        assertEquals("bbbb", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        SortingMachine<String> m = this.createFromArgsTest(true, false, "ccc",
+                "", "a", "bbbb");
+        SortingMachine<String> mExpected = this.createFromArgsRef(m.order(),
+                false, "a", "");
+
+        assertEquals("bbbb", m.removeFirst());
+        assertEquals("ccc", m.removeFirst());
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyEntriesInOrder() {
+        SortingMachine<Integer> m = new IntKeyedSortingMachine<Integer>(
+                x -> x);
+        for (int i = 0; i < MANY; i++) {
+            m.add((i * 7919) % MANY);
+        }
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testTransferFrom() {
+        SortingMachine<String> m = this.createFromArgsTest(true, true, "x");
+        SortingMachine<String> source = this.createFromArgsTest(false, false,
+                "bb", "a");
+        SortingMachine<String> mExpected = this.createFromArgsRef(
+                source.order(), false, "bb", "a");
+        SortingMachine<String> sourceExpected = this.createFromArgsRef(
+                source.order(), true);
+
+        m.transferFrom(source);
+
+        assertEquals(mExpected, m);
+        assertEquals(sourceExpected, source);
+        assertEquals("a", m.removeFirst());
+    }
+
+}
@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code IntSortingMachine}'s constructors, kernel
+ * methods, and unboxed methods.
+ */
+public class IntSortingMachineTest {
+
+    /**
+     * Number of entries for the tests that grow the array.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns an {@code IntSortingMachine} with the given entries
+     * and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private IntSortingMachine createFromArgsTest(boolean reversed,
+            boolean insertionMode, int... args) {
+        IntSortingMachine m = new IntSortingMachine(reversed);
+        for (int x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine<Integer>} of the reference
+     * implementation type with the given entries and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsRef = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<Integer> createFromArgsRef(boolean reversed,
+            boolean insertionMode, int... args) {
+        Comparator<Integer> order = Comparator.naturalOrder();
+        if (reversed) {
+            order = Comparator.reverseOrder();
+        }
+        SortingMachine<Integer> m = new SortingMachine1L<Integer>(order);
+        for (int x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        IntSortingMachine m = new IntSortingMachine();
+        SortingMachine<Integer> mExpected = this.createFromArgsRef(false,
+                true);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAddBoxedAndUnboxed() {
+        IntSortingMachine m = this.createFromArgsTest(false, true, 5, 3);
+        SortingMachine<Integer> mExpected = this.createFromArgsRef(false,
+                true, 5, 3, 7, -1);
+
+        m.add(Integer.valueOf(7));
+        m.add(-1);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testChangeToExtractionMode() {
+        IntSortingMachine m = this.createFromArgsTest(false, true, 5, 3, 5);
+        SortingMachine<Integer> mExpected = this.createFromArgsRef(false,
+                false, 5, 3, 5);
+
+        m.changeToExtractionMode();
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        IntSortingMachine m = this.createFromArgsTest(false, false, 4, -9,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+
+        assertEquals(Integer.MIN_VALUE, m.removeFirstInt());
+        assertEquals(Integer.valueOf(-9), m.removeFirst());
+        assertEquals(0, m.removeFirstInt());
+        assertEquals(4, m.removeFirstInt());
+        assertEquals(Integer.MAX_VALUE, m.removeFirstInt());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        IntSortingMachine m = this.createFromArgsTest(true, false, 4, -9,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+        SortingMachine<Integer> mExpected = this.createFromArgsRef(true,
+                false, -9, Integer.MIN_VALUE);
+
+        assertEquals(Integer.MAX_VALUE, m.removeFirstInt());
+        assertEquals(Integer.valueOf(4), m.removeFirst());
+        assertEquals(0, m.removeFirstInt());
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyEntriesInOrder() {
+        IntSortingMachine m = new IntSortingMachine();
+        for (int i = 0; i < MANY; i++) {
+            m.add((i * 7919) % MANY);
+        }
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, m.removeFirstInt());
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testClearThenReuse() {
+        IntSortingMachine m = this.createFromArgsTest(false, false, 2, 1);
+        SortingMachine<Integer> mExpected = this.createFromArgsRef(false,
+                true, 8);
+
+        m.clear();
+        m.add(8);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIteratorUnboxed() {
+        IntSortingMachine m = this.createFromArgsTest(true, true, 3, -2);
+        int sum = 0;
+        PrimitiveIterator.OfInt it = m.iterator();
+        while (it.hasNext()) {
+            sum += it.nextInt();
+        }
+
+        assertEquals(1, sum);
+    }
+
+}
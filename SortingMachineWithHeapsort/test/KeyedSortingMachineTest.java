@@ -0,0 +1,172 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code KeyedSortingMachine}'s constructors and
+ * kernel methods. The reference machines are given the order of the machine
+ * being tested, since machines are equal only if their orders are the same
+ * object.
+ */
+public class KeyedSortingMachineTest {
+
+    /**
+     * Number of entries for the test that counts key computations.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns a {@code KeyedSortingMachine} with the given
+     * entries and mode, keyed by length.
+     *
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (insertionMode, [order by length],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsTest(boolean insertionMode,
+            String... args) {
+        SortingMachine<String> m = new KeyedSortingMachine<String, Integer>(
+                String::length, Comparator.naturalOrder());
+        for (String x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine<String>} of the reference
+     * implementation type with the given order, entries, and mode.
+     *
+     * @param order
+     *            the order, taken from the machine being tested
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsRef = (insertionMode, order,
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsRef(Comparator<String> order,
+            boolean insertionMode, String... args) {
+        SortingMachine<String> m = new SortingMachine1L<String>(order);
+        for (String x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        SortingMachine<String> m = this.createFromArgsTest(true);
+        SortingMachine<String> mExpected = this.createFromArgsRef(m.order(),
+                true);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAddThenChangeToExtractionMode() {
+        SortingMachine<String> m = this.createFromArgsTest(true, "ccc", "a");
+        SortingMachine<String> mExpected = this.createFromArgsRef(m.order(),
+                false, "ccc", "a", "bb");
+
+        m.add("bb");
+        m.changeToExtractionMode();
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testTransferFrom() {
+        SortingMachine<String> m = this.createFromArgsTest(true, "x");
+        SortingMachine<String> source = this.createFromArgsTest(false, "bb",
+                "a");
+        SortingMachine<String> mExpected = this.createFromArgsRef(
+                source.order(), false, "bb", "a");
+        SortingMachine<String> sourceExpected = this.createFromArgsRef(
+                source.order(), true);
+
+        m.transferFrom(source);
+
+        assertEquals(mExpected, m);
+        assertEquals(sourceExpected, source);
+        assertEquals("a", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstByLookedUpKey() {
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("the", 12);
+        counts.put("cat", 3);
+        counts.put("sat", 7);
+        SortingMachine<String> m = new KeyedSortingMachine<String, Integer>(
+                counts::get, Comparator.reverseOrder());
+        m.add("cat");
+        m.add("the");
+        m.add("sat");
+        m.changeToExtractionMode();
+
+        assertEquals("the", m.removeFirst());
+        assertEquals("sat", m.removeFirst());
+        assertEquals("cat", m.removeFirst());
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testEachKeyComputedOnce() {
+        int[] calls = { 0 };
+        Function<Integer, Integer> key = x -> {
+            calls[0]++;
+            return -x;
+        };
+        SortingMachine<Integer> m = new KeyedSortingMachine<Integer, Integer>(
+                key, Comparator.naturalOrder());
+        for (int i = 0; i < MANY; i++) {
+            m.add((i * 7919) % MANY);
+        }
+        m.changeToExtractionMode();
+
+        for (int i = MANY - 1; i >= 0; i--) {
+            assertEquals(Integer.valueOf(i), m.removeFirst());
+        }
+        assertEquals(MANY, calls[0]);
+    }
+
+}
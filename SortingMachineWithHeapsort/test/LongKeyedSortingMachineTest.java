@@ -0,0 +1,85 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * JUnit test fixture for {@code LongKeyedSortingMachine}'s constructors and
+ * kernel methods, with {@code String} entries keyed by the numbers they
+ * spell.
+ */
+public class LongKeyedSortingMachineTest {
+
+    /**
+     * Creates and returns a {@code LongKeyedSortingMachine} with the given
+     * entries in extraction mode, keyed by the numbers they spell.
+     *
+     * @param reversed
+     *            whether the order of keys is reversed
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (false, [order by value or reversed],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<String> createFromArgsTest(boolean reversed,
+            String... args) {
+        SortingMachine<String> m = new LongKeyedSortingMachine<String>(
+                Long::parseLong, reversed);
+        for (String x : args) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        SortingMachine<String> m = this.createFromArgsTest(false,
+                "9223372036854775807", "0", "-9223372036854775808",
+                "4294967296", "-1");
+
+        assertEquals("-9223372036854775808", m.removeFirst());
+        assertEquals("-1", m.removeFirst());
+        assertEquals("0", m.removeFirst());
+        assertEquals("4294967296", m.removeFirst());
+        assertEquals("9223372036854775807", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        SortingMachine<String> m = this.createFromArgsTest(true, "3",
+                "-9223372036854775808", "4294967296");
+
+        assertEquals("4294967296", m.removeFirst());
+        assertEquals("3", m.removeFirst());
+        assertEquals("-9223372036854775808", m.removeFirst());
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testNewInstance() {
+        SortingMachine<String> m = this.createFromArgsTest(true, "1", "2");
+
+        SortingMachine<String> n = m.newInstance();
+
+        assertEquals(true, n.isInInsertionMode());
+        assertEquals(0, n.size());
+        n.add("5");
+        n.add("6");
+        n.changeToExtractionMode();
+        assertEquals("6", n.removeFirst());
+    }
+
+}
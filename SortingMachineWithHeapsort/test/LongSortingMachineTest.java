@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code LongSortingMachine}'s constructors, kernel
+ * methods, and unboxed methods.
+ */
+public class LongSortingMachineTest {
+
+    /**
+     * Number of entries for the tests that grow the array.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Creates and returns an {@code LongSortingMachine} with the given entries
+     * and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private LongSortingMachine createFromArgsTest(boolean reversed,
+            boolean insertionMode, long... args) {
+        LongSortingMachine m = new LongSortingMachine(reversed);
+        for (long x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine<Long>} of the reference
+     * implementation type with the given entries and mode.
+     *
+     * @param reversed
+     *            whether the order is reversed
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsRef = (insertionMode, [natural or reversed order],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private SortingMachine<Long> createFromArgsRef(boolean reversed,
+            boolean insertionMode, long... args) {
+        Comparator<Long> order = Comparator.naturalOrder();
+        if (reversed) {
+            order = Comparator.reverseOrder();
+        }
+        SortingMachine<Long> m = new SortingMachine1L<Long>(order);
+        for (long x : args) {
+            m.add(x);
+        }
+        if (!insertionMode) {
+            m.changeToExtractionMode();
+        }
+        return m;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testConstructor() {
+        LongSortingMachine m = new LongSortingMachine();
+        SortingMachine<Long> mExpected = this.createFromArgsRef(false,
+                true);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAddBoxedAndUnboxed() {
+        LongSortingMachine m = this.createFromArgsTest(false, true, 5, 3);
+        SortingMachine<Long> mExpected = this.createFromArgsRef(false,
+                true, 5, 3, 7, -1);
+
+        m.add(Long.valueOf(7));
+        m.add(-1L);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testChangeToExtractionMode() {
+        LongSortingMachine m = this.createFromArgsTest(false, true, 5, 3, 5);
+        SortingMachine<Long> mExpected = this.createFromArgsRef(false,
+                false, 5, 3, 5);
+
+        m.changeToExtractionMode();
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstNatural() {
+        LongSortingMachine m = this.createFromArgsTest(false, false, 4, -9,
+                Long.MAX_VALUE, Long.MIN_VALUE, 0);
+
+        assertEquals(Long.MIN_VALUE, m.removeFirstLong());
+        assertEquals(Long.valueOf(-9), m.removeFirst());
+        assertEquals(0L, m.removeFirstLong());
+        assertEquals(4L, m.removeFirstLong());
+        assertEquals(Long.MAX_VALUE, m.removeFirstLong());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstReversed() {
+        LongSortingMachine m = this.createFromArgsTest(true, false, 4, -9,
+                Long.MAX_VALUE, Long.MIN_VALUE, 0);
+        SortingMachine<Long> mExpected = this.createFromArgsRef(true,
+                false, -9, Long.MIN_VALUE);
+
+        assertEquals(Long.MAX_VALUE, m.removeFirstLong());
+        assertEquals(Long.valueOf(4), m.removeFirst());
+        assertEquals(0L, m.removeFirstLong());
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testManyEntriesInOrder() {
+        LongSortingMachine m = new LongSortingMachine();
+        for (int i = 0; i < MANY; i++) {
+            m.add((long) i * 7919 % MANY);
+        }
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, m.removeFirstLong());
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testClearThenReuse() {
+        LongSortingMachine m = this.createFromArgsTest(false, false, 2, 1);
+        SortingMachine<Long> mExpected = this.createFromArgsRef(false,
+                true, 8);
+
+        m.clear();
+        m.add(8L);
+
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIteratorUnboxed() {
+        LongSortingMachine m = this.createFromArgsTest(true, true, 3, -2);
+        long sum = 0;
+        PrimitiveIterator.OfLong it = m.iterator();
+        while (it.hasNext()) {
+            sum += it.nextLong();
+        }
+
+        assertEquals(1L, sum);
+    }
+
+}
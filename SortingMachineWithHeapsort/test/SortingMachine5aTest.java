@@ -1,13 +1,33 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
 import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
 
 import components.sortingmachine.SortingMachine;
 import components.sortingmachine.SortingMachine1L;
 
 /**
- * Customized JUnit test fixture for {@code SortingMachine5a}.
+ * Customized JUnit test fixture for {@code SortingMachine5a}, plus tests of
+ * the batch methods.
  */
 public final class SortingMachine5aTest extends SortingMachineTest {
 
+    /**
+     * Order to be used in the tests of the batch methods.
+     */
+    private static final Comparator<String> NATURAL = Comparator
+            .naturalOrder();
+
+    /**
+     * Number of entries in the large tests of the batch methods, more than
+     * one chunk of {@code sortedStream}.
+     */
+    private static final int LARGE_SIZE = 5000;
+
     @Override
     protected SortingMachine<String> constructorTest(Comparator<String> order) {
         return new SortingMachine5a<String>(order);
@@ -18,4 +38,148 @@ public final class SortingMachine5aTest extends SortingMachineTest {
         return new SortingMachine1L<String>(order);
     }
 
+    /**
+     * Creates and returns a {@code SortingMachine5a} in extraction mode with
+     * the given entries.
+     *
+     * @param args
+     *            the entries
+     * @return the constructed machine
+     * @ensures <pre>
+     * extractionMachine = (false, NATURAL, [multiset of entries in args])
+     * </pre>
+     */
+    private static SortingMachine5a<String> extractionMachine(
+            String... args) {
+        SortingMachine5a<String> m = new SortingMachine5a<String>(NATURAL);
+        for (String x : args) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Creates and returns a {@code SortingMachine5a} in extraction mode with
+     * LARGE_SIZE entries, "0000" through "4999", added out of order.
+     *
+     * @return the constructed machine
+     */
+    private static SortingMachine5a<String> largeMachine() {
+        final int step = 7919;
+        SortingMachine5a<String> m = new SortingMachine5a<String>(NATURAL);
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            m.add(String.format("%04d", (int) ((long) i * step % LARGE_SIZE)));
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testRemoveFirstBatchPart() {
+        SortingMachine5a<String> m = extractionMachine("m", "c", "x", "a", "q");
+        String[] destination = { "-", "-", "-", "-", "-" };
+
+        int removed = m.removeFirst(destination, 1, 3);
+
+        assertEquals(3, removed);
+        assertArrayEquals(new String[] { "-", "a", "c", "m", "-" },
+                destination);
+        assertEquals(extractionMachine("x", "q"), m);
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public void testRemoveFirstBatchMoreThanSize() {
+        SortingMachine5a<String> m = extractionMachine("b", "a");
+        String[] destination = { "-", "-", "-", "-" };
+
+        int removed = m.removeFirst(destination, 0, 4);
+
+        assertEquals(2, removed);
+        assertArrayEquals(new String[] { "a", "b", "-", "-" }, destination);
+        assertEquals(extractionMachine(), m);
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public void testRemoveFirstBatchZero() {
+        SortingMachine5a<String> m = extractionMachine("b", "a");
+        String[] destination = {};
+
+        int removed = m.removeFirst(destination, 0, 0);
+
+        assertEquals(0, removed);
+        assertEquals(extractionMachine("a", "b"), m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public void testRemoveFirstBatchLarge() {
+        SortingMachine5a<String> m = largeMachine();
+        String[] destination = new String[LARGE_SIZE];
+
+        int first = m.removeFirst(destination, 0, LARGE_SIZE / 2);
+        int second = m.removeFirst(destination, first, LARGE_SIZE - first);
+
+        assertEquals(LARGE_SIZE / 2, first);
+        assertEquals(LARGE_SIZE - first, second);
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            assertEquals(String.format("%04d", i), destination[i]);
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testSortedStreamLimitLeavesRest() {
+        SortingMachine5a<String> m = extractionMachine("m", "c", "x", "a", "q");
+
+        List<String> first = m.sortedStream().limit(2)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of("a", "c"), first);
+        assertEquals(extractionMachine("m", "x", "q"), m);
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public void testSortedStreamEmpty() {
+        SortingMachine5a<String> m = extractionMachine();
+
+        long count = m.sortedStream().count();
+
+        assertEquals(0, count);
+        assertEquals(extractionMachine(), m);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public void testSortedStreamLargeDrains() {
+        SortingMachine5a<String> m = largeMachine();
+
+        List<String> all = m.sortedStream().collect(Collectors.toList());
+
+        assertEquals(LARGE_SIZE, all.size());
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            assertEquals(String.format("%04d", i), all.get(i));
+        }
+        assertEquals(0, m.size());
+    }
+
 }
@@ -0,0 +1,27 @@
+import java.util.Comparator;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine5a} using non-default
+ * constructor and expected size 1, so that adding entries grows the array.
+ */
+public final class SortingMachine5aTest1 extends SortingMachineTest {
+
+    /**
+     * Expected size to be used in tests.
+     */
+    private static final int TEST_EXPECTED_SIZE = 1;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine5a<String>(order, TEST_EXPECTED_SIZE);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+}
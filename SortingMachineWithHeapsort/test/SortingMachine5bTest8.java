@@ -0,0 +1,27 @@
+import java.util.Comparator;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine5b} using non-default
+ * constructor and arity 8.
+ */
+public final class SortingMachine5bTest8 extends SortingMachineTest {
+
+    /**
+     * Arity to be used in tests.
+     */
+    private static final int TEST_ARITY = 8;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine5b<String>(order, TEST_ARITY);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+}
@@ -0,0 +1,95 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine5c}, with a bound
+ * larger than the number of entries any kernel test adds, plus tests of the
+ * bound itself.
+ */
+public final class SortingMachine5cTest extends SortingMachineTest {
+
+    /**
+     * Bound to be used in the kernel tests.
+     */
+    private static final int TEST_LIMIT = 100;
+
+    /**
+     * Bound to be used in the tests of the bound.
+     */
+    private static final int SMALL_LIMIT = 3;
+
+    /**
+     * Order to be used in the tests of the bound.
+     */
+    private static final Comparator<String> NATURAL = Comparator
+            .naturalOrder();
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine5c<String>(order, TEST_LIMIT);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testAddBeyondLimitKeepsFirstEntries() {
+        SortingMachine<String> m = new SortingMachine5c<String>(NATURAL,
+                SMALL_LIMIT);
+        SortingMachine<String> mExpected = new SortingMachine1L<String>(
+                NATURAL);
+        String[] entries = { "m", "c", "x", "a", "q", "b", "z" };
+        for (String x : entries) {
+            m.add(x);
+        }
+        mExpected.add("a");
+        mExpected.add("b");
+        mExpected.add("c");
+
+        assertEquals(mExpected, m);
+        assertEquals(SMALL_LIMIT, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testRemoveFirstBeyondLimitInOrder() {
+        SortingMachine<String> m = new SortingMachine5c<String>(NATURAL,
+                SMALL_LIMIT);
+        String[] entries = { "m", "c", "x", "a", "q", "b", "z" };
+        for (String x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+
+        assertEquals("a", m.removeFirst());
+        assertEquals("b", m.removeFirst());
+        assertEquals("c", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testLimitZeroKeepsNothing() {
+        SortingMachine<String> m = new SortingMachine5c<String>(NATURAL, 0);
+        m.add("a");
+        m.add("b");
+
+        assertEquals(0, m.size());
+    }
+
+}
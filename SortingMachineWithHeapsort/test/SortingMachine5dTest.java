@@ -0,0 +1,106 @@
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine5d}, plus tests that
+ * equal entries come out in the order they were added.
+ */
+public final class SortingMachine5dTest extends SortingMachineTest {
+
+    /**
+     * Order to be used in the tests of stability: by length only, so entries
+     * of the same length are equal.
+     */
+    private static final Comparator<String> BY_LENGTH = Comparator
+            .comparingInt(String::length);
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine5d<String>(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Adds {@code entries} to {@code m}, changes it to extraction mode, and
+     * checks that removeFirst returns exactly the objects of
+     * {@code expected}, in that order.
+     *
+     * @param m
+     *            the machine
+     * @param entries
+     *            the entries to add
+     * @param expected
+     *            the entries expected, in order
+     * @updates m
+     * @requires m.insertion_mode and m.contents = {}
+     */
+    private static void assertRemovedInOrder(SortingMachine<String> m,
+            String[] entries, String[] expected) {
+        for (String x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        for (String x : expected) {
+            assertSame(x, m.removeFirst());
+        }
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testStableSmall() {
+        String[] entries = { "bb", "a", "cc", "d", "ee", "f" };
+        String[] expected = { "a", "d", "f", "bb", "cc", "ee" };
+        assertRemovedInOrder(new SortingMachine5d<String>(BY_LENGTH), entries,
+                expected);
+    }
+
+    /**
+     * Boundary: all entries equal, which a heap would scramble.
+     */
+    @Test
+    public void testStableAllEqual() {
+        final int count = 100;
+        String[] entries = new String[count];
+        for (int i = 0; i < count; i++) {
+            // Distinct objects that compare equal.
+            entries[i] = new String("x");
+        }
+        assertRemovedInOrder(new SortingMachine5d<String>(BY_LENGTH), entries,
+                entries);
+    }
+
+    /**
+     * Challenging: many entries of each of several lengths, added interleaved
+     * and longest first.
+     */
+    @Test
+    public void testStableInterleaved() {
+        final int lengths = 5;
+        final int perLength = 40;
+        String[] entries = new String[lengths * perLength];
+        for (int i = 0; i < perLength; i++) {
+            for (int c = 0; c < lengths; c++) {
+                entries[i * lengths + c] = "x".repeat(lengths - c) + i;
+            }
+        }
+        // Arrays.sort is stable on objects.
+        String[] expected = entries.clone();
+        Arrays.sort(expected, BY_LENGTH);
+        assertRemovedInOrder(new SortingMachine5d<String>(BY_LENGTH), entries,
+                expected);
+    }
+
+}
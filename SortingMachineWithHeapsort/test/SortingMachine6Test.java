@@ -0,0 +1,228 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine6} using a byte
+ * budget of 1 byte, so that every entry is written to its own run, plus tests
+ * that run files are deleted. Every machine a test builds writes its runs to
+ * a directory of the test's own, and is cleared after the test, which must
+ * leave the directory empty.
+ */
+public final class SortingMachine6Test extends SortingMachineTest {
+
+    /**
+     * Byte budget to be used in tests.
+     */
+    private static final int TEST_BYTE_BUDGET = 1;
+
+    /**
+     * Order to be used in the tests of run files.
+     */
+    private static final Comparator<String> NATURAL = Comparator
+            .naturalOrder();
+
+    /**
+     * Directory for the run files of this test, or null if none has been
+     * created yet.
+     */
+    private Path directory = null;
+
+    /**
+     * Machines built by this test.
+     */
+    private final List<SortingMachine<String>> built = new ArrayList<>();
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        if (this.directory == null) {
+            try {
+                this.directory = Files.createTempDirectory("sm6test");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        SortingMachine<String> m = new SortingMachine6<String>(order,
+                new SortingMachine6.StringSerializer(), TEST_BYTE_BUDGET,
+                this.directory);
+        this.built.add(m);
+        return m;
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Returns the number of files in the directory for run files.
+     *
+     * @return the number of files
+     */
+    private long runFileCount() {
+        long count = 0;
+        if (this.directory != null) {
+            try (Stream<Path> files = Files.list(this.directory)) {
+                count = files.count();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Clears every machine built by the test, checks that that deleted all
+     * their run files, and deletes the directory.
+     *
+     * @throws IOException
+     *             if the directory cannot be deleted
+     */
+    @After
+    public void clearMachines() throws IOException {
+        for (SortingMachine<String> m : this.built) {
+            m.clear();
+        }
+        assertEquals(0, this.runFileCount());
+        if (this.directory != null) {
+            Files.delete(this.directory);
+        }
+    }
+
+    /**
+     * Routine: removing every entry deletes every run file.
+     */
+    @Test
+    public void testDrainDeletesRunFiles() {
+        SortingMachine<String> m = this.constructorTest(NATURAL);
+        for (String x : new String[] { "d", "b", "c", "a" }) {
+            m.add(x);
+        }
+        assertEquals(4, this.runFileCount());
+        m.changeToExtractionMode();
+
+        for (String x : new String[] { "a", "b", "c", "d" }) {
+            assertEquals(x, m.removeFirst());
+        }
+
+        assertEquals(0, this.runFileCount());
+    }
+
+    /**
+     * Routine: clearing a machine in the middle of extraction deletes the
+     * run files not yet used up.
+     */
+    @Test
+    public void testClearDuringExtractionDeletesRunFiles() {
+        SortingMachine<String> m = this.constructorTest(NATURAL);
+        for (String x : new String[] { "d", "b", "c", "a" }) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        m.removeFirst();
+
+        m.clear();
+
+        assertEquals(0, this.runFileCount());
+    }
+
+    /**
+     * Routine: transferring into a machine deletes its own run files and
+     * keeps those of the source, which then hold its entries.
+     */
+    @Test
+    public void testTransferFromDeletesDroppedRunFiles() {
+        SortingMachine<String> m = this.constructorTest(NATURAL);
+        SortingMachine<String> source = this.constructorTest(NATURAL);
+        m.add("x");
+        m.add("y");
+        source.add("b");
+        source.add("a");
+        source.add("c");
+
+        m.transferFrom(source);
+
+        assertEquals(3, this.runFileCount());
+        m.changeToExtractionMode();
+        assertEquals("a", m.removeFirst());
+        assertEquals("b", m.removeFirst());
+        assertEquals("c", m.removeFirst());
+        assertEquals(0, this.runFileCount());
+    }
+
+    /**
+     * Adds to {@code m}, in a scrambled order, the strings of the numbers in
+     * {@code [0, n)} padded with zeros to five digits.
+     *
+     * @param m
+     *            the machine
+     * @param n
+     *            the number of entries
+     * @updates m
+     * @requires m.insertion_mode and n < 100000 and n mod 37 /= 0
+     */
+    private static void addScrambled(SortingMachine<String> m, int n) {
+        final int step = 37;
+        for (int i = 0; i < n; i++) {
+            m.add(String.format("%05d", (i * step) % n));
+        }
+    }
+
+    /**
+     * Challenging: 63 * 64 + 63 entries, one run each, leave 63 runs merged
+     * once and 63 runs not merged, which are merged further before they are
+     * removed, in order.
+     */
+    @Test
+    public void testRunsMergedInLevels() {
+        final int fanIn = 64;
+        final int n = (fanIn - 1) * fanIn + fanIn - 1;
+        SortingMachine<String> m = this.constructorTest(NATURAL);
+        addScrambled(m, n);
+        assertEquals(2 * (fanIn - 1), this.runFileCount());
+
+        m.changeToExtractionMode();
+
+        assertEquals(fanIn, this.runFileCount());
+        for (int i = 0; i < n; i++) {
+            assertEquals(String.format("%05d", i), m.removeFirst());
+        }
+        assertEquals(0, this.runFileCount());
+    }
+
+    /**
+     * Challenging: 64 * 64 entries, one run each, are merged through two
+     * levels into a single run.
+     */
+    @Test
+    public void testRunsMergedThroughTwoLevels() {
+        final int fanIn = 64;
+        final int n = fanIn * fanIn + 1;
+        SortingMachine<String> m = this.constructorTest(NATURAL);
+        addScrambled(m, n - 1);
+        assertEquals(1, this.runFileCount());
+        m.add(String.format("%05d", n - 1));
+        assertEquals(2, this.runFileCount());
+
+        m.changeToExtractionMode();
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(String.format("%05d", i), m.removeFirst());
+        }
+        assertEquals(0, this.runFileCount());
+    }
+
+}
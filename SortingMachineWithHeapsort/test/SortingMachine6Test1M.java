@@ -0,0 +1,28 @@
+import java.util.Comparator;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine6} using a byte
+ * budget large enough that nothing is written to disk.
+ */
+public final class SortingMachine6Test1M extends SortingMachineTest {
+
+    /**
+     * Byte budget to be used in tests.
+     */
+    private static final int TEST_BYTE_BUDGET = 1 << 20;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine6<String>(order,
+                new SortingMachine6.StringSerializer(), TEST_BYTE_BUDGET);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+}
@@ -0,0 +1,149 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine8}, plus tests of
+ * its priority-queue methods.
+ */
+public final class SortingMachine8Test extends SortingMachineTest {
+
+    /**
+     * Order to be used in the tests of the priority-queue methods.
+     */
+    private static final Comparator<String> NATURAL = Comparator
+            .naturalOrder();
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine8<String>(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testAddInExtractionMode() {
+        SortingMachine<String> m = new SortingMachine8<String>(NATURAL);
+        m.add("m");
+        m.add("c");
+        m.changeToExtractionMode();
+        String first = m.removeFirst();
+        m.add("a");
+        m.add("z");
+
+        assertEquals("c", first);
+        assertEquals("a", m.removeFirst());
+        assertEquals("m", m.removeFirst());
+        assertEquals("z", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testMeld() {
+        SortingMachine8<String> m = new SortingMachine8<String>(NATURAL);
+        SortingMachine8<String> other = new SortingMachine8<String>(NATURAL);
+        m.add("d");
+        m.add("b");
+        other.add("c");
+        other.add("a");
+        SortingMachine<String> mExpected = new SortingMachine1L<String>(
+                NATURAL);
+        mExpected.add("a");
+        mExpected.add("b");
+        mExpected.add("c");
+        mExpected.add("d");
+        SortingMachine<String> otherExpected = new SortingMachine1L<String>(
+                NATURAL);
+
+        m.meld(other);
+
+        assertEquals(mExpected, m);
+        assertEquals(otherExpected, other);
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testDecreaseKey() {
+        SortingMachine8<String> m = new SortingMachine8<String>(NATURAL);
+        m.add("c");
+        SortingMachine8.Handle<String> h = m.addWithHandle("x");
+        m.add("m");
+        m.changeToExtractionMode();
+
+        m.decreaseKey(h, "a");
+
+        assertEquals("a", h.entry());
+        assertEquals("a", m.removeFirst());
+        assertFalse(h.isInMachine());
+        assertEquals("c", m.removeFirst());
+        assertEquals("m", m.removeFirst());
+    }
+
+    /**
+     * Routine: clearing a machine leaves handles to its entries out of it, and
+     * handles to entries added afterwards still work.
+     */
+    @Test
+    public void testClearThenHandles() {
+        SortingMachine8<String> m = new SortingMachine8<String>(NATURAL);
+        SortingMachine8.Handle<String> h1 = m.addWithHandle("c");
+        SortingMachine8.Handle<String> h2 = m.addWithHandle("x");
+        m.add("m");
+
+        m.clear();
+
+        assertFalse(h1.isInMachine());
+        assertFalse(h2.isInMachine());
+        SortingMachine8.Handle<String> h3 = m.addWithHandle("y");
+        m.add("d");
+        m.decreaseKey(h3, "b");
+        m.changeToExtractionMode();
+        assertEquals("b", m.removeFirst());
+        assertEquals("d", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine: transferring into a machine leaves handles to its own entries
+     * out of it, and handles to the entries of the source refer to entries of
+     * the machine.
+     */
+    @Test
+    public void testTransferFromThenHandles() {
+        SortingMachine8<String> m = new SortingMachine8<String>(NATURAL);
+        SortingMachine8<String> source = new SortingMachine8<String>(NATURAL);
+        SortingMachine8.Handle<String> dropped = m.addWithHandle("c");
+        m.add("a");
+        SortingMachine8.Handle<String> moved = source.addWithHandle("x");
+        source.add("m");
+
+        m.transferFrom(source);
+
+        assertFalse(dropped.isInMachine());
+        assertTrue(moved.isInMachine());
+        m.decreaseKey(moved, "b");
+        m.changeToExtractionMode();
+        assertEquals("b", m.removeFirst());
+        assertEquals("m", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+}
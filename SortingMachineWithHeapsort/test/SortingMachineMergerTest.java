@@ -0,0 +1,181 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * JUnit test fixture for {@code SortingMachineMerger}.
+ */
+public class SortingMachineMergerTest {
+
+    /**
+     * Number of entries for the tests of many entries.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Number of machines for the tests of many machines.
+     */
+    private static final int SHARDS = 13;
+
+    /**
+     * Order counting how many times it is called.
+     */
+    private static final class CountingOrder implements Comparator<Integer> {
+
+        /**
+         * Number of calls to {@code compare} so far.
+         */
+        private int count = 0;
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            this.count++;
+            return Integer.compare(a, b);
+        }
+
+    }
+
+    /**
+     * Creates and returns a list of machines in extraction mode with the given
+     * order, one per array of entries.
+     *
+     * @param order
+     *            the order
+     * @param args
+     *            the entries of each machine
+     * @return the machines
+     */
+    private static List<SortingMachine<Integer>> machines(
+            Comparator<Integer> order, Integer[]... args) {
+        List<SortingMachine<Integer>> machines = new ArrayList<>();
+        for (Integer[] entries : args) {
+            SortingMachine<Integer> m = new SortingMachine5a<Integer>(order);
+            for (Integer x : entries) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            machines.add(m);
+        }
+        return machines;
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testOneEmptyMachine() {
+        SortingMachineMerger<Integer> merger = new SortingMachineMerger<>(
+                machines(Comparator.naturalOrder(), new Integer[] {}));
+
+        assertEquals(0, merger.size());
+        assertEquals(false, merger.hasNext());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testRemoveFirstThreeMachines() {
+        Comparator<Integer> order = Comparator.naturalOrder();
+        SortingMachineMerger<Integer> merger = new SortingMachineMerger<>(
+                machines(order, new Integer[] { 5, 1, 9 }, new Integer[] {},
+                        new Integer[] { 4, 4, 10, 0 }));
+
+        assertEquals(order, merger.order());
+        assertEquals(7, merger.size());
+        Integer[] expected = { 0, 1, 4, 4, 5, 9, 10 };
+        for (Integer x : expected) {
+            assertEquals(x, merger.removeFirst());
+        }
+        assertEquals(0, merger.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testIteratorDrains() {
+        List<SortingMachine<Integer>> ms = machines(Comparator.reverseOrder(),
+                new Integer[] { 3, 8 }, new Integer[] { 7 });
+        SortingMachineMerger<Integer> merger = new SortingMachineMerger<>(ms);
+        List<Integer> drained = new ArrayList<>();
+        while (merger.hasNext()) {
+            drained.add(merger.next());
+        }
+
+        assertEquals(Arrays.asList(8, 7, 3), drained);
+        assertEquals(0, ms.get(0).size());
+        assertEquals(0, ms.get(1).size());
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testComparisonsPerEntry() {
+        CountingOrder order = new CountingOrder();
+        Integer[][] shards = new Integer[SHARDS][MANY / SHARDS];
+        for (int s = 0; s < SHARDS; s++) {
+            for (int i = 0; i < shards[s].length; i++) {
+                shards[s][i] = (s * MANY + i * 7919) % (2 * MANY);
+            }
+        }
+        SortingMachineMerger<Integer> merger = new SortingMachineMerger<>(
+                machines(order, shards));
+        int n = merger.size();
+        order.count = 0;
+        Integer previous = merger.removeFirst();
+        for (int i = 1; i < n; i++) {
+            Integer x = merger.removeFirst();
+            assertEquals(true, previous <= x);
+            previous = x;
+        }
+        int extractionComparisons = order.count;
+
+        /*
+         * At most ceiling(log2 13) = 4 merge comparisons per entry, on top of
+         * the comparisons the machines make when drained on their own.
+         */
+        CountingOrder alone = new CountingOrder();
+        List<SortingMachine<Integer>> ms = machines(alone, shards);
+        alone.count = 0;
+        for (SortingMachine<Integer> m : ms) {
+            while (m.size() > 0) {
+                m.removeFirst();
+            }
+        }
+        assertEquals(true, extractionComparisons - alone.count <= 4 * n);
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public final void testFillInParallel() {
+        Comparator<Integer> order = Comparator.naturalOrder();
+        List<SortingMachine<Integer>> ms = new ArrayList<>();
+        for (int s = 0; s < SHARDS; s++) {
+            ms.add(new SortingMachine5a<Integer>(order));
+        }
+        Integer[] entries = new Integer[MANY];
+        for (int i = 0; i < MANY; i++) {
+            entries[i] = (i * 7919) % MANY;
+        }
+
+        SortingMachineMerger<Integer> merger = SortingMachineMerger
+                .fillInParallel(ms, entries);
+
+        assertEquals(MANY, merger.size());
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(Integer.valueOf(i), merger.removeFirst());
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code StringSortingMachine}. The kernel
+ * tests use an order that is not recognized, so they test the comparison sort;
+ * the tests below test multikey quicksort for the orders it handles.
+ */
+public final class StringSortingMachineTest extends SortingMachineTest {
+
+    /**
+     * Number of entries for the tests that partition more than once.
+     */
+    private static final int MANY = 500;
+
+    /**
+     * Natural order, the order sorted by case-sensitive multikey quicksort.
+     */
+    private static final Comparator<String> NATURAL = Comparator
+            .naturalOrder();
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new StringSortingMachine(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Returns the {@code i}th of a family of identifiers with long common
+     * prefixes, mixed case, and repeats.
+     *
+     * @param i
+     *            the index
+     * @return the identifier
+     */
+    private static String identifier(int i) {
+        String[] prefixes = { "getValue", "getvalue", "GETVALUE", "get", "" };
+        return prefixes[i % prefixes.length] + ((i * 7919) % (MANY / 3));
+    }
+
+    /**
+     * Fills {@code m} and {@code mExpected} with the same {@code MANY}
+     * identifiers and changes both to extraction mode.
+     *
+     * @param m
+     *            the machine being tested
+     * @param mExpected
+     *            the reference machine
+     */
+    private static void fillAndExtract(SortingMachine<String> m,
+            SortingMachine<String> mExpected) {
+        for (int i = 0; i < MANY; i++) {
+            m.add(identifier(i));
+            mExpected.add(identifier(i));
+        }
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public void testNaturalOrderManyIdentifiers() {
+        SortingMachine<String> m = new StringSortingMachine();
+        SortingMachine<String> mExpected = new SortingMachine1L<String>(
+                NATURAL);
+        fillAndExtract(m, mExpected);
+
+        while (mExpected.size() > 0) {
+            assertEquals(mExpected.removeFirst(), m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Challenging.
+     */
+    @Test
+    public void testCaseInsensitiveOrderManyIdentifiers() {
+        Comparator<String> order = String.CASE_INSENSITIVE_ORDER;
+        SortingMachine<String> m = new StringSortingMachine(order);
+        SortingMachine<String> mExpected = new SortingMachine1L<String>(order);
+        fillAndExtract(m, mExpected);
+
+        while (mExpected.size() > 0) {
+            String expected = mExpected.removeFirst();
+            String actual = m.removeFirst();
+            assertEquals(0, order.compare(expected, actual));
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testNaturalOrderPrefixesAndEmpty() {
+        SortingMachine<String> m = new StringSortingMachine();
+        String[] entries = { "ab", "", "abc", "a", "", "b", "abc" };
+        for (String x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+
+        assertEquals("", m.removeFirst());
+        assertEquals("", m.removeFirst());
+        assertEquals("a", m.removeFirst());
+        assertEquals("ab", m.removeFirst());
+        assertEquals("abc", m.removeFirst());
+        assertEquals("abc", m.removeFirst());
+        assertEquals("b", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public void testCaseInsensitiveOrderWithSurrogates() {
+        Comparator<String> order = String.CASE_INSENSITIVE_ORDER;
+        SortingMachine<String> m = this.constructorTest(order);
+        SortingMachine<String> mExpected = this.constructorRef(order);
+        String[] entries = { "b\uD801\uDC00", "B\uD801\uDC28", "a", "C" };
+        for (String x : entries) {
+            m.add(x);
+            mExpected.add(x);
+        }
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+
+        assertEquals(mExpected.removeFirst(), m.removeFirst());
+        String expected = mExpected.removeFirst();
+        assertEquals(0, order.compare(expected, m.removeFirst()));
+        expected = mExpected.removeFirst();
+        assertEquals(0, order.compare(expected, m.removeFirst()));
+        assertEquals("C", m.removeFirst());
+    }
+
+}
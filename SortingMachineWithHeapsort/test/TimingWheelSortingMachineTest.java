@@ -0,0 +1,323 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+
+/**
+ * JUnit test fixture for {@code TimingWheelSortingMachine}'s constructor,
+ * kernel methods, and timer operations, with {@code String} entries keyed by
+ * the numbers they spell.
+ */
+public class TimingWheelSortingMachineTest {
+
+    /**
+     * Creates and returns a {@code TimingWheelSortingMachine} with the given
+     * entries in extraction mode, keyed by the numbers they spell.
+     *
+     * @param args
+     *            the entries for the machine
+     * @return the constructed machine
+     * @ensures <pre>
+     * createFromArgsTest = (false, [order by value],
+     *   [multiset of entries in args])
+     * </pre>
+     */
+    private TimingWheelSortingMachine<String> createFromArgsTest(
+            String... args) {
+        TimingWheelSortingMachine<String> m =
+                new TimingWheelSortingMachine<String>(Long::parseLong);
+        for (String x : args) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        return m;
+    }
+
+    /**
+     * Routine: keys from every level of the wheel, including both extremes.
+     */
+    @Test
+    public final void testRemoveFirst() {
+        SortingMachine<String> m = this.createFromArgsTest(
+                "9223372036854775807", "0", "-9223372036854775808",
+                "4294967296", "-1", "63", "64", "4095", "4096");
+
+        assertEquals("-9223372036854775808", m.removeFirst());
+        assertEquals("-1", m.removeFirst());
+        assertEquals("0", m.removeFirst());
+        assertEquals("63", m.removeFirst());
+        assertEquals("64", m.removeFirst());
+        assertEquals("4095", m.removeFirst());
+        assertEquals("4096", m.removeFirst());
+        assertEquals("4294967296", m.removeFirst());
+        assertEquals("9223372036854775807", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine: entries with equal keys come out in the order they were added,
+     * including those added after some have been cascaded.
+     */
+    @Test
+    public final void testEqualKeysInOrderAdded() {
+        String[] added = { new String("5000"), new String("5000"),
+            new String("5000") };
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest(
+                added[0], "10", added[1]);
+
+        assertEquals("10", m.removeFirst());
+        m.add(added[2]);
+
+        assertSame(added[0], m.removeFirst());
+        assertSame(added[1], m.removeFirst());
+        assertSame(added[2], m.removeFirst());
+    }
+
+    /**
+     * Routine: adds in extraction mode, interleaved with removes.
+     */
+    @Test
+    public final void testAddInExtractionMode() {
+        SortingMachine<String> m = this.createFromArgsTest("100", "7");
+
+        assertEquals("7", m.removeFirst());
+        m.add("7");
+        m.add("50");
+        assertEquals("7", m.removeFirst());
+        assertEquals("50", m.removeFirst());
+        m.add("1000000");
+        assertEquals("100", m.removeFirst());
+        assertEquals("1000000", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testCancel() {
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("1");
+        TimingWheelSortingMachine.Handle<String> h2 = m.addWithHandle("2");
+        TimingWheelSortingMachine.Handle<String> h70 = m.addWithHandle("70");
+        m.add("300");
+
+        m.cancel(h70);
+        m.cancel(h2);
+
+        assertEquals(false, h2.isInMachine());
+        assertEquals(false, h70.isInMachine());
+        assertEquals(2, m.size());
+        assertEquals("1", m.removeFirst());
+        assertEquals("300", m.removeFirst());
+    }
+
+    /**
+     * Routine.
+     */
+    @Test
+    public final void testAdvanceTo() {
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("30",
+                "10", "20", "40", "20");
+        List<String> expired = new ArrayList<>();
+
+        int count = m.advanceTo(25, expired::add);
+
+        assertEquals(3, count);
+        assertEquals(Arrays.asList("10", "20", "20"), expired);
+        assertEquals(2, m.size());
+        assertEquals(0, m.advanceTo(29, expired::add));
+        assertEquals("30", m.removeFirst());
+    }
+
+    /**
+     * Challenging: the action given to advanceTo reschedules each entry until
+     * it is past the time.
+     */
+    @Test
+    public final void testAdvanceToReschedules() {
+        final int period = 100;
+        final int end = 1000;
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("0");
+        List<String> expired = new ArrayList<>();
+
+        int count = m.advanceTo(end, x -> {
+            expired.add(x);
+            m.add(Long.toString(Long.parseLong(x) + period));
+        });
+
+        assertEquals(end / period + 1, count);
+        assertEquals("0", expired.get(0));
+        assertEquals("1000", expired.get(count - 1));
+        assertEquals(1, m.size());
+        assertEquals("1100", m.removeFirst());
+    }
+
+    /**
+     * Routine: advanceTo moves the cursor to the time even when it removes
+     * nothing, and the entries left still come out in order around entries
+     * added afterwards.
+     */
+    @Test
+    public final void testAdvanceToMovesCursor() {
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("5000",
+                "4100", "70000", "4097");
+
+        assertEquals(0, m.advanceTo(4096, x -> {
+        }));
+        m.add("4096");
+        m.add("4099");
+
+        assertEquals("4096", m.removeFirst());
+        assertEquals("4097", m.removeFirst());
+        assertEquals("4099", m.removeFirst());
+        assertEquals("4100", m.removeFirst());
+        assertEquals("5000", m.removeFirst());
+        assertEquals("70000", m.removeFirst());
+    }
+
+    /**
+     * Challenging: random adds at or after the time of the last advanceTo,
+     * each advanceTo checked against the keys still in the machine.
+     */
+    @Test
+    public final void testRandomAdvanceTo() {
+        final int operations = 3000;
+        final int maxDelay = 1 << 20;
+        final int maxStep = 1 << 16;
+        Random rnd = new Random(2);
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest();
+        List<Long> keys = new ArrayList<>();
+        long now = 0;
+        for (int i = 0; i < operations; i++) {
+            if (rnd.nextBoolean()) {
+                long key = now + rnd.nextInt(maxDelay);
+                m.add(Long.toString(key));
+                keys.add(key);
+            } else {
+                now += rnd.nextInt(maxStep);
+                List<Long> expired = new ArrayList<>();
+                m.advanceTo(now, x -> expired.add(Long.parseLong(x)));
+                List<Long> due = new ArrayList<>();
+                for (Long key : keys) {
+                    if (key <= now) {
+                        due.add(key);
+                    }
+                }
+                due.sort(null);
+                assertEquals(due, expired);
+                keys.removeAll(due);
+            }
+            assertEquals(keys.size(), m.size());
+        }
+    }
+
+    /**
+     * Routine: clearing a machine leaves handles to its entries out of it, and
+     * handles to entries added afterwards can still be cancelled.
+     */
+    @Test
+    public final void testClearThenCancel() {
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("1");
+        TimingWheelSortingMachine.Handle<String> h2 = m.addWithHandle("2");
+        TimingWheelSortingMachine.Handle<String> h70 = m.addWithHandle("70");
+
+        m.clear();
+
+        assertEquals(false, h2.isInMachine());
+        assertEquals(false, h70.isInMachine());
+        TimingWheelSortingMachine.Handle<String> h3 = m.addWithHandle("3");
+        m.add("70");
+        m.cancel(h3);
+        assertEquals(false, h3.isInMachine());
+        m.changeToExtractionMode();
+        assertEquals("70", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Routine: transferring into a machine leaves handles to its own entries
+     * out of it, and handles to the entries of the source can be cancelled
+     * in the machine.
+     */
+    @Test
+    public final void testTransferFromThenCancel() {
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest("1");
+        TimingWheelSortingMachine<String> source = this.createFromArgsTest(
+                "300");
+        TimingWheelSortingMachine.Handle<String> dropped = m
+                .addWithHandle("2");
+        TimingWheelSortingMachine.Handle<String> moved = source
+                .addWithHandle("70");
+
+        m.transferFrom(source);
+
+        assertEquals(false, dropped.isInMachine());
+        assertEquals(true, moved.isInMachine());
+        m.cancel(moved);
+        assertEquals("300", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Challenging: random adds, cancels, and removes, each remove checked
+     * against the smallest key still in the machine.
+     */
+    @Test
+    public final void testRandomChurn() {
+        final int operations = 3000;
+        final int maxDelay = 1 << 20;
+        final int choices = 4;
+        Random rnd = new Random(1);
+        TimingWheelSortingMachine<String> m = this.createFromArgsTest();
+        List<TimingWheelSortingMachine.Handle<String>> handles =
+                new ArrayList<>();
+        long now = 0;
+        for (int i = 0; i < operations; i++) {
+            int choice = rnd.nextInt(choices);
+            if (choice < 2 || m.size() == 0) {
+                long key = now + rnd.nextInt(maxDelay);
+                handles.add(m.addWithHandle(Long.toString(key)));
+            } else if (choice == 2) {
+                int k = rnd.nextInt(handles.size());
+                TimingWheelSortingMachine.Handle<String> h = handles.get(k);
+                handles.set(k, handles.get(handles.size() - 1));
+                handles.remove(handles.size() - 1);
+                m.cancel(h);
+            } else {
+                long min = Long.MAX_VALUE;
+                for (TimingWheelSortingMachine.Handle<String> h : handles) {
+                    min = Math.min(min, h.key());
+                }
+                String x = m.removeFirst();
+                assertEquals(min, Long.parseLong(x));
+                handles.removeIf(h -> !h.isInMachine());
+                now = min;
+            }
+            assertEquals(handles.size(), m.size());
+        }
+    }
+
+    /**
+     * Boundary.
+     */
+    @Test
+    public final void testNewInstance() {
+        SortingMachine<String> m = this.createFromArgsTest("1", "2");
+
+        SortingMachine<String> n = m.newInstance();
+
+        assertEquals(true, n.isInInsertionMode());
+        assertEquals(0, n.size());
+        n.add("6");
+        n.add("5");
+        n.changeToExtractionMode();
+        assertEquals("5", n.removeFirst());
+    }
+
+}